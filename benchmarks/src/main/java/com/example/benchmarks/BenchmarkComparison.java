@@ -0,0 +1,64 @@
+package com.example.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class BenchmarkComparison {
+    
+    private BenchmarkComparison() {}
+    
+    // Usage: java -cp benchmarks.jar com.example.benchmarks.BenchmarkComparison baseline.json current.json
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json>");
+            System.exit(1);
+        }
+        
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+        
+        System.out.printf("%-90s %14s %14s %9s %s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode currentMetric = entry.getValue().get("primaryMetric");
+            JsonNode baselineResult = baseline.get(entry.getKey());
+            double currentScore = currentMetric.get("score").asDouble();
+            String unit = currentMetric.get("scoreUnit").asText();
+            
+            if (baselineResult == null) {
+                System.out.printf("%-90s %14s %14.3f %9s %s%n", entry.getKey(), "-", currentScore, "new", unit);
+                continue;
+            }
+            
+            double baselineScore = baselineResult.get("primaryMetric").get("score").asDouble();
+            double change = baselineScore == 0 ? 0 : (currentScore - baselineScore) / baselineScore * 100;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%n", entry.getKey(), baselineScore, currentScore, change, unit);
+        }
+    }
+    
+    private static Map<String, JsonNode> load(File file) throws Exception {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+    
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+        JsonNode params = result.get("params");
+        if (params != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                key.append(' ').append(field.getKey()).append('=').append(field.getValue().asText());
+            }
+        }
+        key.append(" threads=").append(result.get("threads").asInt());
+        return key.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.benchmarks;
+
+import com.example.orderservice.service.OrderArchive;
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.serde.EventDeserializer;
+import com.example.shared.serde.EventSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public final class BenchmarkFixtures {
+    
+    // Fixed instants keep serialized payload sizes identical between runs
+    public static final Instant REQUESTED_AT = Instant.parse("2025-06-30T14:00:00Z");
+    public static final Instant CREATED_AT = Instant.parse("2025-06-30T14:00:00.123456789Z");
+    
+    private static final String[][] CATALOG_ITEMS = {
+        {"P1001", "standard"},
+        {"P1003", "digital"},
+        {"P1004", "standard"},
+        {"P1006", "digital"},
+        {"P1002", "perishable"},
+        {"P9999", "standard"}
+    };
+    
+    // Same type mappings the services configure on their producers and consumers
+    private static final String TYPE_MAPPINGS = "orderEvent:com.example.shared.event.OrderEvent,"
+        + "inventoryCheckResultEvent:com.example.shared.event.InventoryCheckResultEvent";
+    
+    private static final int ARCHIVE_MEMTABLE_ENTRIES = 50_000;
+    
+    private BenchmarkFixtures() {}
+    
+    public static List<OrderItem> items(int size) {
+        List<OrderItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String[] catalogItem = CATALOG_ITEMS[i % CATALOG_ITEMS.length];
+            items.add(new OrderItem(catalogItem[0], 1 + (i % 3), catalogItem[1]));
+        }
+        return items;
+    }
+    
+    public static Order order(String orderId, int size) {
+        return new Order(orderId, "Benchmark Customer", items(size), REQUESTED_AT, OrderStatus.PENDING, CREATED_AT);
+    }
+    
+    public static List<MissingItem> missingItems(int size) {
+        List<MissingItem> missingItems = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            missingItems.add(new MissingItem("P" + (2000 + i), 5, 1, "Insufficient quantity"));
+        }
+        return missingItems;
+    }
+    
+    public static EventSerializer<Object> eventSerializer(String format) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(JsonSerializer.TYPE_MAPPINGS, TYPE_MAPPINGS);
+        configs.put(EventSerializer.DEFAULT_FORMAT, format);
+        
+        EventSerializer<Object> serializer = new EventSerializer<>();
+        serializer.configure(configs, false);
+        return serializer;
+    }
+    
+    public static <T> EventDeserializer<T> eventDeserializer(Class<T> type) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configs.put(JsonDeserializer.TYPE_MAPPINGS, TYPE_MAPPINGS);
+        
+        EventDeserializer<T> deserializer = new EventDeserializer<>(type);
+        deserializer.configure(configs, false);
+        return deserializer;
+    }
+    
+    // OrderArchive with the application.yml settings, minus fsync, writing to directory
+    public static OrderArchive orderArchive(Path directory) throws IOException {
+        OrderArchive archive = new OrderArchive(new PipelineMetrics(new SimpleMeterRegistry()));
+        DirectFieldAccessor fields = new DirectFieldAccessor(archive);
+        fields.setPropertyValue("enabled", true);
+        fields.setPropertyValue("directory", directory.toString());
+        fields.setPropertyValue("memtableMaxEntries", ARCHIVE_MEMTABLE_ENTRIES);
+        fields.setPropertyValue("flushInterval", Duration.ofMinutes(1));
+        fields.setPropertyValue("blockBytes", 4096);
+        fields.setPropertyValue("bloomBitsPerKey", 10);
+        fields.setPropertyValue("mergeFanIn", 4);
+        fields.setPropertyValue("retention", Duration.ofDays(3650));
+        fields.setPropertyValue("fsync", false);
+        archive.open();
+        return archive;
+    }
+    
+    // Archives orders decided 10 ms apart, 80% approved, flushing and merging as the archive's
+    // own worker would. Returns the orderIds in the order they were archived
+    public static String[] fillArchive(OrderArchive archive, int orders, long seed) throws IOException {
+        Random random = new Random(seed);
+        String[] orderIds = new String[orders];
+        for (int i = 0; i < orders; i++) {
+            orderIds[i] = randomOrderId(random);
+            OrderStatus status = random.nextInt(5) == 0 ? OrderStatus.REJECTED : OrderStatus.APPROVED;
+            archive.append(orderIds[i], status, CREATED_AT.plusMillis(10L * i));
+            if ((i + 1) % ARCHIVE_MEMTABLE_ENTRIES == 0) {
+                archive.maintain();
+            }
+        }
+        archive.maintain();
+        return orderIds;
+    }
+    
+    // Same shape as OrderService.generateOrderId
+    public static String randomOrderId(Random random) {
+        return String.format("ORD-%08X", random.nextInt());
+    }
+}
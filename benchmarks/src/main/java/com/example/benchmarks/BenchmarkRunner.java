@@ -0,0 +1,51 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+
+public final class BenchmarkRunner {
+    
+    private BenchmarkRunner() {}
+    
+    // Usage: java -jar benchmarks.jar [includeRegex] [--label release-x.y] [--quick]
+    public static void main(String[] args) throws Exception {
+        String include = ".*Benchmark.*";
+        String label = System.getProperty("benchmark.label", "local");
+        boolean quick = false;
+        
+        for (int i = 0; i < args.length; i++) {
+            if ("--label".equals(args[i]) && i + 1 < args.length) {
+                label = args[++i];
+            } else if ("--quick".equals(args[i])) {
+                quick = true;
+            } else {
+                include = args[i];
+            }
+        }
+        
+        File resultsDir = new File("benchmark-results");
+        resultsDir.mkdirs();
+        File resultFile = new File(resultsDir, "jmh-" + label + ".json");
+        
+        // Fixed forks, iterations and heap so runs are comparable across releases
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .include(include)
+            .forks(quick ? 1 : 2)
+            .warmupIterations(quick ? 2 : 5)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(quick ? 3 : 5)
+            .measurementTime(TimeValue.seconds(1))
+            .jvmArgsPrepend("-Xms1g", "-Xmx1g", "-XX:+UseG1GC", "-XX:+AlwaysPreTouch")
+            .shouldFailOnError(true)
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile.getPath());
+        
+        new Runner(options.build()).run();
+        System.out.println("Results written to " + resultFile.getAbsolutePath());
+    }
+}
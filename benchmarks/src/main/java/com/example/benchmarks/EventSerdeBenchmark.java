@@ -0,0 +1,84 @@
+package com.example.benchmarks;
+
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.serde.EventDeserializer;
+import com.example.shared.serde.EventSerializer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-message CPU of the Kafka value serde in both formats, including the type header
+// work the JSON path does on every record. See EventSizeReport for payload sizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventSerdeBenchmark {
+    
+    static final String ORDER_EVENTS_TOPIC = "order-events";
+    static final String RESULTS_TOPIC = "inventory-check-results";
+    
+    @Param({"json", "binary"})
+    public String format;
+    
+    private EventSerializer<Object> serializer;
+    private EventDeserializer<OrderEvent> orderEventDeserializer;
+    private EventDeserializer<InventoryCheckResultEvent> resultEventDeserializer;
+    
+    private OrderEvent orderEvent;
+    private InventoryCheckResultEvent resultEvent;
+    private byte[] orderEventBytes;
+    private byte[] resultEventBytes;
+    private Header[] orderEventHeaders;
+    private Header[] resultEventHeaders;
+    
+    @Setup
+    public void setUp() {
+        serializer = BenchmarkFixtures.eventSerializer(format);
+        orderEventDeserializer = BenchmarkFixtures.eventDeserializer(OrderEvent.class);
+        resultEventDeserializer = BenchmarkFixtures.eventDeserializer(InventoryCheckResultEvent.class);
+        
+        orderEvent = new OrderEvent("ORD-BENCH001", BenchmarkFixtures.CREATED_AT);
+        resultEvent = new InventoryCheckResultEvent("ORD-BENCH001", OrderStatus.REJECTED, BenchmarkFixtures.CREATED_AT);
+        
+        Headers headers = new RecordHeaders();
+        orderEventBytes = serializer.serialize(ORDER_EVENTS_TOPIC, headers, orderEvent);
+        orderEventHeaders = headers.toArray();
+        
+        headers = new RecordHeaders();
+        resultEventBytes = serializer.serialize(RESULTS_TOPIC, headers, resultEvent);
+        resultEventHeaders = headers.toArray();
+    }
+    
+    @Benchmark
+    public byte[] serializeOrderEvent() {
+        return serializer.serialize(ORDER_EVENTS_TOPIC, new RecordHeaders(), orderEvent);
+    }
+    
+    @Benchmark
+    public OrderEvent deserializeOrderEvent() {
+        // The JSON deserializer consumes the type header, so every call gets a fresh copy
+        return orderEventDeserializer.deserialize(ORDER_EVENTS_TOPIC, new RecordHeaders(orderEventHeaders), orderEventBytes);
+    }
+    
+    @Benchmark
+    public byte[] serializeInventoryCheckResultEvent() {
+        return serializer.serialize(RESULTS_TOPIC, new RecordHeaders(), resultEvent);
+    }
+    
+    @Benchmark
+    public InventoryCheckResultEvent deserializeInventoryCheckResultEvent() {
+        return resultEventDeserializer.deserialize(RESULTS_TOPIC, new RecordHeaders(resultEventHeaders), resultEventBytes);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.benchmarks;
+
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.serde.EventSerializer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+// Prints the serialized size of each event in both formats, value and type headers separately.
+// Usage: java -cp target/benchmarks.jar com.example.benchmarks.EventSizeReport
+public class EventSizeReport {
+    
+    public static void main(String[] args) {
+        OrderEvent orderEvent = new OrderEvent("ORD-BENCH001", BenchmarkFixtures.CREATED_AT);
+        InventoryCheckResultEvent resultEvent =
+            new InventoryCheckResultEvent("ORD-BENCH001", OrderStatus.REJECTED, BenchmarkFixtures.CREATED_AT);
+        
+        System.out.printf("%-28s %-8s %8s %10s %8s%n", "Event", "Format", "Value", "Headers", "Total");
+        for (String format : new String[] {"json", "binary"}) {
+            EventSerializer<Object> serializer = BenchmarkFixtures.eventSerializer(format);
+            print("OrderEvent", format, serializer, EventSerdeBenchmark.ORDER_EVENTS_TOPIC, orderEvent);
+            print("InventoryCheckResultEvent", format, serializer, EventSerdeBenchmark.RESULTS_TOPIC, resultEvent);
+        }
+    }
+    
+    private static void print(String name, String format, EventSerializer<Object> serializer, String topic, Object event) {
+        Headers headers = new RecordHeaders();
+        int valueBytes = serializer.serialize(topic, headers, event).length;
+        int headerBytes = 0;
+        for (Header header : headers) {
+            headerBytes += header.key().length() + header.value().length;
+        }
+        System.out.printf("%-28s %-8s %8d %10d %8d%n", name, format, valueBytes, headerBytes, valueBytes + headerBytes);
+    }
+}
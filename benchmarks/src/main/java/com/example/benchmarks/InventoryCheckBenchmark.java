@@ -0,0 +1,73 @@
+package com.example.benchmarks;
+
+import com.example.inventoryservice.config.JsonConfig;
+import com.example.inventoryservice.service.DemandAnalytics;
+import com.example.inventoryservice.service.InventoryService;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OffHeapOrderRepository;
+import com.example.shared.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InventoryCheckBenchmark {
+    
+    private static final String ORDER_ID = "ORD-BENCH001";
+    
+    @Param({"1", "10", "100", "1000"})
+    public int orderSize;
+    
+    private InventoryService inventoryService;
+    private List<OrderItem> items;
+    
+    @Setup
+    public void setUp() throws Exception {
+        JsonConfig jsonConfig = new JsonConfig();
+        JsonCodec jsonCodec = jsonConfig.jsonCodec(jsonConfig.objectMapper());
+        // The embedded repository, so the service code path runs without a Redis server
+        OrderRepository orderRepository = new OffHeapOrderRepository(jsonCodec, 64L * 1024 * 1024);
+        
+        items = BenchmarkFixtures.items(orderSize);
+        orderRepository.put(BenchmarkFixtures.order(ORDER_ID, orderSize), Duration.ofHours(1));
+        
+        // Demand analytics stays disabled: it is not initialized outside Spring
+        inventoryService = new InventoryService(orderRepository, new PipelineMetrics(new SimpleMeterRegistry()),
+            new DemandAnalytics());
+        inventoryService.initializeProductCatalog();
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public InventoryCheckResultEvent checkInventory_1Thread() {
+        return inventoryService.checkInventory(ORDER_ID, items);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public InventoryCheckResultEvent checkInventory_4Threads() {
+        return inventoryService.checkInventory(ORDER_ID, items);
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public InventoryCheckResultEvent checkInventory_maxThreads() {
+        return inventoryService.checkInventory(ORDER_ID, items);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.benchmarks;
+
+import com.example.inventoryservice.config.JsonConfig;
+import com.example.inventoryservice.service.DemandAnalytics;
+import com.example.inventoryservice.service.InventoryService;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OffHeapOrderRepository;
+import com.example.shared.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.DirectFieldAccessor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Latency of one wholesale order through checkInventory, sequentially (threads = 0) and with
+// the parallel check on a dedicated pool of that many threads. Run it on machines with
+// different core counts to see where the parallel path pays off.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LargeOrderCheckBenchmark {
+    
+    private static final String ORDER_ID = "ORD-BULK0001";
+    
+    @Param({"1000", "10000", "50000"})
+    public int orderSize;
+    
+    @Param({"0", "1", "2", "4"})
+    public int threads;
+    
+    private InventoryService inventoryService;
+    private List<OrderItem> items;
+    
+    @Setup
+    public void setUp() throws Exception {
+        JsonConfig jsonConfig = new JsonConfig();
+        JsonCodec jsonCodec = jsonConfig.jsonCodec(jsonConfig.objectMapper());
+        // Split over 64 stripes, so each has room for the largest order and its missing items
+        OrderRepository orderRepository = new OffHeapOrderRepository(jsonCodec, 512L * 1024 * 1024, false);
+        
+        items = BenchmarkFixtures.items(orderSize);
+        orderRepository.put(BenchmarkFixtures.order(ORDER_ID, orderSize), Duration.ofHours(1));
+        
+        inventoryService = new InventoryService(orderRepository, new PipelineMetrics(new SimpleMeterRegistry()),
+            new DemandAnalytics());
+        inventoryService.initializeProductCatalog();
+        DirectFieldAccessor settings = new DirectFieldAccessor(inventoryService);
+        settings.setPropertyValue("parallelCheckThreshold", threads == 0 ? 0 : 1);
+        settings.setPropertyValue("parallelCheckChunkSize", 1000);
+        settings.setPropertyValue("parallelCheckParallelism", threads);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        inventoryService.shutdownParallelCheckPool();
+    }
+    
+    @Benchmark
+    public InventoryCheckResultEvent checkInventory() {
+        return inventoryService.checkInventory(ORDER_ID, items);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.benchmarks;
+
+import com.example.notificationservice.model.CustomerDigest;
+import com.example.notificationservice.service.NotificationRenderer;
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NotificationRenderingBenchmark {
+    
+    @Param({"1", "10", "100"})
+    public int orderSize;
+    
+    private NotificationRenderer renderer;
+    private Order order;
+    private InventoryCheckResultEvent approved;
+    private InventoryCheckResultEvent rejected;
+    private List<MissingItem> missingItems;
+    private CustomerDigest digest;
+    
+    @Setup
+    public void setUp() {
+        renderer = new NotificationRenderer();
+        order = BenchmarkFixtures.order("ORD-BENCH001", orderSize);
+        approved = new InventoryCheckResultEvent("ORD-BENCH001", OrderStatus.APPROVED, BenchmarkFixtures.CREATED_AT);
+        rejected = new InventoryCheckResultEvent("ORD-BENCH001", OrderStatus.REJECTED, BenchmarkFixtures.CREATED_AT);
+        missingItems = BenchmarkFixtures.missingItems(orderSize);
+        
+        digest = new CustomerDigest("Benchmark Customer", BenchmarkFixtures.REQUESTED_AT,
+            BenchmarkFixtures.REQUESTED_AT.plusSeconds(60));
+        for (int i = 0; i < orderSize; i++) {
+            digest.recordApproved("ORD-" + i, 10);
+        }
+    }
+    
+    @Benchmark
+    public String renderOrderConfirmation() {
+        return renderer.renderOrderConfirmation(order, approved);
+    }
+    
+    @Benchmark
+    public String renderOrderRejection() {
+        return renderer.renderOrderRejection(order, rejected, missingItems);
+    }
+    
+    @Benchmark
+    public String renderDigest() {
+        return renderer.renderDigest(digest);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import com.example.orderservice.service.OrderArchive;
+import com.example.shared.dto.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Status lookups that fall through to the archive. The segment files are in the page cache,
+// so this measures index search, block read, CRC, inflate and scan, not disk latency.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderArchiveBenchmark {
+    
+    private static final int MISSING_IDS = 10_000;
+    
+    @Param({"100000", "1000000"})
+    public int orders;
+    
+    private Path directory;
+    private OrderArchive archive;
+    private String[] archivedIds;
+    private String[] missingIds;
+    
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("order-archive-benchmark");
+        archive = BenchmarkFixtures.orderArchive(directory);
+        archivedIds = BenchmarkFixtures.fillArchive(archive, orders, 42);
+        
+        // Random ids from another seed: inside every segment's key range, so each one is probed
+        Random random = new Random(7);
+        missingIds = new String[MISSING_IDS];
+        for (int i = 0; i < MISSING_IDS; i++) {
+            missingIds[i] = BenchmarkFixtures.randomOrderId(random);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        archive.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public OrderStatus getStatus_archived() {
+        return archive.getStatus(archivedIds[ThreadLocalRandom.current().nextInt(archivedIds.length)]);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public OrderStatus getStatus_missing() {
+        return archive.getStatus(missingIds[ThreadLocalRandom.current().nextInt(missingIds.length)]);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public OrderStatus getStatus_archived_4Threads() {
+        return archive.getStatus(archivedIds[ThreadLocalRandom.current().nextInt(archivedIds.length)]);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.benchmarks;
+
+import com.example.orderservice.service.OrderArchive;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Prints the archive's on-disk size per order next to the JSON an order takes in Redis.
+// Usage: java -cp target/benchmarks.jar com.example.benchmarks.OrderArchiveSizeReport
+public class OrderArchiveSizeReport {
+    
+    public static void main(String[] args) throws Exception {
+        JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+        int redisBytes = jsonCodec.writeString(BenchmarkFixtures.order("ORD-BENCH001", 3)).length();
+        System.out.printf("Redis order:{orderId} value, 3 items: %d bytes%n%n", redisBytes);
+        
+        System.out.printf("%10s %9s %12s %10s%n", "Orders", "Segments", "Bytes", "Per order");
+        for (int orders : new int[] {10_000, 100_000, 1_000_000}) {
+            Path directory = Files.createTempDirectory("order-archive-size");
+            OrderArchive archive = BenchmarkFixtures.orderArchive(directory);
+            try {
+                BenchmarkFixtures.fillArchive(archive, orders, 42);
+                System.out.printf("%10d %9d %12d %10.1f%n", archive.getRecordCount(), archive.getSegmentCount(),
+                    archive.getSizeBytes(), (double) archive.getSizeBytes() / archive.getRecordCount());
+            } finally {
+                archive.close();
+                try (Stream<Path> files = Files.walk(directory)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+}
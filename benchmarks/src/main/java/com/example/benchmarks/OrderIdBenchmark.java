@@ -0,0 +1,41 @@
+package com.example.benchmarks;
+
+import com.example.orderservice.service.OrderService;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderIdBenchmark {
+    
+    private OrderService orderService;
+    
+    @Setup
+    public void setUp() {
+        // generateOrderId only touches UUID, the collaborators are never used
+        orderService = new OrderService(null, null, new PipelineMetrics(new SimpleMeterRegistry()), null, null, null, null);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public String generateOrderId_1Thread() {
+        return orderService.generateOrderId();
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateOrderId_maxThreads() {
+        return orderService.generateOrderId();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.benchmarks;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// "objectMapper" is the per-service setup before JsonCodec: a plain mapper with JavaTimeModule,
+// readValue/writeValueAsString per call and a new TypeReference for lists. "jsonCodec" is the
+// shared tuned mapper with cached readers and writers that the services use now
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+    
+    @Param({"1", "10", "100"})
+    public int orderSize;
+    
+    @Param({"objectMapper", "jsonCodec"})
+    public String api;
+    
+    private boolean useCodec;
+    private ObjectMapper objectMapper;
+    private JsonCodec jsonCodec;
+    private Order order;
+    private OrderEvent orderEvent;
+    private InventoryCheckResultEvent resultEvent;
+    private List<MissingItem> missingItems;
+    
+    private String orderJson;
+    private byte[] orderJsonBytes;
+    private String orderEventJson;
+    private String resultEventJson;
+    private String missingItemsJson;
+    
+    @Setup
+    public void setUp() throws Exception {
+        useCodec = api.equals("jsonCodec");
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        jsonCodec = new JsonCodec(JsonMappers.create());
+        
+        order = BenchmarkFixtures.order("ORD-BENCH001", orderSize);
+        orderEvent = new OrderEvent("ORD-BENCH001", BenchmarkFixtures.CREATED_AT);
+        resultEvent = new InventoryCheckResultEvent("ORD-BENCH001", OrderStatus.REJECTED, BenchmarkFixtures.CREATED_AT);
+        missingItems = BenchmarkFixtures.missingItems(orderSize);
+        
+        // Both setups produce the same JSON, so the inputs are shared
+        orderJson = objectMapper.writeValueAsString(order);
+        orderJsonBytes = objectMapper.writeValueAsBytes(order);
+        orderEventJson = objectMapper.writeValueAsString(orderEvent);
+        resultEventJson = objectMapper.writeValueAsString(resultEvent);
+        missingItemsJson = objectMapper.writeValueAsString(missingItems);
+    }
+    
+    @Benchmark
+    public String serializeOrder() throws Exception {
+        return useCodec ? jsonCodec.writeString(order) : objectMapper.writeValueAsString(order);
+    }
+    
+    @Benchmark
+    public Order deserializeOrder() throws Exception {
+        return useCodec ? jsonCodec.read(orderJson, Order.class) : objectMapper.readValue(orderJson, Order.class);
+    }
+    
+    @Benchmark
+    public byte[] serializeOrderBytes() throws Exception {
+        return useCodec ? jsonCodec.writeBytes(order) : objectMapper.writeValueAsBytes(order);
+    }
+    
+    @Benchmark
+    public Order deserializeOrderBytes() throws Exception {
+        return useCodec ? jsonCodec.read(orderJsonBytes, Order.class) : objectMapper.readValue(orderJsonBytes, Order.class);
+    }
+    
+    @Benchmark
+    public String serializeOrderEvent() throws Exception {
+        return useCodec ? jsonCodec.writeString(orderEvent) : objectMapper.writeValueAsString(orderEvent);
+    }
+    
+    @Benchmark
+    public OrderEvent deserializeOrderEvent() throws Exception {
+        return useCodec ? jsonCodec.read(orderEventJson, OrderEvent.class) : objectMapper.readValue(orderEventJson, OrderEvent.class);
+    }
+    
+    @Benchmark
+    public String serializeInventoryCheckResultEvent() throws Exception {
+        return useCodec ? jsonCodec.writeString(resultEvent) : objectMapper.writeValueAsString(resultEvent);
+    }
+    
+    @Benchmark
+    public InventoryCheckResultEvent deserializeInventoryCheckResultEvent() throws Exception {
+        return useCodec
+            ? jsonCodec.read(resultEventJson, InventoryCheckResultEvent.class)
+            : objectMapper.readValue(resultEventJson, InventoryCheckResultEvent.class);
+    }
+    
+    @Benchmark
+    public List<MissingItem> deserializeMissingItems() throws Exception {
+        // Mirrors NotificationService.retrieveMissingItemsFromRedis before and after JsonCodec
+        return useCodec
+            ? jsonCodec.readList(missingItemsJson, MissingItem.class)
+            : objectMapper.readValue(missingItemsJson, new TypeReference<List<MissingItem>>() {});
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.inventoryservice.config;
+
+import com.example.inventoryservice.listener.OrderEventListener;
+import com.example.shared.bus.BusProducer;
+import com.example.shared.bus.EventBus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+
+// The embedded profile replaces KafkaConfig: results are published to an in-process EventBus
+// shared with the other services in this JVM, and OrderEventListener is subscribed to it
+// directly. Failed events are retried in place instead of through retry topics, then handed
+// to the listener's dead-letter handler; there is no DLT to replay from.
+@Configuration
+@Profile("embedded")
+public class EventBusConfig {
+    
+    @Value("${event-bus.name:events}")
+    private String busName;
+    
+    @Value("${event-bus.partitions:3}")
+    private int partitions;
+    
+    // Records each subscribed group may have waiting per partition
+    @Value("${event-bus.capacity:10000}")
+    private int capacity;
+    
+    @Value("${event-bus.max-block:PT10S}")
+    private Duration maxBlock;
+    
+    @Value("${event-bus.retry.attempts:4}")
+    private int retryAttempts;
+    
+    @Value("${event-bus.retry.backoff:PT0.2S}")
+    private Duration retryBackoff;
+    
+    @Value("${kafka.topics.order-events}")
+    private String orderEventsTopic;
+    
+    @Bean
+    public EventBus eventBus() {
+        return EventBus.shared(busName, partitions, capacity, maxBlock, retryAttempts, retryBackoff);
+    }
+    
+    @Bean
+    public KafkaTemplate<String, InventoryCheckResultEvent> kafkaTemplate(EventBus eventBus) {
+        return BusProducer.kafkaTemplate(eventBus);
+    }
+    
+    @Bean(destroyMethod = "close")
+    public EventBus.Subscription orderEventsSubscription(EventBus eventBus, ObjectProvider<OrderEventListener> listener) {
+        // The streams engine needs real Kafka topics
+        OrderEventListener orderEventListener = listener.getIfAvailable();
+        if (orderEventListener == null) {
+            throw new IllegalStateException("The embedded profile needs inventory.engine: listener");
+        }
+        return eventBus.<String, OrderEvent>subscribe(orderEventsTopic, "inventory-service-group",
+            orderEventListener::handleOrderEvent,
+            (record, e) -> orderEventListener.handleDeadLetter(record, e.getMessage()));
+    }
+}
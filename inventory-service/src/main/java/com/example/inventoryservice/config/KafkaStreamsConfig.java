@@ -0,0 +1,252 @@
+package com.example.inventoryservice.config;
+
+import com.example.inventoryservice.model.ProductInfo;
+import com.example.inventoryservice.service.InventoryService;
+import com.example.inventoryservice.service.InventoryTopology;
+import com.example.shared.dto.Order;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.kafka.ProducerProfile;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OrderRepository;
+import com.example.shared.serde.EventDeserializer;
+import com.example.shared.serde.EventSerializer;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerde;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+// inventory.engine: streams replaces OrderEventListener with InventoryTopology
+@Configuration
+@ConditionalOnProperty(name = "inventory.engine", havingValue = "streams")
+@Profile("!embedded")
+public class KafkaStreamsConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KafkaStreamsConfig.class);
+    
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+    
+    @Value("${kafka.topics.order-events}")
+    private String orderEventsTopic;
+    
+    @Value("${kafka.topics.inventory-check-results}")
+    private String inventoryCheckResultsTopic;
+    
+    @Value("${kafka.topics.orders:orders}")
+    private String ordersTopic;
+    
+    @Value("${kafka.topics.inventory-stock:inventory-stock}")
+    private String stockTopic;
+    
+    @Value("${kafka.serde.inventory-check-results:json}")
+    private String inventoryCheckResultsFormat;
+    
+    @Value("${kafka.producer.profile.inventory-check-results:balanced}")
+    private String inventoryCheckResultsProfile;
+    
+    @Value("${inventory.streams.application-id:inventory-service-streams}")
+    private String applicationId;
+    
+    @Value("${inventory.streams.state-dir:${java.io.tmpdir}/inventory-service/streams}")
+    private String stateDir;
+    
+    @Value("${inventory.streams.processing-guarantee:exactly_once_v2}")
+    private String processingGuarantee;
+    
+    @Value("${inventory.streams.threads:1}")
+    private int threads;
+    
+    // Each commit ends a transaction; results are readable before it by read_uncommitted consumers
+    // (the default in this repo), and by read_committed ones only after it
+    @Value("${inventory.streams.commit-interval:PT1S}")
+    private Duration commitInterval;
+    
+    // Partitions for order-events if it does not exist yet
+    @Value("${inventory.streams.partitions:3}")
+    private int partitions;
+    
+    // How long the orders topic keeps an order beyond the store's ORDER_TTL. No tombstones are
+    // written to it, so compaction alone would keep every order ever placed
+    @Value("${inventory.streams.orders-retention-grace:PT5M}")
+    private Duration ordersRetentionGrace;
+    
+    @Bean(destroyMethod = "close")
+    public KafkaStreams inventoryStreams(InventoryService inventoryService, OrderRepository orderRepository,
+                                         PipelineMetrics pipelineMetrics) throws Exception {
+        prepareTopics(inventoryService);
+        
+        InventoryTopology.Topics topics = new InventoryTopology.Topics(
+            orderEventsTopic, ordersTopic, stockTopic, inventoryCheckResultsTopic);
+        KafkaStreams streams = new KafkaStreams(
+            new InventoryTopology(inventoryService, orderRepository, pipelineMetrics)
+                .build(topics, orderEventSerde(), jsonSerde(Order.class), jsonSerde(ProductInfo.class), resultSerde()),
+            streamsProperties());
+        streams.setUncaughtExceptionHandler(e -> {
+            logger.error("Inventory streams thread failed, replacing it", e);
+            return org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.REPLACE_THREAD;
+        });
+        streams.start();
+        logger.info("Inventory streams engine started with {} guarantee", processingGuarantee);
+        return streams;
+    }
+    
+    private Properties streamsProperties() {
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        properties.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.put(StreamsConfig.STATE_DIR_CONFIG, stateDir);
+        properties.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, processingGuarantee);
+        properties.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, threads);
+        properties.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, commitInterval.toMillis());
+        properties.put(StreamsConfig.consumerPrefix("auto.offset.reset"), "earliest");
+        // The results producer gets the topic's profile instead of the Streams default linger of 100 ms
+        ProducerProfile.from(inventoryCheckResultsProfile).producerConfig()
+            .forEach((name, value) -> properties.put(StreamsConfig.producerPrefix(name), value));
+        return properties;
+    }
+    
+    // Same wire formats as the listener engine: OrderEvents in JSON or binary, results in the
+    // configured format with the JSON type mapping the other services expect
+    private Serde<OrderEvent> orderEventSerde() {
+        EventDeserializer<OrderEvent> deserializer = new EventDeserializer<>(OrderEvent.class);
+        deserializer.configure(Map.of(
+            JsonDeserializer.TRUSTED_PACKAGES, "*",
+            JsonDeserializer.TYPE_MAPPINGS, "orderEvent:com.example.shared.event.OrderEvent"), false);
+        return Serdes.serdeFrom(new EventSerializer<>(), deserializer);
+    }
+    
+    private Serde<InventoryCheckResultEvent> resultSerde() {
+        EventSerializer<InventoryCheckResultEvent> serializer = new EventSerializer<>();
+        serializer.configure(Map.of(
+            JsonSerializer.TYPE_MAPPINGS, "inventoryCheckResultEvent:com.example.shared.event.InventoryCheckResultEvent",
+            EventSerializer.formatConfig(inventoryCheckResultsTopic), inventoryCheckResultsFormat), false);
+        return Serdes.serdeFrom(serializer, new EventDeserializer<>(InventoryCheckResultEvent.class));
+    }
+    
+    private static <T> Serde<T> jsonSerde(Class<T> type) {
+        return new JsonSerde<>(type, JsonMappers.shared()).noTypeInfo().ignoreTypeHeaders();
+    }
+    
+    // Creates the orders and inventory-stock topics, with orders partitioned like order-events
+    // and deleted after its retention, and fills inventory-stock from the catalog the first time
+    private void prepareTopics(InventoryService inventoryService) throws ExecutionException, InterruptedException {
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+            Set<String> existing = admin.listTopics().names().get();
+            if (!existing.contains(orderEventsTopic)) {
+                createTopics(admin, List.of(new NewTopic(orderEventsTopic, Optional.of(partitions), Optional.empty())));
+            }
+            int orderEventsPartitions = partitionCount(admin, orderEventsTopic);
+            
+            List<NewTopic> missing = new ArrayList<>();
+            if (!existing.contains(ordersTopic)) {
+                missing.add(compacted(ordersTopic, orderEventsPartitions).configs(ordersTopicConfig()));
+            }
+            if (!existing.contains(stockTopic)) {
+                missing.add(compacted(stockTopic, 1));
+            }
+            createTopics(admin, missing);
+            if (existing.contains(ordersTopic)) {
+                // Created compact-only by an earlier version
+                ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, ordersTopic);
+                List<AlterConfigOp> ops = ordersTopicConfig().entrySet().stream()
+                    .map(entry -> new AlterConfigOp(new ConfigEntry(entry.getKey(), entry.getValue()), AlterConfigOp.OpType.SET))
+                    .toList();
+                admin.incrementalAlterConfigs(Map.of(resource, ops)).all().get();
+            }
+            
+            if (partitionCount(admin, ordersTopic) != orderEventsPartitions) {
+                throw new IllegalStateException(ordersTopic + " must have as many partitions as " + orderEventsTopic
+                    + " (" + orderEventsPartitions + ")");
+            }
+            if (isEmpty(admin, stockTopic)) {
+                seedStock(inventoryService.getProductCatalog());
+            }
+        }
+    }
+    
+    // Compacted, so a restore reads each order once, and deleted once no check can need it
+    private Map<String, String> ordersTopicConfig() {
+        return Map.of(
+            TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE,
+            TopicConfig.RETENTION_MS_CONFIG, Long.toString(InventoryTopology.ORDER_TTL.plus(ordersRetentionGrace).toMillis()));
+    }
+    
+    private static NewTopic compacted(String name, int partitionCount) {
+        return new NewTopic(name, Optional.of(partitionCount), Optional.empty())
+            .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+    }
+    
+    private static void createTopics(Admin admin, List<NewTopic> topics) throws ExecutionException, InterruptedException {
+        if (topics.isEmpty()) {
+            return;
+        }
+        try {
+            admin.createTopics(topics).all().get();
+        } catch (ExecutionException e) {
+            // Another instance created them first
+            if (!(e.getCause() instanceof org.apache.kafka.common.errors.TopicExistsException)) {
+                throw e;
+            }
+        }
+    }
+    
+    private static int partitionCount(Admin admin, String topic) throws ExecutionException, InterruptedException {
+        TopicDescription description = admin.describeTopics(List.of(topic)).allTopicNames().get().get(topic);
+        return description.partitions().size();
+    }
+    
+    private static boolean isEmpty(Admin admin, String topic) throws ExecutionException, InterruptedException {
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        for (int partition = 0; partition < partitionCount(admin, topic); partition++) {
+            latest.put(new TopicPartition(topic, partition), OffsetSpec.latest());
+        }
+        return admin.listOffsets(latest).all().get().values().stream().allMatch(offsets -> offsets.offset() == 0);
+    }
+    
+    private void seedStock(Map<String, ProductInfo> catalog) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        try (KafkaProducer<String, ProductInfo> producer = new KafkaProducer<>(configProps,
+                new StringSerializer(), new JsonSerializer<ProductInfo>(JsonMappers.shared()).noTypeInfo())) {
+            catalog.forEach((productId, productInfo) -> producer.send(new ProducerRecord<>(stockTopic, productId, productInfo)));
+            producer.flush();
+        }
+        logger.info("Seeded {} with {} products from the catalog", stockTopic, catalog.size());
+    }
+}
@@ -1,17 +1,21 @@
 package com.example.inventoryservice.config;
 
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.LegacyAwareStringRedisSerializer;
+import com.example.shared.repository.OffHeapOrderRepository;
+import com.example.shared.repository.OrderRepository;
+import com.example.shared.repository.RedisConnectionFactories;
+import com.example.shared.repository.RedisOrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
     
@@ -21,14 +25,46 @@ public class RedisConfig {
     @Value("${spring.redis.port:6379}")
     private int redisPort;
     
+    // Comma-separated host:port seeds; when set, Redis is a cluster and host and port are ignored
+    @Value("${spring.redis.cluster.nodes:}")
+    private String clusterNodes;
+    
+    @Value("${spring.redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+    
+    @Value("${spring.redis.cluster.topology-refresh-period:PT30S}")
+    private Duration clusterTopologyRefreshPeriod;
+    
+    // Rolling upgrade from the JSON-string value encoding (see LegacyAwareStringRedisSerializer)
+    @Value("${spring.redis.legacy-values.write:false}")
+    private boolean writeLegacyValues;
+    
+    @Value("${spring.redis.legacy-values.read:true}")
+    private boolean readLegacyValues;
+    
+    // redis, or embedded for a single node where all services run in one JVM
+    @Value("${order-repository.backend:redis}")
+    private String repositoryBackend;
+    
+    @Value("${order-repository.embedded.name:orders}")
+    private String embeddedStoreName;
+    
+    @Value("${order-repository.embedded.capacity-bytes:268435456}")
+    private long embeddedCapacityBytes;
+    
+    @Value("${order-repository.customer-index.enabled:true}")
+    private boolean indexCustomers;
+    
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
-        return new LettuceConnectionFactory(config);
+        if (isCluster()) {
+            return RedisConnectionFactories.cluster(clusterNodes, clusterMaxRedirects, clusterTopologyRefreshPeriod);
+        }
+        return RedisConnectionFactories.standalone(redisHost, redisPort);
     }
     
     @Bean
-    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -36,15 +72,31 @@ public class RedisConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         
-        // Use JSON serializer for values
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        // Values are already JSON documents, store them as-is instead of JSON-encoding them again
+        LegacyAwareStringRedisSerializer valueSerializer = new LegacyAwareStringRedisSerializer(objectMapper,
+            writeLegacyValues, readLegacyValues);
         
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         
         template.afterPropertiesSet();
         return template;
     }
+    
+    @Bean
+    public OrderRepository orderRepository(RedisTemplate<String, String> redisTemplate, JsonCodec jsonCodec) {
+        switch (repositoryBackend) {
+            case "redis":
+                // On a cluster an order's keys are hash-tagged so they share a slot
+                return new RedisOrderRepository(redisTemplate, jsonCodec, indexCustomers, isCluster());
+            case "embedded":
+                return OffHeapOrderRepository.shared(embeddedStoreName, jsonCodec, embeddedCapacityBytes, indexCustomers);
+            default:
+                throw new IllegalArgumentException("Unknown order-repository.backend: " + repositoryBackend);
+        }
+    }
+    
+    private boolean isCluster() {
+        return !clusterNodes.isBlank();
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.inventoryservice.controller;
+
+import com.example.inventoryservice.model.DemandReport;
+import com.example.inventoryservice.service.DemandAnalytics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/analytics/demand")
+public class DemandAnalyticsController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DemandAnalyticsController.class);
+    
+    private final DemandAnalytics demandAnalytics;
+    
+    @Autowired
+    public DemandAnalyticsController(DemandAnalytics demandAnalytics) {
+        this.demandAnalytics = demandAnalytics;
+    }
+    
+    // Top requested and rejected products and rejection reasons over the sliding window
+    @GetMapping
+    public ResponseEntity<?> getDemand() {
+        try {
+            DemandReport report = demandAnalytics.report();
+            return ResponseEntity.ok(report);
+        
+        } catch (Exception e) {
+            logger.error("Error building demand report: {}", e.getMessage(), e);
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to build demand report");
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+}
@@ -1,111 +1,158 @@
 package com.example.inventoryservice.listener;
 
 import com.example.shared.dto.Order;
-import com.example.shared.dto.OrderItem;
 import com.example.shared.event.OrderEvent;
 import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.PipelineHeaders;
+import com.example.shared.metrics.PipelineMetrics;
 import com.example.inventoryservice.service.InventoryService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.shared.kafka.DeadLetterReplayer;
+import com.example.shared.repository.OrderRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+// The default inventory engine; inventory.engine: streams runs InventoryTopology instead
 @Component
+@ConditionalOnProperty(name = "inventory.engine", havingValue = "listener", matchIfMissing = true)
 public class OrderEventListener {
     
+    // Container id of the order-events listener, which ListenerConcurrencyController resizes
+    public static final String LISTENER_ID = "orderEvents";
+    
     private static final Logger logger = LoggerFactory.getLogger(OrderEventListener.class);
     
     private final InventoryService inventoryService;
     private final KafkaTemplate<String, InventoryCheckResultEvent> kafkaTemplate;
-    private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final OrderRepository orderRepository;
+    private final PipelineMetrics pipelineMetrics;
+    
+    @Value("${kafka.topics.order-events}")
+    private String orderEventsTopic;
     
     @Value("${kafka.topics.inventory-check-results}")
     private String inventoryCheckResultsTopic;
     
+    // How long a result publish may wait for the broker before the record is retried
+    @Value("${kafka.producer.send-timeout:PT30S}")
+    private Duration sendTimeout;
+    
     @Autowired
     public OrderEventListener(InventoryService inventoryService,
                             KafkaTemplate<String, InventoryCheckResultEvent> kafkaTemplate,
-                            RedisTemplate<String, String> redisTemplate,
-                            ObjectMapper objectMapper) {
+                            OrderRepository orderRepository,
+                            PipelineMetrics pipelineMetrics) {
         this.inventoryService = inventoryService;
         this.kafkaTemplate = kafkaTemplate;
-        this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.orderRepository = orderRepository;
+        this.pipelineMetrics = pipelineMetrics;
     }
     
-    @KafkaListener(topics = "${kafka.topics.order-events}", 
+    // Failures are retried from order-events-retry-N topics with growing delays, so the main
+    // partitions keep moving; records that exhaust the attempts land in order-events-dlt
+    @RetryableTopic(attempts = "${kafka.retry.attempts:4}",
+                   backoff = @Backoff(delayExpression = "${kafka.retry.initial-delay-ms:1000}",
+                                      multiplierExpression = "${kafka.retry.multiplier:5}",
+                                      maxDelayExpression = "${kafka.retry.max-delay-ms:60000}"),
+                   topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+                   dltTopicSuffix = DeadLetterReplayer.DLT_SUFFIX,
+                   kafkaTemplate = "retryKafkaTemplate",
+                   numPartitions = "${kafka.retry.partitions:3}",
+                   concurrency = "${kafka.retry.concurrency:1}")
+    @KafkaListener(id = LISTENER_ID,
+                  topics = "${kafka.topics.order-events}", 
                   groupId = "inventory-service-group",
                   containerFactory = "kafkaListenerContainerFactory")
-    public void handleOrderEvent(OrderEvent orderEvent) {
-        logger.info("Received order event for order: {}", orderEvent.getOrderId());
+    public void handleOrderEvent(ConsumerRecord<String, OrderEvent> record) {
+        OrderEvent orderEvent = record.value();
+        long receivedAt = System.currentTimeMillis();
+        logger.info("Received order event for order: {} from {}", orderEvent.getOrderId(), record.topic());
         
-        try {
-            // Fetch order data from Redis using orderId
-            Order order = fetchOrderFromRedis(orderEvent.getOrderId());
-            
-            // Extract order items from the order
-            List<OrderItem> items = order.getItems();
-            
-            // Perform inventory check
-            InventoryCheckResultEvent result = inventoryService.checkInventory(
-                orderEvent.getOrderId(), items
-            );
-            
-            // Publish inventory check result
-            publishInventoryCheckResult(result);
-            
-        } catch (Exception e) {
-            logger.error("Error processing order event for order {}: {}", 
-                        orderEvent.getOrderId(), e.getMessage(), e);
+        // Retried records have been waiting on purpose, so only first deliveries count as transit
+        if (record.topic().equals(orderEventsTopic)) {
+            pipelineMetrics.recordHop(PipelineMetrics.HOP_ORDER_EVENTS_TRANSIT,
+                PipelineHeaders.read(record.headers(), PipelineHeaders.ORDER_PUBLISHED_AT), receivedAt);
         }
+        
+        // Fetch order data from the repository using orderId
+        Order order = fetchOrder(orderEvent.getOrderId());
+        
+        // Perform inventory check; the items of a streamed order are read chunk by chunk
+        int itemCount = order.getItemCount() != null ? order.getItemCount() : order.getItems().size();
+        InventoryCheckResultEvent result = inventoryService.checkInventory(
+            orderEvent.getOrderId(), itemCount, orderRepository.streamItems(order)
+        );
+        
+        // Publish inventory check result
+        publishInventoryCheckResult(result, record.headers(), receivedAt);
     }
     
-    private Order fetchOrderFromRedis(String orderId) {
-        try {
-            String orderJson = redisTemplate.opsForValue().get("order:" + orderId);
-            if (orderJson == null) {
-                throw new RuntimeException("Order not found in Redis: " + orderId);
-            }
-            
-            Order order = objectMapper.readValue(orderJson, Order.class);
-            logger.debug("Retrieved order from Redis: {}", orderId);
-            return order;
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Error deserializing order from Redis: {}", e.getMessage(), e);
-            throw new RuntimeException("Error retrieving order from Redis", e);
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, OrderEvent> record,
+                                 @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) String error) {
+        pipelineMetrics.recordDeadLetter(record.topic());
+        logger.error("Order event dead-lettered. Order ID: {}, Topic: {}, Offset: {}, Error: {}",
+                    record.key(), record.topic(), record.offset(), error);
+    }
+    
+    private Order fetchOrder(String orderId) {
+        long start = System.nanoTime();
+        Order order = orderRepository.get(orderId);
+        if (order == null) {
+            throw new RuntimeException("Order not found: " + orderId);
         }
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_INVENTORY_FETCH, start);
+        logger.debug("Retrieved order: {}", orderId);
+        return order;
     }
     
-    private void publishInventoryCheckResult(InventoryCheckResultEvent result) {
+    // Waits for the broker's ack, so a failed publish fails the record and goes through the retry
+    // topics like any other failure; the status in the repository is already decided by then
+    private void publishInventoryCheckResult(InventoryCheckResultEvent result, Headers upstreamHeaders, long receivedAt) {
+        ProducerRecord<String, InventoryCheckResultEvent> record = 
+            new ProducerRecord<>(inventoryCheckResultsTopic, result.getOrderId(), result);
+        
+        // Carry the upstream hop timestamps forward and add this service's own
+        PipelineHeaders.copy(upstreamHeaders, record.headers(), PipelineHeaders.ORDER_RECEIVED_AT);
+        PipelineHeaders.copy(upstreamHeaders, record.headers(), PipelineHeaders.ORDER_PUBLISHED_AT);
+        PipelineHeaders.stamp(record.headers(), PipelineHeaders.INVENTORY_RECEIVED_AT, receivedAt);
+        PipelineHeaders.stamp(record.headers(), PipelineHeaders.RESULT_PUBLISHED_AT, System.currentTimeMillis());
+        
+        long publishStart = System.nanoTime();
         try {
-            CompletableFuture<SendResult<String, InventoryCheckResultEvent>> future = 
-                kafkaTemplate.send(inventoryCheckResultsTopic, result.getOrderId(), result);
-            
-            future.whenComplete((sendResult, ex) -> {
-                if (ex == null) {
-                    logger.info("Inventory check result published successfully. Order ID: {}, Topic: {}, Partition: {}, Offset: {}", 
-                              result.getOrderId(), sendResult.getRecordMetadata().topic(), 
-                              sendResult.getRecordMetadata().partition(), sendResult.getRecordMetadata().offset());
-                } else {
-                    logger.error("Failed to publish inventory check result. Order ID: {}", result.getOrderId(), ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            logger.error("Error publishing inventory check result: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to publish inventory check result", e);
+            SendResult<String, InventoryCheckResultEvent> sendResult = kafkaTemplate.send(record)
+                .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            pipelineMetrics.recordStage(PipelineMetrics.STAGE_RESULT_PUBLISH, publishStart);
+            logger.info("Inventory check result published successfully. Order ID: {}, Topic: {}, Partition: {}, Offset: {}", 
+                      result.getOrderId(), sendResult.getRecordMetadata().topic(), 
+                      sendResult.getRecordMetadata().partition(), sendResult.getRecordMetadata().offset());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted publishing inventory check result for " + result.getOrderId(), e);
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            logger.error("Failed to publish inventory check result. Order ID: {}", result.getOrderId(), cause);
+            throw new RuntimeException("Failed to publish inventory check result for " + result.getOrderId(), cause);
         }
     }
 }
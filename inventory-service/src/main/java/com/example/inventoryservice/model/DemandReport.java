@@ -0,0 +1,51 @@
+package com.example.inventoryservice.model;
+
+import java.util.List;
+
+public class DemandReport {
+    
+    private final long windowSeconds;
+    private final long items;
+    private final long units;
+    private final List<ProductDemand> topRequested;
+    private final List<ProductDemand> topRejected;
+    private final List<RejectionReasonStats> rejectionReasons;
+    
+    // Constructor with all fields
+    public DemandReport(long windowSeconds, long items, long units, List<ProductDemand> topRequested,
+                        List<ProductDemand> topRejected, List<RejectionReasonStats> rejectionReasons) {
+        this.windowSeconds = windowSeconds;
+        this.items = items;
+        this.units = units;
+        this.topRequested = topRequested;
+        this.topRejected = topRejected;
+        this.rejectionReasons = rejectionReasons;
+    }
+    
+    // Getters
+    
+    // Time actually covered, shorter than the configured window right after startup
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+    
+    public long getItems() {
+        return items;
+    }
+    
+    public long getUnits() {
+        return units;
+    }
+    
+    public List<ProductDemand> getTopRequested() {
+        return topRequested;
+    }
+    
+    public List<ProductDemand> getTopRejected() {
+        return topRejected;
+    }
+    
+    public List<RejectionReasonStats> getRejectionReasons() {
+        return rejectionReasons;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.inventoryservice.model;
+
+public class ProductDemand {
+    
+    private final String productId;
+    private final long units;
+    
+    // Constructor with all fields
+    public ProductDemand(String productId, long units) {
+        this.productId = productId;
+        this.units = units;
+    }
+    
+    // Getters
+    public String getProductId() {
+        return productId;
+    }
+    
+    // Count-Min estimate: never below the true count, possibly slightly above it
+    public long getUnits() {
+        return units;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.inventoryservice.model;
+
+import java.util.List;
+
+public class RejectionReasonStats {
+    
+    private final String reason;
+    private final long items;
+    private final long units;
+    private final double itemsPerSecond;
+    private final double share;
+    private final List<ProductDemand> topProducts;
+    
+    // Constructor with all fields
+    public RejectionReasonStats(String reason, long items, long units, double itemsPerSecond, double share,
+                                List<ProductDemand> topProducts) {
+        this.reason = reason;
+        this.items = items;
+        this.units = units;
+        this.itemsPerSecond = itemsPerSecond;
+        this.share = share;
+        this.topProducts = topProducts;
+    }
+    
+    // Getters
+    public String getReason() {
+        return reason;
+    }
+    
+    public long getItems() {
+        return items;
+    }
+    
+    public long getUnits() {
+        return units;
+    }
+    
+    public double getItemsPerSecond() {
+        return itemsPerSecond;
+    }
+    
+    // Fraction of all checked order items rejected for this reason
+    public double getShare() {
+        return share;
+    }
+    
+    public List<ProductDemand> getTopProducts() {
+        return topProducts;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.inventoryservice.service;
+
+import java.util.Arrays;
+
+// Count-Min sketch: depth rows of width counters, a fixed size whatever the number of keys.
+// An estimate is never below the true count and exceeds it by at most about
+// e/width of the total with probability 1 - e^-depth. Not thread-safe.
+class CountMinSketch {
+    
+    private final long[][] counters;
+    private final int mask;
+    
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 2 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("depth must be positive and width a power of two, got " + depth + " x " + width);
+        }
+        this.counters = new long[depth][width];
+        this.mask = width - 1;
+    }
+    
+    // Conservative update: only the counters at the current minimum are raised, which
+    // keeps the overestimate of keys sharing counters lower than adding to every row
+    void add(String key, long weight) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x5bd1e995) | 1;
+        long updated = estimate(h1, h2) + weight;
+        for (int row = 0; row < counters.length; row++) {
+            int column = (h1 + row * h2) & mask;
+            if (counters[row][column] < updated) {
+                counters[row][column] = updated;
+            }
+        }
+    }
+    
+    long estimate(String key) {
+        int h1 = mix(key.hashCode());
+        return estimate(h1, mix(h1 ^ 0x5bd1e995) | 1);
+    }
+    
+    void clear() {
+        for (long[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+    }
+    
+    private long estimate(int h1, int h2) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            min = Math.min(min, counters[row][(h1 + row * h2) & mask]);
+        }
+        return min;
+    }
+    
+    // Murmur3 finalizer, so that similar SKUs spread over the columns
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.model.DemandReport;
+import com.example.inventoryservice.model.ProductDemand;
+import com.example.inventoryservice.model.RejectionReasonStats;
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.OrderItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Which products are requested and rejected most, and why, over a sliding window. Every
+// checked order item is counted by units; rejected ones also under their reason. The window
+// is a ring of buckets, each holding a Count-Min sketch and a Space-Saving top-K per tally,
+// so memory is fixed by the configuration whatever the size of the catalog.
+@Component
+public class DemandAnalytics {
+    
+    static final String OTHER_REASON = "Other";
+    // Reasons carry details ("Product expired on 2025-06-25", "Category mismatch. Expected: ...");
+    // the breakdown uses the text before them, which keeps the set of reasons small
+    private static final String[] REASON_DETAIL_SEPARATORS = {".", ":", " on "};
+    
+    @Value("${inventory.demand-analytics.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${inventory.demand-analytics.window:PT5M}")
+    private Duration window;
+    
+    @Value("${inventory.demand-analytics.buckets:5}")
+    private int bucketCount;
+    
+    @Value("${inventory.demand-analytics.top-k:10}")
+    private int topK;
+    
+    @Value("${inventory.demand-analytics.counters:64}")
+    private int counters;
+    
+    @Value("${inventory.demand-analytics.sketch-depth:4}")
+    private int sketchDepth;
+    
+    @Value("${inventory.demand-analytics.sketch-width:512}")
+    private int sketchWidth;
+    
+    @Value("${inventory.demand-analytics.max-reasons:8}")
+    private int maxReasons;
+    
+    private Bucket[] buckets;
+    private long bucketMillis;
+    private long startedAtMillis;
+    
+    @PostConstruct
+    public void init() {
+        bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+        buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+        startedAtMillis = System.currentTimeMillis();
+    }
+    
+    public void record(List<OrderItem> items, List<MissingItem> missingItems) {
+        record(items, missingItems, System.currentTimeMillis());
+    }
+    
+    synchronized void record(List<OrderItem> items, List<MissingItem> missingItems, long nowMillis) {
+        if (!enabled) {
+            return;
+        }
+        Bucket bucket = bucketAt(nowMillis);
+        for (OrderItem item : items) {
+            bucket.requested.add(item.getProductId(), item.getQuantity());
+        }
+        for (MissingItem missingItem : missingItems) {
+            bucket.rejected(reasonOf(missingItem.getReason()))
+                .add(missingItem.getProductId(), missingItem.getRequestedQuantity());
+        }
+    }
+    
+    public DemandReport report() {
+        return report(System.currentTimeMillis());
+    }
+    
+    synchronized DemandReport report(long nowMillis) {
+        long currentEpoch = nowMillis / bucketMillis;
+        List<Tally> requested = new ArrayList<>();
+        List<Tally> rejected = new ArrayList<>();
+        Map<String, List<Tally>> rejectedByReason = new LinkedHashMap<>();
+        if (enabled) {
+            for (Bucket bucket : buckets) {
+                if (bucket.epoch > currentEpoch - bucketCount && bucket.epoch <= currentEpoch) {
+                    requested.add(bucket.requested);
+                    for (Map.Entry<String, Tally> reason : bucket.rejected.entrySet()) {
+                        rejected.add(reason.getValue());
+                        rejectedByReason.computeIfAbsent(reason.getKey(), r -> new ArrayList<>()).add(reason.getValue());
+                    }
+                }
+            }
+        }
+        
+        long windowStart = Math.max(startedAtMillis, (currentEpoch - bucketCount + 1) * bucketMillis);
+        double seconds = Math.max(1, nowMillis - windowStart) / 1000.0;
+        long items = requested.stream().mapToLong(tally -> tally.items).sum();
+        long units = requested.stream().mapToLong(tally -> tally.units).sum();
+        
+        List<RejectionReasonStats> reasons = new ArrayList<>();
+        for (Map.Entry<String, List<Tally>> reason : rejectedByReason.entrySet()) {
+            long reasonItems = reason.getValue().stream().mapToLong(tally -> tally.items).sum();
+            long reasonUnits = reason.getValue().stream().mapToLong(tally -> tally.units).sum();
+            reasons.add(new RejectionReasonStats(reason.getKey(), reasonItems, reasonUnits, reasonItems / seconds,
+                items == 0 ? 0 : (double) reasonItems / items, top(reason.getValue())));
+        }
+        reasons.sort(Comparator.comparingLong(RejectionReasonStats::getItems).reversed()
+            .thenComparing(RejectionReasonStats::getReason));
+        
+        return new DemandReport(Math.round(seconds), items, units, top(requested), top(rejected), reasons);
+    }
+    
+    // Reason up to the first detail separator, e.g. "Product expired" for "Product expired on 2025-06-25"
+    static String reasonOf(String reason) {
+        if (reason == null || reason.isBlank()) {
+            return OTHER_REASON;
+        }
+        int end = reason.length();
+        for (String separator : REASON_DETAIL_SEPARATORS) {
+            int index = reason.indexOf(separator);
+            if (index > 0) {
+                end = Math.min(end, index);
+            }
+        }
+        return reason.substring(0, end).trim();
+    }
+    
+    // Candidates are the products any bucket's Space-Saving monitors; each is ranked by the sum
+    // of its Count-Min estimates over the buckets
+    private List<ProductDemand> top(List<Tally> tallies) {
+        Set<String> candidates = new HashSet<>();
+        for (Tally tally : tallies) {
+            candidates.addAll(tally.topK.candidates());
+        }
+        List<ProductDemand> ranked = new ArrayList<>(candidates.size());
+        for (String productId : candidates) {
+            long estimate = 0;
+            for (Tally tally : tallies) {
+                estimate += tally.sketch.estimate(productId);
+            }
+            ranked.add(new ProductDemand(productId, estimate));
+        }
+        ranked.sort(Comparator.comparingLong(ProductDemand::getUnits).reversed()
+            .thenComparing(ProductDemand::getProductId));
+        return new ArrayList<>(ranked.subList(0, Math.min(topK, ranked.size())));
+    }
+    
+    private Bucket bucketAt(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        Bucket bucket = buckets[(int) (epoch % bucketCount)];
+        if (bucket.epoch != epoch) {
+            bucket.reset(epoch);
+        }
+        return bucket;
+    }
+    
+    private final class Tally {
+        private final CountMinSketch sketch = new CountMinSketch(sketchDepth, sketchWidth);
+        private final SpaceSavingTopK topK = new SpaceSavingTopK(counters);
+        private long items;
+        private long units;
+        
+        private void add(String productId, long quantity) {
+            sketch.add(productId, quantity);
+            topK.add(productId, quantity);
+            items++;
+            units += quantity;
+        }
+        
+        private void clear() {
+            sketch.clear();
+            topK.clear();
+            items = 0;
+            units = 0;
+        }
+    }
+    
+    // One slice of the window. Reason tallies are kept when the bucket is reused for a later
+    // slice, so after the first pass over the ring nothing more is allocated
+    private final class Bucket {
+        private long epoch = Long.MIN_VALUE;
+        private final Tally requested = new Tally();
+        private final Map<String, Tally> rejected = new HashMap<>();
+        private final Deque<Tally> spare = new ArrayDeque<>();
+        
+        // Up to maxReasons distinct reasons per bucket; further ones are counted as Other
+        private Tally rejected(String reason) {
+            Tally tally = rejected.get(reason);
+            if (tally != null) {
+                return tally;
+            }
+            if (rejected.size() >= maxReasons && !OTHER_REASON.equals(reason)) {
+                return rejected(OTHER_REASON);
+            }
+            tally = spare.isEmpty() ? new Tally() : spare.pop();
+            rejected.put(reason, tally);
+            return tally;
+        }
+        
+        private void reset(long newEpoch) {
+            epoch = newEpoch;
+            requested.clear();
+            for (Tally tally : rejected.values()) {
+                tally.clear();
+                spare.push(tally);
+            }
+            rejected.clear();
+        }
+    }
+}
@@ -1,41 +1,66 @@
 package com.example.inventoryservice.service;
 
 import com.example.inventoryservice.model.ProductInfo;
-import com.example.shared.dto.Order;
 import com.example.shared.dto.OrderItem;
 import com.example.shared.dto.OrderStatus;
 import com.example.shared.dto.MissingItem;
 import com.example.shared.event.InventoryCheckResultEvent;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class InventoryService {
     
     private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
-    private static final Duration REDIS_TTL = Duration.ofMinutes(10); // 10 minutes TTL
+    private static final Duration ORDER_TTL = Duration.ofMinutes(10); // 10 minutes TTL
     
     private final Map<String, ProductInfo> productCatalog = new HashMap<>();
-    private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final OrderRepository orderRepository;
+    private final PipelineMetrics pipelineMetrics;
+    private final DemandAnalytics demandAnalytics;
+    
+    // Orders with at least this many items, counted across all chunks of a streamed order, are
+    // checked in parallel chunks; 0 checks every order on the calling thread
+    @Value("${inventory.parallel-check.threshold:5000}")
+    private int parallelCheckThreshold;
+    
+    @Value("${inventory.parallel-check.chunk-size:1000}")
+    private int parallelCheckChunkSize;
+    
+    // Worker threads of a dedicated pool; 0 uses the common fork/join pool
+    @Value("${inventory.parallel-check.parallelism:0}")
+    private int parallelCheckParallelism;
+    
+    private ForkJoinPool parallelCheckPool;
     
     @Autowired
-    public InventoryService(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper) {
-        this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+    public InventoryService(OrderRepository orderRepository, PipelineMetrics pipelineMetrics,
+                            DemandAnalytics demandAnalytics) {
+        this.orderRepository = orderRepository;
+        this.pipelineMetrics = pipelineMetrics;
+        this.demandAnalytics = demandAnalytics;
     }
     
     @PostConstruct
@@ -51,45 +76,128 @@ public class InventoryService {
         logger.info("Product catalog initialized with {} products", productCatalog.size());
     }
     
+    @PreDestroy
+    public synchronized void shutdownParallelCheckPool() {
+        if (parallelCheckPool != null) {
+            parallelCheckPool.shutdown();
+        }
+    }
+    
     public InventoryCheckResultEvent checkInventory(String orderId, List<OrderItem> items) {
-        logger.info("Checking inventory for order: {} with {} items", orderId, items.size());
+        return checkInventory(orderId, items.size(), Stream.of(items));
+    }
+    
+    // Checks the items chunk by chunk as the stream yields them (OrderRepository.streamItems);
+    // itemCount is the order's total, which decides whether its chunks are checked in parallel.
+    // Only the chunks being checked are held, at most one per pool thread plus the one being read
+    public InventoryCheckResultEvent checkInventory(String orderId, int itemCount, Stream<List<OrderItem>> itemChunks) {
+        // The catalog is only read after startup, so large orders may be checked from several threads
+        boolean parallel = parallelCheckThreshold > 0 && itemCount >= parallelCheckThreshold;
+        return checkInventory(orderId, itemChunks, productCatalog::get, parallel);
+    }
+    
+    // Same check against another source of stock, e.g. the streams engine's local store;
+    // products returns null for unknown productIds. It is only called on the calling thread,
+    // so it may read a store that is not thread-safe
+    public InventoryCheckResultEvent checkInventory(String orderId, List<OrderItem> items,
+                                                    Function<String, ProductInfo> products) {
+        return checkInventory(orderId, Stream.of(items), products);
+    }
+    
+    public InventoryCheckResultEvent checkInventory(String orderId, Stream<List<OrderItem>> itemChunks,
+                                                    Function<String, ProductInfo> products) {
+        return checkInventory(orderId, itemChunks, products, false);
+    }
+    
+    // The check stage includes reading the chunks of a streamed order
+    private InventoryCheckResultEvent checkInventory(String orderId, Stream<List<OrderItem>> itemChunks,
+                                                     Function<String, ProductInfo> products, boolean parallel) {
+        logger.info("Checking inventory for order: {}", orderId);
         
+        long checkStart = System.nanoTime();
         List<MissingItem> missingItems = new ArrayList<>();
-        boolean allItemsAvailable = true;
-        
-        for (OrderItem item : items) {
-            MissingItem missingItem = checkItemAvailability(item);
-            if (missingItem != null) {
-                missingItems.add(missingItem);
-                allItemsAvailable = false;
+        int itemCount = 0;
+        // Parallel: each chunk is submitted as it is read and the results are taken in chunk order,
+        // so reading the next chunk overlaps with checking the previous ones
+        ForkJoinPool pool = parallel ? parallelCheckPool() : null;
+        Deque<List<OrderItem>> pendingChunks = new ArrayDeque<>();
+        Deque<ForkJoinTask<List<MissingItem>>> pendingChecks = new ArrayDeque<>();
+        Iterator<List<OrderItem>> chunks = itemChunks.iterator();
+        while (chunks.hasNext()) {
+            List<OrderItem> items = chunks.next();
+            itemCount += items.size();
+            if (pool == null) {
+                collectMissingItems(items, checkItems(items, products, 0, items.size()), missingItems);
+                continue;
+            }
+            pendingChunks.add(items);
+            pendingChecks.add(pool.submit(new ItemCheckTask(items, products, 0, items.size())));
+            if (pendingChecks.size() > pool.getParallelism()) {
+                collectMissingItems(pendingChunks.poll(), pendingChecks.poll().join(), missingItems);
             }
         }
+        while (!pendingChecks.isEmpty()) {
+            collectMissingItems(pendingChunks.poll(), pendingChecks.poll().join(), missingItems);
+        }
+        boolean allItemsAvailable = missingItems.isEmpty();
         
         OrderStatus status = allItemsAvailable ? OrderStatus.APPROVED : OrderStatus.REJECTED;
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_INVENTORY_CHECK, checkStart);
+        
+        long statusWriteStart = System.nanoTime();
         
         // Store missing items in Redis if any
         if (!missingItems.isEmpty()) {
-            storeMissingItemsInRedis(orderId, missingItems);
+            storeMissingItems(orderId, missingItems);
         }
         
         // Update order status directly in Redis
-        updateOrderStatusInRedis(orderId, status);
+        updateOrderStatus(orderId, status);
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_STATUS_WRITE, statusWriteStart);
         
         InventoryCheckResultEvent result = new InventoryCheckResultEvent(orderId, status);
         
-        logger.info("Inventory check completed for order: {}. Approved: {}, Missing items: {}", 
-                   orderId, allItemsAvailable, missingItems.size());
+        logger.info("Inventory check completed for order: {} with {} items. Approved: {}, Missing items: {}", 
+                   orderId, itemCount, allItemsAvailable, missingItems.size());
         
         return result;
     }
     
-    private MissingItem checkItemAvailability(OrderItem item) {
+    private void collectMissingItems(List<OrderItem> items, List<MissingItem> missingInChunk,
+                                     List<MissingItem> missingItems) {
+        demandAnalytics.record(items, missingInChunk);
+        missingItems.addAll(missingInChunk);
+    }
+    
+    // Missing items of items[from, to), in item order
+    private List<MissingItem> checkItems(List<OrderItem> items, Function<String, ProductInfo> products,
+                                         int from, int to) {
+        List<MissingItem> missingItems = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            OrderItem item = items.get(i);
+            MissingItem missingItem = checkItemAvailability(item, products.apply(item.getProductId()));
+            if (missingItem != null) {
+                missingItems.add(missingItem);
+            }
+        }
+        return missingItems;
+    }
+    
+    private synchronized ForkJoinPool parallelCheckPool() {
+        if (parallelCheckParallelism <= 0) {
+            return ForkJoinPool.commonPool();
+        }
+        if (parallelCheckPool == null) {
+            parallelCheckPool = new ForkJoinPool(parallelCheckParallelism);
+        }
+        return parallelCheckPool;
+    }
+    
+    private MissingItem checkItemAvailability(OrderItem item, ProductInfo productInfo) {
         String productId = item.getProductId();
         int requestedQuantity = item.getQuantity();
         String category = item.getCategory();
         
-        ProductInfo productInfo = productCatalog.get(productId);
-        
         if (productInfo == null) {
             logger.warn("Product not found in catalog: {}", productId);
             return new MissingItem(
@@ -111,13 +219,13 @@ public class InventoryService {
         switch (category.toLowerCase()) {
             case "standard":
                 return checkStandardProduct(productId, requestedQuantity, productInfo);
-                
+            
             case "perishable":
                 return checkPerishableProduct(productId, requestedQuantity, productInfo);
-                
+            
             case "digital":
                 return checkDigitalProduct(productId, requestedQuantity, productInfo);
-                
+            
             default:
                 logger.warn("Unknown category for product: {}", productId);
                 return new MissingItem(
@@ -188,41 +296,47 @@ public class InventoryService {
         return new HashMap<>(productCatalog);
     }
     
-    private void storeMissingItemsInRedis(String orderId, List<MissingItem> missingItems) {
-        try {
-            String missingItemsJson = objectMapper.writeValueAsString(missingItems);
-            String redisKey = "missingItems:" + orderId;
-            
-            redisTemplate.opsForValue().set(redisKey, missingItemsJson, REDIS_TTL);
-            logger.debug("Missing items stored in Redis with key: {}", redisKey);
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Error serializing missing items for Redis: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to store missing items in Redis", e);
+    private void storeMissingItems(String orderId, List<MissingItem> missingItems) {
+        orderRepository.putMissingItems(orderId, missingItems, ORDER_TTL);
+        logger.debug("Missing items stored for order: {}", orderId);
+    }
+    
+    private void updateOrderStatus(String orderId, OrderStatus status) {
+        if (!orderRepository.updateStatus(orderId, status, ORDER_TTL)) {
+            logger.warn("Order not found for status update: {}", orderId);
+            return;
         }
+        logger.info("Order status updated. ID: {}, New Status: {}", orderId, status);
     }
     
-    private void updateOrderStatusInRedis(String orderId, OrderStatus status) {
-        try {
-            String orderJson = redisTemplate.opsForValue().get("order:" + orderId);
-            if (orderJson == null) {
-                logger.warn("Order not found in Redis for status update: {}", orderId);
-                return;
+    // Splits the range in halves down to chunk-size items and joins the halves left first,
+    // so missing items come out in the same order as a sequential check
+    private class ItemCheckTask extends RecursiveTask<List<MissingItem>> {
+    
+        private final List<OrderItem> items;
+        private final Function<String, ProductInfo> products;
+        private final int from;
+        private final int to;
+        
+        private ItemCheckTask(List<OrderItem> items, Function<String, ProductInfo> products, int from, int to) {
+            this.items = items;
+            this.products = products;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected List<MissingItem> compute() {
+            if (to - from <= Math.max(1, parallelCheckChunkSize)) {
+                return checkItems(items, products, from, to);
             }
-            
-            Order order = objectMapper.readValue(orderJson, Order.class);
-            order.setStatus(status);
-            
-            // Update order in Redis
-            String updatedOrderJson = objectMapper.writeValueAsString(order);
-            redisTemplate.opsForValue().set("order:" + orderId, updatedOrderJson, REDIS_TTL);
-            
-            logger.info("Order status updated in Redis. ID: {}, New Status: {}", orderId, status);
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Error updating order status in Redis: {}", e.getMessage(), e);
-            throw new RuntimeException("Error updating order status in Redis", e);
+            int middle = (from + to) >>> 1;
+            ItemCheckTask left = new ItemCheckTask(items, products, from, middle);
+            left.fork();
+            List<MissingItem> right = new ItemCheckTask(items, products, middle, to).compute();
+            List<MissingItem> missingItems = left.join();
+            missingItems.addAll(right);
+            return missingItems;
         }
     }
 }
-
@@ -0,0 +1,196 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.model.ProductInfo;
+import com.example.shared.dto.Order;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.event.PipelineHeaders;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OrderRepository;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// The streams inventory engine: the same check as OrderEventListener, with orders and stock
+// read from local state stores instead of the repository.
+//
+//   orders (full orders, from order-service) -> orders store, keyed by orderId
+//   inventory-stock (ProductInfo by productId) -> global stock store on every instance
+//   order-events -> check against both stores -> inventory-check-results
+//
+// order-events and orders must have the same number of partitions, so an order and its event
+// land in the same task. An event whose order is not in the store yet (its record was late, or
+// orders publishing is off) falls back to the repository. Checked orders are removed from the
+// store and unchecked ones expire after ORDER_TTL, so the store only holds orders in flight.
+// Results are written exactly once; the status and missing-items writes to the repository
+// are repeated if a transaction aborts, which is harmless as they overwrite the same values.
+public class InventoryTopology {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InventoryTopology.class);
+    
+    public static final String ORDERS_STORE = "inventory-orders";
+    public static final String STOCK_STORE = "inventory-stock";
+    // Also bounds the retention of the orders topic (KafkaStreamsConfig)
+    public static final Duration ORDER_TTL = Duration.ofMinutes(10);
+    private static final Duration EXPIRY_INTERVAL = Duration.ofMinutes(1);
+    
+    private final InventoryService inventoryService;
+    private final OrderRepository orderRepository;
+    private final PipelineMetrics pipelineMetrics;
+    
+    public InventoryTopology(InventoryService inventoryService, OrderRepository orderRepository,
+                             PipelineMetrics pipelineMetrics) {
+        this.inventoryService = inventoryService;
+        this.orderRepository = orderRepository;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+    
+    public Topology build(Topics topics, Serde<OrderEvent> orderEventSerde, Serde<Order> orderSerde,
+                          Serde<ProductInfo> productSerde, Serde<InventoryCheckResultEvent> resultSerde) {
+        StreamsBuilder builder = new StreamsBuilder();
+        
+        // Stock lives in RocksDB, restored from inventory-stock itself. Orders only stay until
+        // checked, so they are held in memory with a changelog topic: a persistent store would be
+        // flushed to disk on every commit for data that is gone a moment later
+        builder.addStateStore(Stores.timestampedKeyValueStoreBuilder(
+            Stores.inMemoryKeyValueStore(ORDERS_STORE), Serdes.String(), orderSerde));
+        builder.globalTable(topics.stock(), Consumed.with(Serdes.String(), productSerde),
+            Materialized.<String, ProductInfo, KeyValueStore<Bytes, byte[]>>as(STOCK_STORE)
+                .withKeySerde(Serdes.String()).withValueSerde(productSerde));
+        
+        builder.stream(topics.orders(), Consumed.with(Serdes.String(), orderSerde))
+            .process(OrderTableWriter::new, ORDERS_STORE);
+        
+        builder.stream(topics.orderEvents(), Consumed.with(Serdes.String(), orderEventSerde))
+            .processValues(() -> new InventoryCheckProcessor(topics.orderEvents()), ORDERS_STORE)
+            .to(topics.inventoryCheckResults(), Produced.with(Serdes.String(), resultSerde));
+        
+        return builder.build();
+    }
+    
+    public record Topics(String orderEvents, String orders, String stock, String inventoryCheckResults) {
+    }
+    
+    // Keeps the orders store up to date with the orders topic and drops orders never checked
+    private static class OrderTableWriter implements Processor<String, Order, Void, Void> {
+    
+        private TimestampedKeyValueStore<String, Order> orders;
+        
+        @Override
+        public void init(ProcessorContext<Void, Void> context) {
+            orders = context.getStateStore(ORDERS_STORE);
+            context.schedule(EXPIRY_INTERVAL, PunctuationType.WALL_CLOCK_TIME, this::expire);
+        }
+        
+        @Override
+        public void process(Record<String, Order> record) {
+            if (record.key() == null) {
+                return;
+            }
+            if (record.value() == null) {
+                orders.delete(record.key());
+            } else {
+                orders.put(record.key(), ValueAndTimestamp.make(record.value(), record.timestamp()));
+            }
+        }
+        
+        private void expire(long now) {
+            List<String> expired = new ArrayList<>();
+            try (KeyValueIterator<String, ValueAndTimestamp<Order>> iterator = orders.all()) {
+                while (iterator.hasNext()) {
+                    KeyValue<String, ValueAndTimestamp<Order>> entry = iterator.next();
+                    if (entry.value.timestamp() < now - ORDER_TTL.toMillis()) {
+                        expired.add(entry.key);
+                    }
+                }
+            }
+            expired.forEach(orders::delete);
+        }
+    }
+    
+    private class InventoryCheckProcessor implements FixedKeyProcessor<String, OrderEvent, InventoryCheckResultEvent> {
+    
+        private final String orderEventsTopic;
+        private FixedKeyProcessorContext<String, InventoryCheckResultEvent> context;
+        private TimestampedKeyValueStore<String, Order> orders;
+        private KeyValueStore<String, ValueAndTimestamp<ProductInfo>> stock;
+        
+        private InventoryCheckProcessor(String orderEventsTopic) {
+            this.orderEventsTopic = orderEventsTopic;
+        }
+        
+        @Override
+        public void init(FixedKeyProcessorContext<String, InventoryCheckResultEvent> context) {
+            this.context = context;
+            this.orders = context.getStateStore(ORDERS_STORE);
+            this.stock = context.getStateStore(STOCK_STORE);
+        }
+        
+        @Override
+        public void process(FixedKeyRecord<String, OrderEvent> record) {
+            OrderEvent orderEvent = record.value();
+            long receivedAt = System.currentTimeMillis();
+            if (orderEvent == null || orderEvent.getOrderId() == null) {
+                return;
+            }
+            String orderId = orderEvent.getOrderId();
+            pipelineMetrics.recordHop(PipelineMetrics.HOP_ORDER_EVENTS_TRANSIT,
+                PipelineHeaders.read(record.headers(), PipelineHeaders.ORDER_PUBLISHED_AT), receivedAt);
+            
+            Order order = fetchOrder(orderId);
+            if (order == null) {
+                // No retry topics here: a missing order is counted and skipped, like a dead letter
+                pipelineMetrics.recordDeadLetter(orderEventsTopic);
+                logger.error("Order not found for inventory check, skipping. Order ID: {}", orderId);
+                return;
+            }
+            
+            // A streamed order's item chunks are never in the store; they are read from the repository
+            InventoryCheckResultEvent result = inventoryService.checkInventory(orderId, orderRepository.streamItems(order), productId -> {
+                ValueAndTimestamp<ProductInfo> product = stock.get(productId);
+                return product == null ? null : product.value();
+            });
+            orders.delete(orderId);
+            
+            // Upstream hop timestamps travel with the record; add this service's own
+            PipelineHeaders.stamp(record.headers(), PipelineHeaders.INVENTORY_RECEIVED_AT, receivedAt);
+            PipelineHeaders.stamp(record.headers(), PipelineHeaders.RESULT_PUBLISHED_AT, System.currentTimeMillis());
+            context.forward(record.withValue(result));
+        }
+        
+        private Order fetchOrder(String orderId) {
+            ValueAndTimestamp<Order> stored = orders.get(orderId);
+            if (stored != null) {
+                return stored.value();
+            }
+            long start = System.nanoTime();
+            Order order = orderRepository.get(orderId);
+            pipelineMetrics.recordStage(PipelineMetrics.STAGE_INVENTORY_FETCH, start);
+            return order;
+        }
+    }
+}
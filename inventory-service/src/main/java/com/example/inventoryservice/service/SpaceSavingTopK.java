@@ -0,0 +1,63 @@
+package com.example.inventoryservice.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Space-Saving heavy hitters: at most capacity keys are monitored. A key that is not monitored
+// takes over the smallest counter and inherits its count, so any key whose true count is above
+// total/capacity is guaranteed to be monitored. Counts here only pick the candidates; the
+// Count-Min sketch next to it gives their estimates. Not thread-safe.
+class SpaceSavingTopK {
+    
+    private final String[] keys;
+    private final long[] counts;
+    // Slot of each monitored key; the minimum is found by scanning counts, not the map
+    private final Map<String, Integer> slots;
+    
+    SpaceSavingTopK(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+        }
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+    
+    void add(String key, long weight) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot] += weight;
+            return;
+        }
+        int size = slots.size();
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = weight;
+            slots.put(key, size);
+            return;
+        }
+        
+        int smallest = 0;
+        for (int i = 1; i < counts.length; i++) {
+            if (counts[i] < counts[smallest]) {
+                smallest = i;
+            }
+        }
+        slots.remove(keys[smallest]);
+        keys[smallest] = key;
+        counts[smallest] += weight;
+        slots.put(key, smallest);
+    }
+    
+    Set<String> candidates() {
+        return slots.keySet();
+    }
+    
+    void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(counts, 0);
+        slots.clear();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.inventoryservice.listener;
+
+import com.example.inventoryservice.service.DemandAnalytics;
+import com.example.inventoryservice.service.InventoryService;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OffHeapOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderEventListenerTest {
+    
+    private KafkaTemplate<String, InventoryCheckResultEvent> kafkaTemplate;
+    private OffHeapOrderRepository orderRepository;
+    private OrderEventListener listener;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        orderRepository = new OffHeapOrderRepository(new JsonCodec(JsonMappers.create()), 1024 * 1024);
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+        InventoryService inventoryService = new InventoryService(orderRepository, pipelineMetrics, new DemandAnalytics());
+        inventoryService.initializeProductCatalog();
+        
+        listener = new OrderEventListener(inventoryService, kafkaTemplate, orderRepository, pipelineMetrics);
+        ReflectionTestUtils.setField(listener, "orderEventsTopic", "order-events");
+        ReflectionTestUtils.setField(listener, "inventoryCheckResultsTopic", "inventory-check-results");
+        ReflectionTestUtils.setField(listener, "sendTimeout", Duration.ofSeconds(1));
+        
+        Instant createdAt = Instant.parse("2025-06-30T14:00:00Z");
+        orderRepository.put(new Order("ORD-00000001", "Jane Doe", List.of(new OrderItem("P1001", 2, "standard")),
+            createdAt, OrderStatus.PENDING, createdAt), Duration.ofMinutes(10));
+    }
+    
+    @Test
+    void testHandleOrderEvent_FailedPublishFailsTheRecord() {
+        // Arrange
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.failedFuture(new KafkaException("Broker unavailable")));
+        
+        // Act
+        RuntimeException error = assertThrows(RuntimeException.class,
+            () -> listener.handleOrderEvent(record("ORD-00000001")));
+        
+        // Assert: the record is retried, while the status stays decided
+        assertInstanceOf(KafkaException.class, error.getCause());
+        assertEquals(OrderStatus.APPROVED, orderRepository.get("ORD-00000001").getStatus());
+    }
+    
+    @Test
+    void testHandleOrderEvent_UnackedPublishFailsTheRecord() {
+        // Arrange
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        ReflectionTestUtils.setField(listener, "sendTimeout", Duration.ofMillis(50));
+        
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> listener.handleOrderEvent(record("ORD-00000001")));
+    }
+    
+    private static ConsumerRecord<String, OrderEvent> record(String orderId) {
+        return new ConsumerRecord<>("order-events", 0, 0L, orderId, new OrderEvent(orderId));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.model.DemandReport;
+import com.example.inventoryservice.model.ProductDemand;
+import com.example.inventoryservice.model.RejectionReasonStats;
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.OrderItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandAnalyticsTest {
+    
+    private static final long START = 1_751_292_000_000L;
+    
+    private DemandAnalytics demandAnalytics;
+    
+    @BeforeEach
+    void setUp() {
+        demandAnalytics = new DemandAnalytics();
+        ReflectionTestUtils.setField(demandAnalytics, "enabled", true);
+        ReflectionTestUtils.setField(demandAnalytics, "window", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(demandAnalytics, "bucketCount", 5);
+        ReflectionTestUtils.setField(demandAnalytics, "topK", 3);
+        ReflectionTestUtils.setField(demandAnalytics, "counters", 16);
+        ReflectionTestUtils.setField(demandAnalytics, "sketchDepth", 4);
+        ReflectionTestUtils.setField(demandAnalytics, "sketchWidth", 256);
+        ReflectionTestUtils.setField(demandAnalytics, "maxReasons", 2);
+        demandAnalytics.init();
+        ReflectionTestUtils.setField(demandAnalytics, "startedAtMillis", START);
+    }
+    
+    @Test
+    void testReport_FindsHeavyHittersAmongAManyProductTail() {
+        // Arrange - three hot products among 2,000 that are each ordered once
+        for (int i = 0; i < 2_000; i++) {
+            demandAnalytics.record(List.of(new OrderItem(String.format("P%05d", i), 1, "standard")), List.of(), START + i);
+            if (i % 4 == 0) {
+                demandAnalytics.record(List.of(new OrderItem("HOT-1", 3, "standard"), new OrderItem("HOT-2", 2, "standard")),
+                    List.of(), START + i);
+            }
+            if (i % 10 == 0) {
+                demandAnalytics.record(List.of(new OrderItem("HOT-3", 4, "standard")), List.of(), START + i);
+            }
+        }
+        
+        // Act
+        DemandReport report = demandAnalytics.report(START + 60_000);
+        
+        // Assert
+        List<ProductDemand> top = report.getTopRequested();
+        assertEquals(List.of("HOT-1", "HOT-2", "HOT-3"), top.stream().map(ProductDemand::getProductId).toList());
+        assertTrue(top.get(0).getUnits() >= 1_500, "estimates never undercount");
+        assertTrue(top.get(0).getUnits() < 1_700, "estimate " + top.get(0).getUnits() + " is too far off");
+        assertEquals(2_000 + 500 * 2 + 200, report.getItems());
+        assertEquals(60, report.getWindowSeconds());
+    }
+    
+    @Test
+    void testReport_BreaksRejectionsDownByReasonWithoutTheirDetails() {
+        // Arrange
+        OrderItem expired = new OrderItem("P1005", 2, "perishable");
+        OrderItem missing = new OrderItem("P9999", 1, "standard");
+        OrderItem available = new OrderItem("P1001", 1, "standard");
+        for (int i = 0; i < 10; i++) {
+            demandAnalytics.record(List.of(expired, missing, available), List.of(
+                new MissingItem("P1005", 2, 2, "Product expired on 2025-06-25"),
+                new MissingItem("P9999", 1, 0, "Product not found in catalog")), START + i * 1_000);
+        }
+        // More reasons than max-reasons are counted as Other
+        demandAnalytics.record(List.of(new OrderItem("P1004", 1, "digital")),
+            List.of(new MissingItem("P1004", 1, 5, "Category mismatch. Expected: standard, Actual: digital")), START + 10_000);
+        
+        // Act
+        DemandReport report = demandAnalytics.report(START + 20_000);
+        
+        // Assert
+        List<RejectionReasonStats> reasons = report.getRejectionReasons();
+        assertEquals(List.of("Product expired", "Product not found in catalog", DemandAnalytics.OTHER_REASON),
+            reasons.stream().map(RejectionReasonStats::getReason).toList());
+        assertEquals(10, reasons.get(0).getItems());
+        assertEquals(20, reasons.get(0).getUnits());
+        assertEquals(0.5, reasons.get(0).getItemsPerSecond(), 1e-9);
+        assertEquals(10.0 / 31, reasons.get(0).getShare(), 1e-9);
+        assertEquals("P1005", reasons.get(0).getTopProducts().get(0).getProductId());
+        assertEquals("P1005", report.getTopRejected().get(0).getProductId());
+    }
+    
+    @Test
+    void testReport_ForgetsBucketsThatSlideOutOfTheWindow() {
+        // Arrange
+        demandAnalytics.record(List.of(new OrderItem("OLD", 5, "standard")), List.of(), START);
+        demandAnalytics.record(List.of(new OrderItem("NEW", 1, "standard")), List.of(), START + Duration.ofMinutes(5).toMillis());
+        
+        // Act
+        DemandReport report = demandAnalytics.report(START + Duration.ofMinutes(5).toMillis() + 1_000);
+        
+        // Assert
+        assertEquals(List.of("NEW"), report.getTopRequested().stream().map(ProductDemand::getProductId).toList());
+        assertEquals(1, report.getItems());
+        assertTrue(demandAnalytics.report(START + Duration.ofMinutes(11).toMillis()).getTopRequested().isEmpty());
+    }
+    
+    @Test
+    void testReasonOf_KeepsTheTextBeforeTheDetails() {
+        assertEquals("Insufficient quantity", DemandAnalytics.reasonOf("Insufficient quantity"));
+        assertEquals("Unknown category", DemandAnalytics.reasonOf("Unknown category: gadgets"));
+        assertEquals(DemandAnalytics.OTHER_REASON, DemandAnalytics.reasonOf(null));
+    }
+}
@@ -4,8 +4,12 @@ import com.example.inventoryservice.model.ProductInfo;
 import com.example.shared.dto.OrderItem;
 import com.example.shared.dto.OrderStatus;
 import com.example.shared.dto.MissingItem;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.repository.RedisOrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -29,7 +33,8 @@ class InventoryServiceSimpleTest {
         RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
         objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
         
-        inventoryService = new InventoryService(redisTemplate, objectMapper);
+        inventoryService = new InventoryService(new RedisOrderRepository(redisTemplate, new JsonCodec(objectMapper)),
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
         inventoryService.initializeProductCatalog();
     }
 
@@ -1,18 +1,28 @@
 package com.example.inventoryservice.service;
 
 import com.example.inventoryservice.model.ProductInfo;
+import com.example.shared.dto.Order;
 import com.example.shared.dto.OrderItem;
 import com.example.shared.dto.OrderStatus;
 import com.example.shared.dto.MissingItem;
+import com.example.shared.metrics.PipelineMetrics;
 import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.repository.OffHeapOrderRepository;
+import com.example.shared.repository.RedisOrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -36,7 +46,8 @@ class InventoryServiceTest {
         
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         
-        inventoryService = new InventoryService(redisTemplate, objectMapper);
+        inventoryService = new InventoryService(new RedisOrderRepository(redisTemplate, new JsonCodec(objectMapper)),
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
         inventoryService.initializeProductCatalog();
     }
 
@@ -210,6 +221,130 @@ class InventoryServiceTest {
         assertEquals(LocalDate.of(2025, 6, 25), p1005.getExpirationDate()); // Expired
     }
 
+    @Test
+    void testCheckInventory_LargeOrderCheckedInParallel_SameMissingItemsInItemOrder() {
+        // Arrange: the same wholesale order checked sequentially and in chunks of 7 on 4 threads
+        String[][] products = {{"P1001", "standard"}, {"P9999", "standard"}, {"P1005", "perishable"},
+            {"P1004", "digital"}, {"P1006", "digital"}};
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String[] product = products[i % products.length];
+            items.add(new OrderItem(product[0], 1 + i % 13, product[1]));
+        }
+        OffHeapOrderRepository sequentialRepository =
+            new OffHeapOrderRepository(new JsonCodec(objectMapper), 16 * 1024 * 1024);
+        OffHeapOrderRepository parallelRepository =
+            new OffHeapOrderRepository(new JsonCodec(objectMapper), 16 * 1024 * 1024);
+        InventoryService sequential = new InventoryService(sequentialRepository,
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
+        InventoryService parallel = new InventoryService(parallelRepository,
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
+        sequential.initializeProductCatalog();
+        parallel.initializeProductCatalog();
+        ReflectionTestUtils.setField(parallel, "parallelCheckThreshold", 100);
+        ReflectionTestUtils.setField(parallel, "parallelCheckChunkSize", 7);
+        ReflectionTestUtils.setField(parallel, "parallelCheckParallelism", 4);
+        
+        // Act
+        InventoryCheckResultEvent sequentialResult = sequential.checkInventory("ORD-BULK", items);
+        InventoryCheckResultEvent parallelResult = parallel.checkInventory("ORD-BULK", items);
+        parallel.shutdownParallelCheckPool();
+        
+        // Assert
+        assertEquals(OrderStatus.REJECTED, parallelResult.getStatus());
+        assertEquals(sequentialResult.getStatus(), parallelResult.getStatus());
+        List<String> expected = describe(sequentialRepository.getMissingItems("ORD-BULK"));
+        assertEquals(646, expected.size());
+        assertEquals(expected, describe(parallelRepository.getMissingItems("ORD-BULK")));
+    }
+
+    @Test
+    void testCheckInventory_StreamedOrderCheckedChunkByChunk_SameMissingItemsAsWholeOrder() {
+        // Arrange: one order stored whole, and again as a streamed order in chunks of 64 items
+        String[][] products = {{"P1001", "standard"}, {"P9999", "standard"}, {"P1002", "digital"}};
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String[] product = products[i % products.length];
+            items.add(new OrderItem(product[0], 1 + i % 11, product[1]));
+        }
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(new JsonCodec(objectMapper), 16 * 1024 * 1024);
+        Order streamed = new Order("ORD-STREAMED", "Test Customer", List.of(), Instant.now(), OrderStatus.PENDING, Instant.now());
+        streamed.setItemChunks((items.size() + 63) / 64);
+        streamed.setItemCount(items.size());
+        for (int chunk = 0; chunk < streamed.getItemChunks(); chunk++) {
+            repository.putItemChunk("ORD-STREAMED", chunk,
+                items.subList(chunk * 64, Math.min(items.size(), (chunk + 1) * 64)), Duration.ofMinutes(10));
+        }
+        repository.put(streamed, Duration.ofMinutes(10));
+        InventoryService service = new InventoryService(repository,
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
+        service.initializeProductCatalog();
+        
+        // Act
+        InventoryCheckResultEvent wholeResult = service.checkInventory("ORD-WHOLE", items);
+        InventoryCheckResultEvent streamedResult = service.checkInventory("ORD-STREAMED", items.size(),
+            repository.streamItems(repository.get("ORD-STREAMED")));
+        
+        // Assert
+        assertEquals(OrderStatus.REJECTED, streamedResult.getStatus());
+        assertEquals(OrderStatus.REJECTED, repository.get("ORD-STREAMED").getStatus());
+        List<String> expected = describe(repository.getMissingItems("ORD-WHOLE"));
+        assertEquals(wholeResult.getStatus(), streamedResult.getStatus());
+        assertEquals(expected, describe(repository.getMissingItems("ORD-STREAMED")));
+    }
+
+    @Test
+    void testCheckInventory_StreamedOrderAboveThreshold_ChunksCheckedInParallel() {
+        // Arrange: 500 items in chunks of 64, so no single chunk reaches the threshold of 100
+        String[][] products = {{"P1001", "standard"}, {"P9999", "standard"}, {"P1005", "perishable"}};
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String[] product = products[i % products.length];
+            items.add(new OrderItem(product[0], 1 + i % 13, product[1]));
+        }
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(new JsonCodec(objectMapper), 16 * 1024 * 1024);
+        Order streamed = new Order("ORD-STREAMED", "Test Customer", List.of(), Instant.now(), OrderStatus.PENDING, Instant.now());
+        streamed.setItemChunks((items.size() + 63) / 64);
+        streamed.setItemCount(items.size());
+        for (int chunk = 0; chunk < streamed.getItemChunks(); chunk++) {
+            repository.putItemChunk("ORD-STREAMED", chunk,
+                items.subList(chunk * 64, Math.min(items.size(), (chunk + 1) * 64)), Duration.ofMinutes(10));
+        }
+        repository.put(streamed, Duration.ofMinutes(10));
+        InventoryService sequential = new InventoryService(repository,
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
+        InventoryService service = new InventoryService(repository,
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
+        sequential.initializeProductCatalog();
+        service.initializeProductCatalog();
+        ReflectionTestUtils.setField(service, "parallelCheckThreshold", 100);
+        ReflectionTestUtils.setField(service, "parallelCheckChunkSize", 16);
+        ReflectionTestUtils.setField(service, "parallelCheckParallelism", 2);
+        
+        // Act
+        InventoryCheckResultEvent wholeResult = sequential.checkInventory("ORD-WHOLE", items);
+        service.checkInventory("ORD-SMALL", items.subList(0, 99));
+        boolean poolAfterSmallOrder = ReflectionTestUtils.getField(service, "parallelCheckPool") != null;
+        InventoryCheckResultEvent streamedResult = service.checkInventory("ORD-STREAMED", items.size(),
+            repository.streamItems(repository.get("ORD-STREAMED")));
+        boolean poolAfterStreamedOrder = ReflectionTestUtils.getField(service, "parallelCheckPool") != null;
+        service.shutdownParallelCheckPool();
+        
+        // Assert: the dedicated pool is only created on the parallel path; results stay in item order
+        assertFalse(poolAfterSmallOrder);
+        assertTrue(poolAfterStreamedOrder);
+        assertEquals(wholeResult.getStatus(), streamedResult.getStatus());
+        assertEquals(OrderStatus.REJECTED, streamedResult.getStatus());
+        assertEquals(describe(repository.getMissingItems("ORD-WHOLE")),
+            describe(repository.getMissingItems("ORD-STREAMED")));
+    }
+
+    private static List<String> describe(List<MissingItem> missingItems) {
+        return missingItems.stream()
+            .map(item -> item.getProductId() + "x" + item.getRequestedQuantity() + ": " + item.getReason())
+            .toList();
+    }
+
     private String createOrderJson(String orderId, List<OrderItem> items) throws Exception {
         return String.format(
             "{\"orderId\":\"%s\",\"customerName\":\"Test Customer\",\"items\":%s,\"requestedAt\":\"2025-01-01T10:00:00Z\",\"status\":\"PENDING\"}",
@@ -0,0 +1,166 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.model.ProductInfo;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.event.PipelineHeaders;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OffHeapOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryTopologyTest {
+    
+    private static final InventoryTopology.Topics TOPICS =
+        new InventoryTopology.Topics("order-events", "orders", "inventory-stock", "inventory-check-results");
+    
+    @TempDir
+    Path stateDir;
+    
+    private OffHeapOrderRepository orderRepository;
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, Order> orders;
+    private TestInputTopic<String, ProductInfo> stock;
+    private TestInputTopic<String, OrderEvent> orderEvents;
+    private TestOutputTopic<String, InventoryCheckResultEvent> results;
+    
+    @BeforeEach
+    void setUp() {
+        orderRepository = new OffHeapOrderRepository(new JsonCodec(JsonMappers.shared()), 1024 * 1024);
+        InventoryService inventoryService = new InventoryService(orderRepository,
+            new PipelineMetrics(new SimpleMeterRegistry()), new DemandAnalytics());
+        InventoryTopology topology = new InventoryTopology(inventoryService, orderRepository,
+            new PipelineMetrics(new SimpleMeterRegistry()));
+        
+        Serde<OrderEvent> orderEventSerde = jsonSerde(OrderEvent.class);
+        Serde<Order> orderSerde = jsonSerde(Order.class);
+        Serde<ProductInfo> productSerde = jsonSerde(ProductInfo.class);
+        Serde<InventoryCheckResultEvent> resultSerde = jsonSerde(InventoryCheckResultEvent.class);
+        
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, "inventory-topology-test");
+        properties.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(
+            topology.build(TOPICS, orderEventSerde, orderSerde, productSerde, resultSerde), properties);
+        
+        orders = driver.createInputTopic(TOPICS.orders(), new StringSerializer(), orderSerde.serializer());
+        stock = driver.createInputTopic(TOPICS.stock(), new StringSerializer(), productSerde.serializer());
+        orderEvents = driver.createInputTopic(TOPICS.orderEvents(), new StringSerializer(), orderEventSerde.serializer());
+        results = driver.createOutputTopic(TOPICS.inventoryCheckResults(), new StringDeserializer(),
+            resultSerde.deserializer());
+        
+        stock.pipeInput("P1001", new ProductInfo("standard", 1, null));
+        stock.pipeInput("P1006", new ProductInfo("digital", 100, null));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+    
+    @Test
+    void testOrderEvent_ChecksTheOrderFromTheOrdersTableAgainstTheStockTable() {
+        // Arrange - the stock topic, not the built-in catalog (10 x P1001), decides
+        orders.pipeInput("ORD-1", order("ORD-1", new OrderItem("P1001", 1, "standard")));
+        orders.pipeInput("ORD-2", order("ORD-2", new OrderItem("P1001", 2, "standard")));
+        
+        // Act
+        orderEvents.pipeInput("ORD-1", new OrderEvent("ORD-1"));
+        orderEvents.pipeInput("ORD-2", new OrderEvent("ORD-2"));
+        
+        // Assert
+        List<TestRecord<String, InventoryCheckResultEvent>> published = results.readRecordsToList();
+        assertEquals(2, published.size());
+        assertEquals("ORD-1", published.get(0).key());
+        assertEquals(OrderStatus.APPROVED, published.get(0).value().getStatus());
+        assertEquals(OrderStatus.REJECTED, published.get(1).value().getStatus());
+        assertNotNull(PipelineHeaders.read(published.get(0).headers(), PipelineHeaders.INVENTORY_RECEIVED_AT));
+        assertNotNull(PipelineHeaders.read(published.get(0).headers(), PipelineHeaders.RESULT_PUBLISHED_AT));
+        assertEquals(1, orderRepository.getMissingItems("ORD-2").size());
+        
+        // Checked orders leave the table
+        KeyValueStore<String, ValueAndTimestamp<Order>> store =
+            driver.getTimestampedKeyValueStore(InventoryTopology.ORDERS_STORE);
+        assertNull(store.get("ORD-1"));
+        assertNull(store.get("ORD-2"));
+    }
+    
+    @Test
+    void testOrderEvent_OrderNotInTheTable_FallsBackToTheRepository() {
+        // Arrange
+        orderRepository.put(order("ORD-3", new OrderItem("P1006", 5, "digital")), Duration.ofMinutes(5));
+        
+        // Act
+        orderEvents.pipeInput("ORD-3", new OrderEvent("ORD-3"));
+        
+        // Assert
+        assertEquals(OrderStatus.APPROVED, results.readValue().getStatus());
+        assertEquals(OrderStatus.APPROVED, orderRepository.get("ORD-3").getStatus());
+    }
+    
+    @Test
+    void testOrdersTable_TombstonedAndExpiredOrdersLeaveTheTable() {
+        // Arrange
+        KeyValueStore<String, ValueAndTimestamp<Order>> store =
+            driver.getTimestampedKeyValueStore(InventoryTopology.ORDERS_STORE);
+        Instant now = Instant.now();
+        orders.pipeInput("ORD-4", order("ORD-4", new OrderItem("P1006", 1, "digital")), now);
+        orders.pipeInput("ORD-5", order("ORD-5", new OrderItem("P1006", 1, "digital")), now);
+        orders.pipeInput("ORD-6", order("ORD-6", new OrderItem("P1006", 1, "digital")),
+            now.minus(InventoryTopology.ORDER_TTL).minusSeconds(1));
+        assertNotNull(store.get("ORD-6"));
+        
+        // Act
+        orders.pipeInput("ORD-5", (Order) null, now);
+        driver.advanceWallClockTime(Duration.ofMinutes(1));
+        
+        // Assert
+        assertNotNull(store.get("ORD-4"));
+        assertNull(store.get("ORD-5"));
+        assertNull(store.get("ORD-6"));
+    }
+    
+    @Test
+    void testOrderEvent_UnknownOrder_IsSkipped() {
+        // Act
+        orderEvents.pipeInput("ORD-MISSING", new OrderEvent("ORD-MISSING"));
+        
+        // Assert
+        assertTrue(results.isEmpty());
+    }
+    
+    private static Order order(String orderId, OrderItem... items) {
+        return new Order(orderId, "Customer", List.of(items), Instant.now(), OrderStatus.PENDING, Instant.now());
+    }
+    
+    private static <T> Serde<T> jsonSerde(Class<T> type) {
+        return new JsonSerde<>(type, JsonMappers.shared()).noTypeInfo().ignoreTypeHeaders();
+    }
+}
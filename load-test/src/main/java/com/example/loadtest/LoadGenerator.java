@@ -0,0 +1,218 @@
+package com.example.loadtest;
+
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderRequest;
+import com.example.shared.dto.OrderStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop driver: orders are sent on a fixed schedule regardless of how fast the system
+// answers, then each order is polled until it reaches a final status or times out
+public class LoadGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int CUSTOMERS = 100;
+    
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService pollScheduler;
+    private final AtomicLong outstanding = new AtomicLong();
+    
+    public LoadGenerator(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.pollScheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "load-test-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public LoadTestReport run() throws InterruptedException {
+        LoadTestReport warmupReport = new LoadTestReport();
+        LoadTestReport report = new LoadTestReport();
+        
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.getRate());
+        long start = System.nanoTime();
+        long measureStart = start + options.getWarmup().toNanos();
+        long end = measureStart + options.getDuration().toNanos();
+        
+        logger.info("Driving {} orders/s for {}s after {}s warmup", options.getRate(),
+            options.getDuration().toSeconds(), options.getWarmup().toSeconds());
+        
+        for (long sequence = 0; ; sequence++) {
+            // Schedule is fixed up front; a late send is measured from when it should have gone out
+            long intendedNanos = start + sequence * intervalNanos;
+            if (intendedNanos >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intendedNanos) {
+                LockSupport.parkNanos(intendedNanos - now);
+            }
+            submit(sequence, intendedNanos, intendedNanos >= measureStart ? report : warmupReport);
+        }
+        report.setMeasuredDuration(options.getDuration());
+        
+        awaitOutstanding();
+        pollScheduler.shutdownNow();
+        return report;
+    }
+    
+    private void submit(long sequence, long intendedNanos, LoadTestReport report) {
+        OrderStatus expected = shouldReject(sequence) ? OrderStatus.REJECTED : OrderStatus.APPROVED;
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(orderRequest(sequence, expected))))
+                .build();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to build order request", e);
+        }
+        
+        report.recordSent();
+        outstanding.incrementAndGet();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                if (error == null && (response.statusCode() == 429 || response.statusCode() == 503)) {
+                    // Shed by admission control: answered quickly, not an error
+                    report.recordShed(System.nanoTime() - intendedNanos);
+                    outstanding.decrementAndGet();
+                    return;
+                }
+                if (error != null || response.statusCode() != 201) {
+                    report.recordCreateError();
+                    outstanding.decrementAndGet();
+                    return;
+                }
+                report.recordCreated(System.nanoTime() - intendedNanos);
+                
+                String orderId = readField(response.body(), "orderId");
+                if (orderId == null) {
+                    report.recordCreateError();
+                    outstanding.decrementAndGet();
+                    return;
+                }
+                schedulePoll(new PendingOrder(orderId, expected, intendedNanos, report));
+            });
+    }
+    
+    private void schedulePoll(PendingOrder order) {
+        pollScheduler.schedule(() -> poll(order), options.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    private void poll(PendingOrder order) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/" + order.orderId))
+            .timeout(REQUEST_TIMEOUT)
+            .GET()
+            .build();
+        
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                long now = System.nanoTime();
+                boolean failed = error != null || response.statusCode() != 200;
+                order.report.recordPoll(failed);
+                
+                OrderStatus status = failed ? null : parseStatus(readField(response.body(), "status"));
+                if (status == OrderStatus.APPROVED || status == OrderStatus.REJECTED) {
+                    order.report.recordCompleted(status, order.expected, now - order.intendedNanos);
+                    outstanding.decrementAndGet();
+                    return;
+                }
+                if (now - order.intendedNanos > options.getCompletionTimeout().toNanos()) {
+                    order.report.recordTimeout();
+                    outstanding.decrementAndGet();
+                    return;
+                }
+                schedulePoll(order);
+            });
+    }
+    
+    private void awaitOutstanding() throws InterruptedException {
+        // Every order either completes or times out on its own; the extra slack covers in-flight requests
+        long deadline = System.nanoTime() + options.getCompletionTimeout().plus(REQUEST_TIMEOUT).toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        if (outstanding.get() > 0) {
+            logger.warn("{} orders still outstanding at the end of the run", outstanding.get());
+        }
+    }
+    
+    // Spreads rejected orders evenly through the run instead of clustering them
+    private boolean shouldReject(long sequence) {
+        double ratio = options.getRejectRatio();
+        return Math.floor((sequence + 1) * ratio) > Math.floor(sequence * ratio);
+    }
+    
+    private OrderRequest orderRequest(long sequence, OrderStatus expected) {
+        List<OrderItem> items = expected == OrderStatus.APPROVED
+            ? List.of(new OrderItem("P1001", 1, "standard"), new OrderItem("P1006", 2, "digital"))
+            // P1001 only has 10 units in stock
+            : List.of(new OrderItem("P1001", 15, "standard"), new OrderItem("P1006", 2, "digital"));
+        return new OrderRequest("load-customer-" + (sequence % CUSTOMERS), items, Instant.now());
+    }
+    
+    private String readField(String body, String field) {
+        try {
+            JsonNode value = objectMapper.readTree(body).get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    private OrderStatus parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private static class PendingOrder {
+        private final String orderId;
+        private final OrderStatus expected;
+        private final long intendedNanos;
+        private final LoadTestReport report;
+        
+        private PendingOrder(String orderId, OrderStatus expected, long intendedNanos, LoadTestReport report) {
+            this.orderId = orderId;
+            this.expected = expected;
+            this.intendedNanos = intendedNanos;
+            this.report = report;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.loadtest;
+
+import java.time.Duration;
+
+public class LoadTestOptions {
+    
+    private double rate = 100;
+    private Duration duration = Duration.ofSeconds(30);
+    private Duration warmup = Duration.ofSeconds(5);
+    private Duration pollInterval = Duration.ofMillis(20);
+    private Duration completionTimeout = Duration.ofSeconds(10);
+    private double rejectRatio = 0.2;
+    private int partitions = 3;
+    private String serde = "json";
+    private String ingest = "direct";
+    private boolean admission = true;
+    private String inventoryEngine = "listener";
+    private String bus = "kafka";
+    private String repository = "redis";
+    private Duration redisLatency = Duration.ZERO;
+    private int redisClusterNodes;
+    private int redisReplicas;
+    private Duration replicationLag = Duration.ofMillis(5);
+    private String targetUrl;
+    
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--rate" -> options.rate = Double.parseDouble(value(args, ++i, arg));
+                case "--duration" -> options.duration = seconds(value(args, ++i, arg));
+                case "--warmup" -> options.warmup = seconds(value(args, ++i, arg));
+                case "--poll-interval" -> options.pollInterval = Duration.ofMillis(Long.parseLong(value(args, ++i, arg)));
+                case "--timeout" -> options.completionTimeout = seconds(value(args, ++i, arg));
+                case "--reject-ratio" -> options.rejectRatio = Double.parseDouble(value(args, ++i, arg));
+                case "--partitions" -> options.partitions = Integer.parseInt(value(args, ++i, arg));
+                case "--serde" -> options.serde = value(args, ++i, arg);
+                case "--ingest" -> options.ingest = value(args, ++i, arg);
+                case "--admission" -> options.admission = onOff(value(args, ++i, arg), arg);
+                case "--inventory-engine" -> options.inventoryEngine = value(args, ++i, arg);
+                case "--bus" -> options.bus = value(args, ++i, arg);
+                case "--repository" -> options.repository = value(args, ++i, arg);
+                case "--redis-latency" -> options.redisLatency = Duration.ofMillis(Long.parseLong(value(args, ++i, arg)));
+                case "--redis-cluster" -> options.redisClusterNodes = Integer.parseInt(value(args, ++i, arg));
+                case "--redis-replicas" -> options.redisReplicas = Integer.parseInt(value(args, ++i, arg));
+                case "--replication-lag" -> options.replicationLag = Duration.ofMillis(Long.parseLong(value(args, ++i, arg)));
+                case "--target" -> options.targetUrl = value(args, ++i, arg);
+                default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (options.rate <= 0) {
+            throw new IllegalArgumentException("--rate must be positive");
+        }
+        if (options.rejectRatio < 0 || options.rejectRatio > 1) {
+            throw new IllegalArgumentException("--reject-ratio must be between 0 and 1");
+        }
+        if (!options.inventoryEngine.equals("listener") && !options.inventoryEngine.equals("streams")) {
+            throw new IllegalArgumentException("--inventory-engine must be listener or streams");
+        }
+        if (!options.bus.equals("kafka") && !options.bus.equals("memory")) {
+            throw new IllegalArgumentException("--bus must be kafka or memory");
+        }
+        if (!options.repository.equals("redis") && !options.repository.equals("embedded")) {
+            throw new IllegalArgumentException("--repository must be redis or embedded");
+        }
+        if (options.redisClusterNodes < 0 || options.redisReplicas < 0) {
+            throw new IllegalArgumentException("--redis-cluster and --redis-replicas must not be negative");
+        }
+        if (options.redisClusterNodes > 0 && options.redisReplicas > 0) {
+            throw new IllegalArgumentException("--redis-replicas needs a single Redis, not --redis-cluster");
+        }
+        if (options.bus.equals("memory") && options.inventoryEngine.equals("streams")) {
+            throw new IllegalArgumentException("--inventory-engine streams needs --bus kafka");
+        }
+        return options;
+    }
+    
+    private static String value(String[] args, int index, String name) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + name);
+        }
+        return args[index];
+    }
+    
+    private static boolean onOff(String value, String name) {
+        return switch (value) {
+            case "on" -> true;
+            case "off" -> false;
+            default -> throw new IllegalArgumentException(name + " must be on or off");
+        };
+    }
+    
+    // Accepts plain seconds ("30") or an ISO-8601 duration ("PT30S")
+    private static Duration seconds(String value) {
+        return value.startsWith("P") ? Duration.parse(value) : Duration.ofSeconds(Long.parseLong(value));
+    }
+    
+    // Getters
+    public double getRate() {
+        return rate;
+    }
+    
+    public Duration getDuration() {
+        return duration;
+    }
+    
+    public Duration getWarmup() {
+        return warmup;
+    }
+    
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+    
+    public Duration getCompletionTimeout() {
+        return completionTimeout;
+    }
+    
+    public double getRejectRatio() {
+        return rejectRatio;
+    }
+    
+    public int getPartitions() {
+        return partitions;
+    }
+    
+    public String getSerde() {
+        return serde;
+    }
+    
+    public String getIngest() {
+        return ingest;
+    }
+    
+    public boolean isAdmission() {
+        return admission;
+    }
+    
+    public String getInventoryEngine() {
+        return inventoryEngine;
+    }
+    
+    public String getBus() {
+        return bus;
+    }
+    
+    public String getRepository() {
+        return repository;
+    }
+    
+    public Duration getRedisLatency() {
+        return redisLatency;
+    }
+    
+    public int getRedisClusterNodes() {
+        return redisClusterNodes;
+    }
+    
+    public int getRedisReplicas() {
+        return redisReplicas;
+    }
+    
+    public Duration getReplicationLag() {
+        return replicationLag;
+    }
+    
+    public String getTargetUrl() {
+        return targetUrl;
+    }
+    
+    @Override
+    public String toString() {
+        return "rate=" + rate + "/s" +
+                ", duration=" + duration.toSeconds() + "s" +
+                ", warmup=" + warmup.toSeconds() + "s" +
+                ", pollInterval=" + pollInterval.toMillis() + "ms" +
+                ", timeout=" + completionTimeout.toSeconds() + "s" +
+                ", rejectRatio=" + rejectRatio +
+                (targetUrl != null ? ", target=" + targetUrl : ", partitions=" + partitions + ", serde=" + serde + ", ingest=" + ingest +
+                    ", admission=" + (admission ? "on" : "off") + ", inventoryEngine=" + inventoryEngine +
+                    ", bus=" + bus + ", repository=" + repository +
+                    ", redisLatency=" + redisLatency.toMillis() + "ms" +
+                    (redisClusterNodes > 0 ? ", redisCluster=" + redisClusterNodes + " nodes" : "") +
+                    (redisReplicas > 0 ? ", redisReplicas=" + redisReplicas + " (lag " + replicationLag.toMillis() + "ms)" : ""));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.loadtest;
+
+import com.example.shared.dto.OrderStatus;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Collects measurements for the steady-state part of a run. Latencies are recorded in
+// microseconds from the intended send time, so a stalled system cannot hide queueing delay
+public class LoadTestReport {
+    
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    
+    private final Histogram createLatency = new ConcurrentHistogram(3);
+    private final Histogram shedLatency = new ConcurrentHistogram(3);
+    private final Histogram approvedLatency = new ConcurrentHistogram(3);
+    private final Histogram rejectedLatency = new ConcurrentHistogram(3);
+    
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder createErrors = new LongAdder();
+    private final LongAdder pollRequests = new LongAdder();
+    private final LongAdder pollErrors = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder unexpectedStatus = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    
+    private volatile long measuredNanos;
+    
+    public void recordSent() {
+        sent.increment();
+    }
+    
+    public void recordCreated(long latencyNanos) {
+        created.increment();
+        createLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+    
+    public void recordShed(long latencyNanos) {
+        shed.increment();
+        shedLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+    
+    public void recordCreateError() {
+        createErrors.increment();
+    }
+    
+    public void recordPoll(boolean error) {
+        pollRequests.increment();
+        if (error) {
+            pollErrors.increment();
+        }
+    }
+    
+    public void recordCompleted(OrderStatus status, OrderStatus expected, long latencyNanos) {
+        completed.increment();
+        if (status != expected) {
+            unexpectedStatus.increment();
+        }
+        Histogram histogram = status == OrderStatus.APPROVED ? approvedLatency : rejectedLatency;
+        histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+    
+    public void recordTimeout() {
+        timeouts.increment();
+    }
+    
+    public void setMeasuredDuration(Duration duration) {
+        this.measuredNanos = duration.toNanos();
+    }
+    
+    // Getters
+    public long getSent() {
+        return sent.sum();
+    }
+    
+    public long getCompleted() {
+        return completed.sum();
+    }
+    
+    public long getErrors() {
+        return createErrors.sum() + pollErrors.sum() + unexpectedStatus.sum() + timeouts.sum();
+    }
+    
+    public Histogram getApprovedLatency() {
+        return approvedLatency;
+    }
+    
+    public Histogram getRejectedLatency() {
+        return rejectedLatency;
+    }
+    
+    public void print(PrintStream out, LoadTestOptions options) {
+        double seconds = measuredNanos / 1_000_000_000.0;
+        long sentCount = sent.sum();
+        
+        out.println("=== LOAD TEST REPORT ===");
+        out.println("Options: " + options);
+        out.printf("Measured window: %.1f s (warmup excluded)%n", seconds);
+        out.printf("Orders sent: %d (offered %.1f/s)%n", sentCount, rate(sentCount, seconds));
+        out.printf("Orders created: %d (%.1f/s)%n", created.sum(), rate(created.sum(), seconds));
+        out.printf("Orders completed: %d (%.1f/s)%n", completed.sum(), rate(completed.sum(), seconds));
+        out.printf("Orders shed (429/503): %d (%s)%n", shed.sum(), ratio(shed.sum(), sentCount));
+        out.printf("Status polls: %d (%.1f/s)%n", pollRequests.sum(), rate(pollRequests.sum(), seconds));
+        out.println();
+        out.printf("Create errors: %d (%s)%n", createErrors.sum(), ratio(createErrors.sum(), sentCount));
+        out.printf("Poll errors: %d (%s)%n", pollErrors.sum(), ratio(pollErrors.sum(), pollRequests.sum()));
+        out.printf("Unexpected final status: %d (%s)%n", unexpectedStatus.sum(), ratio(unexpectedStatus.sum(), sentCount));
+        out.printf("Timed out: %d (%s)%n", timeouts.sum(), ratio(timeouts.sum(), sentCount));
+        out.println();
+        printLatency(out, "POST /orders", createLatency);
+        printLatency(out, "POST /orders shed", shedLatency);
+        printLatency(out, "End-to-end " + OrderStatus.APPROVED, approvedLatency);
+        printLatency(out, "End-to-end " + OrderStatus.REJECTED, rejectedLatency);
+        out.println("========================");
+    }
+    
+    private void printLatency(PrintStream out, String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            out.printf("%-24s no samples%n", name + ":");
+            return;
+        }
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("%-24s n=%d", name + ":", histogram.getTotalCount()));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" p%s=%.2fms", formatPercentile(percentile),
+                histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        line.append(String.format(" max=%.2fms", histogram.getMaxValue() / 1000.0));
+        out.println(line);
+    }
+    
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+    
+    private static double rate(long count, double seconds) {
+        return seconds > 0 ? count / seconds : 0;
+    }
+    
+    private static String ratio(long count, long total) {
+        return total > 0 ? String.format("%.3f%%", 100.0 * count / total) : "n/a";
+    }
+}
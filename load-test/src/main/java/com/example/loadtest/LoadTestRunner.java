@@ -0,0 +1,36 @@
+package com.example.loadtest;
+
+import com.example.loadtest.support.PipelineCluster;
+
+// Usage: LoadTestRunner [--rate N] [--duration S] [--warmup S] [--poll-interval MS]
+//                       [--timeout S] [--reject-ratio R] [--partitions N] [--serde json|binary]
+//                       [--ingest direct|outbox] [--admission on|off] [--redis-latency MS]
+//                       [--inventory-engine listener|streams] [--redis-cluster N]
+//                       [--redis-replicas N] [--replication-lag MS] [--target URL]
+// Without --target the full pipeline is started in-process against embedded Kafka and Redis,
+// with --redis-cluster against a Redis stand-in cluster of N nodes, and with --redis-replicas
+// against a stand-in primary with N replicas that status and notification reads go to.
+public class LoadTestRunner {
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        
+        if (options.getTargetUrl() != null) {
+            run(options, options.getTargetUrl());
+            return;
+        }
+        
+        try (PipelineCluster cluster = new PipelineCluster(options.getPartitions(), options.getSerde(),
+                options.getIngest(), options.isAdmission(), options.getInventoryEngine(), options.getBus(),
+                options.getRepository(), options.getRedisClusterNodes(), options.getRedisReplicas(),
+                options.getReplicationLag()).start()) {
+            cluster.setRedisCommandDelay(options.getRedisLatency());
+            run(options, cluster.getOrderServiceUrl());
+        }
+    }
+    
+    private static void run(LoadTestOptions options, String baseUrl) throws InterruptedException {
+        LoadTestReport report = new LoadGenerator(options, baseUrl).run();
+        report.print(System.out, options);
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.loadtest;
+
+import com.example.loadtest.support.MiniRedisCluster;
+import com.example.loadtest.support.MiniRedisServer;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.json.LegacyAwareStringRedisSerializer;
+import com.example.shared.repository.OffHeapOrderRepository;
+import com.example.shared.repository.OrderRepository;
+import com.example.shared.repository.OrderScanPage;
+import com.example.shared.repository.RedisConnectionFactories;
+import com.example.shared.repository.RedisOrderRepository;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Usage: OrderRepositoryBenchmark [--orders N] [--operations N] [--threads N] [--batch N]
+//                                 [--customers N] [--backends redis,embedded,redis-cluster]
+//                                 [--redis host:port] [--redis-cluster host:port,...] [--cluster-nodes N]
+// Runs the same operations against each OrderRepository backend: put, get, updateStatus, getAll
+// of a batch of orderIds and findByCustomer for a page of that size, each timed per call from
+// several threads, then one full scan in batches of 500 (each batch a SCAN and an MGET on Redis). "put, no index" repeats put with the customer index switched off, so the
+// difference between the two is what maintaining the index costs per order. Without --redis the
+// Redis backend talks to the in-process MiniRedisServer, so it measures the client, the
+// loopback round trip and JSON, not a production Redis server. redis-cluster runs the Redis
+// backend with hash-tagged keys against a cluster, by default a MiniRedisCluster of
+// --cluster-nodes nodes, which rejects commands sent to the wrong node or spanning slots.
+public class OrderRepositoryBenchmark {
+    
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final long EMBEDDED_CAPACITY_BYTES = 256L * 1024 * 1024;
+    private static final int SCAN_BATCH = 500;
+    
+    private int orders = 20_000;
+    private int operations = 50_000;
+    private int threads = 4;
+    private int batch = 20;
+    private int customers = 1_000;
+    private List<String> backends = Arrays.asList("redis", "embedded");
+    private String redisAddress;
+    private String redisClusterNodes;
+    private int clusterNodes = 3;
+    
+    public static void main(String[] args) throws Exception {
+        OrderRepositoryBenchmark benchmark = parse(args);
+        JsonCodec jsonCodec = new JsonCodec(JsonMappers.shared());
+        
+        List<Result> results = new ArrayList<>();
+        for (String backend : benchmark.backends) {
+            switch (backend) {
+                case "embedded" -> results.addAll(benchmark.run(backend,
+                    new OffHeapOrderRepository(jsonCodec, EMBEDDED_CAPACITY_BYTES, true),
+                    new OffHeapOrderRepository(jsonCodec, EMBEDDED_CAPACITY_BYTES, false)));
+                case "redis" -> results.addAll(benchmark.runOnRedis(jsonCodec));
+                case "redis-cluster" -> results.addAll(benchmark.runOnRedisCluster(jsonCodec));
+                default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+            }
+        }
+        benchmark.print(System.out, results);
+    }
+    
+    private static OrderRepositoryBenchmark parse(String[] args) {
+        OrderRepositoryBenchmark benchmark = new OrderRepositoryBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--orders" -> benchmark.orders = Integer.parseInt(value);
+                case "--operations" -> benchmark.operations = Integer.parseInt(value);
+                case "--threads" -> benchmark.threads = Integer.parseInt(value);
+                case "--batch" -> benchmark.batch = Integer.parseInt(value);
+                case "--customers" -> benchmark.customers = Integer.parseInt(value);
+                case "--backends" -> benchmark.backends = Arrays.asList(value.split(","));
+                case "--redis" -> benchmark.redisAddress = value;
+                case "--redis-cluster" -> benchmark.redisClusterNodes = value;
+                case "--cluster-nodes" -> benchmark.clusterNodes = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (benchmark.orders <= 0 || benchmark.operations <= 0 || benchmark.threads <= 0 || benchmark.batch <= 0
+                || benchmark.customers <= 0 || benchmark.clusterNodes <= 0) {
+            throw new IllegalArgumentException("--orders, --operations, --threads, --batch, --customers and --cluster-nodes must be positive");
+        }
+        return benchmark;
+    }
+    
+    private List<Result> runOnRedis(JsonCodec jsonCodec) throws Exception {
+        MiniRedisServer miniRedis = null;
+        String host;
+        int port;
+        if (redisAddress != null) {
+            host = redisAddress.substring(0, redisAddress.lastIndexOf(':'));
+            port = Integer.parseInt(redisAddress.substring(redisAddress.lastIndexOf(':') + 1));
+        } else {
+            miniRedis = new MiniRedisServer().start();
+            host = "localhost";
+            port = miniRedis.getPort();
+        }
+        
+        LettuceConnectionFactory connectionFactory = RedisConnectionFactories.standalone(host, port);
+        connectionFactory.afterPropertiesSet();
+        try {
+            RedisTemplate<String, String> redisTemplate = redisTemplate(connectionFactory);
+            return run("redis", new RedisOrderRepository(redisTemplate, jsonCodec, true),
+                new RedisOrderRepository(redisTemplate, jsonCodec, false));
+        } finally {
+            connectionFactory.destroy();
+            if (miniRedis != null) {
+                miniRedis.close();
+            }
+        }
+    }
+    
+    private List<Result> runOnRedisCluster(JsonCodec jsonCodec) throws Exception {
+        MiniRedisCluster miniCluster = null;
+        String nodes = redisClusterNodes;
+        if (nodes == null) {
+            miniCluster = new MiniRedisCluster(clusterNodes).start();
+            nodes = miniCluster.getNodes();
+        }
+        
+        LettuceConnectionFactory connectionFactory = RedisConnectionFactories.cluster(nodes, 3, Duration.ofSeconds(30));
+        connectionFactory.afterPropertiesSet();
+        try {
+            RedisTemplate<String, String> redisTemplate = redisTemplate(connectionFactory);
+            List<Result> results = run("redis-cluster", new RedisOrderRepository(redisTemplate, jsonCodec, true, true),
+                new RedisOrderRepository(redisTemplate, jsonCodec, false, true));
+            if (miniCluster != null) {
+                System.out.println("Keys per cluster node: " + miniCluster.sizes());
+            }
+            return results;
+        } finally {
+            connectionFactory.destroy();
+            if (miniCluster != null) {
+                miniCluster.close();
+            }
+        }
+    }
+    
+    // Same serializers as the services' RedisConfig
+    private static RedisTemplate<String, String> redisTemplate(LettuceConnectionFactory connectionFactory) {
+        RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new LegacyAwareStringRedisSerializer(JsonMappers.shared()));
+        redisTemplate.afterPropertiesSet();
+        return redisTemplate;
+    }
+    
+    // unindexed is the same backend with the customer index switched off
+    private List<Result> run(String backend, OrderRepository repository, OrderRepository unindexed)
+            throws InterruptedException {
+        String[] orderIds = new String[orders];
+        for (int i = 0; i < orders; i++) {
+            orderIds[i] = String.format("ORD-%08X", i);
+        }
+        List<String> operationNames = List.of("get", "updateStatus", "getAll", "findByCustomer");
+        
+        // Loads the orders and warms up every operation before anything is measured
+        measure(backend, "put", orderIds.length, 1, i -> repository.put(order(orderIds, i), TTL), false);
+        measure(backend, "put, no index", Math.min(operations, 5_000), threads, i -> randomPut(unindexed, orderIds), false);
+        for (String operation : operationNames) {
+            measure(backend, operation, Math.min(operations, 5_000), threads,
+                i -> operation(repository, operation, orderIds), false);
+        }
+        
+        List<Result> results = new ArrayList<>();
+        results.add(measure(backend, "put", operations, threads, i -> randomPut(repository, orderIds), true));
+        results.add(measure(backend, "put, no index", operations, threads, i -> randomPut(unindexed, orderIds), true));
+        for (String operation : operationNames) {
+            results.add(measure(backend, operation, operations, threads, i -> operation(repository, operation, orderIds), true));
+        }
+        results.add(scanAll(backend, repository));
+        return results;
+    }
+    
+    // One full scan in batches of SCAN_BATCH, timed per batch; every stored order must come back
+    private Result scanAll(String backend, OrderRepository repository) {
+        Histogram latency = new Histogram(3);
+        Set<String> scanned = new HashSet<>();
+        String cursor = OrderScanPage.SCAN_START;
+        long start = System.nanoTime();
+        do {
+            long callStart = System.nanoTime();
+            OrderScanPage page = repository.scan(cursor, SCAN_BATCH);
+            latency.recordValue(System.nanoTime() - callStart);
+            page.orders().forEach(order -> scanned.add(order.getOrderId()));
+            cursor = page.nextCursor();
+        } while (!OrderScanPage.SCAN_START.equals(cursor));
+        long elapsedNanos = System.nanoTime() - start;
+        if (scanned.size() != orders) {
+            throw new IllegalStateException(backend + " scan returned " + scanned.size() + " of " + orders + " orders");
+        }
+        return new Result(backend, "scan (batch)", latency, latency.getTotalCount() * 1_000_000_000.0 / elapsedNanos);
+    }
+    
+    private void randomPut(OrderRepository repository, String[] orderIds) {
+        repository.put(order(orderIds, ThreadLocalRandom.current().nextInt(orders)), TTL);
+    }
+    
+    private void operation(OrderRepository repository, String operation, String[] orderIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case "get" -> {
+                if (repository.get(orderIds[random.nextInt(orders)]) == null) {
+                    throw new IllegalStateException("Stored order not found");
+                }
+            }
+            case "updateStatus" -> repository.updateStatus(orderIds[random.nextInt(orders)],
+                random.nextBoolean() ? OrderStatus.APPROVED : OrderStatus.REJECTED, TTL);
+            case "getAll" -> {
+                List<String> ids = new ArrayList<>(batch);
+                for (int i = 0; i < batch; i++) {
+                    ids.add(orderIds[random.nextInt(orders)]);
+                }
+                repository.getAll(ids);
+            }
+            case "findByCustomer" -> repository.findByCustomer(customerName(random.nextInt(customers)), null, batch);
+            default -> throw new IllegalArgumentException(operation);
+        }
+    }
+    
+    // Runs count calls split over threadCount threads and times each call
+    private Result measure(String backend, String operation, int count, int threadCount, Call call,
+                           boolean keep) throws InterruptedException {
+        Histogram latency = new ConcurrentHistogram(3);
+        List<Thread> workers = new ArrayList<>(threadCount);
+        List<Throwable> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threadCount; t++) {
+            int first = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    for (int i = first; i < count; i += threadCount) {
+                        long callStart = System.nanoTime();
+                        call.run(i);
+                        latency.recordValue(System.nanoTime() - callStart);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "repository-bench-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException(backend + " " + operation + " failed", failures.get(0));
+        }
+        return keep ? new Result(backend, operation, latency, count * 1_000_000_000.0 / elapsedNanos) : null;
+    }
+    
+    // Orders are spread evenly over the customers
+    private Order order(String[] orderIds, int index) {
+        List<OrderItem> items = List.of(
+            new OrderItem("P1001", 2, "standard"),
+            new OrderItem("P1002", 1, "perishable"),
+            new OrderItem("P1006", 3, "digital"));
+        Instant now = Instant.now();
+        return new Order(orderIds[index], customerName(index % customers), items, now, OrderStatus.PENDING, now);
+    }
+    
+    private static String customerName(int customer) {
+        return "Benchmark Customer " + customer;
+    }
+    
+    private void print(PrintStream out, List<Result> results) {
+        out.println("=== ORDER REPOSITORY BENCHMARK ===");
+        out.printf("Orders: %d, customers: %d, operations per phase: %d, threads: %d, batch/page: %d, redis: %s%n",
+            orders, customers, operations, threads, batch, redisAddress != null ? redisAddress : "in-process MiniRedisServer");
+        if (backends.contains("redis-cluster")) {
+            out.printf("Redis cluster: %s%n", redisClusterNodes != null ? redisClusterNodes
+                : "in-process MiniRedisCluster of " + clusterNodes + " nodes");
+        }
+        String backend = null;
+        for (Result result : results) {
+            if (!result.backend.equals(backend)) {
+                backend = result.backend;
+                out.println();
+                out.println(backend);
+            }
+            out.println(latencyLine("  " + result.operation + ":", result.latency)
+                + String.format(" throughput=%.0f ops/s", result.operationsPerSecond));
+        }
+        out.println("==================================");
+    }
+    
+    private static String latencyLine(String name, Histogram histogram) {
+        StringBuilder line = new StringBuilder(String.format("%-18s n=%d", name, histogram.getTotalCount()));
+        for (double percentile : PERCENTILES) {
+            String label = percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+            line.append(String.format(" p%s=%.1fus", label, histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        return line.toString();
+    }
+    
+    @FunctionalInterface
+    private interface Call {
+        void run(int index);
+    }
+    
+    private record Result(String backend, String operation, Histogram latency, double operationsPerSecond) {
+    }
+}
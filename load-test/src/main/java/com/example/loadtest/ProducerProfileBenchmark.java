@@ -0,0 +1,195 @@
+package com.example.loadtest;
+
+import com.example.shared.event.OrderEvent;
+import com.example.shared.kafka.ProducerProfile;
+import com.example.shared.serde.EventSerializer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Usage: ProducerProfileBenchmark [--records N] [--rate N] [--partitions N] [--serde json|binary]
+//                                 [--profiles low-latency,balanced,high-throughput]
+// Publishes OrderEvents to an embedded broker with each producer profile, once paced at a fixed
+// rate (publish latency as the request path sees it) and once as fast as possible (records/sec).
+// Each profile writes to its own topic so earlier runs do not affect later ones.
+public class ProducerProfileBenchmark {
+    
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final int WARMUP_RECORDS = 2_000;
+    
+    private int records = 50_000;
+    private double rate = 2_000;
+    private int partitions = 3;
+    private String serde = "json";
+    private List<ProducerProfile> profiles = Arrays.asList(ProducerProfile.values());
+    
+    public static void main(String[] args) throws Exception {
+        ProducerProfileBenchmark benchmark = parse(args);
+        
+        String[] topics = benchmark.profiles.stream().map(ProducerProfileBenchmark::topicFor).toArray(String[]::new);
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, benchmark.partitions, topics);
+        kafka.afterPropertiesSet();
+        try {
+            List<Result> results = new ArrayList<>();
+            for (ProducerProfile profile : benchmark.profiles) {
+                results.add(benchmark.run(kafka.getBrokersAsString(), profile));
+            }
+            benchmark.print(System.out, results);
+        } finally {
+            kafka.destroy();
+        }
+    }
+    
+    private static ProducerProfileBenchmark parse(String[] args) {
+        ProducerProfileBenchmark benchmark = new ProducerProfileBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--records" -> benchmark.records = Integer.parseInt(value);
+                case "--rate" -> benchmark.rate = Double.parseDouble(value);
+                case "--partitions" -> benchmark.partitions = Integer.parseInt(value);
+                case "--serde" -> benchmark.serde = value;
+                case "--profiles" -> benchmark.profiles = Arrays.stream(value.split(","))
+                    .map(ProducerProfile::from)
+                    .toList();
+                default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (benchmark.records <= 0 || benchmark.rate <= 0) {
+            throw new IllegalArgumentException("--records and --rate must be positive");
+        }
+        return benchmark;
+    }
+    
+    private Result run(String bootstrapServers, ProducerProfile profile) throws InterruptedException {
+        String topic = topicFor(profile);
+        
+        try (KafkaProducer<String, OrderEvent> producer = new KafkaProducer<>(producerConfig(bootstrapServers, topic, profile))) {
+            publish(producer, topic, WARMUP_RECORDS, 0, new ConcurrentHistogram(3));
+            
+            Histogram pacedLatency = new ConcurrentHistogram(3);
+            publish(producer, topic, records, rate, pacedLatency);
+            
+            Histogram burstLatency = new ConcurrentHistogram(3);
+            long burstNanos = publish(producer, topic, records, 0, burstLatency);
+            
+            return new Result(profile, pacedLatency, burstLatency, records * 1_000_000_000.0 / burstNanos,
+                metric(producer, "compression-rate-avg"), metric(producer, "batch-size-avg"));
+        }
+    }
+    
+    // Sends count records, open-loop at ratePerSecond or back to back when it is 0, and records
+    // each send's latency until acknowledgement. Returns the time until the last acknowledgement.
+    private long publish(KafkaProducer<String, OrderEvent> producer, String topic, int count, double ratePerSecond,
+                         Histogram latency) throws InterruptedException {
+        CountDownLatch acknowledged = new CountDownLatch(count);
+        LongAdder errors = new LongAdder();
+        long intervalNanos = ratePerSecond > 0 ? (long) (1_000_000_000L / ratePerSecond) : 0;
+        long start = System.nanoTime();
+        
+        for (int i = 0; i < count; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            // Paced sends are measured from the scheduled time, so producer back-pressure counts
+            long sendStart = intervalNanos > 0 ? intendedStart : System.nanoTime();
+            String orderId = "ORD-BENCH-" + i;
+            
+            producer.send(new ProducerRecord<>(topic, orderId, new OrderEvent(orderId, Instant.now())), (metadata, exception) -> {
+                if (exception != null) {
+                    errors.increment();
+                } else {
+                    latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sendStart));
+                }
+                acknowledged.countDown();
+            });
+        }
+        
+        if (!acknowledged.await(2, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Timed out waiting for acknowledgements on " + topic);
+        }
+        if (errors.sum() > 0) {
+            throw new IllegalStateException(errors.sum() + " sends failed on " + topic);
+        }
+        return System.nanoTime() - start;
+    }
+    
+    private Map<String, Object> producerConfig(String bootstrapServers, String topic, ProducerProfile profile) {
+        Map<String, Object> configProps = new HashMap<>(profile.producerConfig());
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        configProps.put(EventSerializer.formatConfig(topic), serde);
+        return configProps;
+    }
+    
+    private static double metric(KafkaProducer<?, ?> producer, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+            if (entry.getKey().group().equals("producer-metrics") && entry.getKey().name().equals(name)) {
+                return ((Number) entry.getValue().metricValue()).doubleValue();
+            }
+        }
+        return Double.NaN;
+    }
+    
+    private static String topicFor(ProducerProfile profile) {
+        return "bench-" + profile.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+    
+    private void print(PrintStream out, List<Result> results) {
+        out.println("=== PRODUCER PROFILE BENCHMARK ===");
+        out.printf("Records per phase: %d, paced rate: %.0f/s, partitions: %d, serde: %s%n",
+            records, rate, partitions, serde);
+        for (Result result : results) {
+            ProducerProfile profile = result.profile;
+            out.println();
+            out.printf("%s (compression=%s, linger.ms=%d, batch.size=%d, max.in.flight=%d)%n",
+                profile, profile.getCompressionType(), profile.getLingerMs(), profile.getBatchSize(),
+                profile.getMaxInFlightRequests());
+            out.println(latencyLine("  Paced publish:", result.pacedLatency));
+            out.println(latencyLine("  Burst publish:", result.burstLatency));
+            out.printf("  Burst throughput: %.0f records/s%n", result.recordsPerSecond);
+            out.printf("  Avg batch: %.0f bytes, compression rate: %.2f%n", result.batchSizeAvg, result.compressionRateAvg);
+        }
+        out.println("==================================");
+    }
+    
+    private static String latencyLine(String name, Histogram histogram) {
+        StringBuilder line = new StringBuilder(String.format("%-18s n=%d", name, histogram.getTotalCount()));
+        for (double percentile : PERCENTILES) {
+            String label = percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+            line.append(String.format(" p%s=%.2fms", label, histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        line.append(String.format(" max=%.2fms", histogram.getMaxValue() / 1000.0));
+        return line.toString();
+    }
+    
+    private record Result(ProducerProfile profile, Histogram pacedLatency, Histogram burstLatency,
+                          double recordsPerSecond, double compressionRateAvg, double batchSizeAvg) {
+    }
+}
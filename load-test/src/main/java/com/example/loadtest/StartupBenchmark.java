@@ -0,0 +1,213 @@
+package com.example.loadtest;
+
+import com.example.loadtest.support.MiniRedisServer;
+import com.example.loadtest.support.PipelineCluster;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderRequest;
+import com.example.shared.json.JsonMappers;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Usage: StartupBenchmark [--service-dir ../order-service] [--runs N] [--heap 256m]
+//                         [--variants fat,unpacked,aot,cds-aot]
+// Starts the packaged order-service as a child JVM once per run and variant, against an
+// embedded broker and the Redis stand-in in this JVM, and times how long until the first
+// POST /orders is answered with 201. Build the service with -Pfast-startup first:
+//   fat       the -exec jar, as the service shipped before
+//   unpacked  target/fast-startup, the jar with its dependencies in lib/
+//   aot       unpacked with the AOT-generated bean definitions
+//   cds-aot   aot with the class data sharing archive recorded by the build
+// "started" is Spring Boot's own "Started ... in" figure, which leaves out JVM launch.
+public class StartupBenchmark {
+    
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(120);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    
+    private Path serviceDirectory = Path.of("../order-service");
+    private int runs = 3;
+    private String heap = "256m";
+    private List<String> variants = Arrays.asList("fat", "unpacked", "aot", "cds-aot");
+    
+    public static void main(String[] args) throws Exception {
+        StartupBenchmark benchmark = parse(args);
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, 1,
+            PipelineCluster.ORDER_EVENTS_TOPIC, PipelineCluster.INVENTORY_CHECK_RESULTS_TOPIC);
+        kafka.afterPropertiesSet();
+        Path workDirectory = Files.createTempDirectory("startup-benchmark");
+        try (MiniRedisServer redis = new MiniRedisServer().start()) {
+            List<Result> results = new ArrayList<>();
+            for (String variant : benchmark.variants) {
+                for (int run = 1; run <= benchmark.runs; run++) {
+                    results.add(benchmark.run(variant, run, kafka.getBrokersAsString(), redis.getPort(),
+                        workDirectory.resolve(variant + "-" + run)));
+                }
+            }
+            benchmark.print(System.out, results);
+        } finally {
+            kafka.destroy();
+            FileSystemUtils.deleteRecursively(workDirectory);
+        }
+    }
+    
+    private static StartupBenchmark parse(String[] args) {
+        StartupBenchmark benchmark = new StartupBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--service-dir" -> benchmark.serviceDirectory = Path.of(value);
+                case "--runs" -> benchmark.runs = Integer.parseInt(value);
+                case "--heap" -> benchmark.heap = value;
+                case "--variants" -> benchmark.variants = Arrays.asList(value.split(","));
+                default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (benchmark.runs <= 0) {
+            throw new IllegalArgumentException("--runs must be positive");
+        }
+        return benchmark;
+    }
+    
+    private Result run(String variant, int run, String bootstrapServers, int redisPort, Path runDirectory)
+            throws Exception {
+        Path target = serviceDirectory.resolve("target").toAbsolutePath();
+        Path fastStartup = target.resolve("fast-startup");
+        String fastStartupJar = "order-service-1.0.0-fast-startup.jar";
+        List<String> command = new ArrayList<>(List.of(javaExecutable(), "-Xmx" + heap));
+        Path workingDirectory = fastStartup;
+        switch (variant) {
+            case "fat" -> {
+                workingDirectory = target;
+                command.addAll(List.of("-jar", "order-service-1.0.0-exec.jar"));
+            }
+            case "unpacked" -> command.addAll(List.of("-jar", fastStartupJar));
+            case "aot" -> command.addAll(List.of("-Dspring.aot.enabled=true", "-jar", fastStartupJar));
+            // The archive only applies when the jar is launched by the path it was recorded with
+            case "cds-aot" -> command.addAll(List.of("-XX:SharedArchiveFile=app.jsa", "-Dspring.aot.enabled=true",
+                "-jar", fastStartupJar));
+            default -> throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+        if (!Files.isRegularFile(workingDirectory.resolve(command.get(command.size() - 1)))) {
+            throw new IllegalStateException("No " + command.get(command.size() - 1) + " in " + workingDirectory
+                + ", package the service with -Pfast-startup first");
+        }
+        
+        int port = freePort();
+        Files.createDirectories(runDirectory);
+        command.addAll(List.of(
+            "--server.port=" + port,
+            "--spring.kafka.bootstrap-servers=" + bootstrapServers,
+            "--spring.redis.host=localhost",
+            "--spring.redis.port=" + redisPort,
+            "--order.outbox.directory=" + runDirectory.resolve("outbox"),
+            "--order.archive.directory=" + runDirectory.resolve("archive")));
+        Path log = runDirectory.resolve("service.log");
+        
+        long launchedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .directory(workingDirectory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        try {
+            long firstOrderNanos = awaitFirstOrder(process, port, launchedAt, log);
+            return new Result(variant, run, firstOrderNanos, reportedStartSeconds(log));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+    
+    // POSTs an order every POLL_INTERVAL until one is created; refused connections mean Tomcat
+    // is not listening yet
+    private long awaitFirstOrder(Process process, int port, long launchedAt, Path log) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+        byte[] body = JsonMappers.shared().writeValueAsBytes(new OrderRequest("startup-customer",
+            List.of(new OrderItem("P1001", 1, "standard")), Instant.now()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/orders"))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        while (System.nanoTime() - launchedAt < START_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Service exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 201) {
+                    return System.nanoTime() - launchedAt;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(POLL_INTERVAL.toMillis());
+        }
+        throw new IllegalStateException("No order created within " + START_TIMEOUT.toSeconds() + " s, see " + log);
+    }
+    
+    private static double reportedStartSeconds(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+    
+    private static String javaExecutable() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+    private void print(PrintStream out, List<Result> results) {
+        out.println("=== STARTUP BENCHMARK ===");
+        out.printf("Service: %s, runs per variant: %d, heap: %s%n", serviceDirectory, runs, heap);
+        for (String variant : variants) {
+            out.println();
+            out.println(variant);
+            double firstOrderTotal = 0;
+            double startedTotal = 0;
+            for (Result result : results) {
+                if (result.variant.equals(variant)) {
+                    out.printf("  run %d: first order %.2f s, started %.2f s%n", result.run,
+                        result.firstOrderNanos / 1e9, result.startedSeconds);
+                    firstOrderTotal += result.firstOrderNanos / 1e9;
+                    startedTotal += result.startedSeconds;
+                }
+            }
+            out.printf("  mean:  first order %.2f s, started %.2f s%n", firstOrderTotal / runs, startedTotal / runs);
+        }
+        out.println("=========================");
+    }
+    
+    private record Result(String variant, int run, long firstOrderNanos, double startedSeconds) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.loadtest.support;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Several MiniRedisServers acting as a Redis Cluster of masters without replicas, the slots
+// split evenly between them. Clients discover the topology from any node with CLUSTER NODES
+// and are redirected with MOVED like on a real cluster, so a command sent to the wrong node
+// or spanning slots fails here too.
+public class MiniRedisCluster implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MiniRedisCluster.class);
+
+    private final int size;
+    private final List<MiniRedisServer> nodes = new ArrayList<>();
+
+    public MiniRedisCluster(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("A cluster needs at least one node");
+        }
+        this.size = size;
+    }
+
+    public MiniRedisCluster start() throws IOException {
+        for (int i = 0; i < size; i++) {
+            nodes.add(new MiniRedisServer().start());
+        }
+        List<MiniRedisServer.ClusterNode> topology = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int firstSlot = i * SlotHash.SLOT_COUNT / size;
+            int lastSlot = (i + 1) * SlotHash.SLOT_COUNT / size - 1;
+            // Node ids are 40 hex characters
+            String id = String.format(Locale.ROOT, "%040x", i + 1);
+            topology.add(new MiniRedisServer.ClusterNode(id, nodes.get(i).getPort(), firstSlot, lastSlot));
+        }
+        for (int i = 0; i < size; i++) {
+            nodes.get(i).joinCluster(List.copyOf(topology), topology.get(i));
+        }
+        logger.info("Mini Redis cluster started with {} nodes at {}", size, getNodes());
+        return this;
+    }
+
+    // host:port of every node, comma-separated as spring.redis.cluster.nodes takes them
+    public String getNodes() {
+        return nodes.stream().map(node -> "127.0.0.1:" + node.getPort()).collect(Collectors.joining(","));
+    }
+
+    public int size() {
+        return nodes.stream().mapToInt(MiniRedisServer::size).sum();
+    }
+
+    // Keys stored on each node, in slot order
+    public List<Integer> sizes() {
+        return nodes.stream().map(MiniRedisServer::size).toList();
+    }
+
+    // Keys stored on each node, in slot order
+    public List<Set<String>> keys() {
+        return nodes.stream().map(MiniRedisServer::keys).toList();
+    }
+
+    public void setCommandDelay(Duration delay) {
+        nodes.forEach(node -> node.setCommandDelay(delay));
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MiniRedisServer node : nodes) {
+            node.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.loadtest.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// A MiniRedisServer primary with replicas that apply its writes a fixed lag later, so reads
+// routed to a replica see the staleness a real asynchronous replica has
+public class MiniRedisReplicaSet implements AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MiniRedisReplicaSet.class);
+    
+    private final int replicaCount;
+    private final Duration replicationLag;
+    private MiniRedisServer primary;
+    private final List<MiniRedisServer> replicas = new ArrayList<>();
+    
+    public MiniRedisReplicaSet(int replicaCount, Duration replicationLag) {
+        if (replicaCount < 1) {
+            throw new IllegalArgumentException("A replica set needs at least one replica");
+        }
+        this.replicaCount = replicaCount;
+        this.replicationLag = replicationLag;
+    }
+    
+    public MiniRedisReplicaSet start() throws IOException {
+        primary = new MiniRedisServer().start();
+        for (int i = 0; i < replicaCount; i++) {
+            MiniRedisServer replica = new MiniRedisServer().start();
+            replica.replicaOf(primary, replicationLag);
+            replicas.add(replica);
+        }
+        logger.info("Mini Redis primary at port {} with replicas at {}, lag {} ms", primary.getPort(), getReplicas(),
+            replicationLag.toMillis());
+        return this;
+    }
+    
+    public int getPrimaryPort() {
+        return primary.getPort();
+    }
+    
+    // host:port of every replica, comma-separated as spring.redis.replica-reads.replicas takes them
+    public String getReplicas() {
+        return replicas.stream().map(replica -> "127.0.0.1:" + replica.getPort()).collect(Collectors.joining(","));
+    }
+    
+    public void setCommandDelay(Duration delay) {
+        primary.setCommandDelay(delay);
+        replicas.forEach(replica -> replica.setCommandDelay(delay));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (MiniRedisServer replica : replicas) {
+            replica.close();
+        }
+        primary.close();
+    }
+}
@@ -0,0 +1,835 @@
+package com.example.loadtest.support;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+// Minimal RESP2 server covering the commands the services issue through Lettuce.
+// It is a local stand-in for load tests, not a Redis replacement: single database,
+// lazy expiry, no persistence. As a node of a MiniRedisCluster it serves only its own slots,
+// answers MOVED for the others and CROSSSLOT for multi-key commands spanning slots. As a
+// replica of another MiniRedisServer it rejects writes from clients and applies the primary's
+// writes in order, each a fixed replication lag after the primary ran it.
+public class MiniRedisServer implements AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MiniRedisServer.class);
+    // Commands a replica receives from its primary and refuses from clients
+    private static final Set<String> WRITE_COMMANDS = Set.of("SET", "SETEX", "PSETEX", "SETNX", "DEL", "UNLINK",
+        "EXPIRE", "PEXPIRE", "INCR", "INCRBY", "HINCRBY", "HSET", "SADD", "ZADD", "ZREMRANGEBYSCORE", "FLUSHALL", "FLUSHDB");
+    
+    private final Map<String, Entry> store = new ConcurrentHashMap<>();
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mini-redis-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+    private volatile long commandDelayNanos;
+    private volatile ClusterView cluster;
+    private final List<MiniRedisServer> replicas = new CopyOnWriteArrayList<>();
+    // Set on a replica only: the server it follows, and the thread applying its writes in order
+    private volatile MiniRedisServer primary;
+    private ExecutorService replication;
+    private long replicationLagNanos;
+    
+    public MiniRedisServer start() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "mini-redis-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Mini Redis listening on port {}", getPort());
+        return this;
+    }
+    
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    public int size() {
+        return store.size();
+    }
+    
+    // Keys stored here, expired ones included until they are next touched
+    public Set<String> keys() {
+        return Set.copyOf(store.keySet());
+    }
+    
+    // Adds a fixed service time to every command, like a slow or overloaded Redis. Commands on
+    // one connection are served one at a time, so this also caps each connection's throughput.
+    public void setCommandDelay(Duration delay) {
+        this.commandDelayNanos = delay.toNanos();
+    }
+    
+    // Makes this server a cluster node owning slots [firstSlot, lastSlot] of the given topology
+    void joinCluster(List<ClusterNode> nodes, ClusterNode self) {
+        this.cluster = new ClusterView(nodes, self);
+    }
+    
+    // Makes this server a read-only replica of primary, applying its writes after lag
+    void replicaOf(MiniRedisServer primary, Duration lag) {
+        replication = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mini-redis-replication");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replicationLagNanos = lag.toNanos();
+        this.primary = primary;
+        primary.replicas.add(this);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        connections.shutdownNow();
+        if (primary != null) {
+            primary.replicas.remove(this);
+            replication.shutdownNow();
+        }
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("Mini Redis accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (running) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                if (commandDelayNanos > 0) {
+                    LockSupport.parkNanos(commandDelayNanos);
+                }
+                execute(command, out);
+                // Flush once the client has no further pipelined commands buffered
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Mini Redis connection closed: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Mini Redis connection failed", e);
+        }
+    }
+    
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        execute(command, out, false);
+    }
+    
+    private void execute(List<byte[]> command, OutputStream out, boolean fromPrimary) throws IOException {
+        String name = str(command.get(0)).toUpperCase(Locale.ROOT);
+        try {
+            if (primary != null && !fromPrimary && WRITE_COMMANDS.contains(name)) {
+                error(out, "READONLY You can't write against a read only replica.");
+                return;
+            }
+            ClusterView cluster = this.cluster;
+            if (cluster != null) {
+                String redirect = cluster.redirect(name, command);
+                if (redirect != null) {
+                    error(out, redirect);
+                    return;
+                }
+            }
+            switch (name) {
+                case "PING" -> simple(out, "PONG");
+                case "HELLO" -> error(out, "ERR unknown command 'HELLO'");
+                case "CLIENT", "SELECT", "READONLY", "READWRITE" -> simple(out, "OK");
+                case "QUIT" -> simple(out, "OK");
+                case "GET" -> bulk(out, getString(key(command, 1)));
+                case "SET" -> set(command, out);
+                case "SETEX" -> {
+                    putString(key(command, 1), command.get(3), System.currentTimeMillis() + Long.parseLong(str(command.get(2))) * 1000);
+                    simple(out, "OK");
+                }
+                case "PSETEX" -> {
+                    putString(key(command, 1), command.get(3), System.currentTimeMillis() + Long.parseLong(str(command.get(2))));
+                    simple(out, "OK");
+                }
+                case "SETNX" -> integer(out, setIfAbsent(key(command, 1), command.get(2), 0) ? 1 : 0);
+                case "MGET" -> {
+                    List<byte[]> values = new ArrayList<>();
+                    for (int i = 1; i < command.size(); i++) {
+                        values.add(getString(key(command, i)));
+                    }
+                    array(out, values);
+                }
+                case "DEL", "UNLINK" -> {
+                    long removed = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        if (live(key(command, i)) != null && store.remove(key(command, i)) != null) {
+                            removed++;
+                        }
+                    }
+                    integer(out, removed);
+                }
+                case "EXISTS" -> {
+                    long count = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        count += live(key(command, i)) != null ? 1 : 0;
+                    }
+                    integer(out, count);
+                }
+                case "EXPIRE" -> integer(out, expire(key(command, 1), Long.parseLong(str(command.get(2))) * 1000));
+                case "PEXPIRE" -> integer(out, expire(key(command, 1), Long.parseLong(str(command.get(2)))));
+                case "TTL" -> integer(out, ttl(key(command, 1), 1000));
+                case "PTTL" -> integer(out, ttl(key(command, 1), 1));
+                case "INCR" -> integer(out, incrBy(key(command, 1), 1));
+                case "INCRBY" -> integer(out, incrBy(key(command, 1), Long.parseLong(str(command.get(2)))));
+                case "HINCRBY" -> integer(out, hincrBy(key(command, 1), str(command.get(2)), Long.parseLong(str(command.get(3)))));
+                case "HSET" -> integer(out, hset(command));
+                case "HGET" -> bulk(out, hash(key(command, 1)).get(str(command.get(2))));
+                case "HGETALL" -> {
+                    List<byte[]> values = new ArrayList<>();
+                    for (Map.Entry<String, byte[]> field : hash(key(command, 1)).entrySet()) {
+                        values.add(bytes(field.getKey()));
+                        values.add(field.getValue());
+                    }
+                    array(out, values);
+                }
+                case "SADD" -> integer(out, sadd(command));
+                case "SMEMBERS" -> {
+                    List<byte[]> values = new ArrayList<>();
+                    for (String member : set(key(command, 1))) {
+                        values.add(bytes(member));
+                    }
+                    array(out, values);
+                }
+                case "ZADD" -> integer(out, zadd(command));
+                case "ZCARD" -> integer(out, sortedSet(key(command, 1)).size());
+                case "ZREMRANGEBYSCORE" -> integer(out, sortedSet(key(command, 1))
+                    .removeRange(score(command.get(2), false), score(command.get(3), true)));
+                case "ZREVRANGEBYSCORE" -> array(out, zrevrangeByScore(command));
+                case "SCAN" -> scan(command, out);
+                case "DBSIZE" -> integer(out, store.size());
+                case "CLUSTER" -> cluster(command, out);
+                case "INFO" -> bulk(out, bytes("# Clients\r\nconnected_clients:1\r\n# Replication\r\n"
+                    + (primary != null ? "role:slave\r\nmaster_host:127.0.0.1\r\nmaster_port:" + primary.getPort()
+                        + "\r\nmaster_link_status:up\r\n" : "role:master\r\nconnected_slaves:" + replicas.size() + "\r\n")
+                    + "master_repl_offset:0\r\n"));
+                case "ROLE" -> role(out);
+                case "FLUSHALL", "FLUSHDB" -> {
+                    store.clear();
+                    simple(out, "OK");
+                }
+                default -> error(out, "ERR unknown command '" + name + "'");
+            }
+            if (!replicas.isEmpty() && WRITE_COMMANDS.contains(name)) {
+                long ranAt = System.nanoTime();
+                for (MiniRedisServer replica : replicas) {
+                    replica.apply(command, ranAt);
+                }
+            }
+        } catch (RuntimeException e) {
+            error(out, "ERR " + e.getMessage());
+        }
+    }
+    
+    private void set(List<byte[]> command, OutputStream out) throws IOException {
+        String key = key(command, 1);
+        byte[] value = command.get(2);
+        long expiresAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        
+        for (int i = 3; i < command.size(); i++) {
+            String option = str(command.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "EX" -> expiresAt = System.currentTimeMillis() + Long.parseLong(str(command.get(++i))) * 1000;
+                case "PX" -> expiresAt = System.currentTimeMillis() + Long.parseLong(str(command.get(++i)));
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "KEEPTTL" -> {
+                    Entry existing = live(key);
+                    expiresAt = existing == null ? 0 : existing.expiresAt;
+                }
+                default -> throw new IllegalArgumentException("syntax error");
+            }
+        }
+        
+        if (nx) {
+            if (setIfAbsent(key, value, expiresAt)) {
+                simple(out, "OK");
+            } else {
+                nullBulk(out);
+            }
+            return;
+        }
+        if (xx && live(key) == null) {
+            nullBulk(out);
+            return;
+        }
+        putString(key, value, expiresAt);
+        simple(out, "OK");
+    }
+    
+    // Store helpers
+    
+    private Entry live(String key) {
+        Entry entry = store.get(key);
+        if (entry != null && entry.isExpired()) {
+            store.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+    
+    private byte[] getString(String key) {
+        Entry entry = live(key);
+        return entry == null ? null : (byte[]) entry.value;
+    }
+    
+    private void putString(String key, byte[] value, long expiresAt) {
+        store.put(key, new Entry(value, expiresAt));
+    }
+    
+    private boolean setIfAbsent(String key, byte[] value, long expiresAt) {
+        live(key);
+        return store.putIfAbsent(key, new Entry(value, expiresAt)) == null;
+    }
+    
+    private long expire(String key, long millis) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return 0;
+        }
+        entry.expiresAt = System.currentTimeMillis() + millis;
+        return 1;
+    }
+    
+    private long ttl(String key, long unitMillis) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return -2;
+        }
+        if (entry.expiresAt == 0) {
+            return -1;
+        }
+        return (entry.expiresAt - System.currentTimeMillis()) / unitMillis;
+    }
+    
+    private long incrBy(String key, long delta) {
+        Entry entry = store.compute(key, (k, existing) -> {
+            long current = existing == null || existing.isExpired() ? 0 : Long.parseLong(str((byte[]) existing.value));
+            return new Entry(bytes(Long.toString(current + delta)), existing == null ? 0 : existing.expiresAt);
+        });
+        return Long.parseLong(str((byte[]) entry.value));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> hash(String key) {
+        Entry entry = live(key);
+        return entry == null ? Map.of() : (Map<String, byte[]>) entry.value;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private long hincrBy(String key, String field, long delta) {
+        long[] result = new long[1];
+        store.compute(key, (k, existing) -> {
+            Entry entry = existing == null || existing.isExpired() ? new Entry(new ConcurrentHashMap<String, byte[]>(), 0) : existing;
+            Map<String, byte[]> hash = (Map<String, byte[]>) entry.value;
+            byte[] current = hash.get(field);
+            result[0] = (current == null ? 0 : Long.parseLong(str(current))) + delta;
+            hash.put(field, bytes(Long.toString(result[0])));
+            return entry;
+        });
+        return result[0];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private long hset(List<byte[]> command) {
+        long[] added = new long[1];
+        store.compute(key(command, 1), (k, existing) -> {
+            Entry entry = existing == null || existing.isExpired() ? new Entry(new ConcurrentHashMap<String, byte[]>(), 0) : existing;
+            Map<String, byte[]> hash = (Map<String, byte[]>) entry.value;
+            for (int i = 2; i + 1 < command.size(); i += 2) {
+                if (hash.put(str(command.get(i)), command.get(i + 1)) == null) {
+                    added[0]++;
+                }
+            }
+            return entry;
+        });
+        return added[0];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Set<String> set(String key) {
+        Entry entry = live(key);
+        return entry == null ? Set.of() : (Set<String>) entry.value;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private long sadd(List<byte[]> command) {
+        long[] added = new long[1];
+        store.compute(key(command, 1), (k, existing) -> {
+            Entry entry = existing == null || existing.isExpired()
+                ? new Entry(ConcurrentHashMap.newKeySet(), 0) : existing;
+            Set<String> members = (Set<String>) entry.value;
+            for (int i = 2; i < command.size(); i++) {
+                if (members.add(str(command.get(i)))) {
+                    added[0]++;
+                }
+            }
+            return entry;
+        });
+        return added[0];
+    }
+    
+    private SortedSet sortedSet(String key) {
+        Entry entry = live(key);
+        return entry == null ? new SortedSet() : (SortedSet) entry.value;
+    }
+    
+    private long zadd(List<byte[]> command) {
+        long[] added = new long[1];
+        store.compute(key(command, 1), (k, existing) -> {
+            Entry entry = existing == null || existing.isExpired() ? new Entry(new SortedSet(), 0) : existing;
+            SortedSet sortedSet = (SortedSet) entry.value;
+            for (int i = 2; i + 1 < command.size(); i += 2) {
+                if (sortedSet.add(str(command.get(i + 1)), Double.parseDouble(str(command.get(i))))) {
+                    added[0]++;
+                }
+            }
+            return entry;
+        });
+        return added[0];
+    }
+    
+    // ZREVRANGEBYSCORE key max min [WITHSCORES] [LIMIT offset count]
+    private List<byte[]> zrevrangeByScore(List<byte[]> command) {
+        boolean withScores = false;
+        int offset = 0;
+        int count = -1;
+        for (int i = 4; i < command.size(); i++) {
+            String option = str(command.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "WITHSCORES" -> withScores = true;
+                case "LIMIT" -> {
+                    offset = Integer.parseInt(str(command.get(++i)));
+                    count = Integer.parseInt(str(command.get(++i)));
+                }
+                default -> throw new IllegalArgumentException("syntax error");
+            }
+        }
+        
+        List<byte[]> values = new ArrayList<>();
+        for (ScoredMember member : sortedSet(key(command, 1))
+                .descendingRange(score(command.get(3), false), score(command.get(2), true), offset, count)) {
+            values.add(bytes(member.member));
+            if (withScores) {
+                values.add(bytes(formatScore(member.score)));
+            }
+        }
+        return values;
+    }
+    
+    // SCAN cursor [MATCH pattern] [COUNT count]. Keys are visited in order of their unsigned
+    // hash and the cursor is the next hash to visit, so keys present for the whole scan are
+    // returned once even while others are written; COUNT is met or exceeded, never split
+    // between keys of equal hash
+    private void scan(List<byte[]> command, OutputStream out) throws IOException {
+        long cursor = Long.parseLong(str(command.get(1)));
+        Pattern match = null;
+        int count = 10;
+        for (int i = 2; i < command.size(); i++) {
+            String option = str(command.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "MATCH" -> match = glob(str(command.get(++i)));
+                case "COUNT" -> count = Integer.parseInt(str(command.get(++i)));
+                default -> throw new IllegalArgumentException("syntax error");
+            }
+        }
+        
+        TreeMap<Long, List<String>> byHash = new TreeMap<>();
+        for (Map.Entry<String, Entry> entry : store.entrySet()) {
+            long hash = Integer.toUnsignedLong(entry.getKey().hashCode());
+            if (hash >= cursor && !entry.getValue().isExpired()
+                    && (match == null || match.matcher(entry.getKey()).matches())) {
+                byHash.computeIfAbsent(hash, h -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        List<byte[]> keys = new ArrayList<>();
+        long next = 0;
+        for (Map.Entry<Long, List<String>> bucket : byHash.entrySet()) {
+            if (keys.size() >= count) {
+                next = bucket.getKey();
+                break;
+            }
+            for (String key : bucket.getValue()) {
+                keys.add(bytes(key));
+            }
+        }
+        
+        out.write(bytes("*2\r\n"));
+        bulk(out, bytes(Long.toString(next)));
+        array(out, keys);
+    }
+    
+    // Runs a write of the primary's once the replication lag after ranAt has passed
+    private void apply(List<byte[]> command, long ranAt) {
+        replication.execute(() -> {
+            long wait = ranAt + replicationLagNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            try {
+                execute(command, OutputStream.nullOutputStream(), true);
+            } catch (IOException e) {
+                logger.warn("Mini Redis replication failed", e);
+            }
+        });
+    }
+    
+    // What Lettuce asks each node of a static primary and replicas setup to tell them apart.
+    // Offsets are always 0, as replicas here keep no replication offset
+    private void role(OutputStream out) throws IOException {
+        if (primary != null) {
+            out.write(bytes("*5\r\n"));
+            bulk(out, bytes("slave"));
+            bulk(out, bytes("127.0.0.1"));
+            integer(out, primary.getPort());
+            bulk(out, bytes("connected"));
+            integer(out, 0);
+            return;
+        }
+        out.write(bytes("*3\r\n"));
+        bulk(out, bytes("master"));
+        integer(out, 0);
+        out.write(bytes("*" + replicas.size() + "\r\n"));
+        for (MiniRedisServer replica : replicas) {
+            array(out, List.of(bytes("127.0.0.1"), bytes(String.valueOf(replica.getPort())), bytes("0")));
+        }
+    }
+    
+    // CLUSTER NODES, SLOTS, MYID and INFO: enough for Lettuce to discover the topology
+    private void cluster(List<byte[]> command, OutputStream out) throws IOException {
+        ClusterView cluster = this.cluster;
+        if (cluster == null) {
+            error(out, "ERR This instance has cluster support disabled");
+            return;
+        }
+        String subcommand = str(command.get(1)).toUpperCase(Locale.ROOT);
+        switch (subcommand) {
+            case "NODES" -> {
+                StringBuilder nodes = new StringBuilder();
+                for (ClusterNode node : cluster.nodes) {
+                    nodes.append(node.id).append(" 127.0.0.1:").append(node.port).append('@').append(node.port + 10000)
+                        .append(node == cluster.self ? " myself,master" : " master")
+                        .append(" - 0 0 1 connected ").append(node.firstSlot).append('-').append(node.lastSlot).append('\n');
+                }
+                bulk(out, bytes(nodes.toString()));
+            }
+            case "SLOTS" -> {
+                out.write(bytes("*" + cluster.nodes.size() + "\r\n"));
+                for (ClusterNode node : cluster.nodes) {
+                    out.write(bytes("*3\r\n"));
+                    integer(out, node.firstSlot);
+                    integer(out, node.lastSlot);
+                    out.write(bytes("*3\r\n"));
+                    bulk(out, bytes("127.0.0.1"));
+                    integer(out, node.port);
+                    bulk(out, bytes(node.id));
+                }
+            }
+            case "MYID" -> bulk(out, bytes(cluster.self.id));
+            case "INFO" -> bulk(out, bytes("cluster_enabled:1\r\ncluster_state:ok\r\ncluster_slots_assigned:"
+                + SlotHash.SLOT_COUNT + "\r\ncluster_known_nodes:" + cluster.nodes.size() + "\r\n"));
+            default -> error(out, "ERR unknown subcommand '" + subcommand + "'");
+        }
+    }
+    
+    // Glob patterns with * and ? only, which is all the services use
+    private static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+    
+    // Score bounds: a number, -inf or +inf, with a leading ( for an exclusive bound. Exclusive
+    // bounds are moved by the smallest step, which is exact enough for the integer scores in use
+    private static double score(byte[] value, boolean upper) {
+        String bound = str(value);
+        boolean exclusive = bound.startsWith("(");
+        if (exclusive) {
+            bound = bound.substring(1);
+        }
+        double score = switch (bound.toLowerCase(Locale.ROOT)) {
+            case "-inf" -> Double.NEGATIVE_INFINITY;
+            case "+inf", "inf" -> Double.POSITIVE_INFINITY;
+            default -> Double.parseDouble(bound);
+        };
+        if (!exclusive) {
+            return score;
+        }
+        return upper ? Math.nextDown(score) : Math.nextUp(score);
+    }
+    
+    private static String formatScore(double score) {
+        return score == Math.rint(score) && Math.abs(score) < 1e15 ? Long.toString((long) score) : Double.toString(score);
+    }
+    
+    // RESP protocol
+    
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int marker = in.read();
+        if (marker == -1) {
+            return null;
+        }
+        if (marker != '*') {
+            // Inline command, e.g. from redis-cli or telnet
+            String line = (char) marker + readLine(in);
+            List<byte[]> parts = new ArrayList<>();
+            for (String part : line.trim().split("\\s+")) {
+                parts.add(bytes(part));
+            }
+            return parts;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Protocol error: expected bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] data = in.readNBytes(length);
+            in.read();
+            in.read();
+            parts.add(data);
+        }
+        return parts;
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\r') {
+                in.read();
+                break;
+            }
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+    
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(bytes("+" + value + "\r\n"));
+    }
+    
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(bytes("-" + message + "\r\n"));
+    }
+    
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write(bytes(":" + value + "\r\n"));
+    }
+    
+    private static void nullBulk(OutputStream out) throws IOException {
+        out.write(bytes("$-1\r\n"));
+    }
+    
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            nullBulk(out);
+            return;
+        }
+        out.write(bytes("$" + value.length + "\r\n"));
+        out.write(value);
+        out.write('\r');
+        out.write('\n');
+    }
+    
+    private static void array(OutputStream out, List<byte[]> values) throws IOException {
+        out.write(bytes("*" + values.size() + "\r\n"));
+        for (byte[] value : values) {
+            bulk(out, value);
+        }
+    }
+    
+    // Keys are kept as ISO-8859-1 strings so arbitrary bytes round-trip unchanged
+    private static String key(List<byte[]> command, int index) {
+        return str(command.get(index));
+    }
+    
+    private static String str(byte[] value) {
+        return new String(value, StandardCharsets.ISO_8859_1);
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+    
+    private record ScoredMember(String member, double score) {
+    }
+    
+    // Members ordered by score, then by member, like a Redis sorted set
+    private static class SortedSet {
+        private final TreeSet<ScoredMember> ordered = new TreeSet<>(
+            Comparator.comparingDouble(ScoredMember::score).thenComparing(ScoredMember::member));
+        private final Map<String, Double> scores = new HashMap<>();
+        
+        private synchronized boolean add(String member, double score) {
+            Double previous = scores.put(member, score);
+            if (previous != null) {
+                ordered.remove(new ScoredMember(member, previous));
+            }
+            ordered.add(new ScoredMember(member, score));
+            return previous == null;
+        }
+        
+        private synchronized int size() {
+            return scores.size();
+        }
+        
+        private synchronized long removeRange(double min, double max) {
+            long removed = 0;
+            Iterator<ScoredMember> members = ordered.iterator();
+            while (members.hasNext()) {
+                ScoredMember member = members.next();
+                if (member.score > max) {
+                    break;
+                }
+                if (member.score >= min) {
+                    members.remove();
+                    scores.remove(member.member);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+        
+        private synchronized List<ScoredMember> descendingRange(double min, double max, int offset, int count) {
+            List<ScoredMember> range = new ArrayList<>();
+            int skipped = 0;
+            for (ScoredMember member : ordered.descendingSet()) {
+                if (count >= 0 && range.size() >= count) {
+                    break;
+                }
+                if (member.score > max) {
+                    continue;
+                }
+                if (member.score < min) {
+                    break;
+                }
+                if (skipped++ < offset) {
+                    continue;
+                }
+                range.add(member);
+            }
+            return range;
+        }
+    }
+    
+    record ClusterNode(String id, int port, int firstSlot, int lastSlot) {
+    
+        boolean owns(int slot) {
+            return slot >= firstSlot && slot <= lastSlot;
+        }
+    }
+    
+    private static class ClusterView {
+    
+        // Commands taking a key at 1, and those taking keys from 1 to the end
+        private static final Set<String> SINGLE_KEY = Set.of("GET", "SET", "SETEX", "PSETEX", "SETNX", "EXPIRE",
+            "PEXPIRE", "TTL", "PTTL", "INCR", "INCRBY", "HINCRBY", "HSET", "HGET", "HGETALL", "SADD", "SMEMBERS",
+            "ZADD", "ZCARD", "ZREMRANGEBYSCORE", "ZREVRANGEBYSCORE");
+        private static final Set<String> MULTI_KEY = Set.of("MGET", "DEL", "UNLINK", "EXISTS");
+        
+        private final List<ClusterNode> nodes;
+        private final ClusterNode self;
+        
+        private ClusterView(List<ClusterNode> nodes, ClusterNode self) {
+            this.nodes = nodes;
+            this.self = self;
+        }
+        
+        // The error to answer instead of running the command, or null to run it here
+        private String redirect(String name, List<byte[]> command) {
+            int last = SINGLE_KEY.contains(name) ? 1 : MULTI_KEY.contains(name) ? command.size() - 1 : 0;
+            if (last == 0 || command.size() < 2) {
+                return null;
+            }
+            int slot = SlotHash.getSlot(command.get(1));
+            for (int i = 2; i <= last; i++) {
+                if (SlotHash.getSlot(command.get(i)) != slot) {
+                    return "CROSSSLOT Keys in request don't hash to the same slot";
+                }
+            }
+            if (self.owns(slot)) {
+                return null;
+            }
+            for (ClusterNode node : nodes) {
+                if (node.owns(slot)) {
+                    return "MOVED " + slot + " 127.0.0.1:" + node.port;
+                }
+            }
+            return "CLUSTERDOWN Hash slot not served";
+        }
+    }
+    
+    private static class Entry {
+        private final Object value;
+        private volatile long expiresAt;
+        
+        private Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+        
+        private boolean isExpired() {
+            return expiresAt > 0 && System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
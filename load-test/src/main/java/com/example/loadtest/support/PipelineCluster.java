@@ -0,0 +1,193 @@
+package com.example.loadtest.support;
+
+import com.example.inventoryservice.InventoryServiceApplication;
+import com.example.notificationservice.NotificationServiceApplication;
+import com.example.orderservice.OrderServiceApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Runs the whole pipeline in one JVM: embedded Kafka (or the in-memory event bus), the Redis
+// stand-in (one server, a primary with redisReplicas replicas, or a cluster of redisClusterNodes)
+// and the three services
+public class PipelineCluster implements AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PipelineCluster.class);
+    
+    public static final String ORDER_EVENTS_TOPIC = "order-events";
+    public static final String INVENTORY_CHECK_RESULTS_TOPIC = "inventory-check-results";
+    private static final String KAFKA_AUTO_CONFIGURATION =
+        "org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration";
+    
+    private final int partitions;
+    private final String serde;
+    private final String ingest;
+    private final boolean admission;
+    private final String inventoryEngine;
+    private final String bus;
+    private final String repository;
+    private final int redisClusterNodes;
+    private final int redisReplicas;
+    private final Duration replicationLag;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final List<ConfigurableApplicationContext> services = new ArrayList<>();
+    private EmbeddedKafkaKraftBroker kafka;
+    private MiniRedisServer redis;
+    private MiniRedisCluster redisCluster;
+    private MiniRedisReplicaSet redisReplicaSet;
+    private Path outboxDirectory;
+    private Path streamsStateDirectory;
+    private int orderServicePort;
+    
+    public PipelineCluster(int partitions, String serde, String ingest, boolean admission, String inventoryEngine,
+                           String bus, String repository, int redisClusterNodes, int redisReplicas,
+                           Duration replicationLag) {
+        this.partitions = partitions;
+        this.serde = serde;
+        this.ingest = ingest;
+        this.admission = admission;
+        this.inventoryEngine = inventoryEngine;
+        this.bus = bus;
+        this.repository = repository;
+        this.redisClusterNodes = redisClusterNodes;
+        this.redisReplicas = redisReplicas;
+        this.replicationLag = replicationLag;
+    }
+    
+    public PipelineCluster start() throws IOException {
+        if (bus.equals("kafka")) {
+            kafka = new EmbeddedKafkaKraftBroker(1, partitions, ORDER_EVENTS_TOPIC, INVENTORY_CHECK_RESULTS_TOPIC);
+            // The streams engine runs exactly-once, which needs a transaction log a single broker can host
+            kafka.brokerProperty("transaction.state.log.replication.factor", "1");
+            kafka.brokerProperty("transaction.state.log.min.isr", "1");
+            kafka.afterPropertiesSet();
+            logger.info("Embedded Kafka started at {}", kafka.getBrokersAsString());
+        }
+        
+        if (redisClusterNodes > 0) {
+            redisCluster = new MiniRedisCluster(redisClusterNodes).start();
+        } else if (redisReplicas > 0) {
+            redisReplicaSet = new MiniRedisReplicaSet(redisReplicas, replicationLag).start();
+        } else {
+            redis = new MiniRedisServer().start();
+        }
+        outboxDirectory = Files.createTempDirectory("order-outbox");
+        streamsStateDirectory = Files.createTempDirectory("inventory-streams");
+        
+        // Downstream services first so their consumers are assigned before orders arrive
+        startService(NotificationServiceApplication.class, "notification-service");
+        startService(InventoryServiceApplication.class, "inventory-service");
+        ConfigurableApplicationContext orderService = startService(OrderServiceApplication.class, "order-service");
+        orderServicePort = ((ServletWebServerApplicationContext) orderService).getWebServer().getPort();
+        
+        logger.info("Pipeline started, order-service listening on port {}", orderServicePort);
+        return this;
+    }
+    
+    public String getOrderServiceUrl() {
+        return "http://localhost:" + orderServicePort;
+    }
+    
+    public void setRedisCommandDelay(Duration delay) {
+        if (redisCluster != null) {
+            redisCluster.setCommandDelay(delay);
+        } else if (redisReplicaSet != null) {
+            redisReplicaSet.setCommandDelay(delay);
+        } else {
+            redis.setCommandDelay(delay);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (int i = services.size() - 1; i >= 0; i--) {
+            services.get(i).close();
+        }
+        if (redis != null) {
+            redis.close();
+        }
+        if (redisCluster != null) {
+            redisCluster.close();
+        }
+        if (redisReplicaSet != null) {
+            redisReplicaSet.close();
+        }
+        if (kafka != null) {
+            kafka.destroy();
+        }
+        if (outboxDirectory != null) {
+            FileSystemUtils.deleteRecursively(outboxDirectory);
+        }
+        if (streamsStateDirectory != null) {
+            FileSystemUtils.deleteRecursively(streamsStateDirectory);
+        }
+    }
+    
+    private ConfigurableApplicationContext startService(Class<?> application, String name) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+            .properties(serviceProperties(name))
+            .run();
+        services.add(context);
+        return context;
+    }
+    
+    private Map<String, Object> serviceProperties(String name) {
+        Map<String, Object> properties = new HashMap<>();
+        // Every service jar ships an application.yml at the classpath root, so ignore them all
+        // and pass the configuration each service needs explicitly
+        properties.put("spring.config.location", "optional:classpath:/load-test-none/");
+        properties.put("spring.application.name", name);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("server.port", 0);
+        if (kafka != null) {
+            properties.put("spring.kafka.bootstrap-servers", kafka.getBrokersAsString());
+        } else {
+            // The embedded profile swaps the Kafka configuration for an event bus named after this cluster
+            properties.put("spring.profiles.active", "embedded");
+            properties.put("spring.autoconfigure.exclude", KAFKA_AUTO_CONFIGURATION);
+            properties.put("event-bus.name", "load-test-" + instanceId);
+            properties.put("event-bus.partitions", partitions);
+        }
+        properties.put("order-repository.backend", repository);
+        properties.put("order-repository.embedded.name", "load-test-" + instanceId);
+        if (redisCluster != null) {
+            properties.put("spring.redis.cluster.nodes", redisCluster.getNodes());
+        } else if (redisReplicaSet != null) {
+            properties.put("spring.redis.host", "localhost");
+            properties.put("spring.redis.port", redisReplicaSet.getPrimaryPort());
+            properties.put("spring.redis.replica-reads.enabled", true);
+            properties.put("spring.redis.replica-reads.replicas", redisReplicaSet.getReplicas());
+        } else {
+            properties.put("spring.redis.host", "localhost");
+            properties.put("spring.redis.port", redis.getPort());
+        }
+        properties.put("kafka.topics.order-events", ORDER_EVENTS_TOPIC);
+        properties.put("kafka.topics.inventory-check-results", INVENTORY_CHECK_RESULTS_TOPIC);
+        properties.put("kafka.serde.order-events", serde);
+        properties.put("kafka.serde.inventory-check-results", serde);
+        properties.put("order.ingest.mode", ingest);
+        properties.put("order.outbox.directory", outboxDirectory.toString());
+        properties.put("order.admission.enabled", admission);
+        // The streams engine creates the orders and inventory-stock topics itself
+        properties.put("inventory.engine", inventoryEngine);
+        properties.put("inventory.streams.state-dir", streamsStateDirectory.toString());
+        properties.put("order.orders-topic.enabled", inventoryEngine.equals("streams"));
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.example", "ERROR");
+        return properties;
+    }
+}
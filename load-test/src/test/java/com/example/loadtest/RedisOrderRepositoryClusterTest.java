@@ -0,0 +1,162 @@
+package com.example.loadtest;
+
+import com.example.loadtest.support.MiniRedisCluster;
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.json.LegacyAwareStringRedisSerializer;
+import com.example.shared.repository.CustomerOrderRef;
+import com.example.shared.repository.OrderScanPage;
+import com.example.shared.repository.RedisConnectionFactories;
+import com.example.shared.repository.RedisOrderRepository;
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// RedisOrderRepository with hash-tagged keys against a three-node MiniRedisCluster, which
+// redirects commands sent to the wrong node and rejects multi-key commands spanning slots
+class RedisOrderRepositoryClusterTest {
+    
+    private static final Duration TTL = Duration.ofMinutes(10);
+    // Recent enough that the customer index does not trim it
+    private static final Instant CREATED_AT = Instant.now();
+    private static final Pattern ORDER_TAG = Pattern.compile("\\{(ORD-[0-9]+)}");
+    
+    private final JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+    private MiniRedisCluster cluster;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisOrderRepository repository;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        cluster = new MiniRedisCluster(3).start();
+        connectionFactory = RedisConnectionFactories.cluster(cluster.getNodes(), 3, Duration.ofSeconds(30));
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new LegacyAwareStringRedisSerializer(JsonMappers.shared()));
+        redisTemplate.afterPropertiesSet();
+        repository = new RedisOrderRepository(redisTemplate, jsonCodec, true, true);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        cluster.close();
+    }
+    
+    @Test
+    void testOrderKeys_ShareOneSlotPerOrder() {
+        // Arrange - a streamed order with item chunks, and a batch spread over all nodes
+        repository.putItemChunk("ORD-00000000", 0, List.of(new OrderItem("P1001", 1, "standard")), TTL);
+        repository.putItemChunk("ORD-00000000", 1, List.of(new OrderItem("P1002", 2, "standard")), TTL);
+        Order streamed = order("ORD-00000000");
+        streamed.setItems(List.of());
+        streamed.setItemChunks(2);
+        List<Order> batch = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            batch.add(order(String.format("ORD-%08d", i)));
+        }
+        
+        // Act
+        repository.put(streamed, TTL);
+        repository.putAll(batch, TTL);
+        for (int i = 0; i <= 20; i++) {
+            String orderId = String.format("ORD-%08d", i);
+            repository.putMissingItems(orderId, List.of(new MissingItem("P1001", 1, 0, "Out of stock")), TTL);
+            assertTrue(repository.updateStatus(orderId, OrderStatus.REJECTED, TTL));
+        }
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i <= 20; i++) {
+            orderIds.add(String.format("ORD-%08d", i));
+        }
+        Map<String, Order> orders = repository.getAll(orderIds);
+        List<CustomerOrderRef> refs = repository.findByCustomer("John Doe", null, 100);
+        
+        // Assert
+        assertEquals(21, orders.size());
+        assertTrue(orders.values().stream().allMatch(order -> order.getStatus() == OrderStatus.REJECTED));
+        assertEquals(21, refs.size());
+        assertEquals(2, repository.streamItems(orders.get("ORD-00000000")).count());
+        
+        List<Set<String>> keysByNode = cluster.keys();
+        assertTrue(keysByNode.stream().allMatch(keys -> !keys.isEmpty()), "Every node should hold orders");
+        Map<String, Set<Integer>> slotsByOrder = new HashMap<>();
+        Map<String, Set<Integer>> nodesByOrder = new HashMap<>();
+        int customerIndexes = 0;
+        for (int node = 0; node < keysByNode.size(); node++) {
+            for (String key : keysByNode.get(node)) {
+                Matcher tag = ORDER_TAG.matcher(key);
+                if (tag.find()) {
+                    slotsByOrder.computeIfAbsent(tag.group(1), id -> new HashSet<>()).add(SlotHash.getSlot(key));
+                    nodesByOrder.computeIfAbsent(tag.group(1), id -> new HashSet<>()).add(node);
+                } else {
+                    assertEquals(RedisOrderRepository.CUSTOMER_ORDERS_KEY_PREFIX + "John Doe", key);
+                    customerIndexes++;
+                }
+            }
+        }
+        assertEquals(Set.copyOf(orderIds), slotsByOrder.keySet());
+        slotsByOrder.forEach((orderId, slots) -> assertEquals(1, slots.size(), orderId + " spans slots " + slots));
+        nodesByOrder.forEach((orderId, nodes) -> assertEquals(1, nodes.size(), orderId + " spans nodes " + nodes));
+        assertEquals(1, customerIndexes);
+    }
+    
+    @Test
+    void testScan_VisitsEveryMasterExactlyOnce() {
+        // Arrange
+        List<Order> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            batch.add(order(String.format("ORD-%08d", i)));
+        }
+        repository.putAll(batch, TTL);
+        
+        // Act - small pages, so each master takes several
+        List<Integer> masters = new ArrayList<>();
+        List<String> scanned = new ArrayList<>();
+        String cursor = OrderScanPage.SCAN_START;
+        do {
+            masters.add(OrderScanPage.SCAN_START.equals(cursor) ? 0 : Integer.parseInt(cursor.substring(0, cursor.indexOf(':'))));
+            OrderScanPage page = repository.scan(cursor, 4);
+            page.orders().forEach(order -> scanned.add(order.getOrderId()));
+            cursor = page.nextCursor();
+        } while (!OrderScanPage.SCAN_START.equals(cursor) && masters.size() < 100);
+        
+        // Assert - masters in slot order, none left and none returned to
+        assertEquals(OrderScanPage.SCAN_START, cursor);
+        assertEquals(0, masters.get(0));
+        assertEquals(2, masters.get(masters.size() - 1));
+        for (int i = 1; i < masters.size(); i++) {
+            assertTrue(masters.get(i) - masters.get(i - 1) <= 1 && masters.get(i) >= masters.get(i - 1),
+                "Masters visited out of order: " + masters);
+        }
+        assertEquals(30, scanned.size());
+        assertEquals(30, Set.copyOf(scanned).size());
+    }
+    
+    private Order order(String orderId) {
+        return new Order(orderId, "John Doe", List.of(new OrderItem("P1001", 1, "standard")),
+            CREATED_AT, OrderStatus.PENDING, CREATED_AT);
+    }
+}
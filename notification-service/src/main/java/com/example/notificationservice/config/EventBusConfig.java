@@ -0,0 +1,54 @@
+package com.example.notificationservice.config;
+
+import com.example.notificationservice.listener.InventoryCheckResultListener;
+import com.example.shared.bus.EventBus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+// The embedded profile replaces KafkaConfig: InventoryCheckResultListener is subscribed to the
+// in-process EventBus shared with the other services in this JVM. Failed results are retried
+// in place instead of through retry topics, then handed to the listener's dead-letter handler.
+@Configuration
+@Profile("embedded")
+public class EventBusConfig {
+    
+    @Value("${event-bus.name:events}")
+    private String busName;
+    
+    @Value("${event-bus.partitions:3}")
+    private int partitions;
+    
+    // Records each subscribed group may have waiting per partition
+    @Value("${event-bus.capacity:10000}")
+    private int capacity;
+    
+    @Value("${event-bus.max-block:PT10S}")
+    private Duration maxBlock;
+    
+    @Value("${event-bus.retry.attempts:4}")
+    private int retryAttempts;
+    
+    @Value("${event-bus.retry.backoff:PT0.2S}")
+    private Duration retryBackoff;
+    
+    @Value("${kafka.topics.inventory-check-results}")
+    private String inventoryCheckResultsTopic;
+    
+    @Bean
+    public EventBus eventBus() {
+        return EventBus.shared(busName, partitions, capacity, maxBlock, retryAttempts, retryBackoff);
+    }
+    
+    @Bean(destroyMethod = "close")
+    public EventBus.Subscription inventoryCheckResultsSubscription(EventBus eventBus,
+                                                                   InventoryCheckResultListener listener) {
+        return eventBus.<String, InventoryCheckResultEvent>subscribe(inventoryCheckResultsTopic,
+            "notification-service-group", listener::handleInventoryCheckResult,
+            (record, e) -> listener.handleDeadLetter(record, e.getMessage()));
+    }
+}
@@ -1,32 +1,107 @@
 package com.example.notificationservice.config;
 
+import com.example.notificationservice.listener.InventoryCheckResultListener;
 import com.example.shared.event.InventoryCheckResultEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.shared.kafka.ConcurrencyPolicy;
+import com.example.shared.kafka.DeadLetterReplayer;
+import com.example.shared.kafka.ListenerConcurrencyController;
+import com.example.shared.kafka.ProducerProfile;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.serde.EventDeserializer;
+import com.example.shared.serde.EventSerializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
+// Replaced by EventBusConfig in the embedded profile
 @Configuration
+@Profile("!embedded")
 public class KafkaConfig {
     
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
     
+    @Value("${kafka.topics.inventory-check-results}")
+    private String inventoryCheckResultsTopic;
+    
+    // Consumers the listener container starts with; ListenerConcurrencyController moves it
+    // between min- and max-concurrency from the group's lag and processing time
+    @Value("${kafka.listener.concurrency:3}")
+    private int listenerConcurrency;
+    
+    // Off: lag, processing time and concurrency are still measured, but nothing is resized
+    @Value("${kafka.listener.autoscale.enabled:true}")
+    private boolean autoscale;
+    
+    @Value("${kafka.listener.autoscale.interval:PT10S}")
+    private Duration autoscaleInterval;
+    
+    @Value("${kafka.listener.autoscale.min-concurrency:1}")
+    private int minConcurrency;
+    
+    @Value("${kafka.listener.autoscale.max-concurrency:12}")
+    private int maxConcurrency;
+    
+    @Value("${kafka.listener.autoscale.scale-up-lag:1000}")
+    private long scaleUpLag;
+    
+    @Value("${kafka.listener.autoscale.scale-down-lag:100}")
+    private long scaleDownLag;
+    
+    @Value("${kafka.listener.autoscale.scale-up-backlog:PT5S}")
+    private Duration scaleUpBacklog;
+    
+    @Value("${kafka.listener.autoscale.scale-down-backlog:PT0.5S}")
+    private Duration scaleDownBacklog;
+    
+    @Value("${kafka.listener.autoscale.scale-up-samples:2}")
+    private int scaleUpSamples;
+    
+    @Value("${kafka.listener.autoscale.scale-down-samples:6}")
+    private int scaleDownSamples;
+    
+    @Value("${kafka.listener.autoscale.cooldown:PT60S}")
+    private Duration autoscaleCooldown;
+    
+    // Republishes failed results to the retry and dead-letter topics of inventory-check-results
+    @Bean
+    public ProducerFactory<String, Object> retryProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        configProps.putAll(ProducerProfile.BALANCED.producerConfig());
+        configProps.put(JsonSerializer.TYPE_MAPPINGS, "inventoryCheckResultEvent:com.example.shared.event.InventoryCheckResultEvent");
+        
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+    
     @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        return mapper;
+    public KafkaTemplate<String, Object> retryKafkaTemplate() {
+        return new KafkaTemplate<>(retryProducerFactory());
+    }
+    
+    @Bean
+    public DeadLetterReplayer deadLetterReplayer() {
+        return new DeadLetterReplayer(bootstrapServers, "notification-service-dlt-replay");
     }
     
     @Bean
@@ -35,22 +110,33 @@ public class KafkaConfig {
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "notification-service-group");
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         configProps.put(JsonDeserializer.TYPE_MAPPINGS, "inventoryCheckResultEvent:com.example.shared.event.InventoryCheckResultEvent");
         
         return new DefaultKafkaConsumerFactory<>(configProps, 
             new StringDeserializer(),
-            new JsonDeserializer<>(InventoryCheckResultEvent.class));
+            new EventDeserializer<>(InventoryCheckResultEvent.class));
+    }
+    
+    @Bean
+    public ListenerConcurrencyController listenerConcurrencyController(KafkaListenerEndpointRegistry endpointRegistry,
+                                                                       PipelineMetrics pipelineMetrics) {
+        ConcurrencyPolicy policy = new ConcurrencyPolicy(minConcurrency, maxConcurrency, scaleUpLag, scaleDownLag,
+            scaleUpBacklog, scaleDownBacklog, scaleUpSamples, scaleDownSamples, autoscaleCooldown);
+        return new ListenerConcurrencyController(bootstrapServers, "notification-service-group", inventoryCheckResultsTopic,
+            InventoryCheckResultListener.LISTENER_ID, endpointRegistry, policy, autoscaleInterval, autoscale, pipelineMetrics.getRegistry());
     }
     
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> kafkaListenerContainerFactory(
+            ListenerConcurrencyController concurrencyController) {
         ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
-        factory.setConcurrency(3);
+        factory.setConcurrency(listenerConcurrency);
+        // Per-record processing time of inventory-check-results, one of the controller's scaling signals
+        factory.setRecordInterceptor(concurrencyController.processingTimeInterceptor());
         return factory;
     }
 }
@@ -0,0 +1,15 @@
+package com.example.notificationservice.config;
+
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    
+    @Bean
+    public PipelineMetrics pipelineMetrics(MeterRegistry meterRegistry) {
+        return new PipelineMetrics(meterRegistry);
+    }
+}
@@ -1,18 +1,28 @@
 package com.example.notificationservice.config;
 
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.LegacyAwareStringRedisSerializer;
+import com.example.shared.repository.OffHeapOrderRepository;
+import com.example.shared.repository.OrderRepository;
+import com.example.shared.repository.RedisConnectionFactories;
+import com.example.shared.repository.RedisOrderRepository;
+import com.example.shared.repository.ReplicaReadOrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import io.lettuce.core.ReadFrom;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
     
@@ -22,14 +32,98 @@ public class RedisConfig {
     @Value("${spring.redis.port:6379}")
     private int redisPort;
     
+    // Comma-separated host:port seeds; when set, Redis is a cluster and host and port are ignored
+    @Value("${spring.redis.cluster.nodes:}")
+    private String clusterNodes;
+    
+    @Value("${spring.redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+    
+    @Value("${spring.redis.cluster.topology-refresh-period:PT30S}")
+    private Duration clusterTopologyRefreshPeriod;
+    
+    // Comma-separated host:port of the primary's replicas for spring.redis.replica-reads; a
+    // cluster's replicas are discovered instead
+    @Value("${spring.redis.replica-reads.replicas:}")
+    private String replicaNodes;
+    
+    // How long orders this instance wrote are read from the primary, the replication lag allowed for
+    @Value("${spring.redis.replica-reads.read-your-writes-window:PT2S}")
+    private Duration readYourWritesWindow;
+    
+    // Rolling upgrade from the JSON-string value encoding (see LegacyAwareStringRedisSerializer)
+    @Value("${spring.redis.legacy-values.write:false}")
+    private boolean writeLegacyValues;
+    
+    @Value("${spring.redis.legacy-values.read:true}")
+    private boolean readLegacyValues;
+    
+    // redis, or embedded for a single node where all services run in one JVM
+    @Value("${order-repository.backend:redis}")
+    private String repositoryBackend;
+    
+    @Value("${order-repository.embedded.name:orders}")
+    private String embeddedStoreName;
+    
+    @Value("${order-repository.embedded.capacity-bytes:268435456}")
+    private long embeddedCapacityBytes;
+    
+    @Value("${order-repository.customer-index.enabled:true}")
+    private boolean indexCustomers;
+    
     @Bean
+    @Primary
     public RedisConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
-        return new LettuceConnectionFactory(config);
+        if (isCluster()) {
+            return RedisConnectionFactories.cluster(clusterNodes, clusterMaxRedirects, clusterTopologyRefreshPeriod);
+        }
+        return RedisConnectionFactories.standalone(redisHost, redisPort);
     }
     
+    // Reads prefer a replica; writes on it would still go to the primary, but all writes use
+    // redisConnectionFactory
     @Bean
-    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+    @ConditionalOnProperty(name = "spring.redis.replica-reads.enabled", havingValue = "true")
+    public RedisConnectionFactory replicaReadConnectionFactory() {
+        if (isCluster()) {
+            return RedisConnectionFactories.cluster(clusterNodes, clusterMaxRedirects, clusterTopologyRefreshPeriod,
+                ReadFrom.REPLICA_PREFERRED);
+        }
+        if (replicaNodes.isBlank()) {
+            throw new IllegalStateException("spring.redis.replica-reads.replicas is required unless Redis is a cluster");
+        }
+        return RedisConnectionFactories.replicated(redisHost, redisPort, replicaNodes, ReadFrom.REPLICA_PREFERRED);
+    }
+    
+    @Bean
+    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
+        return stringTemplate(connectionFactory, objectMapper);
+    }
+    
+    @Bean
+    public OrderRepository orderRepository(RedisTemplate<String, String> redisTemplate, JsonCodec jsonCodec,
+                                           ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                           @Qualifier("replicaReadConnectionFactory")
+                                           ObjectProvider<RedisConnectionFactory> replicaReadConnectionFactory) {
+        switch (repositoryBackend) {
+            case "redis":
+                // On a cluster an order's keys are hash-tagged so they share a slot
+                RedisOrderRepository repository = new RedisOrderRepository(redisTemplate, jsonCodec, indexCustomers, isCluster());
+                RedisConnectionFactory replicaFactory = replicaReadConnectionFactory.getIfAvailable();
+                if (replicaFactory == null) {
+                    return repository;
+                }
+                return new ReplicaReadOrderRepository(repository, new RedisOrderRepository(
+                    stringTemplate(replicaFactory, objectMapper), jsonCodec, indexCustomers, isCluster()),
+                    readYourWritesWindow, meterRegistry);
+            case "embedded":
+                return OffHeapOrderRepository.shared(embeddedStoreName, jsonCodec, embeddedCapacityBytes, indexCustomers);
+            default:
+                throw new IllegalArgumentException("Unknown order-repository.backend: " + repositoryBackend);
+        }
+    }
+    
+    private RedisTemplate<String, String> stringTemplate(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -37,22 +131,18 @@ public class RedisConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         
-        // Use JSON serializer for values with type information
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.activateDefaultTyping(
-            LaissezFaireSubTypeValidator.instance,
-            ObjectMapper.DefaultTyping.NON_FINAL,
-            JsonTypeInfo.As.PROPERTY
-        );
-        
-        GenericJackson2JsonRedisSerializer jsonSerializer = 
-            new GenericJackson2JsonRedisSerializer(objectMapper);
+        // Values are already JSON documents, store them as-is instead of JSON-encoding them again
+        LegacyAwareStringRedisSerializer valueSerializer = new LegacyAwareStringRedisSerializer(objectMapper,
+            writeLegacyValues, readLegacyValues);
         
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         
         template.afterPropertiesSet();
         return template;
     }
+    
+    private boolean isCluster() {
+        return !clusterNodes.isBlank();
+    }
 }
-
@@ -0,0 +1,82 @@
+package com.example.notificationservice.controller;
+
+import com.example.shared.kafka.DeadLetterReplayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Dead-letter topics only exist on Kafka
+@RestController
+@RequestMapping("/admin/dead-letters")
+@Profile("!embedded")
+public class DeadLetterController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterController.class);
+    
+    private final DeadLetterReplayer deadLetterReplayer;
+    
+    @Value("${kafka.topics.inventory-check-results}")
+    private String listenedTopic;
+    
+    @Autowired
+    public DeadLetterController(DeadLetterReplayer deadLetterReplayer) {
+        this.deadLetterReplayer = deadLetterReplayer;
+    }
+    
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getDeadLetters() {
+        String deadLetterTopic = deadLetterTopic();
+        
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("topic", deadLetterTopic);
+            response.put("pending", deadLetterReplayer.pending(deadLetterTopic));
+            return ResponseEntity.ok(response);
+        
+        } catch (Exception e) {
+            logger.error("Error reading dead letters from {}: {}", deadLetterTopic, e.getMessage(), e);
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to read dead letters");
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    
+    // Sends up to limit dead letters back to inventory-check-results for a fresh set of attempts
+    @PostMapping("/replay")
+    public ResponseEntity<Map<String, Object>> replay(@RequestParam(defaultValue = "100") int limit) {
+        String deadLetterTopic = deadLetterTopic();
+        logger.info("Replaying up to {} dead letters from {}", limit, deadLetterTopic);
+        
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("topic", deadLetterTopic);
+            response.put("replayed", deadLetterReplayer.replay(deadLetterTopic, limit));
+            response.put("pending", deadLetterReplayer.pending(deadLetterTopic));
+            return ResponseEntity.ok(response);
+        
+        } catch (Exception e) {
+            logger.error("Error replaying dead letters from {}: {}", deadLetterTopic, e.getMessage(), e);
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to replay dead letters");
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    
+    private String deadLetterTopic() {
+        return listenedTopic + DeadLetterReplayer.DLT_SUFFIX;
+    }
+}
@@ -1,37 +1,91 @@
 package com.example.notificationservice.listener;
 
 import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.kafka.DeadLetterReplayer;
+import com.example.shared.event.PipelineHeaders;
+import com.example.shared.metrics.PipelineMetrics;
 import com.example.notificationservice.service.NotificationService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
 @Component
 public class InventoryCheckResultListener {
     
+    // Container id of the inventory-check-results listener, which ListenerConcurrencyController resizes
+    public static final String LISTENER_ID = "inventoryCheckResults";
+    
     private static final Logger logger = LoggerFactory.getLogger(InventoryCheckResultListener.class);
     
     private final NotificationService notificationService;
+    private final PipelineMetrics pipelineMetrics;
+    
+    @Value("${kafka.topics.inventory-check-results}")
+    private String inventoryCheckResultsTopic;
     
     @Autowired
-    public InventoryCheckResultListener(NotificationService notificationService) {
+    public InventoryCheckResultListener(NotificationService notificationService, PipelineMetrics pipelineMetrics) {
         this.notificationService = notificationService;
+        this.pipelineMetrics = pipelineMetrics;
     }
     
-    @KafkaListener(topics = "${kafka.topics.inventory-check-results}", 
+    // Failures are retried from inventory-check-results-retry-N topics with growing delays, so
+    // the main partitions keep moving; exhausted records land in inventory-check-results-dlt
+    @RetryableTopic(attempts = "${kafka.retry.attempts:4}",
+                   backoff = @Backoff(delayExpression = "${kafka.retry.initial-delay-ms:1000}",
+                                      multiplierExpression = "${kafka.retry.multiplier:5}",
+                                      maxDelayExpression = "${kafka.retry.max-delay-ms:60000}"),
+                   topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+                   dltTopicSuffix = DeadLetterReplayer.DLT_SUFFIX,
+                   kafkaTemplate = "retryKafkaTemplate",
+                   numPartitions = "${kafka.retry.partitions:3}",
+                   concurrency = "${kafka.retry.concurrency:1}")
+    @KafkaListener(id = LISTENER_ID,
+                  topics = "${kafka.topics.inventory-check-results}", 
                   groupId = "notification-service-group",
                   containerFactory = "kafkaListenerContainerFactory")
-    public void handleInventoryCheckResult(InventoryCheckResultEvent event) {
-        logger.info("Received inventory check result for notification processing. Order ID: {}", event.getOrderId());
+    public void handleInventoryCheckResult(ConsumerRecord<String, InventoryCheckResultEvent> record) {
+        InventoryCheckResultEvent event = record.value();
+        long receivedAt = System.currentTimeMillis();
+        logger.info("Received inventory check result for notification processing. Order ID: {}, Topic: {}",
+                   event.getOrderId(), record.topic());
+        
+        long start = System.nanoTime();
+        notificationService.processInventoryCheckResult(event);
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_NOTIFICATION, start);
         
-        try {
-            notificationService.processInventoryCheckResult(event);
-        } catch (Exception e) {
-            logger.error("Error processing inventory check result for notification. Order ID: {}", 
-                        event.getOrderId(), e);
+        // Retried records have been waiting on purpose, so they would skew the latency histograms
+        if (record.topic().equals(inventoryCheckResultsTopic)) {
+            recordPipelineLatency(record.headers(), event, receivedAt);
         }
     }
+    
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, InventoryCheckResultEvent> record,
+                                 @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) String error) {
+        pipelineMetrics.recordDeadLetter(record.topic());
+        logger.error("Inventory check result dead-lettered. Order ID: {}, Topic: {}, Offset: {}, Error: {}",
+                    record.key(), record.topic(), record.offset(), error);
+    }
+    
+    private void recordPipelineLatency(Headers headers, InventoryCheckResultEvent event, long receivedAt) {
+        Long resultPublishedAt = PipelineHeaders.read(headers, PipelineHeaders.RESULT_PUBLISHED_AT);
+        
+        pipelineMetrics.recordHop(PipelineMetrics.HOP_INVENTORY_PROCESSING,
+            PipelineHeaders.read(headers, PipelineHeaders.INVENTORY_RECEIVED_AT), resultPublishedAt);
+        pipelineMetrics.recordHop(PipelineMetrics.HOP_RESULTS_TRANSIT, resultPublishedAt, receivedAt);
+        pipelineMetrics.recordEndToEnd(String.valueOf(event.getStatus()),
+            PipelineHeaders.read(headers, PipelineHeaders.ORDER_RECEIVED_AT), System.currentTimeMillis());
+    }
 }
-
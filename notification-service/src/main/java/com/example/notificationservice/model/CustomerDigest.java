@@ -0,0 +1,84 @@
+package com.example.notificationservice.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CustomerDigest {
+
+    private final String customerName;
+    private final Instant windowStart;
+    private final Instant windowEnd;
+    private long approvedCount;
+    private long rejectedCount;
+    private final List<String> sampleOrderIds = new ArrayList<>();
+
+    // Constructor with window bounds
+    public CustomerDigest(String customerName, Instant windowStart, Instant windowEnd) {
+        this.customerName = customerName;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+    }
+
+    public synchronized void recordApproved(String orderId, int maxSampleOrderIds) {
+        approvedCount++;
+        addSample(orderId, maxSampleOrderIds);
+    }
+
+    public synchronized void recordRejected(String orderId, int maxSampleOrderIds) {
+        rejectedCount++;
+        addSample(orderId, maxSampleOrderIds);
+    }
+
+    public synchronized void addCounts(long approved, long rejected) {
+        approvedCount += approved;
+        rejectedCount += rejected;
+    }
+
+    private void addSample(String orderId, int maxSampleOrderIds) {
+        if (sampleOrderIds.size() < maxSampleOrderIds) {
+            sampleOrderIds.add(orderId);
+        }
+    }
+
+    // Getters
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public Instant getWindowStart() {
+        return windowStart;
+    }
+
+    public Instant getWindowEnd() {
+        return windowEnd;
+    }
+
+    public synchronized long getApprovedCount() {
+        return approvedCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public synchronized long getTotalCount() {
+        return approvedCount + rejectedCount;
+    }
+
+    public synchronized List<String> getSampleOrderIds() {
+        return new ArrayList<>(sampleOrderIds);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CustomerDigest{" +
+                "customerName='" + customerName + '\'' +
+                ", windowStart=" + windowStart +
+                ", windowEnd=" + windowEnd +
+                ", approvedCount=" + approvedCount +
+                ", rejectedCount=" + rejectedCount +
+                ", sampleOrderIds=" + sampleOrderIds +
+                '}';
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.model.CustomerDigest;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class NotificationDigestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDigestService.class);
+    private static final String DIGEST_KEY_PREFIX = "notificationDigest:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final NotificationRenderer renderer;
+
+    // Recording threads share the read lock; rotating to a new window takes the write lock
+    private final ReentrantReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private volatile Window currentWindow;
+
+    @Value("${notification.digest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.digest.window:PT1M}")
+    private Duration window;
+
+    @Value("${notification.digest.max-customers:10000}")
+    private int maxCustomers;
+
+    @Value("${notification.digest.max-sample-order-ids:10}")
+    private int maxSampleOrderIds;
+
+    @Value("${notification.digest.customers:}")
+    private Set<String> digestCustomers;
+
+    @Autowired
+    public NotificationDigestService(RedisTemplate<String, String> redisTemplate, NotificationRenderer renderer) {
+        this.redisTemplate = redisTemplate;
+        this.renderer = renderer;
+    }
+
+    public boolean isDigestEnabledFor(String customerName) {
+        if (!enabled) {
+            return false;
+        }
+        // An empty customer list puts every customer in digest mode
+        return digestCustomers == null || digestCustomers.isEmpty() || digestCustomers.contains(customerName);
+    }
+
+    public void record(Order order, InventoryCheckResultEvent event) {
+        record(order, event, Instant.now());
+    }
+
+    void record(Order order, InventoryCheckResultEvent event, Instant now) {
+        rotateIfNeeded(now);
+
+        windowLock.readLock().lock();
+        try {
+            Window target = currentWindow;
+            String customerName = order.getCustomerName();
+            CustomerDigest digest = target.digests.get(customerName);
+
+            if (digest == null && target.digests.size() >= maxCustomers) {
+                // Window is at capacity, keep counts for further customers in Redis
+                spillToRedis(target, customerName, event.getStatus());
+                return;
+            }
+
+            if (digest == null) {
+                digest = target.digests.computeIfAbsent(customerName,
+                    name -> new CustomerDigest(name, target.start, target.end));
+            }
+
+            if (event.getStatus() == OrderStatus.APPROVED) {
+                digest.recordApproved(order.getOrderId(), maxSampleOrderIds);
+            } else {
+                digest.recordRejected(order.getOrderId(), maxSampleOrderIds);
+            }
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.digest.flush-interval-ms:1000}")
+    public void flushClosedWindow() {
+        if (!enabled) {
+            return;
+        }
+        rotateIfNeeded(Instant.now());
+    }
+
+    // The open window would otherwise be lost on shutdown. Listener containers stop before beans
+    // are destroyed, so nothing is recorded into it any more
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (!enabled) {
+            return;
+        }
+        closeCurrentWindow();
+    }
+
+    List<CustomerDigest> closeCurrentWindow() {
+        Window closed;
+
+        windowLock.writeLock().lock();
+        try {
+            closed = currentWindow;
+            currentWindow = null;
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+
+        if (closed == null) {
+            return List.of();
+        }
+        return emitDigests(closed);
+    }
+
+    List<CustomerDigest> rotateIfNeeded(Instant now) {
+        Instant windowStart = windowStartFor(now);
+        Window closed;
+
+        windowLock.writeLock().lock();
+        try {
+            if (currentWindow != null && currentWindow.start.equals(windowStart)) {
+                return List.of();
+            }
+            closed = currentWindow;
+            currentWindow = new Window(windowStart, windowStart.plus(window));
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+
+        if (closed == null) {
+            return List.of();
+        }
+        return emitDigests(closed);
+    }
+
+    private List<CustomerDigest> emitDigests(Window closed) {
+        List<CustomerDigest> digests = new ArrayList<>(closed.digests.values());
+
+        if (closed.spilled) {
+            digests.addAll(drainSpilledDigests(closed));
+        }
+
+        digests.forEach(this::logDigest);
+        logger.debug("Digest window {} - {} closed with {} customers", closed.start, closed.end, digests.size());
+        return digests;
+    }
+
+    private void spillToRedis(Window target, String customerName, OrderStatus status) {
+        try {
+            String counterKey = counterKey(target.start, customerName);
+            String customersKey = customersKey(target.start);
+            Duration ttl = window.multipliedBy(3);
+
+            // One round trip for the four commands
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                    stringOperations.opsForHash().increment(counterKey,
+                        status == OrderStatus.APPROVED ? "approved" : "rejected", 1);
+                    stringOperations.expire(counterKey, ttl);
+                    stringOperations.opsForSet().add(customersKey, customerName);
+                    stringOperations.expire(customersKey, ttl);
+                    return null;
+                }
+            });
+            target.spilled = true;
+
+        } catch (Exception e) {
+            logger.error("Error spilling digest for customer {} to Redis: {}", customerName, e.getMessage(), e);
+        }
+    }
+
+    private List<CustomerDigest> drainSpilledDigests(Window closed) {
+        List<CustomerDigest> digests = new ArrayList<>();
+        String customersKey = customersKey(closed.start);
+
+        try {
+            Set<String> customers = redisTemplate.opsForSet().members(customersKey);
+            if (customers == null) {
+                return digests;
+            }
+
+            for (String customerName : customers) {
+                String counterKey = counterKey(closed.start, customerName);
+                Map<Object, Object> counters = redisTemplate.opsForHash().entries(counterKey);
+
+                CustomerDigest digest = new CustomerDigest(customerName, closed.start, closed.end);
+                digest.addCounts(toLong(counters.get("approved")), toLong(counters.get("rejected")));
+                digests.add(digest);
+
+                redisTemplate.delete(counterKey);
+            }
+            redisTemplate.delete(customersKey);
+
+        } catch (Exception e) {
+            logger.error("Error reading spilled digests from Redis for window {}: {}", closed.start, e.getMessage(), e);
+        }
+        return digests;
+    }
+
+    private void logDigest(CustomerDigest digest) {
+        logger.info(renderer.renderDigest(digest));
+    }
+
+    private Instant windowStartFor(Instant now) {
+        long windowMillis = window.toMillis();
+        return Instant.ofEpochMilli(now.toEpochMilli() - Math.floorMod(now.toEpochMilli(), windowMillis));
+    }
+
+    private String counterKey(Instant windowStart, String customerName) {
+        return DIGEST_KEY_PREFIX + windowStart.toEpochMilli() + ":" + customerName;
+    }
+
+    private String customersKey(Instant windowStart) {
+        return DIGEST_KEY_PREFIX + windowStart.toEpochMilli() + ":customers";
+    }
+
+    private long toLong(Object value) {
+        return value == null ? 0L : Long.parseLong(String.valueOf(value));
+    }
+
+    private static class Window {
+        private final Instant start;
+        private final Instant end;
+        private final Map<String, CustomerDigest> digests = new ConcurrentHashMap<>();
+        private volatile boolean spilled;
+
+        private Window(Instant start, Instant end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.model.CustomerDigest;
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.event.InventoryCheckResultEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class NotificationRenderer {
+
+    public String renderOrderConfirmation(Order order, InventoryCheckResultEvent event) {
+        StringBuilder message = new StringBuilder(256);
+        message.append("=== ORDER CONFIRMATION ===\n");
+        message.append("Order ID: ").append(order.getOrderId()).append('\n');
+        message.append("Customer: ").append(order.getCustomerName()).append('\n');
+        message.append("Status: APPROVED\n");
+        message.append("Items:\n");
+
+        if (order.getItemChunks() != null) {
+            // Streamed orders keep their items out of the order document; too many to list anyway
+            message.append("  - ").append(order.getItemCount()).append(" items\n");
+        } else if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                message.append("  - Product: ").append(item.getProductId())
+                    .append(", Quantity: ").append(item.getQuantity())
+                    .append(", Category: ").append(item.getCategory()).append('\n');
+            }
+        }
+
+        message.append("Requested at: ").append(order.getRequestedAt()).append('\n');
+        message.append("Processed at: ").append(event.getTimestamp()).append('\n');
+        message.append("========================");
+        return message.toString();
+    }
+
+    public String renderOrderRejection(Order order, InventoryCheckResultEvent event, List<MissingItem> missingItems) {
+        StringBuilder message = new StringBuilder(256);
+        message.append("=== ORDER REJECTION ===\n");
+        message.append("Order ID: ").append(order.getOrderId()).append('\n');
+        message.append("Customer: ").append(order.getCustomerName()).append('\n');
+        message.append("Status: REJECTED\n");
+        message.append("Missing/Unavailable Items:\n");
+
+        if (missingItems != null && !missingItems.isEmpty()) {
+            for (MissingItem missingItem : missingItems) {
+                message.append("  - Product: ").append(missingItem.getProductId())
+                    .append(", Requested: ").append(missingItem.getRequestedQuantity())
+                    .append(", Available: ").append(missingItem.getAvailableQuantity())
+                    .append(", Reason: ").append(missingItem.getReason()).append('\n');
+            }
+        } else {
+            message.append("  - No specific missing items information available\n");
+        }
+
+        message.append("Requested at: ").append(order.getRequestedAt()).append('\n');
+        message.append("Processed at: ").append(event.getTimestamp()).append('\n');
+        message.append("=======================");
+        return message.toString();
+    }
+
+    public String renderDigest(CustomerDigest digest) {
+        StringBuilder message = new StringBuilder(192);
+        message.append("=== ORDER DIGEST ===\n");
+        message.append("Customer: ").append(digest.getCustomerName()).append('\n');
+        message.append("Window: ").append(digest.getWindowStart()).append(" - ").append(digest.getWindowEnd()).append('\n');
+        message.append("Approved: ").append(digest.getApprovedCount()).append('\n');
+        message.append("Rejected: ").append(digest.getRejectedCount()).append('\n');
+
+        List<String> sampleOrderIds = digest.getSampleOrderIds();
+        if (!sampleOrderIds.isEmpty()) {
+            message.append("Sample orders: ").append(sampleOrderIds).append('\n');
+        }
+
+        message.append("====================");
+        return message.toString();
+    }
+}
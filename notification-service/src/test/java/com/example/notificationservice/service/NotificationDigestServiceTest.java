@@ -0,0 +1,151 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.model.CustomerDigest;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDigestServiceTest {
+
+    private static final Instant WINDOW_START = Instant.parse("2025-06-30T14:00:00Z");
+
+    private NotificationDigestService digestService;
+    private RedisTemplate<String, String> redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private SetOperations<String, String> setOperations;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        setOperations = mock(SetOperations.class);
+
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, SessionCallback.class).execute(redisTemplate);
+            return List.of();
+        });
+
+        digestService = new NotificationDigestService(redisTemplate, new NotificationRenderer());
+        ReflectionTestUtils.setField(digestService, "enabled", true);
+        ReflectionTestUtils.setField(digestService, "window", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(digestService, "maxCustomers", 2);
+        ReflectionTestUtils.setField(digestService, "maxSampleOrderIds", 2);
+        ReflectionTestUtils.setField(digestService, "digestCustomers", Set.of());
+    }
+
+    @Test
+    void testRecord_AggregatesPerCustomerUntilWindowCloses() {
+        // Arrange & Act
+        digestService.record(order("ORD-1", "Acme"), result("ORD-1", OrderStatus.APPROVED), WINDOW_START.plusSeconds(1));
+        digestService.record(order("ORD-2", "Acme"), result("ORD-2", OrderStatus.REJECTED), WINDOW_START.plusSeconds(2));
+        digestService.record(order("ORD-3", "Acme"), result("ORD-3", OrderStatus.APPROVED), WINDOW_START.plusSeconds(3));
+        digestService.record(order("ORD-4", "Globex"), result("ORD-4", OrderStatus.APPROVED), WINDOW_START.plusSeconds(4));
+
+        List<CustomerDigest> openWindow = digestService.rotateIfNeeded(WINDOW_START.plusSeconds(30));
+        List<CustomerDigest> closedWindow = digestService.rotateIfNeeded(WINDOW_START.plusSeconds(61));
+
+        // Assert
+        assertTrue(openWindow.isEmpty());
+        assertEquals(2, closedWindow.size());
+
+        CustomerDigest acme = closedWindow.stream()
+            .filter(digest -> digest.getCustomerName().equals("Acme"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(2, acme.getApprovedCount());
+        assertEquals(1, acme.getRejectedCount());
+        assertEquals(List.of("ORD-1", "ORD-2"), acme.getSampleOrderIds());
+        assertEquals(WINDOW_START, acme.getWindowStart());
+        verifyNoInteractions(hashOperations);
+    }
+
+    @Test
+    void testRecord_CustomersBeyondCapacitySpillToRedis() {
+        // Arrange
+        when(setOperations.members("notificationDigest:" + WINDOW_START.toEpochMilli() + ":customers"))
+            .thenReturn(Set.of("Initech"));
+        when(hashOperations.entries("notificationDigest:" + WINDOW_START.toEpochMilli() + ":Initech"))
+            .thenReturn(Map.of("approved", "4", "rejected", "1"));
+
+        // Act
+        digestService.record(order("ORD-1", "Acme"), result("ORD-1", OrderStatus.APPROVED), WINDOW_START.plusSeconds(1));
+        digestService.record(order("ORD-2", "Globex"), result("ORD-2", OrderStatus.APPROVED), WINDOW_START.plusSeconds(2));
+        digestService.record(order("ORD-3", "Initech"), result("ORD-3", OrderStatus.REJECTED), WINDOW_START.plusSeconds(3));
+
+        List<CustomerDigest> closedWindow = digestService.rotateIfNeeded(WINDOW_START.plusSeconds(60));
+
+        // Assert
+        verify(hashOperations).increment(eq("notificationDigest:" + WINDOW_START.toEpochMilli() + ":Initech"), eq("rejected"), eq(1L));
+        verify(setOperations).add(anyString(), eq("Initech"));
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        assertEquals(3, closedWindow.size());
+
+        CustomerDigest initech = closedWindow.stream()
+            .filter(digest -> digest.getCustomerName().equals("Initech"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(4, initech.getApprovedCount());
+        assertEquals(1, initech.getRejectedCount());
+        verify(redisTemplate).delete("notificationDigest:" + WINDOW_START.toEpochMilli() + ":customers");
+    }
+
+    @Test
+    void testCloseCurrentWindow_EmitsTheOpenWindowOnShutdown() {
+        // Arrange
+        digestService.record(order("ORD-1", "Acme"), result("ORD-1", OrderStatus.APPROVED), WINDOW_START.plusSeconds(1));
+        digestService.record(order("ORD-2", "Acme"), result("ORD-2", OrderStatus.REJECTED), WINDOW_START.plusSeconds(2));
+
+        // Act
+        List<CustomerDigest> flushed = digestService.closeCurrentWindow();
+        List<CustomerDigest> flushedAgain = digestService.closeCurrentWindow();
+
+        // Assert
+        assertEquals(1, flushed.size());
+        assertEquals("Acme", flushed.get(0).getCustomerName());
+        assertEquals(1, flushed.get(0).getApprovedCount());
+        assertEquals(1, flushed.get(0).getRejectedCount());
+        assertTrue(flushedAgain.isEmpty());
+    }
+
+    @Test
+    void testIsDigestEnabledFor_RespectsCustomerList() {
+        // Arrange
+        ReflectionTestUtils.setField(digestService, "digestCustomers", Set.of("Acme"));
+
+        // Assert
+        assertTrue(digestService.isDigestEnabledFor("Acme"));
+        assertFalse(digestService.isDigestEnabledFor("Globex"));
+
+        ReflectionTestUtils.setField(digestService, "enabled", false);
+        assertFalse(digestService.isDigestEnabledFor("Acme"));
+    }
+
+    private Order order(String orderId, String customerName) {
+        return new Order(orderId, customerName, List.of(new OrderItem("P1001", 1, "standard")),
+            WINDOW_START, OrderStatus.PENDING, WINDOW_START);
+    }
+
+    private InventoryCheckResultEvent result(String orderId, OrderStatus status) {
+        return new InventoryCheckResultEvent(orderId, status, WINDOW_START);
+    }
+}
@@ -5,6 +5,8 @@ import com.example.shared.dto.OrderItem;
 import com.example.shared.dto.OrderStatus;
 import com.example.shared.dto.MissingItem;
 import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.repository.RedisOrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,7 +29,9 @@ class NotificationServiceSimpleTest {
         RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
         objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
         
-        notificationService = new NotificationService(redisTemplate, objectMapper);
+        NotificationRenderer renderer = new NotificationRenderer();
+        notificationService = new NotificationService(new RedisOrderRepository(redisTemplate, new JsonCodec(objectMapper)),
+            new NotificationDigestService(redisTemplate, renderer), renderer);
     }
 
     @Test
@@ -0,0 +1,80 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.listener.InventoryCheckResultListener;
+import com.example.shared.bus.BusProducer;
+import com.example.shared.bus.EventBus;
+import com.example.shared.dto.Order;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+
+// The embedded profile replaces KafkaConfig: the same KafkaTemplate beans publish to an
+// in-process EventBus shared with the other services in this JVM, and the status view
+// listener is subscribed to it directly. The bus keeps no history, so the view starts empty.
+@Configuration
+@Profile("embedded")
+public class EventBusConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EventBusConfig.class);
+    
+    @Value("${event-bus.name:events}")
+    private String busName;
+    
+    @Value("${event-bus.partitions:3}")
+    private int partitions;
+    
+    // Records each subscribed group may have waiting per partition
+    @Value("${event-bus.capacity:10000}")
+    private int capacity;
+    
+    @Value("${event-bus.max-block:PT10S}")
+    private Duration maxBlock;
+    
+    @Value("${event-bus.retry.attempts:4}")
+    private int retryAttempts;
+    
+    @Value("${event-bus.retry.backoff:PT0.2S}")
+    private Duration retryBackoff;
+    
+    @Value("${kafka.topics.inventory-check-results}")
+    private String inventoryCheckResultsTopic;
+    
+    @Value("${order.status-view.group-id:order-service-status-view}")
+    private String statusViewGroupId;
+    
+    @Value("#{'${order.status-view.enabled:true}' == 'true' or '${order.archive.enabled:true}' == 'true'}")
+    private boolean statusViewSubscribed;
+    
+    @Bean
+    public EventBus eventBus() {
+        return EventBus.shared(busName, partitions, capacity, maxBlock, retryAttempts, retryBackoff);
+    }
+    
+    @Bean
+    public KafkaTemplate<String, OrderEvent> kafkaTemplate(EventBus eventBus) {
+        return BusProducer.kafkaTemplate(eventBus);
+    }
+    
+    @Bean
+    public KafkaTemplate<String, Order> orderKafkaTemplate(EventBus eventBus) {
+        return BusProducer.kafkaTemplate(eventBus);
+    }
+    
+    @Bean(destroyMethod = "close")
+    public EventBus.Subscription statusViewSubscription(EventBus eventBus, InventoryCheckResultListener listener) {
+        if (!statusViewSubscribed) {
+            return () -> { };
+        }
+        return eventBus.<String, InventoryCheckResultEvent>subscribe(inventoryCheckResultsTopic, statusViewGroupId,
+            record -> listener.handleInventoryCheckResult(record.value()),
+            (record, e) -> logger.error("Status view dropped result for order {}", record.key(), e));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.orderservice.config;
+
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JsonConfig {
+    
+    @Bean
+    public ObjectMapper objectMapper() {
+        return JsonMappers.shared();
+    }
+    
+    @Bean
+    public JsonCodec jsonCodec(ObjectMapper objectMapper) {
+        return new JsonCodec(objectMapper);
+    }
+}
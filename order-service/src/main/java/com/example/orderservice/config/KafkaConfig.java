@@ -1,9 +1,12 @@
 package com.example.orderservice.config;
 
+import com.example.shared.dto.Order;
 import com.example.shared.event.OrderEvent;
 import com.example.shared.event.InventoryCheckResultEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.kafka.ProducerProfile;
+import com.example.shared.serde.EventDeserializer;
+import com.example.shared.serde.EventSerializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -11,39 +14,42 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
+// Replaced by EventBusConfig in the embedded profile
 @Configuration
+@Profile("!embedded")
 public class KafkaConfig {
     
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
     
-    @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        return mapper;
-    }
+    @Value("${kafka.topics.order-events}")
+    private String orderEventsTopic;
+    
+    @Value("${kafka.serde.order-events:json}")
+    private String orderEventsFormat;
+    
+    @Value("${kafka.producer.profile.order-events:low-latency}")
+    private String orderEventsProfile;
     
     @Bean
     public ProducerFactory<String, OrderEvent> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
-        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
-        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        configProps.putAll(ProducerProfile.from(orderEventsProfile).producerConfig());
         configProps.put(JsonSerializer.TYPE_MAPPINGS, "orderEvent:com.example.shared.event.OrderEvent");
+        configProps.put(EventSerializer.formatConfig(orderEventsTopic), orderEventsFormat);
         
         return new DefaultKafkaProducerFactory<>(configProps);
     }
@@ -53,20 +59,36 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory());
     }
     
+    // Full orders for the orders topic, always JSON (see OrderTopicPublisher)
+    @Bean
+    public ProducerFactory<String, Order> orderProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.putAll(ProducerProfile.from(orderEventsProfile).producerConfig());
+        
+        return new DefaultKafkaProducerFactory<>(configProps,
+            new StringSerializer(),
+            new JsonSerializer<Order>(JsonMappers.shared()).noTypeInfo());
+    }
+    
+    @Bean
+    public KafkaTemplate<String, Order> orderKafkaTemplate() {
+        return new KafkaTemplate<>(orderProducerFactory());
+    }
+    
     @Bean
     public ConsumerFactory<String, InventoryCheckResultEvent> consumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "order-service-group");
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         configProps.put(JsonDeserializer.TYPE_MAPPINGS, "inventoryCheckResultEvent:com.example.shared.event.InventoryCheckResultEvent");
         
         return new DefaultKafkaConsumerFactory<>(configProps, 
             new StringDeserializer(),
-            new JsonDeserializer<>(InventoryCheckResultEvent.class));
+            new EventDeserializer<>(InventoryCheckResultEvent.class));
     }
     
     @Bean
@@ -77,5 +99,15 @@ public class KafkaConfig {
         factory.setConcurrency(3);
         return factory;
     }
+    
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> statusViewListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        // Positions come from seekToTimestamp on assignment, so offsets are never committed
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
 }
 
@@ -3,81 +3,343 @@ package com.example.orderservice.controller;
 import com.example.shared.dto.OrderRequest;
 import com.example.shared.dto.OrderStatus;
 import com.example.shared.event.OrderEvent;
+import com.example.orderservice.model.CustomerOrderPage;
+import com.example.orderservice.service.AdmissionController;
+import com.example.orderservice.service.IdempotencyService;
+import com.example.orderservice.service.OrderExporter;
 import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.StreamingOrderIngest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    // Retry-After for a key whose first request is still in flight
+    private static final int IN_FLIGHT_RETRY_AFTER_SECONDS = 1;
+    private static final int MAX_PAGE_LIMIT = 100;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
     
     private final OrderService orderService;
+    private final AdmissionController admissionController;
+    private final IdempotencyService idempotencyService;
+    private final OrderExporter orderExporter;
+    private final StreamingOrderIngest streamingOrderIngest;
     
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, AdmissionController admissionController,
+                           IdempotencyService idempotencyService, OrderExporter orderExporter,
+                           StreamingOrderIngest streamingOrderIngest) {
         this.orderService = orderService;
+        this.admissionController = admissionController;
+        this.idempotencyService = idempotencyService;
+        this.orderExporter = orderExporter;
+        this.streamingOrderIngest = streamingOrderIngest;
     }
     
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createOrder(@Valid @RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<Map<String, Object>> createOrder(@Valid @RequestBody OrderRequest orderRequest,
+                                                           @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         logger.info("Received order request: {}", orderRequest);
+        return submitOrder(idempotencyKey, true, () -> idempotencyService.requestHash(orderRequest),
+            orderId -> orderService.processOrder(orderRequest, orderId));
+    }
+    
+    // POST /orders/stream takes the same JSON as POST /orders for orders too large to bind whole:
+    // items are parsed, validated and stored a chunk at a time as the body arrives. Their latency
+    // grows with their size rather than with load, so it is kept out of the admission limit
+    @PostMapping(path = "/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> createOrderFromStream(InputStream body,
+                                                                     @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        logger.info("Received streamed order request");
+        if (!hasIdempotencyKey(idempotencyKey)) {
+            return submitOrder(idempotencyKey, false, () -> null, orderId -> streamingOrderIngest.ingest(body, orderId));
+        }
+        // The body is hashed as it is read; a replay reads the whole body to hash it instead.
+        // Closing is left to the container, so the rest of the body can still be hashed
+        MessageDigest digest = IdempotencyService.newDigest();
+        InputStream hashedBody = new DigestInputStream(body, digest) {
+            @Override
+            public void close() {
+            }
+        };
+        RequestHash requestHash = () -> {
+            hashedBody.transferTo(OutputStream.nullOutputStream());
+            return IdempotencyService.requestHash(digest);
+        };
+        return submitOrder(idempotencyKey, false, requestHash, orderId -> streamingOrderIngest.ingest(hashedBody, orderId));
+    }
+    
+    @GetMapping("/{orderId}")
+    public ResponseEntity<Map<String, Object>> getOrderStatus(@PathVariable String orderId) {
+        logger.info("Checking status for order: {}", orderId);
         
         try {
-            String orderId = orderService.processOrder(orderRequest);
+            OrderStatus status = orderService.getOrderStatus(orderId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("orderId", orderId);
-            response.put("status", OrderStatus.PENDING);
-            response.put("message", "Order received and being processed");
+            response.put("status", status);
             
-            logger.info("Order created successfully with ID: {}", orderId);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            logger.info("Order status retrieved successfully. Order ID: {}, Status: {}", orderId, status);
+            return ResponseEntity.ok(response);
+        
+        } catch (Exception e) {
+            logger.error("Error retrieving order status: {}", e.getMessage(), e);
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to retrieve order status");
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+    }
+    
+    // GET /orders?customer=...&status=APPROVED,REJECTED&limit=20&cursor=... lists a customer's
+    // orders newest first; pass the response's nextCursor to get the next page
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listOrdersByCustomer(@RequestParam String customer,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "20") int limit,
+                                                                    @RequestParam(required = false) List<OrderStatus> status) {
+        logger.info("Listing orders for customer: {}", customer);
+        
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid limit");
+            errorResponse.put("message", "Must be between 1 and " + MAX_PAGE_LIMIT);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        try {
+            Set<OrderStatus> statuses = status == null || status.isEmpty() ? Set.of() : EnumSet.copyOf(status);
+            CustomerOrderPage page = orderService.listOrdersByCustomer(customer, cursor, limit, statuses);
             
+            Map<String, Object> response = new HashMap<>();
+            response.put("customer", customer);
+            response.put("orders", page.getOrders());
+            response.put("nextCursor", page.getNextCursor());
+            return ResponseEntity.ok(response);
+        
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid cursor");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        
         } catch (Exception e) {
-            logger.error("Error processing order: {}", e.getMessage(), e);
+            logger.error("Error listing orders for customer {}: {}", customer, e.getMessage(), e);
             
             Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "Failed to process order");
+            errorResponse.put("error", "Failed to list orders");
             errorResponse.put("message", e.getMessage());
             
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
     
-    @GetMapping("/{orderId}")
-    public ResponseEntity<Map<String, Object>> getOrderStatus(@PathVariable String orderId) {
-        logger.info("Checking status for order: {}", orderId);
+    // GET /orders/export streams every live order as NDJSON, written to the response as each
+    // batch is read. To resume a broken export, pass the last nextCursor line received
+    @GetMapping("/export")
+    public ResponseEntity<?> exportOrders(@RequestParam(required = false) String cursor) {
+        logger.info("Exporting orders from cursor: {}", cursor);
         
+        // The first batch is read before the response is committed, so a bad cursor or an
+        // unreachable store gets an error status rather than a truncated 200
+        OrderExporter.Export export;
         try {
-            OrderStatus status = orderService.getOrderStatus(orderId);
+            export = orderExporter.start(cursor);
+        
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid cursor");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        
+        } catch (Exception e) {
+            logger.error("Error starting export from cursor {}: {}", cursor, e.getMessage(), e);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("orderId", orderId);
-            response.put("status", status);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to export orders");
+            errorResponse.put("message", e.getMessage());
             
-            logger.info("Order status retrieved successfully. Order ID: {}, Status: {}", orderId, status);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+        
+        StreamingResponseBody body = export::writeTo;
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
+    private ResponseEntity<Map<String, Object>> submitOrder(String idempotencyKey, boolean measured,
+                                                            RequestHash requestHash, OrderSubmission submission) {
+        boolean idempotent = hasIdempotencyKey(idempotencyKey);
+        if (idempotent && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid " + IDEMPOTENCY_KEY_HEADER);
+            errorResponse.put("message", "Must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        // Shed load up front rather than let requests queue behind a slow Redis or Kafka
+        AdmissionController.Decision decision = admissionController.tryAcquire();
+        if (decision != AdmissionController.Decision.ADMITTED) {
+            return rejectOrder(decision);
+        }
+        
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        String orderId = orderService.generateOrderId();
+        boolean claimed = false;
+        boolean replayed = false;
+        boolean invalid = false;
+        try {
+            if (idempotent) {
+                // A retry of an earlier request gets that request's response, and no new order
+                IdempotencyService.Claim claim = idempotencyService.claim(idempotencyKey, orderId);
+                if (claim.state() != IdempotencyService.ClaimState.CLAIMED) {
+                    replayed = true;
+                    return replayClaim(idempotencyKey, claim, requestHash);
+                }
+                claimed = true;
+            }
+            
+            submission.submit(orderId);
+            succeeded = true;
+            if (claimed) {
+                // The order exists now, so the key is never released from here on
+                claimed = false;
+                completeClaim(idempotencyKey, orderId, requestHash);
+            }
             
+            logger.info("Order created successfully with ID: {}", orderId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdResponse(orderId));
+        
         } catch (Exception e) {
-            logger.error("Error retrieving order status: {}", e.getMessage(), e);
+            if (claimed) {
+                idempotencyService.release(idempotencyKey, orderId);
+            }
             
+            if (e instanceof IllegalArgumentException) {
+                // Only the streamed path validates as it reads; POST /orders is validated on binding
+                logger.warn("Invalid order {}: {}", orderId, e.getMessage());
+                invalid = true;
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Invalid order");
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            
+            logger.error("Error processing order: {}", e.getMessage(), e);
             Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "Failed to retrieve order status");
+            errorResponse.put("error", "Failed to process order");
             errorResponse.put("message", e.getMessage());
             
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        
+        } finally {
+            if (replayed || invalid || !measured) {
+                admissionController.releaseUnmeasured();
+            } else {
+                admissionController.release(start, succeeded);
+            }
         }
     }
-
+    
+    // 409 while the first request is in flight, as it may still fail; 422 if the key was used
+    // for a different body; otherwise the first request's response
+    private ResponseEntity<Map<String, Object>> replayClaim(String idempotencyKey, IdempotencyService.Claim claim,
+                                                            RequestHash requestHash) throws IOException {
+        if (claim.state() == IdempotencyService.ClaimState.PENDING) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Request in progress");
+            errorResponse.put("message", "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(IN_FLIGHT_RETRY_AFTER_SECONDS))
+                .body(errorResponse);
+        }
+        if (!claim.matches(requestHash.compute())) {
+            logger.warn("Idempotency key {} reused with a different body", idempotencyKey);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Idempotency key reused");
+            errorResponse.put("message", "This " + IDEMPOTENCY_KEY_HEADER + " was used for a different request");
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+        }
+        logger.info("Replaying order {} for idempotency key {}", claim.orderId(), idempotencyKey);
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .header(IDEMPOTENT_REPLAYED_HEADER, "true")
+            .body(createdResponse(claim.orderId()));
+    }
+    
+    private void completeClaim(String idempotencyKey, String orderId, RequestHash requestHash) {
+        try {
+            idempotencyService.complete(idempotencyKey, orderId, requestHash.compute());
+        } catch (IOException | RuntimeException e) {
+            // The key stays pending until it expires; the order itself was accepted
+            logger.error("Could not complete idempotency key {} for order {}: {}", idempotencyKey, orderId,
+                e.getMessage(), e);
+        }
+    }
+    
+    private static boolean hasIdempotencyKey(String idempotencyKey) {
+        return idempotencyKey != null && !idempotencyKey.isBlank();
+    }
+    
+    private Map<String, Object> createdResponse(String orderId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("orderId", orderId);
+        response.put("status", OrderStatus.PENDING);
+        response.put("message", "Order received and being processed");
+        return response;
+    }
+    
+    private ResponseEntity<Map<String, Object>> rejectOrder(AdmissionController.Decision decision) {
+        // 429 when this instance is at its concurrency limit, 503 when Kafka or the outbox is backed up
+        HttpStatus status = decision == AdmissionController.Decision.OVER_LIMIT
+            ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        logger.warn("Order request rejected: {}", decision);
+        
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", decision == AdmissionController.Decision.OVER_LIMIT
+            ? "Too many concurrent orders" : "Order pipeline is saturated");
+        errorResponse.put("message", "Retry the order later");
+        
+        return ResponseEntity.status(status)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionController.getRetryAfterSeconds()))
+            .body(errorResponse);
+    }
+    
+    @FunctionalInterface
+    private interface OrderSubmission {
+        void submit(String orderId) throws IOException;
+    }
+    
+    // Hash of the request body, compared with the one stored for a reused key
+    @FunctionalInterface
+    private interface RequestHash {
+        String compute() throws IOException;
+    }
 }
-
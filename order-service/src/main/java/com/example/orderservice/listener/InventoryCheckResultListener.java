@@ -0,0 +1,54 @@
+package com.example.orderservice.listener;
+
+import com.example.orderservice.service.OrderArchive;
+import com.example.orderservice.service.OrderStatusView;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+public class InventoryCheckResultListener extends AbstractConsumerSeekAware {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InventoryCheckResultListener.class);
+    
+    private final OrderStatusView statusView;
+    private final OrderArchive orderArchive;
+    
+    @Autowired
+    public InventoryCheckResultListener(OrderStatusView statusView, OrderArchive orderArchive) {
+        this.statusView = statusView;
+        this.orderArchive = orderArchive;
+    }
+    
+    // A group per instance, so every order-service instance sees every result
+    @KafkaListener(topics = "${kafka.topics.inventory-check-results}",
+                  groupId = "${order.status-view.group-id:order-service-status-view-${random.uuid}}",
+                  containerFactory = "statusViewListenerContainerFactory",
+                  autoStartup = "#{'${order.status-view.enabled:true}' == 'true' or '${order.archive.enabled:true}' == 'true'}")
+    public void handleInventoryCheckResult(InventoryCheckResultEvent event) {
+        if (event == null || event.getOrderId() == null) {
+            return;
+        }
+        statusView.recordResult(event.getOrderId(), event.getStatus(), event.getTimestamp());
+        if (event.getStatus() != OrderStatus.PENDING) {
+            orderArchive.append(event.getOrderId(), event.getStatus(), event.getTimestamp());
+        }
+        logger.debug("Status view updated. Order ID: {}, Status: {}", event.getOrderId(), event.getStatus());
+    }
+    
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        super.onPartitionsAssigned(assignments, callback);
+        // Rebuild from the results still within the view's age limit rather than the whole topic;
+        // this also re-archives whatever the archive's memtable lost in a crash
+        callback.seekToTimestamp(assignments.keySet(), System.currentTimeMillis() - statusView.getMaxAge().toMillis());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.orderservice.model;
+
+import com.example.shared.dto.Order;
+
+import java.util.List;
+
+public class CustomerOrderPage {
+    
+    private final List<Order> orders;
+    private final String nextCursor;
+    
+    // Constructor with all fields
+    public CustomerOrderPage(List<Order> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters
+    public List<Order> getOrders() {
+        return orders;
+    }
+    
+    // Null once the customer's index has been read to the end
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
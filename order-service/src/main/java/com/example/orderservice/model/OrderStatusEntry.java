@@ -0,0 +1,50 @@
+package com.example.orderservice.model;
+
+import com.example.shared.dto.OrderStatus;
+
+import java.time.Instant;
+
+public class OrderStatusEntry {
+    
+    private final String orderId;
+    private final OrderStatus status;
+    private final Instant updatedAt;
+    private final long observedAtMillis;
+    
+    // Constructor with all fields
+    public OrderStatusEntry(String orderId, OrderStatus status, Instant updatedAt, long observedAtMillis) {
+        this.orderId = orderId;
+        this.status = status;
+        this.updatedAt = updatedAt;
+        this.observedAtMillis = observedAtMillis;
+    }
+    
+    // Getters
+    public String getOrderId() {
+        return orderId;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    // When the status was decided: order creation for PENDING, the inventory check otherwise
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    // When this instance first saw the order, used to age entries out of the view
+    public long getObservedAtMillis() {
+        return observedAtMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "OrderStatusEntry{" +
+                "orderId='" + orderId + '\'' +
+                ", status=" + status +
+                ", updatedAt=" + updatedAt +
+                ", observedAtMillis=" + observedAtMillis +
+                '}';
+    }
+}
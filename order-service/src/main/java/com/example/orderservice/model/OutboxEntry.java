@@ -0,0 +1,39 @@
+package com.example.orderservice.model;
+
+import com.example.shared.dto.Order;
+
+public class OutboxEntry {
+    
+    private final long sequence;
+    private final long receivedAt;
+    private final Order order;
+    
+    // Constructor with all fields
+    public OutboxEntry(long sequence, long receivedAt, Order order) {
+        this.sequence = sequence;
+        this.receivedAt = receivedAt;
+        this.order = order;
+    }
+    
+    // Getters
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+    
+    public Order getOrder() {
+        return order;
+    }
+    
+    @Override
+    public String toString() {
+        return "OutboxEntry{" +
+                "sequence=" + sequence +
+                ", receivedAt=" + receivedAt +
+                ", orderId='" + order.getOrderId() + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.orderservice.service;
+
+import com.example.shared.event.OrderEvent;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Adaptive concurrency limit for POST /orders. Recent request latency (Redis store plus the
+// Kafka send, or the outbox append) is compared with a baseline, the lowest recent latency:
+// while it stays within tolerance of the baseline the limit grows by about sqrt(limit), and
+// as queueing pushes it up the limit shrinks in proportion (gradient). Failed requests cut
+// the limit multiplicatively. Requests over the limit are turned away at once instead of
+// queueing, and so are all requests while the producer buffer or the outbox is close to full.
+@Component
+public class AdmissionController {
+    
+    public enum Decision { ADMITTED, OVER_LIMIT, DEPENDENCY_SATURATED }
+    
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    private static final long METRIC_LOOKUP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Samples over which the baseline forgets an old minimum, and over which recent latency is averaged
+    private static final int BASELINE_WINDOW = 600;
+    private static final int RECENT_WINDOW = 10;
+    
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final OrderOutbox orderOutbox;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter overLimit;
+    private final Counter dependencySaturated;
+    
+    private volatile double limit;
+    private double baselineRttNanos;
+    private double recentRttNanos;
+    
+    private volatile Metric bufferAvailable;
+    private volatile Metric bufferTotal;
+    private volatile long lastMetricLookupNanos;
+    
+    @Value("${order.admission.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${order.admission.initial-limit:20}")
+    private int initialLimit;
+    
+    @Value("${order.admission.min-limit:4}")
+    private int minLimit;
+    
+    @Value("${order.admission.max-limit:500}")
+    private int maxLimit;
+    
+    // How much slower than the baseline recent requests may get before the limit shrinks
+    @Value("${order.admission.tolerance:1.5}")
+    private double tolerance;
+    
+    @Value("${order.admission.smoothing:0.2}")
+    private double smoothing;
+    
+    @Value("${order.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+    
+    @Value("${order.admission.min-producer-buffer-free:0.1}")
+    private double minProducerBufferFree;
+    
+    @Value("${order.admission.max-outbox-fill:0.9}")
+    private double maxOutboxFill;
+    
+    @Value("${order.admission.retry-after:PT1S}")
+    private Duration retryAfter;
+    
+    @Autowired
+    public AdmissionController(KafkaTemplate<String, OrderEvent> kafkaTemplate,
+                               OrderOutbox orderOutbox,
+                               PipelineMetrics pipelineMetrics) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.orderOutbox = orderOutbox;
+        this.overLimit = Counter.builder("order.admission.rejected").tag("reason", "limit")
+            .register(pipelineMetrics.getRegistry());
+        this.dependencySaturated = Counter.builder("order.admission.rejected").tag("reason", "dependency")
+            .register(pipelineMetrics.getRegistry());
+        Gauge.builder("order.admission.limit", this, AdmissionController::getLimit)
+            .register(pipelineMetrics.getRegistry());
+        Gauge.builder("order.admission.in.flight", inFlight, AtomicInteger::get)
+            .register(pipelineMetrics.getRegistry());
+    }
+    
+    public Decision tryAcquire() {
+        if (!enabled) {
+            return Decision.ADMITTED;
+        }
+        if (isDependencySaturated()) {
+            dependencySaturated.increment();
+            return Decision.DEPENDENCY_SATURATED;
+        }
+        
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) getLimit()) {
+                overLimit.increment();
+                return Decision.OVER_LIMIT;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return Decision.ADMITTED;
+    }
+    
+    // Called once for every ADMITTED request, with the time it started processing
+    public void release(long startNanos, boolean succeeded) {
+        if (!enabled) {
+            return;
+        }
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        record(System.nanoTime() - startNanos, inFlightAtCompletion, succeeded);
+    }
+    
+    // Called instead of release for admitted requests that did no real work (idempotent
+    // replays), so their latency does not pull the baseline down
+    public void releaseUnmeasured() {
+        if (enabled) {
+            inFlight.decrementAndGet();
+        }
+    }
+    
+    synchronized void record(long rttNanos, int inFlightAtCompletion, boolean succeeded) {
+        double current = getLimit();
+        if (!succeeded) {
+            limit = Math.max(minLimit, current * backoffRatio);
+            return;
+        }
+        
+        if (baselineRttNanos == 0) {
+            baselineRttNanos = rttNanos;
+            recentRttNanos = rttNanos;
+        }
+        // Drops to a new minimum at once but rises only slowly, so a lasting shift (a slower Redis
+        // host) is eventually accepted while a queue building up is not
+        baselineRttNanos = rttNanos < baselineRttNanos
+            ? rttNanos : baselineRttNanos + (rttNanos - baselineRttNanos) / BASELINE_WINDOW;
+        recentRttNanos += (rttNanos - recentRttNanos) * 2.0 / (RECENT_WINDOW + 1);
+        
+        // Far below the limit, latency says nothing about where the limit should be
+        if (inFlightAtCompletion < current / 2) {
+            return;
+        }
+        
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineRttNanos / recentRttNanos));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+    
+    private boolean isDependencySaturated() {
+        if (orderOutbox.isEnabled()) {
+            return orderOutbox.getDepth() >= orderOutbox.getMaxPending() * maxOutboxFill;
+        }
+        
+        // Sends block once the producer buffer is full, so stop admitting just before that
+        resolveBufferMetrics();
+        Metric available = bufferAvailable;
+        Metric total = bufferTotal;
+        if (available == null || total == null) {
+            return false;
+        }
+        double totalBytes = ((Number) total.metricValue()).doubleValue();
+        return totalBytes > 0 && ((Number) available.metricValue()).doubleValue() / totalBytes < minProducerBufferFree;
+    }
+    
+    // The producer is created on first use and can be replaced after fatal errors, so the
+    // metric objects are looked up again at most once a second
+    private void resolveBufferMetrics() {
+        long now = System.nanoTime();
+        if (lastMetricLookupNanos != 0 && now - lastMetricLookupNanos < METRIC_LOOKUP_INTERVAL_NANOS) {
+            return;
+        }
+        lastMetricLookupNanos = now;
+        
+        Map<MetricName, ? extends Metric> metrics = kafkaTemplate.metrics();
+        if (metrics == null) {
+            return;
+        }
+        Metric available = null;
+        Metric total = null;
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            if (!PRODUCER_METRICS_GROUP.equals(entry.getKey().group())) {
+                continue;
+            }
+            if ("buffer-available-bytes".equals(entry.getKey().name())) {
+                available = entry.getValue();
+            } else if ("buffer-total-bytes".equals(entry.getKey().name())) {
+                total = entry.getValue();
+            }
+        }
+        bufferAvailable = available;
+        bufferTotal = total;
+    }
+    
+    public double getLimit() {
+        double current = limit;
+        return current > 0 ? current : initialLimit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    // Whole seconds, as the Retry-After header expects
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
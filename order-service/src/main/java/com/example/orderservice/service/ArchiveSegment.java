@@ -0,0 +1,550 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.OrderStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// One immutable archive file. Records sorted by orderId are packed into blocks that are
+// deflated on their own, followed by a sparse index holding the first orderId and the offset
+// of every block, a Bloom filter of the orderIds and a fixed-size footer. Only the index and
+// the filter are kept in memory: a lookup skips segments the filter rules out, then reads and
+// inflates the single block whose key range can hold the orderId.
+final class ArchiveSegment implements Closeable {
+    
+    static final String SUFFIX = ".arc";
+    
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4f415243;
+    // Footer layout: [index offset][filter offset][record count][oldest updatedAt][newest updatedAt][magic]
+    private static final int FOOTER_BYTES = 5 * Long.BYTES + Integer.BYTES;
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+    
+    private final Path path;
+    private final long sequence;
+    private final String[] firstKeys;
+    private final String lastKey;
+    private final long[] blockOffsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final int[] blockCrcs;
+    private final BloomFilter filter;
+    private final long recordCount;
+    private final long oldestUpdatedAt;
+    private final long newestUpdatedAt;
+    private final long sizeBytes;
+    
+    private volatile FileChannel channel;
+    private volatile boolean retired;
+    
+    // Record layout inside a block: [orderId length][orderId][status length][status][updatedAt]
+    record Entry(String orderId, OrderStatus status, long updatedAtMillis) {
+    }
+    
+    private ArchiveSegment(Path path, long sequence, FileChannel channel, Index index, BloomFilter filter, Footer footer) {
+        this.path = path;
+        this.sequence = sequence;
+        this.channel = channel;
+        this.firstKeys = index.firstKeys;
+        this.lastKey = index.lastKey;
+        this.blockOffsets = index.blockOffsets;
+        this.compressedLengths = index.compressedLengths;
+        this.rawLengths = index.rawLengths;
+        this.blockCrcs = index.blockCrcs;
+        this.filter = filter;
+        this.recordCount = footer.recordCount;
+        this.oldestUpdatedAt = footer.oldestUpdatedAt;
+        this.newestUpdatedAt = footer.newestUpdatedAt;
+        this.sizeBytes = footer.sizeBytes;
+    }
+    
+    static Path pathFor(Path directory, long sequence) {
+        return directory.resolve(String.format("%020d", sequence) + SUFFIX);
+    }
+    
+    static boolean isTempFile(Path file) {
+        return file.getFileName().toString().endsWith(SUFFIX + TEMP_SUFFIX);
+    }
+    
+    // Writes records, which must be sorted by orderId without duplicates, to a temp file and
+    // renames it into place, so a segment on disk is always complete. expectedRecords sizes the
+    // filter and may overestimate; bitsPerKey 0 writes no filter
+    static ArchiveSegment write(Path directory, long sequence, Iterator<Entry> records, long expectedRecords,
+                                int blockBytes, int bitsPerKey, boolean fsync) throws IOException {
+        Path target = pathFor(directory, sequence);
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BlockWriter writer = new BlockWriter(out, blockBytes, BloomFilter.create(expectedRecords, bitsPerKey));
+            try {
+                while (records.hasNext()) {
+                    writer.add(records.next());
+                }
+                writer.finish();
+            } finally {
+                writer.deflater.end();
+            }
+            if (fsync) {
+                out.force(false);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+    
+    static ArchiveSegment open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long sequence = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            Footer footer = readFooter(channel);
+            Index index = readIndex(channel, footer);
+            BloomFilter filter = readFilter(channel, footer);
+            return new ArchiveSegment(file, sequence, channel, index, filter, footer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw new IOException("Unreadable archive segment " + file + ": " + e.getMessage(), e);
+        }
+    }
+    
+    Entry get(String orderId) throws IOException {
+        byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+        int block = blockFor(orderId);
+        if (block < 0 || (filter != null && !filter.mightContain(key))) {
+            return null;
+        }
+        
+        // Compares raw bytes and decodes only the match, so scanning a block allocates nothing
+        ByteBuffer records = readBlock(block);
+        byte[] raw = records.array();
+        while (records.hasRemaining()) {
+            int keyLength = records.getShort() & 0xFFFF;
+            int keyStart = records.position();
+            int statusLength = records.get(keyStart + keyLength) & 0xFF;
+            records.position(keyStart + keyLength + 1);
+            if (Arrays.equals(raw, keyStart, keyStart + keyLength, key, 0, key.length)) {
+                OrderStatus status = OrderStatus.valueOf(readString(records, statusLength));
+                return new Entry(orderId, status, records.getLong());
+            }
+            records.position(records.position() + statusLength + Long.BYTES);
+        }
+        return null;
+    }
+    
+    // Records in orderId order, one block in memory at a time
+    Iterator<Entry> iterator() {
+        return new Iterator<>() {
+            private int block;
+            private ByteBuffer records = ByteBuffer.allocate(0);
+            
+            @Override
+            public boolean hasNext() {
+                while (!records.hasRemaining() && block < firstKeys.length) {
+                    try {
+                        records = readBlock(block++);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to read archive segment " + path, e);
+                    }
+                }
+                return records.hasRemaining();
+            }
+            
+            @Override
+            public Entry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String key = readString(records, records.getShort() & 0xFFFF);
+                OrderStatus status = OrderStatus.valueOf(readString(records, records.get() & 0xFF));
+                return new Entry(key, status, records.getLong());
+            }
+        };
+    }
+    
+    // Index of the only block that can hold orderId, or -1 if it is outside this segment's range
+    private int blockFor(String orderId) {
+        if (firstKeys.length == 0 || orderId.compareTo(firstKeys[0]) < 0 || orderId.compareTo(lastKey) > 0) {
+            return -1;
+        }
+        int found = Arrays.binarySearch(firstKeys, orderId);
+        return found >= 0 ? found : -found - 2;
+    }
+    
+    private ByteBuffer readBlock(int block) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLengths[block]);
+        readFully(compressed, blockOffsets[block]);
+        
+        CRC32 crc = new CRC32();
+        crc.update(compressed.array());
+        if ((int) crc.getValue() != blockCrcs[block]) {
+            throw new IOException("Corrupt block " + block + " in archive segment " + path);
+        }
+        
+        byte[] raw = new byte[rawLengths[block]];
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            if (inflater.inflate(raw) != raw.length) {
+                throw new IOException("Truncated block " + block + " in archive segment " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block " + block + " in archive segment " + path, e);
+        }
+        return ByteBuffer.wrap(raw);
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        try {
+            readFully(channel, buffer, position);
+        } catch (ClosedChannelException e) {
+            // An interrupted reader closes the channel for everyone; reopen it unless the segment
+            // was merged away, in which case the caller looks again in the current segments
+            if (retired) {
+                throw e;
+            }
+            buffer.clear();
+            readFully(reopen(), buffer, position);
+        }
+    }
+    
+    private synchronized FileChannel reopen() throws IOException {
+        if (!channel.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        return channel;
+    }
+    
+    // Closes and deletes the segment after it was merged into another or fell out of retention
+    void retire() throws IOException {
+        retired = true;
+        close();
+        Files.deleteIfExists(path);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    long getSequence() {
+        return sequence;
+    }
+    
+    long getRecordCount() {
+        return recordCount;
+    }
+    
+    long getOldestUpdatedAt() {
+        return oldestUpdatedAt;
+    }
+    
+    long getNewestUpdatedAt() {
+        return newestUpdatedAt;
+    }
+    
+    long getSizeBytes() {
+        return sizeBytes;
+    }
+    
+    int getBlockCount() {
+        return firstKeys.length;
+    }
+    
+    private static Footer readFooter(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < FOOTER_BYTES) {
+            throw new IOException("file too short");
+        }
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+        readFully(channel, footer, size - FOOTER_BYTES);
+        footer.flip();
+        long indexOffset = footer.getLong();
+        long filterOffset = footer.getLong();
+        long recordCount = footer.getLong();
+        long oldestUpdatedAt = footer.getLong();
+        long newestUpdatedAt = footer.getLong();
+        if (footer.getInt() != MAGIC || indexOffset < 0 || filterOffset < indexOffset || filterOffset > size - FOOTER_BYTES) {
+            throw new IOException("bad footer");
+        }
+        return new Footer(indexOffset, filterOffset, recordCount, oldestUpdatedAt, newestUpdatedAt, size);
+    }
+    
+    // Index layout: [block count], per block [first orderId][offset][compressed length][raw length]
+    // [crc32 of the compressed block], then [last orderId]
+    private static Index readIndex(FileChannel channel, Footer footer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (footer.filterOffset - footer.indexOffset));
+        readFully(channel, buffer, footer.indexOffset);
+        buffer.flip();
+        
+        int blocks = buffer.getInt();
+        Index index = new Index(blocks);
+        for (int i = 0; i < blocks; i++) {
+            index.firstKeys[i] = readString(buffer, buffer.getShort() & 0xFFFF);
+            index.blockOffsets[i] = buffer.getLong();
+            index.compressedLengths[i] = buffer.getInt();
+            index.rawLengths[i] = buffer.getInt();
+            index.blockCrcs[i] = buffer.getInt();
+        }
+        index.lastKey = blocks > 0 ? readString(buffer, buffer.getShort() & 0xFFFF) : null;
+        return index;
+    }
+    
+    // Filter layout: [probe count][filter words], empty if the segment has no filter
+    private static BloomFilter readFilter(FileChannel channel, Footer footer) throws IOException {
+        int length = (int) (footer.sizeBytes - FOOTER_BYTES - footer.filterOffset);
+        if (length == 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, footer.filterOffset);
+        buffer.flip();
+        int probes = buffer.getInt();
+        long[] words = new long[buffer.remaining() / Long.BYTES];
+        buffer.asLongBuffer().get(words);
+        return new BloomFilter(words, probes);
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+    }
+    
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+    
+    // Buffers records until a block is full, then deflates and appends it
+    private static final class BlockWriter {
+    
+        private final FileChannel out;
+        private final int blockBytes;
+        private final BloomFilter filter;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final List<byte[]> firstKeys = new ArrayList<>();
+        private final List<long[]> blockInfo = new ArrayList<>();
+        private ByteBuffer block;
+        private byte[] firstKey;
+        private byte[] lastKey;
+        private byte[] compressBuffer;
+        private long position;
+        private long recordCount;
+        private long oldestUpdatedAt = Long.MAX_VALUE;
+        private long newestUpdatedAt = Long.MIN_VALUE;
+        
+        BlockWriter(FileChannel out, int blockBytes, BloomFilter filter) {
+            this.out = out;
+            this.blockBytes = blockBytes;
+            this.filter = filter;
+            this.block = ByteBuffer.allocate(blockBytes);
+            this.compressBuffer = new byte[blockBytes + blockBytes / 8 + 64];
+        }
+        
+        void add(Entry entry) throws IOException {
+            byte[] key = entry.orderId().getBytes(StandardCharsets.UTF_8);
+            byte[] status = entry.status().name().getBytes(StandardCharsets.UTF_8);
+            int length = Short.BYTES + key.length + 1 + status.length + Long.BYTES;
+            if (key.length > 0xFFFF) {
+                throw new IllegalArgumentException("orderId too long for the archive: " + entry.orderId());
+            }
+            
+            if (block.position() > 0 && block.position() + length > blockBytes) {
+                flushBlock();
+            }
+            if (block.remaining() < length) {
+                block = ByteBuffer.allocate(Math.max(blockBytes, length));
+            }
+            if (block.position() == 0) {
+                firstKey = key;
+            }
+            block.putShort((short) key.length);
+            block.put(key);
+            block.put((byte) status.length);
+            block.put(status);
+            block.putLong(entry.updatedAtMillis());
+            
+            if (filter != null) {
+                filter.add(key);
+            }
+            lastKey = key;
+            recordCount++;
+            oldestUpdatedAt = Math.min(oldestUpdatedAt, entry.updatedAtMillis());
+            newestUpdatedAt = Math.max(newestUpdatedAt, entry.updatedAtMillis());
+        }
+        
+        void finish() throws IOException {
+            if (block.position() > 0) {
+                flushBlock();
+            }
+            
+            long indexOffset = position;
+            int indexBytes = Integer.BYTES + (lastKey == null ? 0 : Short.BYTES + lastKey.length);
+            for (byte[] key : firstKeys) {
+                indexBytes += Short.BYTES + key.length + Long.BYTES + 3 * Integer.BYTES;
+            }
+            ByteBuffer index = ByteBuffer.allocate(indexBytes);
+            index.putInt(firstKeys.size());
+            for (int i = 0; i < firstKeys.size(); i++) {
+                long[] info = blockInfo.get(i);
+                index.putShort((short) firstKeys.get(i).length);
+                index.put(firstKeys.get(i));
+                index.putLong(info[0]);
+                index.putInt((int) info[1]);
+                index.putInt((int) info[2]);
+                index.putInt((int) info[3]);
+            }
+            if (lastKey != null) {
+                index.putShort((short) lastKey.length);
+                index.put(lastKey);
+            }
+            write(index.flip());
+            
+            long filterOffset = position;
+            int filterBytes = filter == null ? 0 : Integer.BYTES + filter.words.length * Long.BYTES;
+            ByteBuffer tail = ByteBuffer.allocate(filterBytes + FOOTER_BYTES);
+            if (filter != null) {
+                tail.putInt(filter.probes);
+                tail.asLongBuffer().put(filter.words);
+                tail.position(filterBytes);
+            }
+            tail.putLong(indexOffset);
+            tail.putLong(filterOffset);
+            tail.putLong(recordCount);
+            tail.putLong(recordCount == 0 ? 0 : oldestUpdatedAt);
+            tail.putLong(recordCount == 0 ? 0 : newestUpdatedAt);
+            tail.putInt(MAGIC);
+            write(tail.flip());
+        }
+        
+        private void flushBlock() throws IOException {
+            int rawLength = block.position();
+            deflater.reset();
+            deflater.setInput(block.array(), 0, rawLength);
+            deflater.finish();
+            if (compressBuffer.length < rawLength + rawLength / 8 + 64) {
+                compressBuffer = new byte[rawLength + rawLength / 8 + 64];
+            }
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                compressedLength += deflater.deflate(compressBuffer, compressedLength, compressBuffer.length - compressedLength);
+                if (compressedLength == compressBuffer.length && !deflater.finished()) {
+                    compressBuffer = Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+                }
+            }
+            
+            CRC32 crc = new CRC32();
+            crc.update(compressBuffer, 0, compressedLength);
+            firstKeys.add(firstKey);
+            blockInfo.add(new long[] {position, compressedLength, rawLength, (int) crc.getValue()});
+            write(ByteBuffer.wrap(compressBuffer, 0, compressedLength));
+            block.clear();
+        }
+        
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer);
+            }
+        }
+    }
+    
+    private static final class Index {
+    
+        final String[] firstKeys;
+        final long[] blockOffsets;
+        final int[] compressedLengths;
+        final int[] rawLengths;
+        final int[] blockCrcs;
+        String lastKey;
+        
+        Index(int blocks) {
+            firstKeys = new String[blocks];
+            blockOffsets = new long[blocks];
+            compressedLengths = new int[blocks];
+            rawLengths = new int[blocks];
+            blockCrcs = new int[blocks];
+        }
+    }
+    
+    private record Footer(long indexOffset, long filterOffset, long recordCount, long oldestUpdatedAt, long newestUpdatedAt, long sizeBytes) {
+    }
+    
+    // Standard Bloom filter; the probe positions are derived from one 64-bit hash (double hashing)
+    private static final class BloomFilter {
+        
+        final long[] words;
+        final int probes;
+        
+        BloomFilter(long[] words, int probes) {
+            this.words = words;
+            this.probes = probes;
+        }
+        
+        static BloomFilter create(long keys, int bitsPerKey) {
+            if (bitsPerKey <= 0 || keys <= 0) {
+                return null;
+            }
+            long bits = Math.max(Long.SIZE, keys * bitsPerKey);
+            // ln 2 * bits per key probes give the lowest false positive rate, about 1% at 10 bits
+            int probes = (int) Math.max(1, Math.min(30, Math.round(bitsPerKey * 0.69)));
+            return new BloomFilter(new long[(int) ((bits + Long.SIZE - 1) / Long.SIZE)], probes);
+        }
+        
+        void add(byte[] key) {
+            long hash = hash(key);
+            long bits = (long) words.length * Long.SIZE;
+            for (int i = 0; i < probes; i++) {
+                long bit = Math.floorMod((int) hash + i * (hash >>> 32), bits);
+                words[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+        
+        boolean mightContain(byte[] key) {
+            long hash = hash(key);
+            long bits = (long) words.length * Long.SIZE;
+            for (int i = 0; i < probes; i++) {
+                long bit = Math.floorMod((int) hash + i * (hash >>> 32), bits);
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        // FNV-1a with a final avalanche, so keys differing only in their last bytes spread well
+        private static long hash(byte[] key) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : key) {
+                hash ^= b & 0xFF;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            return hash ^ (hash >>> 33);
+        }
+    }
+}
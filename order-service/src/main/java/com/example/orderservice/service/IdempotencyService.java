@@ -0,0 +1,211 @@
+package com.example.orderservice.service;
+
+import com.example.shared.json.JsonCodec;
+import com.example.shared.metrics.PipelineMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Maps Idempotency-Key headers to the orderId created for them. A key is claimed in Redis
+// (SET NX) with a pending marker, shared by all order-service instances, and completed with the
+// orderId and a hash of the request body only once the order is accepted. A retry that arrives
+// while the first request is in flight sees the marker instead of an order that may yet fail.
+// A small local cache of completed keys answers a client's quick retries against the same
+// instance without another Redis round trip.
+@Component
+public class IdempotencyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final String KEY_PREFIX = "idempotency:";
+    // pending:<orderId> while the first request runs, done:<requestHash>:<orderId> after it
+    private static final String PENDING_PREFIX = "pending:";
+    private static final String COMPLETED_PREFIX = "done:";
+    // The pending marker is checked and replaced (or removed) in one step, so a claim that
+    // expired and was taken by another request in between is never overwritten
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+            + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 end return 0", Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+    
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JsonCodec jsonCodec;
+    // Completed claims only: a pending one may still fail and be released
+    private final Map<String, CachedClaim> localCache = new ConcurrentHashMap<>();
+    // Keys in insertion order, so the oldest entries are evicted first
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final Counter localReplays;
+    private final Counter redisReplays;
+    private final Counter inFlightRetries;
+    
+    @Value("${order.idempotency.ttl:PT10M}")
+    private Duration ttl;
+    
+    // How long a claim stays pending if its request dies without completing or releasing it;
+    // retries get 409 until then
+    @Value("${order.idempotency.pending-ttl:PT1M}")
+    private Duration pendingTtl;
+    
+    @Value("${order.idempotency.local-ttl:PT30S}")
+    private Duration localTtl;
+    
+    @Value("${order.idempotency.local-max-entries:10000}")
+    private int localMaxEntries;
+    
+    public enum ClaimState {
+        // The caller holds the key and creates the order
+        CLAIMED,
+        // An earlier request with the key has not finished yet
+        PENDING,
+        // An earlier request with the key created orderId
+        COMPLETED
+    }
+    
+    // requestHash is null for keys completed before bodies were hashed
+    public record Claim(ClaimState state, String orderId, String requestHash) {
+        
+        public boolean matches(String requestHash) {
+            return this.requestHash == null || this.requestHash.equals(requestHash);
+        }
+    }
+    
+    @Autowired
+    public IdempotencyService(RedisTemplate<String, String> redisTemplate, JsonCodec jsonCodec,
+                              PipelineMetrics pipelineMetrics) {
+        this.redisTemplate = redisTemplate;
+        this.jsonCodec = jsonCodec;
+        this.localReplays = Counter.builder("order.idempotency.replays").tag("source", "local")
+            .register(pipelineMetrics.getRegistry());
+        this.redisReplays = Counter.builder("order.idempotency.replays").tag("source", "redis")
+            .register(pipelineMetrics.getRegistry());
+        this.inFlightRetries = Counter.builder("order.idempotency.in-flight")
+            .description("Retries that arrived while the first request with their key was still running")
+            .register(pipelineMetrics.getRegistry());
+    }
+    
+    // Claims the key for orderId with a pending marker; otherwise returns the state of the
+    // earlier request's claim
+    public Claim claim(String idempotencyKey, String orderId) {
+        CachedClaim cached = localCache.get(idempotencyKey);
+        if (cached != null && cached.expiresAtMillis > System.currentTimeMillis()) {
+            localReplays.increment();
+            return cached.claim;
+        }
+        
+        String redisKey = KEY_PREFIX + idempotencyKey;
+        // A second attempt covers the earlier claim expiring or being released in between
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Boolean claimed = redisTemplate.opsForValue().setIfAbsent(redisKey, PENDING_PREFIX + orderId, pendingTtl);
+            if (Boolean.TRUE.equals(claimed)) {
+                return new Claim(ClaimState.CLAIMED, orderId, null);
+            }
+            
+            String value = redisTemplate.opsForValue().get(redisKey);
+            if (value != null) {
+                Claim existing = parse(value);
+                if (existing.state() == ClaimState.PENDING) {
+                    inFlightRetries.increment();
+                    logger.info("Idempotency key {} is still in use by a request in flight", idempotencyKey);
+                } else {
+                    redisReplays.increment();
+                    remember(idempotencyKey, existing);
+                    logger.info("Idempotency key {} already used by order {}", idempotencyKey, existing.orderId());
+                }
+                return existing;
+            }
+        }
+        throw new RuntimeException("Could not claim idempotency key: " + idempotencyKey);
+    }
+    
+    // Binds the key to orderId once the order is accepted; from now on retries are replayed
+    public void complete(String idempotencyKey, String orderId, String requestHash) {
+        Claim completed = new Claim(ClaimState.COMPLETED, orderId, requestHash);
+        remember(idempotencyKey, completed);
+        try {
+            Long completedInRedis = redisTemplate.execute(COMPLETE_SCRIPT, List.of(KEY_PREFIX + idempotencyKey),
+                PENDING_PREFIX + orderId, COMPLETED_PREFIX + requestHash + ":" + orderId, String.valueOf(ttl.toMillis()));
+            if (!Long.valueOf(1).equals(completedInRedis)) {
+                logger.warn("Idempotency key {} expired before order {} was accepted", idempotencyKey, orderId);
+            }
+        } catch (Exception e) {
+            // Other instances see the key as pending until pending-ttl
+            logger.error("Error completing idempotency key {}: {}", idempotencyKey, e.getMessage(), e);
+        }
+    }
+    
+    // Frees the key after the order for it failed, so the client's retry can create it
+    public void release(String idempotencyKey, String orderId) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + idempotencyKey), PENDING_PREFIX + orderId);
+        } catch (Exception e) {
+            logger.error("Error releasing idempotency key {}: {}", idempotencyKey, e.getMessage(), e);
+        }
+    }
+    
+    // Hash of a bound request body, from its JSON form
+    public String requestHash(Object request) throws JsonProcessingException {
+        MessageDigest digest = newDigest();
+        digest.update(jsonCodec.writeBytes(request));
+        return requestHash(digest);
+    }
+    
+    // For bodies hashed as they are read (DigestInputStream)
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    public static String requestHash(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static Claim parse(String value) {
+        if (value.startsWith(PENDING_PREFIX)) {
+            return new Claim(ClaimState.PENDING, value.substring(PENDING_PREFIX.length()), null);
+        }
+        if (value.startsWith(COMPLETED_PREFIX)) {
+            String[] parts = value.substring(COMPLETED_PREFIX.length()).split(":", 2);
+            if (parts.length == 2) {
+                return new Claim(ClaimState.COMPLETED, parts[1], parts[0]);
+            }
+        }
+        // A bare orderId, written before claims were marked pending
+        return new Claim(ClaimState.COMPLETED, value, null);
+    }
+    
+    private void remember(String idempotencyKey, Claim claim) {
+        if (localCache.put(idempotencyKey, new CachedClaim(claim, System.currentTimeMillis() + localTtl.toMillis())) == null) {
+            insertionOrder.add(idempotencyKey);
+        }
+        while (localCache.size() > localMaxEntries) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            localCache.remove(oldest);
+        }
+    }
+    
+    private record CachedClaim(Claim claim, long expiresAtMillis) {
+    }
+}
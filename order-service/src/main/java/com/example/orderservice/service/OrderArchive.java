@@ -0,0 +1,466 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Long-term home of decided orders, so status lookups keep working after the order's Redis
+// key expires. Results are buffered in a sorted memtable and flushed to immutable compressed
+// segments (ArchiveSegment); for the same orderId a newer segment shadows older ones. Whenever
+// the newest few segments are of similar size they are merged into one, so a lookup probes a
+// number of segments logarithmic in the archive size, and segments whose newest record is past
+// the retention are deleted whole. The memtable is not logged: results it loses in a crash are
+// re-consumed, since the status view listener rewinds by its max age on startup.
+@Component
+public class OrderArchive {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchive.class);
+    // A lookup racing a merge may find its segment closed; it then looks again in the new ones
+    private static final int LOOKUP_ATTEMPTS = 3;
+    
+    private final PipelineMetrics pipelineMetrics;
+    private final Counter hits;
+    private final Counter misses;
+    
+    // Appends hold the read lock, swapping the memtable out for a flush holds the write lock
+    private final ReentrantReadWriteLock memtableLock = new ReentrantReadWriteLock();
+    private final Object maintenanceLock = new Object();
+    private final Semaphore flushRequests = new Semaphore(0);
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    
+    private volatile Memtable memtable = new Memtable();
+    private volatile Memtable flushing;
+    // Newest first; replaced as a whole under maintenanceLock
+    private volatile List<ArchiveSegment> segments = List.of();
+    private Path archiveDirectory;
+    private long nextSequence = 1;
+    private volatile boolean running;
+    private Thread worker;
+    
+    @Value("${order.archive.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${order.archive.directory:${java.io.tmpdir}/order-service/archive}")
+    private String directory;
+    
+    @Value("${order.archive.memtable-max-entries:50000}")
+    private int memtableMaxEntries;
+    
+    // Must stay well below order.status-view.max-age, see above
+    @Value("${order.archive.flush-interval:PT1M}")
+    private Duration flushInterval;
+    
+    @Value("${order.archive.block-bytes:4096}")
+    private int blockBytes;
+    
+    // Bloom filter size; about 1% of lookups for absent orders still read a block at 10 bits
+    @Value("${order.archive.bloom-bits-per-key:10}")
+    private int bloomBitsPerKey;
+    
+    @Value("${order.archive.merge-fan-in:4}")
+    private int mergeFanIn;
+    
+    @Value("${order.archive.retention:P30D}")
+    private Duration retention;
+    
+    @Value("${order.archive.fsync:true}")
+    private boolean fsync;
+    
+    @Autowired
+    public OrderArchive(PipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+        this.hits = Counter.builder("order.archive.lookups").tag("result", "hit")
+            .register(pipelineMetrics.getRegistry());
+        this.misses = Counter.builder("order.archive.lookups").tag("result", "miss")
+            .register(pipelineMetrics.getRegistry());
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        
+        archiveDirectory = Paths.get(directory);
+        Files.createDirectories(archiveDirectory);
+        
+        List<ArchiveSegment> opened = new ArrayList<>();
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (ArchiveSegment.isTempFile(file)) {
+                    // Left behind by a flush or merge that did not finish
+                    Files.deleteIfExists(file);
+                } else if (file.getFileName().toString().endsWith(ArchiveSegment.SUFFIX)) {
+                    try {
+                        opened.add(ArchiveSegment.open(file));
+                    } catch (IOException e) {
+                        logger.error("Skipping archive segment: {}", e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        segments = List.copyOf(opened);
+        nextSequence = opened.isEmpty() ? 1 : opened.get(0).getSequence() + 1;
+        
+        Gauge.builder("order.archive.segments", this, archive -> archive.segments.size())
+            .register(pipelineMetrics.getRegistry());
+        Gauge.builder("order.archive.bytes", this, OrderArchive::getSizeBytes)
+            .baseUnit("bytes")
+            .register(pipelineMetrics.getRegistry());
+        Gauge.builder("order.archive.memtable.entries", this, archive -> archive.memtable.size.get())
+            .register(pipelineMetrics.getRegistry());
+        
+        running = true;
+        worker = new Thread(this::run, "order-archive");
+        worker.setDaemon(true);
+        worker.start();
+        
+        logger.info("Order archive opened at {} with {} segments and {} orders",
+                   archiveDirectory, segments.size(), getRecordCount());
+    }
+    
+    public void append(String orderId, OrderStatus status, Instant updatedAt) {
+        if (!enabled || orderId == null || status == null) {
+            return;
+        }
+        ArchiveSegment.Entry entry = new ArchiveSegment.Entry(orderId, status,
+            updatedAt != null ? updatedAt.toEpochMilli() : System.currentTimeMillis());
+        
+        int size;
+        memtableLock.readLock().lock();
+        try {
+            Memtable current = memtable;
+            size = current.entries.put(orderId, entry) == null ? current.size.incrementAndGet() : current.size.get();
+        } finally {
+            memtableLock.readLock().unlock();
+        }
+        
+        if (size >= memtableMaxEntries && flushRequested.compareAndSet(false, true)) {
+            flushRequests.release();
+        }
+    }
+    
+    public OrderStatus getStatus(String orderId) {
+        if (!enabled) {
+            return null;
+        }
+        ArchiveSegment.Entry entry = get(orderId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.status();
+    }
+    
+    ArchiveSegment.Entry get(String orderId) {
+        ArchiveSegment.Entry entry = memtable.entries.get(orderId);
+        if (entry != null) {
+            return entry;
+        }
+        // Read before the segment list: a flush publishes its segment before clearing this
+        Memtable beingFlushed = flushing;
+        if (beingFlushed != null && (entry = beingFlushed.entries.get(orderId)) != null) {
+            return entry;
+        }
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                for (ArchiveSegment segment : segments) {
+                    entry = segment.get(orderId);
+                    if (entry != null) {
+                        return entry;
+                    }
+                }
+                return null;
+            
+            } catch (ClosedChannelException e) {
+                if (attempt >= LOOKUP_ATTEMPTS) {
+                    throw new RuntimeException("Archive segments kept changing during lookup of " + orderId, e);
+                }
+            } catch (IOException e) {
+                logger.error("Error reading order {} from archive: {}", orderId, e.getMessage(), e);
+                throw new RuntimeException("Error reading order archive", e);
+            }
+        }
+    }
+    
+    // Writes the memtable out as a new segment
+    public void flush() throws IOException {
+        synchronized (maintenanceLock) {
+            flushRequested.set(false);
+            Memtable toFlush;
+            memtableLock.writeLock().lock();
+            try {
+                toFlush = memtable;
+                if (toFlush.size.get() == 0) {
+                    return;
+                }
+                flushing = toFlush;
+                memtable = new Memtable();
+            } finally {
+                memtableLock.writeLock().unlock();
+            }
+            
+            try {
+                ArchiveSegment segment = ArchiveSegment.write(archiveDirectory, nextSequence++,
+                    toFlush.entries.values().iterator(), toFlush.size.get(), blockBytes, bloomBitsPerKey, fsync);
+                List<ArchiveSegment> updated = new ArrayList<>(segments.size() + 1);
+                updated.add(segment);
+                updated.addAll(segments);
+                segments = List.copyOf(updated);
+                logger.debug("Flushed {} orders to archive segment {}", segment.getRecordCount(), segment.getSequence());
+            
+            } catch (IOException | RuntimeException e) {
+                // Put the entries back, unless newer results for the same orders arrived meanwhile
+                memtableLock.readLock().lock();
+                try {
+                    toFlush.entries.forEach((orderId, entry) -> {
+                        if (memtable.entries.putIfAbsent(orderId, entry) == null) {
+                            memtable.size.incrementAndGet();
+                        }
+                    });
+                } finally {
+                    memtableLock.readLock().unlock();
+                }
+                throw e;
+            } finally {
+                flushing = null;
+            }
+        }
+    }
+    
+    // Flushes, drops expired segments and merges runs of similarly sized ones
+    public void maintain() throws IOException {
+        synchronized (maintenanceLock) {
+            flush();
+            deleteExpired();
+            merge();
+        }
+    }
+    
+    public long getRecordCount() {
+        return segments.stream().mapToLong(ArchiveSegment::getRecordCount).sum();
+    }
+    
+    public long getSizeBytes() {
+        return segments.stream().mapToLong(ArchiveSegment::getSizeBytes).sum();
+    }
+    
+    public int getSegmentCount() {
+        return segments.size();
+    }
+    
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+            worker = null;
+        }
+        synchronized (maintenanceLock) {
+            try {
+                flush();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error flushing order archive on shutdown: {}", e.getMessage(), e);
+            }
+            for (ArchiveSegment segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    logger.error("Error closing archive segment: {}", e.getMessage(), e);
+                }
+            }
+            segments = List.of();
+        }
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                flushRequests.tryAcquire(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                flushRequests.drainPermits();
+                if (running) {
+                    maintain();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // The memtable keeps its entries and is flushed again on the next round
+                logger.error("Error maintaining order archive: {}", e.getMessage(), e);
+            }
+        }
+    }
+    
+    private void deleteExpired() throws IOException {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        List<ArchiveSegment> kept = new ArrayList<>(segments.size());
+        List<ArchiveSegment> expired = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            (segment.getNewestUpdatedAt() < cutoff ? expired : kept).add(segment);
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        segments = List.copyOf(kept);
+        for (ArchiveSegment segment : expired) {
+            segment.retire();
+        }
+        logger.info("Deleted {} archive segments past the {} retention", expired.size(), retention);
+    }
+    
+    // Merges the newest mergeFanIn segments while they are in the same size tier, like carries
+    // in a counter: every order is rewritten about log(archive size / memtable size) times
+    private void merge() throws IOException {
+        while (segments.size() >= mergeFanIn) {
+            List<ArchiveSegment> run = segments.subList(0, mergeFanIn);
+            int tier = tier(run.get(mergeFanIn - 1));
+            if (run.stream().anyMatch(segment -> tier(segment) != tier)) {
+                return;
+            }
+            
+            long start = System.nanoTime();
+            long cutoff = System.currentTimeMillis() - retention.toMillis();
+            // The run is the newest segments, so the merged one can take the next sequence. If the
+            // merged inputs outlive a crash they are older and shadowed by it
+            ArchiveSegment merged = ArchiveSegment.write(archiveDirectory, nextSequence++, new MergeIterator(run, cutoff),
+                run.stream().mapToLong(ArchiveSegment::getRecordCount).sum(), blockBytes, bloomBitsPerKey, fsync);
+            
+            List<ArchiveSegment> updated = new ArrayList<>();
+            updated.add(merged);
+            updated.addAll(segments.subList(mergeFanIn, segments.size()));
+            List<ArchiveSegment> replaced = List.copyOf(run);
+            segments = List.copyOf(updated);
+            
+            for (ArchiveSegment segment : replaced) {
+                segment.retire();
+            }
+            logger.info("Merged {} archive segments into segment {} with {} orders in {} ms",
+                       replaced.size(), merged.getSequence(), merged.getRecordCount(),
+                       TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+    
+    private int tier(ArchiveSegment segment) {
+        int tier = 0;
+        for (long units = segment.getRecordCount() / Math.max(1, memtableMaxEntries); units >= mergeFanIn; units /= mergeFanIn) {
+            tier++;
+        }
+        return tier;
+    }
+    
+    private static final class Memtable {
+    
+        final ConcurrentSkipListMap<String, ArchiveSegment.Entry> entries = new ConcurrentSkipListMap<>();
+        // ConcurrentSkipListMap.size() walks the whole map
+        final AtomicInteger size = new AtomicInteger();
+    }
+    
+    // K-way merge of segments given newest first: for each orderId only the newest entry is
+    // kept, and entries updated before cutoff are dropped
+    private static final class MergeIterator implements Iterator<ArchiveSegment.Entry> {
+    
+        private final PriorityQueue<Cursor> cursors = new PriorityQueue<>(
+            Comparator.comparing((Cursor cursor) -> cursor.current.orderId()).thenComparingInt(cursor -> cursor.rank));
+        private final long cutoff;
+        private ArchiveSegment.Entry next;
+        
+        MergeIterator(List<ArchiveSegment> newestFirst, long cutoff) {
+            this.cutoff = cutoff;
+            for (int rank = 0; rank < newestFirst.size(); rank++) {
+                Cursor cursor = new Cursor(newestFirst.get(rank).iterator(), rank);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (next == null && !cursors.isEmpty()) {
+                Cursor newest = cursors.poll();
+                ArchiveSegment.Entry candidate = newest.current;
+                requeue(newest);
+                // Older entries for the same orderId come next in the queue; skip them
+                while (!cursors.isEmpty() && cursors.peek().current.orderId().equals(candidate.orderId())) {
+                    requeue(cursors.poll());
+                }
+                if (candidate.updatedAtMillis() >= cutoff) {
+                    next = candidate;
+                }
+            }
+            return next != null;
+        }
+        
+        @Override
+        public ArchiveSegment.Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ArchiveSegment.Entry entry = next;
+            next = null;
+            return entry;
+        }
+        
+        private void requeue(Cursor cursor) {
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+    }
+    
+    private static final class Cursor {
+    
+        final Iterator<ArchiveSegment.Entry> entries;
+        final int rank;
+        ArchiveSegment.Entry current;
+        
+        Cursor(Iterator<ArchiveSegment.Entry> entries, int rank) {
+            this.entries = entries;
+            this.rank = rank;
+        }
+        
+        boolean advance() {
+            if (!entries.hasNext()) {
+                return false;
+            }
+            current = entries.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OrderRepository;
+import com.example.shared.repository.OrderScanPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Writes every live order as newline-delimited JSON, one scan batch at a time, so memory use
+// stays at one batch however many orders there are. After each batch a control line
+// {"nextCursor":"..."} tells the client where to resume if the stream breaks; the last one
+// is {"nextCursor":null}
+@Component
+public class OrderExporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderExporter.class);
+    private static final byte NEWLINE = '\n';
+    
+    private final OrderRepository orderRepository;
+    private final JsonCodec jsonCodec;
+    private final Counter exportedOrders;
+    
+    @Value("${order.export.batch-size:500}")
+    private int batchSize;
+    
+    @Autowired
+    public OrderExporter(OrderRepository orderRepository, JsonCodec jsonCodec, PipelineMetrics pipelineMetrics) {
+        this.orderRepository = orderRepository;
+        this.jsonCodec = jsonCodec;
+        this.exportedOrders = Counter.builder("order.export.orders").register(pipelineMetrics.getRegistry());
+    }
+    
+    // Reads the first batch from cursor (null for the start), so a malformed cursor fails here
+    // with IllegalArgumentException before anything is written
+    public Export start(String cursor) {
+        String position = cursor == null || cursor.isBlank() ? OrderScanPage.SCAN_START : cursor;
+        return new Export(cursor, orderRepository.scan(position, batchSize));
+    }
+    
+    public long export(String cursor, OutputStream out) throws IOException {
+        return start(cursor).writeTo(out);
+    }
+    
+    // An export whose first batch has been read
+    public class Export {
+        
+        private final String cursor;
+        private final OrderScanPage firstPage;
+        
+        private Export(String cursor, OrderScanPage firstPage) {
+            this.cursor = cursor;
+            this.firstPage = firstPage;
+        }
+        
+        // Streams to the end of the scan and returns the number of orders written. Orders stored
+        // for the whole export appear at least once; a resumed export may repeat some from the
+        // batch that was cut off
+        public long writeTo(OutputStream out) throws IOException {
+            long written = 0;
+            OrderScanPage page = firstPage;
+            while (true) {
+                for (Order order : page.orders()) {
+                    writeOrder(order, out);
+                    out.write(NEWLINE);
+                }
+                written += page.orders().size();
+                exportedOrders.increment(page.orders().size());
+                
+                out.write(controlLine(page.isComplete() ? null : page.nextCursor()));
+                out.flush();
+                if (page.isComplete()) {
+                    break;
+                }
+                page = orderRepository.scan(page.nextCursor(), batchSize);
+            }
+            
+            logger.info("Exported {} orders starting at cursor {}", written, cursor);
+            return written;
+        }
+    }
+    
+    // A streamed order is written with its stored items in place of the empty items field and
+    // without itemChunks, as it was ingested. Its items are written a chunk at a time, so a large
+    // order is never held in memory as a whole
+    private void writeOrder(Order order, OutputStream out) throws IOException {
+        if (order.getItemChunks() == null) {
+            out.write(jsonCodec.writeBytes(order));
+            return;
+        }
+        
+        ObjectMapper objectMapper = jsonCodec.getObjectMapper();
+        JsonNode document = objectMapper.valueToTree(order);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             Stream<List<OrderItem>> chunks = orderRepository.streamItems(order)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = document.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getKey().equals("itemChunks")) {
+                    continue;
+                }
+                generator.writeFieldName(field.getKey());
+                if (field.getKey().equals("items")) {
+                    generator.writeStartArray();
+                    for (Iterator<List<OrderItem>> chunk = chunks.iterator(); chunk.hasNext(); ) {
+                        for (OrderItem item : chunk.next()) {
+                            objectMapper.writeValue(generator, item);
+                        }
+                    }
+                    generator.writeEndArray();
+                } else {
+                    objectMapper.writeTree(generator, field.getValue());
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+    
+    private byte[] controlLine(String nextCursor) throws IOException {
+        String value = nextCursor == null ? "null" : jsonCodec.writeString(nextCursor);
+        return ("{\"nextCursor\":" + value + "}\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,446 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.model.OutboxEntry;
+import com.example.shared.dto.Order;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.metrics.PipelineMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Durable write-behind log for accepted orders. Records are appended to segment files named
+// after their first sequence number; a checkpoint file holds the last sequence flushed to Redis
+// and Kafka. On startup every record after the checkpoint is replayed into the flush queue.
+// Batches the flusher gives up on are copied to a dead-letter file before they are skipped.
+@Component
+public class OrderOutbox {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutbox.class);
+    private static final String INGEST_MODE_OUTBOX = "outbox";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter.jsonl";
+    
+    // Record layout: [payload length][crc32 of payload][sequence][receivedAt][order JSON]
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int PAYLOAD_PREFIX_BYTES = 2 * Long.BYTES;
+    
+    private final JsonCodec jsonCodec;
+    private final PipelineMetrics pipelineMetrics;
+    
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final Map<String, OutboxEntry> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<OutboxEntry> flushQueue = new LinkedBlockingQueue<>();
+    
+    // Guarded by appendLock: base sequence of every segment still on disk, oldest first
+    private final List<Long> segments = new ArrayList<>();
+    private Path outboxDirectory;
+    private FileChannel activeChannel;
+    private long activeBytes;
+    private long nextSequence = 1;
+    
+    private volatile long syncedSequence;
+    private volatile long checkpointSequence;
+    private Counter syncFailures;
+    
+    @Value("${order.ingest.mode:direct}")
+    private String ingestMode;
+    
+    @Value("${order.outbox.directory:${java.io.tmpdir}/order-service/outbox}")
+    private String directory;
+    
+    @Value("${order.outbox.segment-bytes:67108864}")
+    private long segmentBytes;
+    
+    @Value("${order.outbox.max-pending:100000}")
+    private int maxPending;
+    
+    @Value("${order.outbox.fsync:true}")
+    private boolean fsync;
+    
+    @Autowired
+    public OrderOutbox(JsonCodec jsonCodec, PipelineMetrics pipelineMetrics) {
+        this.jsonCodec = jsonCodec;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+    
+    public boolean isEnabled() {
+        return INGEST_MODE_OUTBOX.equalsIgnoreCase(ingestMode);
+    }
+    
+    @PostConstruct
+    public void open() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        
+        outboxDirectory = Paths.get(directory);
+        Files.createDirectories(outboxDirectory);
+        checkpointSequence = readCheckpoint();
+        nextSequence = checkpointSequence + 1;
+        
+        List<Long> segmentBases = listSegments();
+        for (long base : segmentBases) {
+            segments.add(base);
+            replaySegment(segmentPath(base));
+        }
+        syncedSequence = nextSequence - 1;
+        openSegment(nextSequence);
+        
+        Gauge.builder("order.outbox.depth", pending, Map::size)
+            .description("Accepted orders not yet flushed to Redis and Kafka")
+            .register(pipelineMetrics.getRegistry());
+        syncFailures = Counter.builder("order.outbox.sync.failures")
+            .description("Appends whose fsync failed; their orders were accepted and queued anyway")
+            .register(pipelineMetrics.getRegistry());
+        
+        logger.info("Order outbox opened at {} with {} segments and {} orders to replay",
+                   outboxDirectory, segments.size(), pending.size());
+    }
+    
+    public OutboxEntry append(Order order, long receivedAt) {
+        long start = System.nanoTime();
+        byte[] orderJson;
+        try {
+            orderJson = jsonCodec.writeBytes(order);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing order for outbox: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to append order to outbox", e);
+        }
+        
+        OutboxEntry entry;
+        appendLock.lock();
+        try {
+            if (pending.size() >= maxPending) {
+                throw new RuntimeException("Order outbox is full: " + maxPending + " orders waiting to be flushed");
+            }
+            
+            entry = new OutboxEntry(nextSequence, receivedAt, order);
+            ByteBuffer record = encode(entry, orderJson);
+            if (activeBytes > 0 && activeBytes + record.remaining() > segmentBytes) {
+                rollSegment();
+            }
+            write(record);
+            nextSequence++;
+            pending.put(order.getOrderId(), entry);
+            flushQueue.add(entry);
+        
+        } finally {
+            appendLock.unlock();
+        }
+        
+        sync(entry.getSequence());
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_OUTBOX_APPEND, start);
+        return entry;
+    }
+    
+    public Order getPending(String orderId) {
+        OutboxEntry entry = pending.get(orderId);
+        return entry == null ? null : entry.getOrder();
+    }
+    
+    public int getDepth() {
+        return pending.size();
+    }
+    
+    public int getMaxPending() {
+        return maxPending;
+    }
+    
+    public List<OutboxEntry> nextBatch(int maxEntries, Duration wait) throws InterruptedException {
+        OutboxEntry first = flushQueue.poll(wait.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+        List<OutboxEntry> batch = new ArrayList<>(Math.min(maxEntries, flushQueue.size() + 1));
+        batch.add(first);
+        flushQueue.drainTo(batch, maxEntries - 1);
+        return batch;
+    }
+    
+    // Batches are flushed in sequence order, so the last entry of a batch is the new checkpoint
+    public void markFlushed(List<OutboxEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long sequence = batch.get(batch.size() - 1).getSequence();
+        writeCheckpoint(sequence);
+        checkpointSequence = sequence;
+        batch.forEach(entry -> pending.remove(entry.getOrder().getOrderId(), entry));
+        deleteFlushedSegments();
+    }
+    
+    // Appends one {"sequence","receivedAt","order"} line per entry to dead-letter.jsonl in the
+    // outbox directory and forces it, so orders the flusher gave up on can be replayed by hand
+    public void deadLetter(List<OutboxEntry> entries) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (OutboxEntry entry : entries) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("sequence", entry.getSequence());
+            line.put("receivedAt", entry.getReceivedAt());
+            line.put("order", entry.getOrder());
+            lines.write(jsonCodec.writeBytes(line));
+            lines.write('\n');
+        }
+        
+        try (FileChannel channel = FileChannel.open(outboxDirectory.resolve(DEAD_LETTER_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        appendLock.lock();
+        try {
+            if (activeChannel != null) {
+                activeChannel.force(false);
+                activeChannel.close();
+                activeChannel = null;
+            }
+        } catch (IOException e) {
+            logger.error("Error closing order outbox: {}", e.getMessage(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    private ByteBuffer encode(OutboxEntry entry, byte[] orderJson) {
+        int payloadLength = PAYLOAD_PREFIX_BYTES + orderJson.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payloadLength);
+        record.putInt(payloadLength);
+        record.putInt(0);
+        record.putLong(entry.getSequence());
+        record.putLong(entry.getReceivedAt());
+        record.put(orderJson);
+        
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_BYTES, payloadLength);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.flip();
+    }
+    
+    private void write(ByteBuffer record) {
+        int length = record.remaining();
+        try {
+            while (record.hasRemaining()) {
+                activeChannel.write(record);
+            }
+            activeBytes += length;
+        } catch (IOException e) {
+            // Drop any partial record so later appends are not hidden behind it on replay
+            try {
+                activeChannel.truncate(activeBytes);
+                activeChannel.position(activeBytes);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+            }
+            logger.error("Error appending to order outbox: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to append order to outbox", e);
+        }
+    }
+    
+    // Group commit: one force covers every record appended before it, so concurrent
+    // appenders waiting here share a single fsync
+    private void sync(long sequence) {
+        if (!fsync || syncedSequence >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            appendLock.lock();
+            try {
+                target = nextSequence - 1;
+                channel = activeChannel;
+            } finally {
+                appendLock.unlock();
+            }
+            
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Rolled over in the meantime; rollSegment forced it before closing
+            } catch (IOException e) {
+                // The record is written and queued, so the order is flushed like any other. Failing
+                // the request would make the client retry and create it twice; as with an
+                // Idempotency-Key, the order is accepted once. It is only lost if the process
+                // dies before the flush; the next append forces the file again
+                syncFailures.increment();
+                logger.error("Error syncing order outbox, keeping the order: {}", e.getMessage(), e);
+                return;
+            }
+            syncedSequence = target;
+        }
+    }
+    
+    private void rollSegment() {
+        try {
+            activeChannel.force(false);
+            activeChannel.close();
+            openSegment(nextSequence);
+        } catch (IOException e) {
+            logger.error("Error rolling order outbox segment: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to roll order outbox segment", e);
+        }
+    }
+    
+    private void openSegment(long baseSequence) throws IOException {
+        activeChannel = FileChannel.open(segmentPath(baseSequence), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeBytes = activeChannel.size();
+        activeChannel.position(activeBytes);
+        if (segments.isEmpty() || segments.get(segments.size() - 1) != baseSequence) {
+            segments.add(baseSequence);
+        }
+    }
+    
+    private void replaySegment(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            
+            while (position + RECORD_HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, position);
+                int payloadLength = header.getInt(0);
+                int crc = header.getInt(Integer.BYTES);
+                if (payloadLength < PAYLOAD_PREFIX_BYTES || position + RECORD_HEADER_BYTES + payloadLength > size) {
+                    break;
+                }
+                
+                ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+                readFully(channel, payload, position + RECORD_HEADER_BYTES);
+                CRC32 actual = new CRC32();
+                actual.update(payload.array());
+                if ((int) actual.getValue() != crc) {
+                    break;
+                }
+                
+                long sequence = payload.getLong(0);
+                long receivedAt = payload.getLong(Long.BYTES);
+                if (sequence > checkpointSequence) {
+                    byte[] orderJson = Arrays.copyOfRange(payload.array(), PAYLOAD_PREFIX_BYTES, payloadLength);
+                    Order order = jsonCodec.read(orderJson, Order.class);
+                    OutboxEntry entry = new OutboxEntry(sequence, receivedAt, order);
+                    pending.put(order.getOrderId(), entry);
+                    flushQueue.add(entry);
+                }
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                position += RECORD_HEADER_BYTES + payloadLength;
+            }
+            
+            if (position < size) {
+                // A crash during an append leaves a partial record at the tail of the segment
+                logger.warn("Truncating {} bytes of incomplete outbox data in {}", size - position, segment);
+                channel.truncate(position);
+            }
+        }
+    }
+    
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of outbox segment");
+            }
+        }
+    }
+    
+    private void deleteFlushedSegments() {
+        appendLock.lock();
+        try {
+            // A segment is fully flushed once the next one starts at or before checkpoint + 1
+            while (segments.size() > 1 && segments.get(1) - 1 <= checkpointSequence) {
+                Files.deleteIfExists(segmentPath(segments.get(0)));
+                segments.remove(0);
+            }
+        } catch (IOException e) {
+            logger.error("Error deleting flushed outbox segment: {}", e.getMessage(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = outboxDirectory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpoint, StandardCharsets.UTF_8).trim());
+    }
+    
+    private void writeCheckpoint(long sequence) {
+        Path checkpoint = outboxDirectory.resolve(CHECKPOINT_FILE);
+        Path temp = outboxDirectory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8)));
+                if (fsync) {
+                    channel.force(false);
+                }
+            }
+            Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        } catch (IOException e) {
+            // Not fatal: the orders are already flushed and would only be replayed again
+            logger.error("Error writing outbox checkpoint {}: {}", sequence, e.getMessage(), e);
+        }
+    }
+    
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(outboxDirectory)) {
+            return files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .toList();
+        }
+    }
+    
+    private Path segmentPath(long baseSequence) {
+        return outboxDirectory.resolve(String.format("%020d%s", baseSequence, SEGMENT_SUFFIX));
+    }
+}
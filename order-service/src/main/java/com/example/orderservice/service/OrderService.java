@@ -1,21 +1,29 @@
 package com.example.orderservice.service;
 
+import com.example.orderservice.model.CustomerOrderPage;
+import com.example.orderservice.model.OrderStatusEntry;
 import com.example.shared.dto.Order;
 import com.example.shared.dto.OrderRequest;
 import com.example.shared.dto.OrderStatus;
 import com.example.shared.event.OrderEvent;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.shared.event.PipelineHeaders;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.CustomerOrderRef;
+import com.example.shared.repository.OrderRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -23,11 +31,17 @@ import java.util.concurrent.CompletableFuture;
 public class OrderService {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
-    private static final Duration REDIS_TTL = Duration.ofMinutes(10); // 10 minutes TTL
+    private static final Duration ORDER_TTL = Duration.ofMinutes(10); // 10 minutes TTL
+    // Index entries read per page at most, so a rare status filter cannot scan a whole customer
+    private static final int MAX_SCANNED_PER_LIMIT = 10;
     
     private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
-    private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final OrderRepository orderRepository;
+    private final PipelineMetrics pipelineMetrics;
+    private final OrderOutbox orderOutbox;
+    private final OrderStatusView statusView;
+    private final OrderArchive orderArchive;
+    private final OrderTopicPublisher orderTopicPublisher;
     
     @Value("${kafka.topics.order-events}")
     private String orderEventsTopic;
@@ -36,28 +50,55 @@ public class OrderService {
     
     @Autowired
     public OrderService(KafkaTemplate<String, OrderEvent> kafkaTemplate,
-                       RedisTemplate<String, String> redisTemplate,
-                       ObjectMapper objectMapper) {
+                       OrderRepository orderRepository,
+                       PipelineMetrics pipelineMetrics,
+                       OrderOutbox orderOutbox,
+                       OrderStatusView statusView,
+                       OrderArchive orderArchive,
+                       OrderTopicPublisher orderTopicPublisher) {
         this.kafkaTemplate = kafkaTemplate;
-        this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.orderRepository = orderRepository;
+        this.pipelineMetrics = pipelineMetrics;
+        this.orderOutbox = orderOutbox;
+        this.statusView = statusView;
+        this.orderArchive = orderArchive;
+        this.orderTopicPublisher = orderTopicPublisher;
     }
     
     public String processOrder(OrderRequest orderRequest) {
-        String orderId = generateOrderId();
+        return processOrder(orderRequest, generateOrderId());
+    }
+    
+    // For callers that need the orderId before the order is processed (idempotency keys)
+    public String processOrder(OrderRequest orderRequest, String orderId) {
+        // Create order with PENDING status
+        return acceptOrder(new Order(orderId, orderRequest, OrderStatus.PENDING));
+    }
+    
+    // Stores and publishes an order built elsewhere, e.g. by StreamingOrderIngest once its item
+    // chunks are stored. Order extends OrderRequest, hence not another processOrder overload
+    public String acceptOrder(Order order) {
+        long ingestStart = System.nanoTime();
+        long receivedAt = System.currentTimeMillis();
+        String orderId = order.getOrderId();
         logger.info("Processing order with ID: {}", orderId);
         
         try {
-            // Create order with PENDING status
-            Order order = new Order(orderId, orderRequest, OrderStatus.PENDING);
-            
-            // Store order in Redis
-            storeOrderInRedis(order);
-            
-            // Create and publish order event to Kafka (only orderId)
-            OrderEvent orderEvent = new OrderEvent(orderId);
-            publishOrderEvent(orderEvent);
+            if (orderOutbox.isEnabled()) {
+                // Write-behind: durable locally now, OutboxFlusher stores and publishes it
+                orderOutbox.append(order, receivedAt);
+            } else {
+                // Store order in the repository
+                storeOrder(order);
+                orderTopicPublisher.publishAndWait(order);
+                
+                // Create and publish order event to Kafka (only orderId)
+                OrderEvent orderEvent = new OrderEvent(orderId);
+                publishOrderEvent(orderEvent, receivedAt);
+            }
+            statusView.recordPending(orderId, order.getCreatedAt());
             
+            pipelineMetrics.recordStage(PipelineMetrics.STAGE_INGEST, ingestStart);
             logger.info("Order processed successfully. ID: {}, Status: {}", orderId, OrderStatus.PENDING);
             return orderId;
             
@@ -68,44 +109,85 @@ public class OrderService {
     }
     
     public OrderStatus getOrderStatus(String orderId) {
-        try {
-            String orderJson = redisTemplate.opsForValue().get("order:" + orderId);
-            if (orderJson == null) {
-                throw new RuntimeException("Order not found: " + orderId);
+        OrderStatusEntry viewEntry = statusView.get(orderId);
+        if (viewEntry != null) {
+            return viewEntry.getStatus();
+        }
+        
+        // Orders still in the outbox are not in Redis yet
+        Order pendingOrder = orderOutbox.getPending(orderId);
+        if (pendingOrder != null) {
+            return pendingOrder.getStatus();
+        }
+        
+        // With replica reads on, an order this instance just stored is still read from the primary
+        Order order = orderRepository.get(orderId);
+        if (order == null) {
+            // Expired from the repository; decided orders are kept in the archive
+            OrderStatus archivedStatus = orderArchive.getStatus(orderId);
+            if (archivedStatus != null) {
+                return archivedStatus;
             }
-            
-            Order order = objectMapper.readValue(orderJson, Order.class);
-            return order.getStatus();
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Error deserializing order from Redis: {}", e.getMessage(), e);
-            throw new RuntimeException("Error retrieving order status", e);
+            throw new RuntimeException("Order not found: " + orderId);
         }
+        return order.getStatus();
     }
     
 
     
-    private void storeOrderInRedis(Order order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            String redisKey = "order:" + order.getOrderId();
-            
-            redisTemplate.opsForValue().set(redisKey, orderJson, REDIS_TTL);
-            logger.debug("Order stored in Redis with key: {}", redisKey);
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Error serializing order for Redis: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to store order in Redis", e);
+    // The customer's orders newest first, optionally only those in the given statuses. Orders
+    // still in the outbox are not listed yet. A page can hold fewer than limit orders (even none)
+    // while nextCursor is set, when the filter or expired orders skipped index entries
+    public CustomerOrderPage listOrdersByCustomer(String customerName, String cursor, int limit,
+                                                  Set<OrderStatus> statuses) {
+        CustomerOrderRef after = cursor == null ? null : CustomerOrderRef.fromCursor(cursor);
+        List<Order> orders = new ArrayList<>(limit);
+        int scanned = 0;
+        
+        while (orders.size() < limit && scanned < limit * MAX_SCANNED_PER_LIMIT) {
+            List<CustomerOrderRef> refs = orderRepository.findByCustomer(customerName, after, limit);
+            if (refs.isEmpty()) {
+                return new CustomerOrderPage(orders, null);
+            }
+            Map<String, Order> found = orderRepository.getAll(refs.stream().map(CustomerOrderRef::orderId).toList());
+            for (CustomerOrderRef ref : refs) {
+                after = ref;
+                scanned++;
+                Order order = found.get(ref.orderId());
+                if (order != null && (statuses.isEmpty() || statuses.contains(order.getStatus()))) {
+                    orders.add(order);
+                    if (orders.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            if (refs.size() < limit && after == refs.get(refs.size() - 1)) {
+                return new CustomerOrderPage(orders, null);
+            }
         }
+        return new CustomerOrderPage(orders, after.toCursor());
     }
     
-    private void publishOrderEvent(OrderEvent orderEvent) {
+    private void storeOrder(Order order) {
+        long start = System.nanoTime();
+        orderRepository.put(order, ORDER_TTL);
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_REDIS_STORE, start);
+        logger.debug("Order stored: {}", order.getOrderId());
+    }
+    
+    private void publishOrderEvent(OrderEvent orderEvent, long receivedAt) {
         try {
-            CompletableFuture<SendResult<String, OrderEvent>> future = 
-                kafkaTemplate.send(orderEventsTopic, orderEvent.getOrderId(), orderEvent);
+            ProducerRecord<String, OrderEvent> record = 
+                new ProducerRecord<>(orderEventsTopic, orderEvent.getOrderId(), orderEvent);
+            PipelineHeaders.stamp(record.headers(), PipelineHeaders.ORDER_RECEIVED_AT, receivedAt);
+            PipelineHeaders.stamp(record.headers(), PipelineHeaders.ORDER_PUBLISHED_AT, System.currentTimeMillis());
+            
+            long publishStart = System.nanoTime();
+            CompletableFuture<SendResult<String, OrderEvent>> future = kafkaTemplate.send(record);
             
             future.whenComplete((result, ex) -> {
                 if (ex == null) {
+                    pipelineMetrics.recordStage(PipelineMetrics.STAGE_KAFKA_PUBLISH_ACK, publishStart);
                     logger.info("Order event published successfully. Order ID: {}, Topic: {}, Partition: {}, Offset: {}", 
                               orderEvent.getOrderId(), result.getRecordMetadata().topic(), 
                               result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
@@ -120,7 +202,7 @@ public class OrderService {
         }
     }
     
-    private String generateOrderId() {
+    public String generateOrderId() {
         return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 }
@@ -0,0 +1,120 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.model.OrderStatusEntry;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Recent order statuses held in memory so status reads do not go to Redis. Orders are seeded
+// as PENDING when this instance accepts them and updated from inventory-check-results, which
+// every instance consumes. Bounded by entry count and by age (the Redis TTL).
+@Component
+public class OrderStatusView {
+    
+    private final Map<String, OrderStatusEntry> entries = new ConcurrentHashMap<>();
+    // Order ids in insertion order, so the oldest entries are evicted first
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final Counter hits;
+    private final Counter misses;
+    
+    @Value("${order.status-view.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${order.status-view.max-entries:100000}")
+    private int maxEntries;
+    
+    @Value("${order.status-view.max-age:PT10M}")
+    private Duration maxAge;
+    
+    @Autowired
+    public OrderStatusView(PipelineMetrics pipelineMetrics) {
+        this.hits = Counter.builder("order.status.view.lookups").tag("result", "hit")
+            .register(pipelineMetrics.getRegistry());
+        this.misses = Counter.builder("order.status.view.lookups").tag("result", "miss")
+            .register(pipelineMetrics.getRegistry());
+        Gauge.builder("order.status.view.size", entries, Map::size)
+            .register(pipelineMetrics.getRegistry());
+    }
+    
+    public void recordPending(String orderId, Instant createdAt) {
+        update(orderId, OrderStatus.PENDING, createdAt);
+    }
+    
+    public void recordResult(String orderId, OrderStatus status, Instant decidedAt) {
+        update(orderId, status, decidedAt);
+    }
+    
+    public OrderStatusEntry get(String orderId) {
+        if (!enabled) {
+            return null;
+        }
+        OrderStatusEntry entry = entries.get(orderId);
+        if (entry == null || isExpired(entry, System.currentTimeMillis())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+    
+    private void update(String orderId, OrderStatus status, Instant updatedAt) {
+        if (!enabled || orderId == null || status == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean[] added = new boolean[1];
+        
+        entries.compute(orderId, (id, current) -> {
+            if (current == null) {
+                added[0] = true;
+                return new OrderStatusEntry(id, status, updatedAt, now);
+            }
+            // The result can arrive before the PENDING seed; never go back from a final status
+            if (status == OrderStatus.PENDING) {
+                return current;
+            }
+            return new OrderStatusEntry(id, status, updatedAt, current.getObservedAtMillis());
+        });
+        
+        if (added[0]) {
+            insertionOrder.add(orderId);
+            evict(now);
+        }
+    }
+    
+    private void evict(long now) {
+        String oldest;
+        while ((oldest = insertionOrder.peek()) != null) {
+            OrderStatusEntry entry = entries.get(oldest);
+            if (entry != null && entries.size() <= maxEntries && !isExpired(entry, now)) {
+                return;
+            }
+            if (insertionOrder.remove(oldest) && entry != null) {
+                entries.remove(oldest, entry);
+            }
+        }
+    }
+    
+    private boolean isExpired(OrderStatusEntry entry, long now) {
+        return now - entry.getObservedAtMillis() > maxAge.toMillis();
+    }
+}
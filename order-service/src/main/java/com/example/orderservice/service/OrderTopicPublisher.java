@@ -0,0 +1,60 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Publishes each new order in full to the orders topic, keyed by orderId, ahead of its
+// OrderEvent. inventory-service's streams engine keeps the topic as a local table, so it does
+// not read orders back from the repository. Off unless that engine is in use.
+@Component
+public class OrderTopicPublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderTopicPublisher.class);
+    
+    private final KafkaTemplate<String, Order> orderKafkaTemplate;
+    
+    @Value("${order.orders-topic.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${kafka.topics.orders:orders}")
+    private String ordersTopic;
+    
+    @Value("${order.orders-topic.publish-timeout:PT30S}")
+    private Duration publishTimeout;
+    
+    @Autowired
+    public OrderTopicPublisher(KafkaTemplate<String, Order> orderKafkaTemplate) {
+        this.orderKafkaTemplate = orderKafkaTemplate;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Completes when the broker acknowledges the order; already complete when disabled
+    public CompletableFuture<?> publish(Order order) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return orderKafkaTemplate.send(ordersTopic, order.getOrderId(), order).whenComplete((result, ex) -> {
+            if (ex != null) {
+                logger.error("Failed to publish order to {}. Order ID: {}", ordersTopic, order.getOrderId(), ex);
+            }
+        });
+    }
+    
+    // Returns once the broker acknowledges the order, so its OrderEvent, sent afterwards, never
+    // reaches the streams engine without it. Throws if the publish fails or times out
+    public void publishAndWait(Order order) throws Exception {
+        publish(order).get(publishTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.model.OutboxEntry;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.event.PipelineHeaders;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Background worker for outbox ingest: stores each batch of accepted orders with one
+// repository call (a pipelined round trip on Redis), then publishes their OrderEvents and waits for the acks before
+// advancing the outbox checkpoint. Delivery is at-least-once: a failed batch is retried whole, up to
+// max-flush-attempts times; then it is moved to the dead-letter file and skipped, so it cannot hold
+// back every later order.
+@Component
+public class OutboxFlusher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxFlusher.class);
+    private static final Duration ORDER_TTL = Duration.ofMinutes(10); // 10 minutes TTL
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+    
+    private final OrderOutbox orderOutbox;
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final OrderRepository orderRepository;
+    private final PipelineMetrics pipelineMetrics;
+    private final OrderTopicPublisher orderTopicPublisher;
+    
+    private volatile boolean running;
+    private Thread worker;
+    private Counter flushFailures;
+    private Counter deadLettered;
+    private DistributionSummary batchSizes;
+    
+    @Value("${kafka.topics.order-events}")
+    private String orderEventsTopic;
+    
+    @Value("${order.outbox.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${order.outbox.flush-timeout:PT30S}")
+    private Duration flushTimeout;
+    
+    @Value("${order.outbox.retry-backoff:PT1S}")
+    private Duration retryBackoff;
+    
+    @Value("${order.outbox.max-flush-attempts:10}")
+    private int maxFlushAttempts;
+    
+    @Autowired
+    public OutboxFlusher(OrderOutbox orderOutbox,
+                         KafkaTemplate<String, OrderEvent> kafkaTemplate,
+                         OrderRepository orderRepository,
+                         PipelineMetrics pipelineMetrics,
+                         OrderTopicPublisher orderTopicPublisher) {
+        this.orderOutbox = orderOutbox;
+        this.kafkaTemplate = kafkaTemplate;
+        this.orderRepository = orderRepository;
+        this.pipelineMetrics = pipelineMetrics;
+        this.orderTopicPublisher = orderTopicPublisher;
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!orderOutbox.isEnabled()) {
+            return;
+        }
+        flushFailures = Counter.builder("order.outbox.flush.failures")
+            .description("Outbox batches that failed to flush and were retried")
+            .register(pipelineMetrics.getRegistry());
+        deadLettered = Counter.builder("order.outbox.dead-lettered")
+            .description("Orders moved to the outbox dead-letter file after max-flush-attempts failed flushes")
+            .register(pipelineMetrics.getRegistry());
+        batchSizes = DistributionSummary.builder("order.outbox.flush.batch.size")
+            .description("Orders per outbox flush")
+            .register(pipelineMetrics.getRegistry());
+        
+        running = true;
+        worker = new Thread(this::run, "order-outbox-flusher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            // Unflushed orders stay in the outbox and are replayed on the next start
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+    
+    private void run() {
+        try {
+            while (running) {
+                List<OutboxEntry> batch = orderOutbox.nextBatch(batchSize, POLL_INTERVAL);
+                if (!batch.isEmpty()) {
+                    flushWithRetry(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Outbox flusher stopped with {} orders pending", orderOutbox.getDepth());
+    }
+    
+    private void flushWithRetry(List<OutboxEntry> batch) throws InterruptedException {
+        for (int attempt = 1; running; attempt++) {
+            try {
+                flush(batch);
+                orderOutbox.markFlushed(batch);
+                return;
+            
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                flushFailures.increment();
+                if (attempt >= maxFlushAttempts && deadLetter(batch)) {
+                    return;
+                }
+                logger.error("Failed to flush {} outbox orders, retrying in {}: {}",
+                           batch.size(), retryBackoff, e.getMessage(), e);
+                Thread.sleep(retryBackoff.toMillis());
+            }
+        }
+    }
+    
+    // Skips the batch once it is safely in the dead-letter file; if that write fails too, the
+    // batch is retried instead
+    private boolean deadLetter(List<OutboxEntry> batch) {
+        try {
+            orderOutbox.deadLetter(batch);
+        } catch (Exception e) {
+            logger.error("Failed to dead-letter {} outbox orders: {}", batch.size(), e.getMessage(), e);
+            return false;
+        }
+        orderOutbox.markFlushed(batch);
+        deadLettered.increment(batch.size());
+        logger.error("Gave up on {} outbox orders (sequences {} to {}) after {} attempts, moved them to the dead-letter file",
+                   batch.size(), batch.get(0).getSequence(), batch.get(batch.size() - 1).getSequence(), maxFlushAttempts);
+        return true;
+    }
+    
+    void flush(List<OutboxEntry> batch) throws Exception {
+        long start = System.nanoTime();
+        
+        // Orders must be readable from the repository before inventory-service sees their events
+        storeOrders(batch);
+        publishOrderEvents(batch);
+        
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_OUTBOX_FLUSH, start);
+        if (batchSizes != null) {
+            batchSizes.record(batch.size());
+        }
+        logger.debug("Flushed {} outbox orders up to sequence {}", batch.size(), batch.get(batch.size() - 1).getSequence());
+    }
+    
+    private void storeOrders(List<OutboxEntry> batch) {
+        long start = System.nanoTime();
+        orderRepository.putAll(batch.stream().map(OutboxEntry::getOrder).toList(), ORDER_TTL);
+        pipelineMetrics.recordStage(PipelineMetrics.STAGE_REDIS_STORE, start);
+    }
+    
+    private void publishOrderEvents(List<OutboxEntry> batch) throws Exception {
+        List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+        for (OutboxEntry entry : batch) {
+            if (orderTopicPublisher.isEnabled()) {
+                acks.add(orderTopicPublisher.publish(entry.getOrder()));
+            }
+            String orderId = entry.getOrder().getOrderId();
+            ProducerRecord<String, OrderEvent> record =
+                new ProducerRecord<>(orderEventsTopic, orderId, new OrderEvent(orderId));
+            // Received-at is the original request time, so end-to-end latency includes the outbox wait
+            PipelineHeaders.stamp(record.headers(), PipelineHeaders.ORDER_RECEIVED_AT, entry.getReceivedAt());
+            PipelineHeaders.stamp(record.headers(), PipelineHeaders.ORDER_PUBLISHED_AT, System.currentTimeMillis());
+            
+            long publishStart = System.nanoTime();
+            acks.add(kafkaTemplate.send(record).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    pipelineMetrics.recordStage(PipelineMetrics.STAGE_KAFKA_PUBLISH_ACK, publishStart);
+                }
+            }));
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture[0]))
+            .get(flushTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderRequest;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Ingests an order body without ever holding all of it: the JSON is read token by token, each
+// item is bound and validated on its own, and items are written to the repository in chunks of
+// chunkSize, so memory use stays at one chunk however large the order is. The order document,
+// with itemChunks and no items, is stored and published only after the last chunk, so inventory
+// never sees a partial order; storing it restarts the chunks' ttl. A body found invalid part
+// way, or uploaded so slowly that its first chunks may have expired, has its chunks deleted again.
+@Component
+public class StreamingOrderIngest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StreamingOrderIngest.class);
+    private static final Duration ORDER_TTL = Duration.ofMinutes(10); // 10 minutes TTL
+    
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    
+    @Value("${order.stream-ingest.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${order.stream-ingest.max-items:1000000}")
+    private int maxItems;
+    
+    @Autowired
+    public StreamingOrderIngest(ObjectMapper objectMapper, Validator validator, OrderRepository orderRepository,
+                                OrderService orderService) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+    }
+    
+    // Same JSON and the same validation rules as POST /orders. IllegalArgumentException if the
+    // body is not a valid order; IOException if reading it fails
+    public String ingest(InputStream body, String orderId) throws IOException {
+        ItemChunks chunks = new ItemChunks(orderId);
+        Order order;
+        try {
+            order = parse(body, orderId, chunks);
+        } catch (RuntimeException | IOException e) {
+            try {
+                orderRepository.deleteItemChunks(orderId, chunks.written);
+            } catch (RuntimeException cleanupFailure) {
+                // They expire with the ttl anyway
+                logger.warn("Failed to delete item chunks of abandoned order {}", orderId, cleanupFailure);
+            }
+            throw e;
+        }
+        logger.info("Streamed order {}: {} items in {} chunks", orderId, order.getItemCount(), order.getItemChunks());
+        return orderService.acceptOrder(order);
+    }
+    
+    private Order parse(InputStream body, String orderId, ItemChunks chunks) throws IOException {
+        OrderRequest header = new OrderRequest();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "customerName" -> header.setCustomerName(parser.readValueAs(String.class));
+                    case "requestedAt" -> header.setRequestedAt(parser.readValueAs(Instant.class));
+                    case "items" -> readItems(parser, chunks);
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed order JSON: " + e.getOriginalMessage(), e);
+        }
+        chunks.flush();
+        // Storing the document restarts the chunks' ttl, but by now the first ones may be gone
+        if (chunks.written > 0 && System.currentTimeMillis() - chunks.firstWrittenAtMillis >= ORDER_TTL.toMillis()) {
+            throw new IllegalArgumentException("Order body took longer than " + ORDER_TTL + " to upload");
+        }
+        
+        // Checked last, as the fields may follow the items
+        Set<ConstraintViolation<OrderRequest>> violations = new HashSet<>();
+        violations.addAll(validator.validateProperty(header, "customerName"));
+        violations.addAll(validator.validateProperty(header, "requestedAt"));
+        if (chunks.count == 0) {
+            violations.addAll(validator.validateValue(OrderRequest.class, "items", List.of()));
+        }
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(describe(violations, ""));
+        }
+        
+        Order order = new Order(orderId, header.getCustomerName(), List.of(), header.getRequestedAt(),
+            OrderStatus.PENDING, Instant.now());
+        order.setItemChunks(chunks.written);
+        order.setItemCount(chunks.count);
+        return order;
+    }
+    
+    private void readItems(JsonParser parser, ItemChunks chunks) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("items must be an array");
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String path = "items[" + chunks.count + "]";
+            OrderItem item = parser.readValueAs(OrderItem.class);
+            if (item == null) {
+                throw new IllegalArgumentException(path + ": must not be null");
+            }
+            Set<ConstraintViolation<OrderItem>> violations = validator.validate(item);
+            if (!violations.isEmpty()) {
+                throw new IllegalArgumentException(describe(violations, path + "."));
+            }
+            chunks.add(item);
+        }
+    }
+    
+    // Sorted, so the message does not depend on the order the validator reports in
+    private static String describe(Set<? extends ConstraintViolation<?>> violations, String prefix) {
+        return violations.stream()
+            .map(violation -> prefix + violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+    
+    // The chunk being filled; full chunks go straight to the repository
+    private class ItemChunks {
+        
+        private final String orderId;
+        private List<OrderItem> buffer = new ArrayList<>();
+        private int written;
+        private int count;
+        private long firstWrittenAtMillis;
+        
+        private ItemChunks(String orderId) {
+            this.orderId = orderId;
+        }
+        
+        private void add(OrderItem item) {
+            if (count == maxItems) {
+                throw new IllegalArgumentException("Order has more than " + maxItems + " items");
+            }
+            buffer.add(item);
+            count++;
+            if (buffer.size() >= chunkSize) {
+                flush();
+            }
+        }
+        
+        private void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            if (written == 0) {
+                firstWrittenAtMillis = System.currentTimeMillis();
+            }
+            orderRepository.putItemChunk(orderId, written, buffer, ORDER_TTL);
+            written++;
+            buffer = new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.orderservice.service;
+
+import com.example.shared.event.OrderEvent;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControllerTest {
+    
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+    
+    private KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private OrderOutbox orderOutbox;
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionController admissionController;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        orderOutbox = mock(OrderOutbox.class);
+        meterRegistry = new SimpleMeterRegistry();
+        admissionController = new AdmissionController(kafkaTemplate, orderOutbox, new PipelineMetrics(meterRegistry));
+        ReflectionTestUtils.setField(admissionController, "enabled", true);
+        ReflectionTestUtils.setField(admissionController, "initialLimit", 20);
+        ReflectionTestUtils.setField(admissionController, "minLimit", 4);
+        ReflectionTestUtils.setField(admissionController, "maxLimit", 200);
+        ReflectionTestUtils.setField(admissionController, "tolerance", 1.5);
+        ReflectionTestUtils.setField(admissionController, "smoothing", 0.2);
+        ReflectionTestUtils.setField(admissionController, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(admissionController, "minProducerBufferFree", 0.1);
+        ReflectionTestUtils.setField(admissionController, "maxOutboxFill", 0.9);
+        ReflectionTestUtils.setField(admissionController, "retryAfter", Duration.ofMillis(1500));
+    }
+    
+    @Test
+    void testTryAcquire_RejectsBeyondLimitUntilReleased() {
+        // Arrange
+        for (int i = 0; i < 20; i++) {
+            assertEquals(AdmissionController.Decision.ADMITTED, admissionController.tryAcquire());
+        }
+        
+        // Act
+        AdmissionController.Decision rejected = admissionController.tryAcquire();
+        admissionController.release(System.nanoTime(), true);
+        AdmissionController.Decision admitted = admissionController.tryAcquire();
+        
+        // Assert
+        assertEquals(AdmissionController.Decision.OVER_LIMIT, rejected);
+        assertEquals(AdmissionController.Decision.ADMITTED, admitted);
+        assertEquals(1.0, meterRegistry.get("order.admission.rejected").tag("reason", "limit").counter().count());
+        assertEquals(2, admissionController.getRetryAfterSeconds());
+    }
+    
+    @Test
+    void testRecord_LimitGrowsWhileFastAndShrinksWhenLatencyRises() {
+        // Act - saturated at steady latency, the limit probes upwards
+        for (int i = 0; i < 200; i++) {
+            admissionController.record(FAST, (int) admissionController.getLimit(), true);
+        }
+        double grown = admissionController.getLimit();
+        
+        // Act - latency jumps well past the tolerance
+        for (int i = 0; i < 50; i++) {
+            admissionController.record(SLOW, (int) admissionController.getLimit(), true);
+        }
+        double shrunk = admissionController.getLimit();
+        
+        // Assert
+        assertTrue(grown > 20, "limit should grow, was " + grown);
+        assertTrue(shrunk < grown / 2, "limit should shrink, was " + shrunk + " from " + grown);
+        assertTrue(shrunk >= 4);
+    }
+    
+    @Test
+    void testRecord_FailuresCutTheLimitAndIdleSamplesDoNotGrowIt() {
+        // Act
+        admissionController.record(FAST, 1, true);
+        double idle = admissionController.getLimit();
+        admissionController.record(FAST, 20, false);
+        
+        // Assert
+        assertEquals(20, idle);
+        assertEquals(18, admissionController.getLimit(), 0.001);
+    }
+    
+    @Test
+    void testTryAcquire_RejectsWhenProducerBufferIsNearlyFull() {
+        // Arrange
+        Map<MetricName, Metric> metrics = Map.of(
+            metricName("buffer-available-bytes"), metric(1_000_000),
+            metricName("buffer-total-bytes"), metric(33_554_432));
+        doReturn(metrics).when(kafkaTemplate).metrics();
+        
+        // Act
+        AdmissionController.Decision decision = admissionController.tryAcquire();
+        
+        // Assert
+        assertEquals(AdmissionController.Decision.DEPENDENCY_SATURATED, decision);
+        assertEquals(0, admissionController.getInFlight());
+    }
+    
+    @Test
+    void testTryAcquire_RejectsWhenOutboxIsNearlyFull() {
+        // Arrange
+        when(orderOutbox.isEnabled()).thenReturn(true);
+        when(orderOutbox.getMaxPending()).thenReturn(100);
+        when(orderOutbox.getDepth()).thenReturn(89, 90);
+        
+        // Act & Assert
+        assertEquals(AdmissionController.Decision.ADMITTED, admissionController.tryAcquire());
+        assertEquals(AdmissionController.Decision.DEPENDENCY_SATURATED, admissionController.tryAcquire());
+        assertEquals(1.0, meterRegistry.get("order.admission.rejected").tag("reason", "dependency").counter().count());
+    }
+    
+    private static MetricName metricName(String name) {
+        return new MetricName(name, "producer-metrics", "", Map.of());
+    }
+    
+    private static Metric metric(double value) {
+        Metric metric = mock(Metric.class);
+        when(metric.metricValue()).thenReturn(value);
+        return metric;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.orderservice.service;
+
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+    
+    private RedisTemplate<String, String> redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private SimpleMeterRegistry meterRegistry;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+    
+    @Test
+    void testClaim_CompletedKeyIsReplayedFromLocalCache() {
+        // Arrange
+        IdempotencyService idempotencyService = newService();
+        when(valueOperations.setIfAbsent("idempotency:key-1", "pending:ORD-1", Duration.ofMinutes(1))).thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        
+        // Act
+        IdempotencyService.Claim first = idempotencyService.claim("key-1", "ORD-1");
+        idempotencyService.complete("key-1", "ORD-1", "hash-1");
+        IdempotencyService.Claim retry = idempotencyService.claim("key-1", "ORD-2");
+        
+        // Assert
+        assertEquals(IdempotencyService.ClaimState.CLAIMED, first.state());
+        assertEquals(IdempotencyService.ClaimState.COMPLETED, retry.state());
+        assertEquals("ORD-1", retry.orderId());
+        assertTrue(retry.matches("hash-1"));
+        assertFalse(retry.matches("hash-2"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("idempotency:key-1")),
+            eq("pending:ORD-1"), eq("done:hash-1:ORD-1"), eq("600000"));
+        verify(valueOperations, times(1)).setIfAbsent(anyString(), anyString(), any(Duration.class));
+        assertEquals(1.0, meterRegistry.get("order.idempotency.replays").tag("source", "local").counter().count());
+    }
+    
+    @Test
+    void testClaim_RetryWhileFirstRequestInFlightIsPendingAndNotCached() {
+        // Arrange
+        IdempotencyService idempotencyService = newService();
+        when(valueOperations.setIfAbsent(eq("idempotency:key-1"), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get("idempotency:key-1")).thenReturn("pending:ORD-1");
+        
+        // Act
+        IdempotencyService.Claim retry = idempotencyService.claim("key-1", "ORD-2");
+        IdempotencyService.Claim secondRetry = idempotencyService.claim("key-1", "ORD-3");
+        
+        // Assert
+        assertEquals(IdempotencyService.ClaimState.PENDING, retry.state());
+        assertEquals(IdempotencyService.ClaimState.PENDING, secondRetry.state());
+        verify(valueOperations, times(2)).get("idempotency:key-1");
+        assertEquals(2.0, meterRegistry.get("order.idempotency.in-flight").counter().count());
+    }
+    
+    @Test
+    void testClaim_KeyCompletedByAnotherInstanceReturnsItsOrderAndHash() {
+        // Arrange
+        IdempotencyService idempotencyService = newService();
+        when(valueOperations.setIfAbsent(eq("idempotency:key-1"), eq("pending:ORD-2"), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get("idempotency:key-1")).thenReturn("done:hash-1:ORD-1");
+        
+        // Act
+        IdempotencyService.Claim existing = idempotencyService.claim("key-1", "ORD-2");
+        
+        // Assert
+        assertEquals(IdempotencyService.ClaimState.COMPLETED, existing.state());
+        assertEquals("ORD-1", existing.orderId());
+        assertEquals("hash-1", existing.requestHash());
+        assertEquals(1.0, meterRegistry.get("order.idempotency.replays").tag("source", "redis").counter().count());
+    }
+    
+    @Test
+    void testRelease_DeletesThePendingKeyOnlyIfItStillHoldsTheOrder() {
+        // Arrange
+        IdempotencyService idempotencyService = newService();
+        when(valueOperations.setIfAbsent(eq("idempotency:key-1"), anyString(), any(Duration.class))).thenReturn(true);
+        idempotencyService.claim("key-1", "ORD-1");
+        
+        // Act
+        idempotencyService.release("key-1", "ORD-1");
+        IdempotencyService.Claim afterRelease = idempotencyService.claim("key-1", "ORD-2");
+        
+        // Assert
+        // The pending marker is compared and deleted by a single script, never by GET then DEL
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("idempotency:key-1")), eq("pending:ORD-1"));
+        verify(redisTemplate, never()).delete(anyString());
+        verify(valueOperations, never()).get(anyString());
+        assertEquals(IdempotencyService.ClaimState.CLAIMED, afterRelease.state());
+    }
+    
+    @Test
+    void testRequestHash_SameRequestSameHash() throws Exception {
+        // Arrange
+        IdempotencyService idempotencyService = newService();
+        
+        // Act
+        String first = idempotencyService.requestHash(Map.of("customerName", "Jane Doe"));
+        String same = idempotencyService.requestHash(Map.of("customerName", "Jane Doe"));
+        String other = idempotencyService.requestHash(Map.of("customerName", "John Doe"));
+        
+        // Assert
+        assertEquals(first, same);
+        assertNotEquals(first, other);
+    }
+    
+    private IdempotencyService newService() {
+        IdempotencyService idempotencyService = new IdempotencyService(redisTemplate,
+            new JsonCodec(JsonMappers.create()), new PipelineMetrics(meterRegistry));
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(idempotencyService, "pendingTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(idempotencyService, "localTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(idempotencyService, "localMaxEntries", 100);
+        return idempotencyService;
+    }
+}
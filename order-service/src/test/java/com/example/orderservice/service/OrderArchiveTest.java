@@ -0,0 +1,120 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderArchiveTest {
+    
+    private static final Instant DECIDED_AT = Instant.now().minusSeconds(60);
+    
+    @TempDir
+    Path directory;
+    
+    private OrderArchive archive;
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        archive.close();
+    }
+    
+    @Test
+    void testGetStatus_FindsOrdersInTheMemtableAndInFlushedSegmentsAfterRestart() throws Exception {
+        // Arrange
+        archive = openArchive(Duration.ofDays(30));
+        for (int i = 0; i < 2000; i++) {
+            archive.append(orderId(i), i % 2 == 0 ? OrderStatus.APPROVED : OrderStatus.REJECTED, DECIDED_AT);
+        }
+        OrderStatus fromMemtable = archive.getStatus(orderId(1));
+        archive.flush();
+        archive.append("ORD-NEWEST", OrderStatus.APPROVED, DECIDED_AT);
+        archive.close();
+        
+        // Act
+        archive = openArchive(Duration.ofDays(30));
+        
+        // Assert
+        assertEquals(OrderStatus.REJECTED, fromMemtable);
+        assertEquals(2001, archive.getRecordCount());
+        assertEquals(OrderStatus.APPROVED, archive.getStatus(orderId(0)));
+        assertEquals(OrderStatus.REJECTED, archive.getStatus(orderId(1777)));
+        assertEquals(OrderStatus.APPROVED, archive.getStatus("ORD-NEWEST"));
+        assertNull(archive.getStatus("ORD-00000999X"));
+        assertNull(archive.getStatus("ORD-ZZZZ"));
+    }
+    
+    @Test
+    void testMaintain_MergesSegmentsKeepingTheNewestStatusPerOrder() throws Exception {
+        // Arrange - four small segments, the last one deciding ORD-00000003 again
+        archive = openArchive(Duration.ofDays(30));
+        for (int segment = 0; segment < 4; segment++) {
+            for (int i = 0; i < 10; i++) {
+                archive.append(orderId(segment * 10 + i), OrderStatus.APPROVED, DECIDED_AT);
+            }
+            if (segment == 3) {
+                archive.append(orderId(3), OrderStatus.REJECTED, DECIDED_AT.plusSeconds(1));
+            }
+            
+            // Act
+            archive.maintain();
+        }
+        
+        // Assert
+        assertEquals(1, archive.getSegmentCount());
+        assertEquals(40, archive.getRecordCount());
+        assertEquals(OrderStatus.REJECTED, archive.getStatus(orderId(3)));
+        assertEquals(OrderStatus.APPROVED, archive.getStatus(orderId(39)));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+    
+    @Test
+    void testMaintain_DeletesSegmentsPastTheRetention() throws Exception {
+        // Arrange
+        archive = openArchive(Duration.ofDays(1));
+        archive.append("ORD-OLD", OrderStatus.APPROVED, Instant.now().minus(Duration.ofDays(2)));
+        archive.flush();
+        archive.append("ORD-RECENT", OrderStatus.APPROVED, DECIDED_AT);
+        
+        // Act
+        archive.maintain();
+        
+        // Assert
+        assertEquals(1, archive.getSegmentCount());
+        assertNull(archive.getStatus("ORD-OLD"));
+        assertEquals(OrderStatus.APPROVED, archive.getStatus("ORD-RECENT"));
+    }
+    
+    private OrderArchive openArchive(Duration retention) throws Exception {
+        OrderArchive orderArchive = new OrderArchive(new PipelineMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(orderArchive, "enabled", true);
+        ReflectionTestUtils.setField(orderArchive, "directory", directory.toString());
+        ReflectionTestUtils.setField(orderArchive, "memtableMaxEntries", 1000);
+        ReflectionTestUtils.setField(orderArchive, "flushInterval", Duration.ofMinutes(1));
+        // Small blocks, so lookups go through the sparse index
+        ReflectionTestUtils.setField(orderArchive, "blockBytes", 256);
+        ReflectionTestUtils.setField(orderArchive, "bloomBitsPerKey", 10);
+        ReflectionTestUtils.setField(orderArchive, "mergeFanIn", 4);
+        ReflectionTestUtils.setField(orderArchive, "retention", retention);
+        ReflectionTestUtils.setField(orderArchive, "fsync", false);
+        orderArchive.open();
+        return orderArchive;
+    }
+    
+    private static String orderId(int i) {
+        return String.format("ORD-%08d", i);
+    }
+}
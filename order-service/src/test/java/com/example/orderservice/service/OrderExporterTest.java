@@ -0,0 +1,146 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OffHeapOrderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderExporterTest {
+    
+    private static final int ORDERS = 120;
+    
+    private final JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+    private OffHeapOrderRepository orderRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private OrderExporter orderExporter;
+    
+    @BeforeEach
+    void setUp() {
+        orderRepository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        Instant now = Instant.now();
+        for (int i = 0; i < ORDERS; i++) {
+            orderRepository.put(new Order(String.format("ORD-%08X", i), "Jane Doe",
+                List.of(new OrderItem("P1001", 2, "standard")), now, OrderStatus.PENDING, now), Duration.ofMinutes(10));
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        orderExporter = new OrderExporter(orderRepository, jsonCodec, new PipelineMetrics(meterRegistry));
+        ReflectionTestUtils.setField(orderExporter, "batchSize", 25);
+    }
+    
+    @Test
+    void testExport_WritesEveryOrderAsOneJsonLineAndEndsWithANullCursor() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        // Act
+        long written = orderExporter.export(null, out);
+        
+        // Assert
+        List<JsonNode> lines = lines(out);
+        Set<String> orderIds = new HashSet<>();
+        for (JsonNode line : lines) {
+            if (line.has("orderId")) {
+                assertEquals("Jane Doe", line.get("customerName").asText());
+                orderIds.add(line.get("orderId").asText());
+            }
+        }
+        assertEquals(ORDERS, written);
+        assertEquals(ORDERS, orderIds.size());
+        assertTrue(lines.get(lines.size() - 1).get("nextCursor").isNull());
+        assertEquals(ORDERS, meterRegistry.get("order.export.orders").counter().count());
+    }
+    
+    @Test
+    void testExport_ResumingFromAControlLineFinishesTheExport() throws Exception {
+        // Arrange - keep the output up to the first cursor, as if the connection broke there
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        orderExporter.export(null, full);
+        Set<String> received = new HashSet<>();
+        String cursor = null;
+        for (JsonNode line : lines(full)) {
+            if (line.has("nextCursor")) {
+                cursor = line.get("nextCursor").asText();
+                break;
+            }
+            received.add(line.get("orderId").asText());
+        }
+        
+        // Act
+        ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+        orderExporter.export(cursor, resumed);
+        
+        // Assert
+        for (JsonNode line : lines(resumed)) {
+            if (line.has("orderId")) {
+                received.add(line.get("orderId").asText());
+            }
+        }
+        assertNotNull(cursor);
+        assertEquals(ORDERS, received.size());
+    }
+    
+    @Test
+    void testExport_StreamedOrderIsWrittenWithItsStoredItems() throws Exception {
+        // Arrange
+        orderRepository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        orderExporter = new OrderExporter(orderRepository, jsonCodec, new PipelineMetrics(meterRegistry));
+        ReflectionTestUtils.setField(orderExporter, "batchSize", 25);
+        Instant now = Instant.now();
+        orderRepository.putItemChunk("ORD-STREAMED", 0, List.of(new OrderItem("P1001", 1, "standard"),
+            new OrderItem("P1002", 2, "standard")), Duration.ofMinutes(10));
+        orderRepository.putItemChunk("ORD-STREAMED", 1, List.of(new OrderItem("P1003", 3, "express")), Duration.ofMinutes(10));
+        Order streamed = new Order("ORD-STREAMED", "Jane Doe", List.of(), now, OrderStatus.PENDING, now);
+        streamed.setItemChunks(2);
+        streamed.setItemCount(3);
+        orderRepository.put(streamed, Duration.ofMinutes(10));
+        
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = orderExporter.export(null, out);
+        
+        // Assert
+        JsonNode line = lines(out).get(0);
+        Order exported = jsonCodec.read(line.toString(), Order.class);
+        assertEquals(1, written);
+        assertFalse(line.has("itemChunks"));
+        assertEquals("Jane Doe", exported.getCustomerName());
+        assertEquals(List.of("P1001", "P1002", "P1003"),
+            exported.getItems().stream().map(OrderItem::getProductId).toList());
+        assertEquals(3, exported.getItems().get(2).getQuantity().intValue());
+    }
+    
+    @Test
+    void testStart_MalformedCursorFailsBeforeAnythingIsWritten() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> orderExporter.start("abc"));
+        assertThrows(IllegalArgumentException.class, () -> orderExporter.start("-1"));
+        assertEquals(0.0, meterRegistry.get("order.export.orders").counter().count());
+    }
+    
+    private List<JsonNode> lines(ByteArrayOutputStream out) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(jsonCodec.getObjectMapper().readTree(line));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.model.OutboxEntry;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderOutboxTest {
+    
+    private static final Instant CREATED_AT = Instant.parse("2025-06-30T14:00:00Z");
+    
+    @TempDir
+    Path directory;
+    
+    private OrderOutbox outbox;
+    
+    @AfterEach
+    void tearDown() {
+        outbox.close();
+    }
+    
+    @Test
+    void testAppend_UnflushedOrdersAreReplayedAfterRestart() throws Exception {
+        // Arrange
+        outbox = openOutbox(1024 * 1024);
+        outbox.append(order("ORD-1"), 1000L);
+        outbox.append(order("ORD-2"), 2000L);
+        outbox.append(order("ORD-3"), 3000L);
+        
+        List<OutboxEntry> firstBatch = outbox.nextBatch(2, Duration.ZERO);
+        outbox.markFlushed(firstBatch);
+        outbox.close();
+        
+        // Act
+        outbox = openOutbox(1024 * 1024);
+        List<OutboxEntry> replayed = outbox.nextBatch(10, Duration.ZERO);
+        
+        // Assert
+        assertEquals(1, replayed.size());
+        assertEquals("ORD-3", replayed.get(0).getOrder().getOrderId());
+        assertEquals(3L, replayed.get(0).getSequence());
+        assertEquals(3000L, replayed.get(0).getReceivedAt());
+        assertEquals(OrderStatus.PENDING, outbox.getPending("ORD-3").getStatus());
+        assertNull(outbox.getPending("ORD-1"));
+        assertEquals(4L, outbox.append(order("ORD-4"), 4000L).getSequence());
+    }
+    
+    @Test
+    void testOpen_TruncatesPartialRecordAtTail() throws Exception {
+        // Arrange
+        outbox = openOutbox(1024 * 1024);
+        outbox.append(order("ORD-1"), 1000L);
+        outbox.close();
+        
+        Path segment = segments().get(0);
+        long validLength = Files.size(segment);
+        Files.write(segment, new byte[] {0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+        
+        // Act
+        outbox = openOutbox(1024 * 1024);
+        
+        // Assert
+        assertEquals(validLength, Files.size(segment));
+        assertEquals(1, outbox.getDepth());
+        assertEquals("ORD-1", outbox.nextBatch(10, Duration.ZERO).get(0).getOrder().getOrderId());
+    }
+    
+    @Test
+    void testMarkFlushed_DeletesFullyFlushedSegments() throws Exception {
+        // Arrange - tiny segments so every append rolls to a new file
+        outbox = openOutbox(64);
+        outbox.append(order("ORD-1"), 1000L);
+        outbox.append(order("ORD-2"), 2000L);
+        outbox.append(order("ORD-3"), 3000L);
+        assertEquals(3, segments().size());
+        
+        // Act
+        outbox.markFlushed(outbox.nextBatch(2, Duration.ZERO));
+        
+        // Assert
+        assertEquals(1, segments().size());
+        assertTrue(segments().get(0).getFileName().toString().startsWith("00000000000000000003"));
+        assertEquals(1, outbox.getDepth());
+    }
+    
+    @Test
+    void testAppend_RejectsWhenOutboxIsFull() throws Exception {
+        // Arrange
+        outbox = openOutbox(1024 * 1024);
+        ReflectionTestUtils.setField(outbox, "maxPending", 1);
+        outbox.append(order("ORD-1"), 1000L);
+        
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> outbox.append(order("ORD-2"), 2000L));
+        assertTrue(exception.getMessage().contains("full"));
+    }
+    
+    private OrderOutbox openOutbox(long segmentBytes) throws Exception {
+        OrderOutbox opened = new OrderOutbox(new JsonCodec(JsonMappers.create()),
+            new PipelineMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(opened, "ingestMode", "outbox");
+        ReflectionTestUtils.setField(opened, "directory", directory.toString());
+        ReflectionTestUtils.setField(opened, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(opened, "maxPending", 100);
+        ReflectionTestUtils.setField(opened, "fsync", true);
+        opened.open();
+        return opened;
+    }
+    
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+    
+    private Order order(String orderId) {
+        return new Order(orderId, "John Doe", List.of(new OrderItem("P1001", 1, "standard")),
+            CREATED_AT, OrderStatus.PENDING, CREATED_AT);
+    }
+}
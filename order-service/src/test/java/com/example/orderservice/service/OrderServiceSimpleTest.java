@@ -1,13 +1,24 @@
 package com.example.orderservice.service;
 
+import com.example.orderservice.model.CustomerOrderPage;
+import com.example.shared.dto.Order;
 import com.example.shared.dto.OrderRequest;
 import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OffHeapOrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -83,4 +94,38 @@ class OrderServiceSimpleTest {
         // Empty items list should be valid from a data structure perspective
         assertTrue(emptyItemsRequest.getItems().isEmpty());
     }
+
+    @Test
+    void testListOrdersByCustomer_PagesNewestFirstAndFiltersByStatus() {
+        // Arrange
+        OffHeapOrderRepository orderRepository = new OffHeapOrderRepository(new JsonCodec(JsonMappers.create()), 1024 * 1024);
+        OrderService orderService = new OrderService(null, orderRepository, new PipelineMetrics(new SimpleMeterRegistry()),
+            null, null, null, null);
+        Instant createdAt = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            OrderStatus status = i % 2 == 0 ? OrderStatus.APPROVED : OrderStatus.REJECTED;
+            orderRepository.put(new Order("ORD-0000000" + i, "Jane Doe", Arrays.asList(new OrderItem("P1001", 1, "standard")),
+                createdAt, status, createdAt.plusMillis(i)), Duration.ofMinutes(10));
+        }
+        orderRepository.put(new Order("ORD-OTHER", "John Doe", Arrays.asList(new OrderItem("P1001", 1, "standard")),
+            createdAt, OrderStatus.APPROVED, createdAt), Duration.ofMinutes(10));
+
+        // Act
+        CustomerOrderPage first = orderService.listOrdersByCustomer("Jane Doe", null, 2, Set.of());
+        CustomerOrderPage second = orderService.listOrdersByCustomer("Jane Doe", first.getNextCursor(), 2, Set.of());
+        CustomerOrderPage third = orderService.listOrdersByCustomer("Jane Doe", second.getNextCursor(), 2, Set.of());
+        CustomerOrderPage approved = orderService.listOrdersByCustomer("Jane Doe", null, 10, Set.of(OrderStatus.APPROVED));
+
+        // Assert
+        assertEquals(Arrays.asList("ORD-00000004", "ORD-00000003"), orderIds(first));
+        assertEquals(Arrays.asList("ORD-00000002", "ORD-00000001"), orderIds(second));
+        assertEquals(Arrays.asList("ORD-00000000"), orderIds(third));
+        assertNull(third.getNextCursor());
+        assertEquals(Arrays.asList("ORD-00000004", "ORD-00000002", "ORD-00000000"), orderIds(approved));
+        assertNull(approved.getNextCursor());
+    }
+
+    private static List<String> orderIds(CustomerOrderPage page) {
+        return page.getOrders().stream().map(Order::getOrderId).toList();
+    }
 }
@@ -1,10 +1,18 @@
 package com.example.orderservice.service;
 
+import com.example.shared.dto.Order;
 import com.example.shared.dto.OrderRequest;
 import com.example.shared.dto.OrderItem;
 import com.example.shared.dto.OrderStatus;
 import com.example.shared.event.OrderEvent;
+import com.example.shared.event.PipelineHeaders;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.repository.RedisOrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +26,7 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
@@ -43,6 +52,9 @@ class OrderServiceTest {
     @Mock
     private SendResult<String, OrderEvent> sendResult;
 
+    @Mock
+    private OrderArchive orderArchive;
+
     @Captor
     private ArgumentCaptor<String> redisKeyCaptor;
 
@@ -50,7 +62,7 @@ class OrderServiceTest {
     private ArgumentCaptor<String> redisValueCaptor;
 
     @Captor
-    private ArgumentCaptor<OrderEvent> orderEventCaptor;
+    private ArgumentCaptor<ProducerRecord<String, OrderEvent>> producerRecordCaptor;
 
     private OrderService orderService;
     private ObjectMapper objectMapper;
@@ -58,7 +70,9 @@ class OrderServiceTest {
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        orderService = new OrderService(kafkaTemplate, redisTemplate, objectMapper);
+        orderService = new OrderService(kafkaTemplate, new RedisOrderRepository(redisTemplate, new JsonCodec(objectMapper), false),
+            new PipelineMetrics(new SimpleMeterRegistry()), mock(OrderOutbox.class),
+            mock(OrderStatusView.class), orderArchive, new OrderTopicPublisher(null));
         ReflectionTestUtils.setField(orderService, "orderEventsTopic", "order-events");
         
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
@@ -71,7 +85,7 @@ class OrderServiceTest {
         CompletableFuture<SendResult<String, OrderEvent>> future = 
             CompletableFuture.completedFuture(sendResult);
 
-        when(kafkaTemplate.send(anyString(), anyString(), any(OrderEvent.class)))
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
             .thenReturn(future);
 
         // Act
@@ -95,11 +109,19 @@ class OrderServiceTest {
         assertTrue(capturedValue.contains("\"status\":\"PENDING\""));
 
         // Verify Kafka event publication
-        verify(kafkaTemplate).send(eq("order-events"), eq(orderId), orderEventCaptor.capture());
+        verify(kafkaTemplate).send(producerRecordCaptor.capture());
+        
+        ProducerRecord<String, OrderEvent> capturedRecord = producerRecordCaptor.getValue();
+        assertEquals("order-events", capturedRecord.topic());
+        assertEquals(orderId, capturedRecord.key());
         
-        OrderEvent capturedEvent = orderEventCaptor.getValue();
+        OrderEvent capturedEvent = capturedRecord.value();
         assertEquals(orderId, capturedEvent.getOrderId());
         assertNotNull(capturedEvent.getTimestamp());
+        
+        // Verify per-hop timestamps are propagated in headers
+        assertNotNull(PipelineHeaders.read(capturedRecord.headers(), PipelineHeaders.ORDER_RECEIVED_AT));
+        assertNotNull(PipelineHeaders.read(capturedRecord.headers(), PipelineHeaders.ORDER_PUBLISHED_AT));
     }
 
     @Test
@@ -132,6 +154,20 @@ class OrderServiceTest {
         verify(valueOperations).get("order:" + orderId);
     }
 
+    @Test
+    void testGetOrderStatus_ExpiredFromRedis_FallsThroughToArchive() {
+        // Arrange
+        String orderId = "ORD-ARCHIVED";
+        when(valueOperations.get("order:" + orderId)).thenReturn(null);
+        when(orderArchive.getStatus(orderId)).thenReturn(OrderStatus.REJECTED);
+
+        // Act
+        OrderStatus status = orderService.getOrderStatus(orderId);
+
+        // Assert
+        assertEquals(OrderStatus.REJECTED, status);
+    }
+
     @Test
     void testProcessOrder_RedisFailure_ThrowsException() {
         // Arrange
@@ -145,7 +181,7 @@ class OrderServiceTest {
         
         assertTrue(exception.getMessage().contains("Failed to process order"));
         verify(valueOperations).set(anyString(), anyString(), any());
-        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
     }
 
     @Test
@@ -153,7 +189,7 @@ class OrderServiceTest {
         // Arrange
         OrderRequest orderRequest = createValidOrderRequest();
         doThrow(new RuntimeException("Kafka connection failed"))
-            .when(kafkaTemplate).send(anyString(), anyString(), any(OrderEvent.class));
+            .when(kafkaTemplate).send(any(ProducerRecord.class));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, 
@@ -161,7 +197,32 @@ class OrderServiceTest {
         
         assertTrue(exception.getMessage().contains("Failed to process order"));
         verify(valueOperations).set(anyString(), anyString(), any());
-        verify(kafkaTemplate).send(anyString(), anyString(), any());
+        verify(kafkaTemplate).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcessOrder_OrdersTopicPublishFails_NoOrderEventAndThrows() {
+        // Arrange
+        KafkaTemplate<String, Order> orderKafkaTemplate = mock(KafkaTemplate.class);
+        OrderTopicPublisher orderTopicPublisher = new OrderTopicPublisher(orderKafkaTemplate);
+        ReflectionTestUtils.setField(orderTopicPublisher, "enabled", true);
+        ReflectionTestUtils.setField(orderTopicPublisher, "ordersTopic", "orders");
+        ReflectionTestUtils.setField(orderTopicPublisher, "publishTimeout", Duration.ofSeconds(5));
+        orderService = new OrderService(kafkaTemplate, new RedisOrderRepository(redisTemplate,
+            new JsonCodec(JsonMappers.create()), false), new PipelineMetrics(new SimpleMeterRegistry()),
+            mock(OrderOutbox.class), mock(OrderStatusView.class), orderArchive, orderTopicPublisher);
+        ReflectionTestUtils.setField(orderService, "orderEventsTopic", "order-events");
+        when(orderKafkaTemplate.send(eq("orders"), anyString(), any(Order.class)))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> orderService.processOrder(createValidOrderRequest()));
+
+        assertTrue(exception.getMessage().contains("Failed to process order"));
+        verify(orderKafkaTemplate).send(eq("orders"), anyString(), any(Order.class));
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
     }
 
     private OrderRequest createValidOrderRequest() {
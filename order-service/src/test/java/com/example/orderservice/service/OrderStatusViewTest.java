@@ -0,0 +1,74 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.model.OrderStatusEntry;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatusViewTest {
+    
+    private static final Instant CREATED_AT = Instant.parse("2025-06-30T14:00:00Z");
+    
+    private OrderStatusView statusView;
+    private SimpleMeterRegistry meterRegistry;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        statusView = new OrderStatusView(new PipelineMetrics(meterRegistry));
+        ReflectionTestUtils.setField(statusView, "enabled", true);
+        ReflectionTestUtils.setField(statusView, "maxEntries", 2);
+        ReflectionTestUtils.setField(statusView, "maxAge", Duration.ofMinutes(10));
+    }
+    
+    @Test
+    void testRecordResult_ReplacesPendingButIsNeverDowngraded() {
+        // Arrange
+        Instant decidedAt = CREATED_AT.plusMillis(40);
+        
+        // Act - the result can overtake the PENDING seed
+        statusView.recordResult("ORD-1", OrderStatus.APPROVED, decidedAt);
+        statusView.recordPending("ORD-1", CREATED_AT);
+        statusView.recordPending("ORD-2", CREATED_AT);
+        statusView.recordResult("ORD-2", OrderStatus.REJECTED, decidedAt);
+        
+        // Assert
+        OrderStatusEntry first = statusView.get("ORD-1");
+        assertEquals(OrderStatus.APPROVED, first.getStatus());
+        assertEquals(decidedAt, first.getUpdatedAt());
+        assertEquals(OrderStatus.REJECTED, statusView.get("ORD-2").getStatus());
+    }
+    
+    @Test
+    void testGet_OldestEntriesAreEvictedBeyondCapacity() {
+        // Act
+        statusView.recordPending("ORD-1", CREATED_AT);
+        statusView.recordPending("ORD-2", CREATED_AT);
+        statusView.recordPending("ORD-3", CREATED_AT);
+        
+        // Assert
+        assertEquals(2, statusView.size());
+        assertNull(statusView.get("ORD-1"));
+        assertEquals(OrderStatus.PENDING, statusView.get("ORD-3").getStatus());
+        assertEquals(1.0, meterRegistry.get("order.status.view.lookups").tag("result", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("order.status.view.lookups").tag("result", "hit").counter().count());
+    }
+    
+    @Test
+    void testGet_ExpiredEntriesAreMisses() {
+        // Arrange
+        statusView.recordPending("ORD-1", CREATED_AT);
+        ReflectionTestUtils.setField(statusView, "maxAge", Duration.ofMillis(-1));
+        
+        // Assert
+        assertNull(statusView.get("ORD-1"));
+    }
+}
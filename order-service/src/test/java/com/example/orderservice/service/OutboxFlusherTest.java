@@ -0,0 +1,103 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.metrics.PipelineMetrics;
+import com.example.shared.repository.OrderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxFlusherTest {
+    
+    private static final Instant CREATED_AT = Instant.parse("2025-06-30T14:00:00Z");
+    
+    @TempDir
+    Path directory;
+    
+    private final JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OrderOutbox outbox;
+    private OutboxFlusher flusher;
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        flusher.stop();
+        outbox.close();
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_BatchThatKeepsFailingIsDeadLetteredAndSkipped() throws Exception {
+        // Arrange - ORD-1 can never be stored, ORD-2 can
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        doThrow(new IllegalStateException("Unwritable order")).when(orderRepository)
+            .putAll(argThat(orders -> orders.stream().anyMatch(order -> order.getOrderId().equals("ORD-1"))), any());
+        outbox = new OrderOutbox(jsonCodec, new PipelineMetrics(meterRegistry));
+        ReflectionTestUtils.setField(outbox, "ingestMode", "outbox");
+        ReflectionTestUtils.setField(outbox, "directory", directory.toString());
+        ReflectionTestUtils.setField(outbox, "segmentBytes", 1024 * 1024L);
+        ReflectionTestUtils.setField(outbox, "maxPending", 100);
+        ReflectionTestUtils.setField(outbox, "fsync", true);
+        outbox.open();
+        outbox.append(order("ORD-1"), 1000L);
+        
+        KafkaTemplate<String, OrderEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        flusher = new OutboxFlusher(outbox, kafkaTemplate, orderRepository,
+            new PipelineMetrics(meterRegistry), new OrderTopicPublisher(null));
+        ReflectionTestUtils.setField(flusher, "orderEventsTopic", "order-events");
+        ReflectionTestUtils.setField(flusher, "batchSize", 1);
+        ReflectionTestUtils.setField(flusher, "flushTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(flusher, "retryBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(flusher, "maxFlushAttempts", 3);
+        
+        // Act
+        flusher.start();
+        outbox.append(order("ORD-2"), 2000L);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outbox.getDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        
+        // Assert
+        assertEquals(0, outbox.getDepth());
+        List<String> lines = Files.readAllLines(directory.resolve("dead-letter.jsonl"), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        JsonNode line = jsonCodec.getObjectMapper().readTree(lines.get(0));
+        assertEquals(1L, line.get("sequence").asLong());
+        assertEquals("ORD-1", line.get("order").get("orderId").asText());
+        verify(orderRepository, times(3)).putAll(argThat(orders -> orders.size() == 1
+            && orders.iterator().next().getOrderId().equals("ORD-1")), any());
+        verify(orderRepository).putAll(argThat(orders -> orders.size() == 1
+            && orders.iterator().next().getOrderId().equals("ORD-2")), any());
+        assertEquals(3.0, meterRegistry.get("order.outbox.flush.failures").counter().count());
+        assertEquals(1.0, meterRegistry.get("order.outbox.dead-lettered").counter().count());
+    }
+    
+    private Order order(String orderId) {
+        return new Order(orderId, "John Doe", List.of(new OrderItem("P1001", 1, "standard")),
+            CREATED_AT, OrderStatus.PENDING, CREATED_AT);
+    }
+}
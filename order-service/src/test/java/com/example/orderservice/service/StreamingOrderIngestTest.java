@@ -0,0 +1,127 @@
+package com.example.orderservice.service;
+
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import com.example.shared.repository.OffHeapOrderRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StreamingOrderIngestTest {
+    
+    private final JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+    private ValidatorFactory validatorFactory;
+    private OffHeapOrderRepository orderRepository;
+    private OrderService orderService;
+    private StreamingOrderIngest ingest;
+    
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        orderRepository = new OffHeapOrderRepository(jsonCodec, 16 * 1024 * 1024);
+        orderService = mock(OrderService.class);
+        ingest = new StreamingOrderIngest(jsonCodec.getObjectMapper(), validatorFactory.getValidator(),
+            orderRepository, orderService);
+        ReflectionTestUtils.setField(ingest, "chunkSize", 1000);
+        ReflectionTestUtils.setField(ingest, "maxItems", 5000);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+    
+    @Test
+    void testIngest_LargeOrderStoredInChunksThenAcceptedWithoutItems() throws Exception {
+        // Arrange - the customer comes after the items, so it is only known at the end
+        InputStream body = body("{\"requestedAt\":1751292000.000000000,\"items\":" + items(2500, null)
+            + ",\"note\":{\"ignored\":[1,2]},\"customerName\":\"Wholesale Ltd\"}");
+        
+        // Act
+        ingest.ingest(body, "ORD-STREAM1");
+        
+        // Assert
+        ArgumentCaptor<Order> accepted = ArgumentCaptor.forClass(Order.class);
+        verify(orderService).acceptOrder(accepted.capture());
+        Order order = accepted.getValue();
+        assertEquals("ORD-STREAM1", order.getOrderId());
+        assertEquals("Wholesale Ltd", order.getCustomerName());
+        assertEquals(OrderStatus.PENDING, order.getStatus());
+        assertTrue(order.getItems().isEmpty());
+        assertEquals(3, order.getItemChunks());
+        assertEquals(2500, order.getItemCount());
+        assertEquals(1000, orderRepository.getItemChunk("ORD-STREAM1", 1).size());
+        List<OrderItem> streamed = orderRepository.streamItems(order).flatMap(List::stream).toList();
+        assertEquals(2500, streamed.size());
+        assertEquals("P02499", streamed.get(2499).getProductId());
+    }
+    
+    @Test
+    void testIngest_InvalidItemPartWay_RejectedAndWrittenChunksDeleted() {
+        // Arrange - item 1500 comes after one full chunk has been written
+        InputStream body = body("{\"customerName\":\"Wholesale Ltd\",\"requestedAt\":1751292000.0,\"items\":"
+            + items(2000, 1500) + "}");
+        
+        // Act
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> ingest.ingest(body, "ORD-STREAM2"));
+        
+        // Assert
+        assertEquals("items[1500].quantity: Quantity must be at least 1", e.getMessage());
+        assertNull(orderRepository.getItemChunk("ORD-STREAM2", 0));
+        assertEquals(0, orderRepository.size());
+        verify(orderService, never()).acceptOrder(any());
+    }
+    
+    @Test
+    void testIngest_MissingFieldsAndMalformedJson_Rejected() {
+        // Act
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+            () -> ingest.ingest(body("{\"customerName\":\" \",\"items\":[]}"), "ORD-STREAM3"));
+        IllegalArgumentException malformed = assertThrows(IllegalArgumentException.class,
+            () -> ingest.ingest(body("{\"customerName\":\"Jane Doe\",\"items\":[{\"productId\":"), "ORD-STREAM4"));
+        ReflectionTestUtils.setField(ingest, "maxItems", 10);
+        IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class,
+            () -> ingest.ingest(body("{\"items\":" + items(11, null) + "}"), "ORD-STREAM5"));
+        
+        // Assert
+        assertEquals("customerName: Customer name is required; items: Order must contain at least one item; "
+            + "requestedAt: Request timestamp is required", missing.getMessage());
+        assertTrue(malformed.getMessage().startsWith("Malformed order JSON"));
+        assertEquals("Order has more than 10 items", tooLarge.getMessage());
+        verify(orderService, never()).acceptOrder(any());
+    }
+    
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // A JSON array of count items, the one at invalidIndex (if any) with quantity 0
+    private static String items(int count, Integer invalidIndex) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            int quantity = invalidIndex != null && i == invalidIndex ? 0 : 1 + i % 5;
+            json.append(String.format("{\"productId\":\"P%05d\",\"quantity\":%d,\"category\":\"standard\"}", i, quantity));
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.shared.aot;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderRequest;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import com.example.shared.serde.EventSerializer;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+// Reflection a native image cannot discover on its own, registered through
+// META-INF/spring/aot.factories for every service that depends on shared-lib
+public class SharedRuntimeHints implements RuntimeHintsRegistrar {
+    
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Jackson reads and writes these as Redis values, Kafka payloads and request bodies
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+            Order.class, OrderRequest.class, OrderItem.class, MissingItem.class, OrderStatus.class,
+            OrderEvent.class, InventoryCheckResultEvent.class);
+        
+        // Producer configs name the value serializer by class, so Kafka instantiates it reflectively;
+        // deserializers are passed to the consumer factories as instances
+        hints.reflection().registerType(EventSerializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.shared.bus;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+// A Producer that publishes to an EventBus, so code written against KafkaTemplate runs
+// unchanged on the bus. Sends complete before returning: the record is already queued for
+// every group, so flush has nothing to do. There are no transactions and no producer metrics.
+public class BusProducer<K, V> implements Producer<K, V> {
+    
+    private final EventBus eventBus;
+    
+    public BusProducer(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+    
+    // KafkaTemplate closes its producer after every send, so the factory hands out one shared
+    // instance whose close does nothing
+    public static <K, V> KafkaTemplate<K, V> kafkaTemplate(EventBus eventBus) {
+        BusProducer<K, V> producer = new BusProducer<>(eventBus);
+        ProducerFactory<K, V> producerFactory = () -> producer;
+        return new KafkaTemplate<>(producerFactory);
+    }
+    
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
+        return send(record, null);
+    }
+    
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K, V> record, Callback callback) {
+        RecordMetadata metadata;
+        try {
+            metadata = eventBus.publish(record.topic(), record.partition(), record.key(), record.value(),
+                record.headers());
+        } catch (RuntimeException e) {
+            if (callback != null) {
+                callback.onCompletion(null, e);
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+        if (callback != null) {
+            callback.onCompletion(metadata, null);
+        }
+        return CompletableFuture.completedFuture(metadata);
+    }
+    
+    @Override
+    public void flush() {
+    }
+    
+    @Override
+    public List<PartitionInfo> partitionsFor(String topic) {
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int partition = 0; partition < eventBus.partitions(); partition++) {
+            partitions.add(new PartitionInfo(topic, partition, null, new Node[0], new Node[0]));
+        }
+        return partitions;
+    }
+    
+    @Override
+    public Map<MetricName, ? extends Metric> metrics() {
+        return Map.of();
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    @Override
+    public void close(Duration timeout) {
+    }
+    
+    @Override
+    public void initTransactions() {
+        throw new UnsupportedOperationException("The event bus has no transactions");
+    }
+    
+    @Override
+    public void beginTransaction() {
+        throw new UnsupportedOperationException("The event bus has no transactions");
+    }
+    
+    @Override
+    @Deprecated
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId) {
+        throw new UnsupportedOperationException("The event bus has no transactions");
+    }
+    
+    @Override
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                         ConsumerGroupMetadata groupMetadata) {
+        throw new UnsupportedOperationException("The event bus has no transactions");
+    }
+    
+    @Override
+    public void commitTransaction() {
+        throw new UnsupportedOperationException("The event bus has no transactions");
+    }
+    
+    @Override
+    public void abortTransaction() {
+        throw new UnsupportedOperationException("The event bus has no transactions");
+    }
+}
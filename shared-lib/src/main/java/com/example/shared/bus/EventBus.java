@@ -0,0 +1,290 @@
+package com.example.shared.bus;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+// In-process stand-in for the Kafka topics when all services run in one JVM. Topics keep
+// Kafka's ordering semantics: records are partitioned by the murmur2 hash of the key like the
+// default partitioner, every subscribed group sees every record, and within a group each
+// partition is handled by one thread in offset order.
+//
+// Each group has a bounded queue per partition. A publish waits up to maxBlock for room in
+// every group's queue, like a full producer buffer, and then fails with a TimeoutException;
+// a record is either enqueued for all groups or for none. Values are handed over by reference,
+// not serialized, so handlers must not modify them. Nothing is retained: a group only receives
+// records published after it subscribed, and records still queued are lost with the JVM.
+//
+// A failing handler is retried in place, holding its partition, up to the configured attempts
+// with a fixed backoff, and then passed to the group's dead-letter handler.
+public class EventBus {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
+    private static final Map<String, EventBus> SHARED = new ConcurrentHashMap<>();
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+    
+    private final int partitions;
+    private final int capacity;
+    private final Duration maxBlock;
+    private final int attempts;
+    private final Duration backoff;
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    
+    public EventBus(int partitions, int capacity, Duration maxBlock, int attempts, Duration backoff) {
+        if (partitions < 1 || capacity < 1 || attempts < 1) {
+            throw new IllegalArgumentException("partitions, capacity and attempts must be positive");
+        }
+        this.partitions = partitions;
+        this.capacity = capacity;
+        this.maxBlock = maxBlock;
+        this.attempts = attempts;
+        this.backoff = backoff;
+    }
+    
+    // One bus per name in this JVM, so services started side by side exchange events through it
+    public static EventBus shared(String name, int partitions, int capacity, Duration maxBlock,
+                                 int attempts, Duration backoff) {
+        return SHARED.computeIfAbsent(name, key -> new EventBus(partitions, capacity, maxBlock, attempts, backoff));
+    }
+    
+    public int partitions() {
+        return partitions;
+    }
+    
+    // Same partition as Kafka's default partitioner for String keys; keyless records rotate
+    public int partitionFor(String topic, Object key) {
+        if (key == null) {
+            return topic(topic).nextKeyless();
+        }
+        byte[] keyBytes = (key instanceof byte[] bytes) ? bytes : key.toString().getBytes(StandardCharsets.UTF_8);
+        return Utils.toPositive(Utils.murmur2(keyBytes)) % partitions;
+    }
+    
+    public RecordMetadata publish(String topicName, Integer partition, Object key, Object value, Headers headers) {
+        Topic topic = topic(topicName);
+        int target = partition != null ? partition : partitionFor(topicName, key);
+        if (target < 0 || target >= partitions) {
+            throw new IllegalArgumentException("Partition " + target + " does not exist in " + topicName);
+        }
+        long deadline = System.nanoTime() + maxBlock.toNanos();
+        synchronized (topic.locks[target]) {
+            // Only publishers holding this lock add to these queues, so room found here stays free
+            for (Group group : topic.groups) {
+                BlockingQueue<ConsumerRecord<Object, Object>> queue = group.queues[target];
+                while (queue.remainingCapacity() == 0) {
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new TimeoutException("Event bus queue for " + topicName + "-" + target
+                            + " (group " + group.name + ") stayed full for " + maxBlock.toMillis() + " ms");
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+            long offset = topic.nextOffsets[target]++;
+            long timestamp = System.currentTimeMillis();
+            for (Group group : topic.groups) {
+                // Headers are per record in Kafka, and listeners stamp their own on the way through
+                RecordHeaders copy = new RecordHeaders(headers == null ? null : headers.toArray());
+                group.queues[target].add(new ConsumerRecord<>(topicName, target, offset, timestamp,
+                    TimestampType.CREATE_TIME, -1, -1, key, value, copy, Optional.empty()));
+            }
+            return new RecordMetadata(new TopicPartition(topicName, target),
+                offset, 0, timestamp, -1, -1);
+        }
+    }
+    
+    // Starts one worker thread per partition for the group; closing the subscription stops them
+    // after the records already queued have been handled
+    @SuppressWarnings("unchecked")
+    public <K, V> Subscription subscribe(String topicName, String groupName, RecordHandler<K, V> handler,
+                                         BiConsumer<ConsumerRecord<K, V>, Exception> deadLetterHandler) {
+        Topic topic = topic(topicName);
+        Group group = new Group(topicName, groupName,
+            record -> handler.handle((ConsumerRecord<K, V>) (ConsumerRecord<?, ?>) record),
+            (record, e) -> deadLetterHandler.accept((ConsumerRecord<K, V>) (ConsumerRecord<?, ?>) record, e));
+        // Taking every partition lock means no publish is halfway through the group list
+        synchronized (topic) {
+            for (Group existing : topic.groups) {
+                if (existing.name.equals(groupName)) {
+                    throw new IllegalStateException("Group " + groupName + " already subscribed to " + topicName);
+                }
+            }
+            lockAll(topic, 0, () -> topic.groups.add(group));
+        }
+        group.start();
+        logger.info("Group {} subscribed to {} with {} partitions", groupName, topicName, partitions);
+        return () -> {
+            lockAll(topic, 0, () -> topic.groups.remove(group));
+            group.stop();
+        };
+    }
+    
+    // Records waiting in the group's queues
+    public int pending(String topicName, String groupName) {
+        int pending = 0;
+        for (Group group : topic(topicName).groups) {
+            if (group.name.equals(groupName)) {
+                for (BlockingQueue<ConsumerRecord<Object, Object>> queue : group.queues) {
+                    pending += queue.size();
+                }
+            }
+        }
+        return pending;
+    }
+    
+    private void lockAll(Topic topic, int partition, Runnable action) {
+        if (partition == partitions) {
+            action.run();
+            return;
+        }
+        synchronized (topic.locks[partition]) {
+            lockAll(topic, partition + 1, action);
+        }
+    }
+    
+    private Topic topic(String name) {
+        return topics.computeIfAbsent(name, key -> new Topic());
+    }
+    
+    @FunctionalInterface
+    public interface RecordHandler<K, V> {
+        void handle(ConsumerRecord<K, V> record) throws Exception;
+    }
+    
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+    
+    private class Topic {
+    
+        private final Object[] locks = new Object[partitions];
+        private final long[] nextOffsets = new long[partitions];
+        private final List<Group> groups = new CopyOnWriteArrayList<>();
+        private final AtomicInteger keyless = new AtomicInteger();
+        
+        private Topic() {
+            for (int i = 0; i < partitions; i++) {
+                locks[i] = new Object();
+            }
+        }
+        
+        private int nextKeyless() {
+            return Utils.toPositive(keyless.getAndIncrement()) % partitions;
+        }
+    }
+    
+    private class Group {
+    
+        private final String topic;
+        private final String name;
+        private final RecordHandler<Object, Object> handler;
+        private final BiConsumer<ConsumerRecord<Object, Object>, Exception> deadLetterHandler;
+        private final BlockingQueue<ConsumerRecord<Object, Object>>[] queues;
+        private final Thread[] workers = new Thread[partitions];
+        private volatile boolean running = true;
+        
+        @SuppressWarnings("unchecked")
+        private Group(String topic, String name, RecordHandler<Object, Object> handler,
+                      BiConsumer<ConsumerRecord<Object, Object>, Exception> deadLetterHandler) {
+            this.topic = topic;
+            this.name = name;
+            this.handler = handler;
+            this.deadLetterHandler = deadLetterHandler;
+            this.queues = new BlockingQueue[partitions];
+            for (int i = 0; i < partitions; i++) {
+                queues[i] = new ArrayBlockingQueue<>(capacity);
+            }
+        }
+        
+        private void start() {
+            for (int i = 0; i < partitions; i++) {
+                BlockingQueue<ConsumerRecord<Object, Object>> queue = queues[i];
+                workers[i] = new Thread(() -> work(queue), name + "-" + topic + "-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+        
+        private void stop() {
+            running = false;
+            long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+            for (Thread worker : workers) {
+                try {
+                    worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (worker.isAlive()) {
+                    logger.warn("Event bus worker {} did not drain in time, interrupting it", worker.getName());
+                    worker.interrupt();
+                }
+            }
+        }
+        
+        private void work(BlockingQueue<ConsumerRecord<Object, Object>> queue) {
+            while (running || !queue.isEmpty()) {
+                ConsumerRecord<Object, Object> record;
+                try {
+                    record = queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (record != null && !deliver(record)) {
+                    return;
+                }
+            }
+        }
+        
+        // False only when interrupted while backing off
+        private boolean deliver(ConsumerRecord<Object, Object> record) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    handler.handle(record);
+                    return true;
+                } catch (Exception e) {
+                    if (attempt >= attempts) {
+                        logger.error("Group {} gave up on {}-{}@{} after {} attempts", name, record.topic(),
+                            record.partition(), record.offset(), attempts, e);
+                        try {
+                            deadLetterHandler.accept(record, e);
+                        } catch (RuntimeException deadLetterFailure) {
+                            logger.error("Dead-letter handler of group {} failed", name, deadLetterFailure);
+                        }
+                        return true;
+                    }
+                    logger.warn("Group {} failed on {}-{}@{} (attempt {}), retrying: {}", name, record.topic(),
+                        record.partition(), record.offset(), attempt, e.getMessage());
+                }
+                try {
+                    Thread.sleep(backoff.toMillis());
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.shared.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.Instant;
@@ -16,6 +17,16 @@ public class Order extends OrderRequest {
     @JsonProperty("createdAt")
     private Instant createdAt;
     
+    // Set for orders ingested as a stream: items is empty, and the items are stored separately
+    // in this many chunks (OrderRepository.streamItems). Left out of the JSON otherwise
+    @JsonProperty("itemChunks")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer itemChunks;
+    
+    @JsonProperty("itemCount")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer itemCount;
+    
     // Default constructor
     public Order() {
         super();
@@ -63,12 +74,29 @@ public class Order extends OrderRequest {
         this.createdAt = createdAt;
     }
     
+    public Integer getItemChunks() {
+        return itemChunks;
+    }
+    
+    public void setItemChunks(Integer itemChunks) {
+        this.itemChunks = itemChunks;
+    }
+    
+    public Integer getItemCount() {
+        return itemCount;
+    }
+    
+    public void setItemCount(Integer itemCount) {
+        this.itemCount = itemCount;
+    }
+    
     @Override
     public String toString() {
         return "Order{" +
                 "orderId='" + orderId + '\'' +
                 ", status=" + status +
                 ", createdAt=" + createdAt +
+                (itemChunks == null ? "" : ", itemChunks=" + itemChunks + ", itemCount=" + itemCount) +
                 ", customerName='" + getCustomerName() + '\'' +
                 ", items=" + getItems() +
                 ", requestedAt=" + getRequestedAt() +
@@ -0,0 +1,37 @@
+package com.example.shared.event;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+
+public final class PipelineHeaders {
+    
+    // Per-hop wall clock timestamps (epoch millis) carried alongside the events
+    public static final String ORDER_RECEIVED_AT = "x-pipeline-order-received-at";
+    public static final String ORDER_PUBLISHED_AT = "x-pipeline-order-published-at";
+    public static final String INVENTORY_RECEIVED_AT = "x-pipeline-inventory-received-at";
+    public static final String RESULT_PUBLISHED_AT = "x-pipeline-result-published-at";
+    
+    private PipelineHeaders() {}
+    
+    public static void stamp(Headers headers, String name, long epochMillis) {
+        headers.remove(name);
+        headers.add(name, ByteBuffer.allocate(Long.BYTES).putLong(epochMillis).array());
+    }
+    
+    public static Long read(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return null;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+    
+    public static void copy(Headers from, Headers to, String name) {
+        Long value = read(from, name);
+        if (value != null) {
+            stamp(to, name, value);
+        }
+    }
+}
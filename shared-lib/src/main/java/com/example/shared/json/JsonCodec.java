@@ -0,0 +1,69 @@
+package com.example.shared.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reads and writes JSON through ObjectReader/ObjectWriter instances resolved once per type,
+// instead of looking up serializers (and building TypeReferences) on every call
+public class JsonCodec {
+    
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    
+    public JsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    public byte[] writeBytes(Object value) throws JsonProcessingException {
+        return writer(value).writeValueAsBytes(value);
+    }
+    
+    public String writeString(Object value) throws JsonProcessingException {
+        return writer(value).writeValueAsString(value);
+    }
+    
+    public <T> T read(byte[] json, Class<T> type) throws IOException {
+        return reader(type).readValue(json);
+    }
+    
+    public <T> T read(String json, Class<T> type) throws JsonProcessingException {
+        return reader(type).readValue(json);
+    }
+    
+    public <T> List<T> readList(byte[] json, Class<T> elementType) throws IOException {
+        return listReader(elementType).readValue(json);
+    }
+    
+    public <T> List<T> readList(String json, Class<T> elementType) throws JsonProcessingException {
+        return listReader(elementType).readValue(json);
+    }
+    
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+    
+    private ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+    
+    private ObjectReader listReader(Class<?> elementType) {
+        return listReaders.computeIfAbsent(elementType, type ->
+            objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, type)));
+    }
+    
+    private ObjectWriter writer(Object value) {
+        if (value == null) {
+            return objectMapper.writer();
+        }
+        return writers.computeIfAbsent(value.getClass(), objectMapper::writerFor);
+    }
+}
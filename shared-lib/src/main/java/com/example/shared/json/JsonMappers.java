@@ -0,0 +1,39 @@
+package com.example.shared.json;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.core.NativeDetector;
+
+// The one ObjectMapper configuration used for Redis values, Kafka JSON payloads and HTTP
+public final class JsonMappers {
+    
+    private static final ObjectMapper SHARED = create();
+    
+    private JsonMappers() {}
+    
+    public static ObjectMapper shared() {
+        return SHARED;
+    }
+    
+    public static ObjectMapper create() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        // Generates accessors with LambdaMetafactory instead of reflective calls. A native image
+        // cannot define classes at run time, so there Jackson keeps to the registered reflection
+        if (!NativeDetector.inNativeImage()) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        
+        // Instants as numeric seconds.nanos, the encoding already stored in Redis and on Kafka
+        mapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.enable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS);
+        mapper.enable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS);
+        
+        // Services may be upgraded one at a time, so tolerate fields added by newer writers
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.shared.kafka;
+
+import java.time.Duration;
+
+// When a listener container should change its number of consumers, from the group's lag and the
+// mean time to process one record. Their product per consumer is the backlog: how long the
+// consumers would take to catch up. Scaling has hysteresis:
+// - a dead band: scale up above scaleUpLag or scaleUpBacklog, scale down only below both
+//   scaleDownLag and scaleDownBacklog;
+// - a signal must hold for upSamples, or downSamples, samples in a row;
+// - no change for the cooldown after each change, as every change rebalances the group.
+// Up doubles the consumers and down removes one, within minConcurrency and the lesser of
+// maxConcurrency and the partition count, as consumers beyond the partitions would sit idle.
+public class ConcurrencyPolicy {
+    
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long scaleUpLag;
+    private final long scaleDownLag;
+    private final double scaleUpBacklogMillis;
+    private final double scaleDownBacklogMillis;
+    private final int upSamples;
+    private final int downSamples;
+    private final long cooldownNanos;
+    
+    private int upStreak;
+    private int downStreak;
+    private boolean changed;
+    private long lastChangeNanos;
+    
+    public ConcurrencyPolicy(int minConcurrency, int maxConcurrency, long scaleUpLag, long scaleDownLag,
+                             Duration scaleUpBacklog, Duration scaleDownBacklog, int upSamples, int downSamples,
+                             Duration cooldown) {
+        if (minConcurrency < 1 || maxConcurrency < minConcurrency) {
+            throw new IllegalArgumentException("Concurrency bounds must satisfy 1 <= min <= max");
+        }
+        if (scaleDownLag >= scaleUpLag || scaleDownBacklog.compareTo(scaleUpBacklog) >= 0) {
+            throw new IllegalArgumentException("Scale-down thresholds must be below the scale-up thresholds");
+        }
+        if (upSamples < 1 || downSamples < 1) {
+            throw new IllegalArgumentException("Sample counts must be positive");
+        }
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.scaleUpLag = scaleUpLag;
+        this.scaleDownLag = scaleDownLag;
+        this.scaleUpBacklogMillis = scaleUpBacklog.toNanos() / 1e6;
+        this.scaleDownBacklogMillis = scaleDownBacklog.toNanos() / 1e6;
+        this.upSamples = upSamples;
+        this.downSamples = downSamples;
+        this.cooldownNanos = cooldown.toNanos();
+    }
+    
+    // The concurrency to run with after this sample; current when nothing should change
+    public synchronized int next(int current, int partitions, long lag, double meanProcessingMillis, long nowNanos) {
+        int ceiling = Math.max(1, Math.min(maxConcurrency, partitions));
+        int floor = Math.min(minConcurrency, ceiling);
+        if (current > ceiling || current < floor) {
+            return changeTo(current > ceiling ? ceiling : floor, nowNanos);
+        }
+        
+        double lagPerConsumer = (double) lag / current;
+        double backlogMillis = lagPerConsumer * meanProcessingMillis;
+        upStreak = lagPerConsumer > scaleUpLag || backlogMillis > scaleUpBacklogMillis ? upStreak + 1 : 0;
+        downStreak = lagPerConsumer < scaleDownLag && backlogMillis < scaleDownBacklogMillis ? downStreak + 1 : 0;
+        
+        if (changed && nowNanos - lastChangeNanos < cooldownNanos) {
+            return current;
+        }
+        if (upStreak >= upSamples && current < ceiling) {
+            return changeTo(Math.min(ceiling, current * 2), nowNanos);
+        }
+        if (downStreak >= downSamples && current > floor) {
+            return changeTo(current - 1, nowNanos);
+        }
+        return current;
+    }
+    
+    private int changeTo(int concurrency, long nowNanos) {
+        changed = true;
+        lastChangeNanos = nowNanos;
+        upStreak = 0;
+        downStreak = 0;
+        return concurrency;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.shared.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+// Re-publishes dead-lettered records to the topic they originally failed on. Records are copied
+// as raw bytes, so either event format survives, and the DLT and retry-topic bookkeeping
+// headers are dropped so the record starts over with a full set of attempts. Progress is kept
+// as committed offsets of the replay consumer group, so each DLT record is replayed once.
+public class DeadLetterReplayer {
+    
+    // Suffix of the dead-letter topic next to each listened topic
+    public static final String DLT_SUFFIX = "-dlt";
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayer.class);
+    private static final String RETRY_HEADER_PREFIX = "retry_topic-";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    
+    private final String bootstrapServers;
+    private final String groupId;
+    
+    public DeadLetterReplayer(String bootstrapServers, String groupId) {
+        this.bootstrapServers = bootstrapServers;
+        this.groupId = groupId;
+    }
+    
+    // Records in the DLT that have not been replayed yet
+    public long pending(String deadLetterTopic) {
+        try (KafkaConsumer<byte[], byte[]> consumer = createConsumer()) {
+            Set<TopicPartition> partitions = partitionsOf(consumer, deadLetterTopic);
+            if (partitions.isEmpty()) {
+                return 0;
+            }
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            Map<TopicPartition, Long> startOffsets = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(partitions);
+            
+            long pending = 0;
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata position = committed.get(partition);
+                long from = position != null ? position.offset() : startOffsets.get(partition);
+                pending += Math.max(0, endOffsets.get(partition) - from);
+            }
+            return pending;
+        }
+    }
+    
+    public int replay(String deadLetterTopic, int maxRecords) {
+        int replayed = 0;
+        try (KafkaConsumer<byte[], byte[]> consumer = createConsumer();
+             KafkaProducer<byte[], byte[]> producer = createProducer()) {
+            
+            Set<TopicPartition> partitions = partitionsOf(consumer, deadLetterTopic);
+            if (partitions.isEmpty()) {
+                return 0;
+            }
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            
+            // Only what is in the DLT now; records arriving during the replay wait for the next run
+            while (replayed < maxRecords && !reachedEnd(consumer, endOffsets)) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT);
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                Set<TopicPartition> stopped = new HashSet<>();
+                List<Future<?>> sends = new ArrayList<>();
+                
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (stopped.contains(partition)) {
+                        continue;
+                    }
+                    if (replayed >= maxRecords || record.offset() >= endOffsets.get(partition)) {
+                        // Rewind to the first record not replayed
+                        consumer.seek(partition, record.offset());
+                        stopped.add(partition);
+                        continue;
+                    }
+                    sends.add(producer.send(toOriginalTopic(record)));
+                    offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                
+                // Commit only what the broker has acknowledged
+                for (Future<?> send : sends) {
+                    send.get();
+                }
+                if (!offsets.isEmpty()) {
+                    consumer.commitSync(offsets);
+                }
+            }
+        
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while replaying " + deadLetterTopic, e);
+        } catch (Exception e) {
+            logger.error("Error replaying dead letters from {}: {}", deadLetterTopic, e.getMessage(), e);
+            throw new RuntimeException("Failed to replay dead letters from " + deadLetterTopic, e);
+        }
+        
+        logger.info("Replayed {} records from {}", replayed, deadLetterTopic);
+        return replayed;
+    }
+    
+    private ProducerRecord<byte[], byte[]> toOriginalTopic(ConsumerRecord<byte[], byte[]> record) {
+        Header originalTopic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        if (originalTopic == null) {
+            throw new IllegalStateException("DLT record at " + record.topic() + "-" + record.partition() + "@"
+                + record.offset() + " has no " + KafkaHeaders.DLT_ORIGINAL_TOPIC + " header");
+        }
+        
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(KafkaHeaders.PREFIX + "dlt-") && !header.key().startsWith(RETRY_HEADER_PREFIX)) {
+                headers.add(header);
+            }
+        }
+        // Same key, so the record lands on the partition its order's other events use
+        return new ProducerRecord<>(new String(originalTopic.value(), StandardCharsets.UTF_8), null,
+            record.key(), record.value(), headers);
+    }
+    
+    private boolean reachedEnd(KafkaConsumer<byte[], byte[]> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private Set<TopicPartition> partitionsOf(KafkaConsumer<byte[], byte[]> consumer, String topic) {
+        List<PartitionInfo> partitions = consumer.partitionsFor(topic);
+        if (partitions == null) {
+            return Set.of();
+        }
+        return partitions.stream()
+            .map(info -> new TopicPartition(topic, info.partition()))
+            .collect(Collectors.toSet());
+    }
+    
+    private KafkaConsumer<byte[], byte[]> createConsumer() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return new KafkaConsumer<>(configProps);
+    }
+    
+    private KafkaProducer<byte[], byte[]> createProducer() {
+        Map<String, Object> configProps = new HashMap<>(ProducerProfile.HIGH_THROUGHPUT.producerConfig());
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaProducer<>(configProps);
+    }
+}
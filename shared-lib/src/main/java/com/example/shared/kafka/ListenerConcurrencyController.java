@@ -0,0 +1,259 @@
+package com.example.shared.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Resizes one listener container to its consumer group's backlog. Every interval it reads the
+// group's lag on the topic and the partition count, takes the mean processing time of the
+// records the container handled since the last sample, and asks the ConcurrencyPolicy for the
+// next concurrency. Spring Kafka applies a new concurrency when a container starts, so a change
+// stops the container, which finishes the records in hand and commits, and starts it again.
+// Concurrency, partitions, lag and processing time are gauges tagged with the group; with
+// autoscale off they are still sampled but nothing is resized. A listener id with no container
+// (another engine is running) leaves the controller idle.
+public class ListenerConcurrencyController implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ListenerConcurrencyController.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    
+    private final String bootstrapServers;
+    private final String groupId;
+    private final String topic;
+    private final String listenerId;
+    private final KafkaListenerEndpointRegistry endpointRegistry;
+    private final ConcurrencyPolicy policy;
+    private final Duration interval;
+    private final boolean autoscale;
+    private final LongAdder processedRecords = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    // Start of the record each consumer thread is processing
+    private final ThreadLocal<Long> processingStart = new ThreadLocal<>();
+    private final Counter scaleUps;
+    private final Counter scaleDowns;
+    
+    private volatile long lag;
+    private volatile int partitions;
+    private volatile double meanProcessingMillis;
+    private volatile boolean running;
+    private boolean missingReported;
+    private ScheduledExecutorService scheduler;
+    private KafkaConsumer<byte[], byte[]> offsetReader;
+    
+    public ListenerConcurrencyController(String bootstrapServers, String groupId, String topic, String listenerId,
+                                         KafkaListenerEndpointRegistry endpointRegistry, ConcurrencyPolicy policy,
+                                         Duration interval, boolean autoscale, MeterRegistry registry) {
+        this.bootstrapServers = bootstrapServers;
+        this.groupId = groupId;
+        this.topic = topic;
+        this.listenerId = listenerId;
+        this.endpointRegistry = endpointRegistry;
+        this.policy = policy;
+        this.interval = interval;
+        this.autoscale = autoscale;
+        
+        Gauge.builder("kafka.listener.concurrency", this, controller -> controller.currentConcurrency())
+            .description("Consumers in the listener container").tag("group", groupId).register(registry);
+        Gauge.builder("kafka.listener.partitions", this, controller -> controller.partitions)
+            .tag("group", groupId).register(registry);
+        Gauge.builder("kafka.listener.lag", this, controller -> controller.lag)
+            .description("Records of the topic the group has not committed yet").tag("group", groupId).register(registry);
+        Gauge.builder("kafka.listener.processing.time.mean", this, controller -> controller.meanProcessingMillis)
+            .description("Mean milliseconds per record over the last sample interval").baseUnit("milliseconds")
+            .tag("group", groupId).register(registry);
+        this.scaleUps = Counter.builder("kafka.listener.rescales").tag("group", groupId).tag("direction", "up")
+            .register(registry);
+        this.scaleDowns = Counter.builder("kafka.listener.rescales").tag("group", groupId).tag("direction", "down")
+            .register(registry);
+    }
+    
+    // For the container factory: times each record of the topic from before the listener is
+    // called until after it returns or fails. Records of the retry topics are left out, as they
+    // wait on purpose
+    public <K, V> RecordInterceptor<K, V> processingTimeInterceptor() {
+        return new RecordInterceptor<>() {
+            @Override
+            public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+                if (record.topic().equals(topic)) {
+                    processingStart.set(System.nanoTime());
+                }
+                return record;
+            }
+            
+            @Override
+            public void afterRecord(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+                Long start = processingStart.get();
+                if (start != null) {
+                    processingStart.remove();
+                    processingNanos.add(System.nanoTime() - start);
+                    processedRecords.increment();
+                }
+            }
+        };
+    }
+    
+    // Running from the start, so a start that fails half way is still stopped and cleaned up
+    @Override
+    public void start() {
+        running = true;
+        offsetReader = createOffsetReader();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "listener-concurrency-" + groupId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sample, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            // Not interrupted, so a rescale in progress gets to start the container again
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        if (offsetReader != null) {
+            offsetReader.close(REQUEST_TIMEOUT);
+            offsetReader = null;
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    // Starts after the listener containers, whose phase is Integer.MAX_VALUE - 100, and stops before them
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+    
+    private void sample() {
+        try {
+            ConcurrentMessageListenerContainer<?, ?> container = container();
+            if (container == null || !container.isRunning()) {
+                return;
+            }
+            readLag();
+            long records = processedRecords.sumThenReset();
+            long nanos = processingNanos.sumThenReset();
+            if (records > 0) {
+                meanProcessingMillis = nanos / 1e6 / records;
+            }
+            if (!autoscale || partitions == 0) {
+                return;
+            }
+            
+            int current = container.getConcurrency();
+            int next = policy.next(current, partitions, lag, meanProcessingMillis, System.nanoTime());
+            if (next != current) {
+                rescale(container, current, next);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Concurrency check of {} failed: {}", groupId, e.getMessage());
+        }
+    }
+    
+    private void rescale(ConcurrentMessageListenerContainer<?, ?> container, int current, int next) {
+        logger.info("Rescaling {} on {} from {} to {} consumers (lag {}, {} partitions, {} ms per record)",
+            groupId, topic, current, next, lag, partitions, String.format("%.2f", meanProcessingMillis));
+        // Blocks until every consumer has finished its records, committed and left the group
+        container.stop();
+        try {
+            container.setConcurrency(next);
+        } finally {
+            container.start();
+        }
+        (next > current ? scaleUps : scaleDowns).increment();
+    }
+    
+    // Committed offsets of the group against the end of each partition; a partition the group
+    // has not committed on yet counts from its beginning, as auto.offset.reset is earliest
+    private void readLag() {
+        List<PartitionInfo> infos = offsetReader.partitionsFor(topic, REQUEST_TIMEOUT);
+        if (infos == null || infos.isEmpty()) {
+            partitions = 0;
+            lag = 0;
+            return;
+        }
+        Set<TopicPartition> topicPartitions = infos.stream()
+            .map(info -> new TopicPartition(topic, info.partition()))
+            .collect(Collectors.toSet());
+        Map<TopicPartition, Long> endOffsets = offsetReader.endOffsets(topicPartitions, REQUEST_TIMEOUT);
+        Map<TopicPartition, OffsetAndMetadata> committed = offsetReader.committed(topicPartitions, REQUEST_TIMEOUT);
+        Map<TopicPartition, Long> startOffsets = offsetReader.beginningOffsets(topicPartitions, REQUEST_TIMEOUT);
+        
+        long total = 0;
+        for (TopicPartition partition : topicPartitions) {
+            OffsetAndMetadata position = committed.get(partition);
+            long from = position != null ? position.offset() : startOffsets.get(partition);
+            total += Math.max(0, endOffsets.get(partition) - from);
+        }
+        partitions = topicPartitions.size();
+        lag = total;
+    }
+    
+    private ConcurrentMessageListenerContainer<?, ?> container() {
+        MessageListenerContainer container = endpointRegistry.getListenerContainer(listenerId);
+        if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) {
+            return concurrent;
+        }
+        if (!missingReported) {
+            missingReported = true;
+            logger.info("No listener container {} to scale for {}", listenerId, groupId);
+        }
+        return null;
+    }
+    
+    private int currentConcurrency() {
+        MessageListenerContainer container = endpointRegistry.getListenerContainer(listenerId);
+        return container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent && container.isRunning()
+            ? concurrent.getConcurrency() : 0;
+    }
+    
+    // Reads the group's committed offsets without subscribing, so it never joins the group
+    private KafkaConsumer<byte[], byte[]> createOffsetReader() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.CLIENT_ID_CONFIG, groupId + "-lag-reader");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return new KafkaConsumer<>(configProps);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.shared.kafka;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Named producer tunings, selected per topic with kafka.producer.profile.<topic>.
+// Every profile keeps acks=all with idempotence, so retries cannot duplicate or reorder
+// records within a partition; they differ in how long records wait to form batches.
+public enum ProducerProfile {
+    
+    // Request-path publishing: send immediately, small batches, no compression CPU
+    LOW_LATENCY("none", 0, 16 * 1024, 5, 32L * 1024 * 1024),
+    
+    // Short linger lets concurrent sends share a batch; lz4 is cheap to compress
+    BALANCED("lz4", 5, 64 * 1024, 5, 32L * 1024 * 1024),
+    
+    // Bulk ingest: large, well-compressed batches and more buffer for bursts
+    HIGH_THROUGHPUT("zstd", 25, 256 * 1024, 5, 64L * 1024 * 1024);
+    
+    private final String compressionType;
+    private final int lingerMs;
+    private final int batchSize;
+    private final int maxInFlightRequests;
+    private final long bufferMemory;
+    
+    ProducerProfile(String compressionType, int lingerMs, int batchSize, int maxInFlightRequests, long bufferMemory) {
+        this.compressionType = compressionType;
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.bufferMemory = bufferMemory;
+    }
+    
+    // Accepts "low-latency", "LOW_LATENCY", "high_throughput", ...
+    public static ProducerProfile from(String value) {
+        return ProducerProfile.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+    
+    public Map<String, Object> producerConfig() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // Idempotence keeps ordering with up to 5 in-flight requests per connection
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        return config;
+    }
+    
+    // Getters
+    public String getCompressionType() {
+        return compressionType;
+    }
+    
+    public int getLingerMs() {
+        return lingerMs;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+    
+    public long getBufferMemory() {
+        return bufferMemory;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.shared.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class PipelineMetrics {
+    
+    public static final String STAGE_TIMER = "order.pipeline.stage";
+    public static final String HOP_TIMER = "order.pipeline.hop";
+    public static final String END_TO_END_TIMER = "order.pipeline.end.to.end";
+    public static final String DEAD_LETTER_COUNTER = "order.pipeline.dead.letters";
+    
+    // Stage names used across the three services
+    public static final String STAGE_INGEST = "ingest";
+    public static final String STAGE_REDIS_STORE = "redis.store";
+    public static final String STAGE_KAFKA_PUBLISH_ACK = "kafka.publish.ack";
+    public static final String STAGE_INVENTORY_FETCH = "inventory.fetch";
+    public static final String STAGE_INVENTORY_CHECK = "inventory.check";
+    public static final String STAGE_STATUS_WRITE = "status.write";
+    public static final String STAGE_RESULT_PUBLISH = "result.publish";
+    public static final String STAGE_NOTIFICATION = "notification";
+    public static final String STAGE_OUTBOX_APPEND = "outbox.append";
+    public static final String STAGE_OUTBOX_FLUSH = "outbox.flush";
+    
+    // Hops measured from the timestamps propagated in Kafka headers
+    public static final String HOP_ORDER_EVENTS_TRANSIT = "order-events.transit";
+    public static final String HOP_INVENTORY_PROCESSING = "inventory.processing";
+    public static final String HOP_RESULTS_TRANSIT = "inventory-check-results.transit";
+    
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    public void recordStage(String stage, long startNanos) {
+        timer(STAGE_TIMER, "stage", stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordHop(String hop, Long fromEpochMillis, Long toEpochMillis) {
+        if (fromEpochMillis == null || toEpochMillis == null) {
+            return;
+        }
+        // Hops span hosts, so clock skew can produce small negative values
+        long millis = Math.max(0, toEpochMillis - fromEpochMillis);
+        timer(HOP_TIMER, "hop", hop).record(Duration.ofMillis(millis));
+    }
+    
+    public void recordEndToEnd(String status, Long receivedAtEpochMillis, long completedAtEpochMillis) {
+        if (receivedAtEpochMillis == null) {
+            return;
+        }
+        long millis = Math.max(0, completedAtEpochMillis - receivedAtEpochMillis);
+        timer(END_TO_END_TIMER, "status", status).record(Duration.ofMillis(millis));
+    }
+    
+    public void recordDeadLetter(String topic) {
+        registry.counter(DEAD_LETTER_COUNTER, "topic", topic).increment();
+    }
+    
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+    
+    private Timer timer(String name, String tagKey, String tagValue) {
+        return timers.computeIfAbsent(name + '|' + tagValue, key -> Timer.builder(name)
+            .tag(tagKey, tagValue)
+            .publishPercentileHistogram()
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.shared.repository;
+
+import java.util.Comparator;
+
+// One entry of the per-customer index: the orderId and the order's createdAt. Index order is
+// newest first, and orders created in the same millisecond by descending orderId
+public record CustomerOrderRef(String orderId, long createdAtMillis) {
+    
+    public static final Comparator<CustomerOrderRef> NEWEST_FIRST =
+        Comparator.comparingLong(CustomerOrderRef::createdAtMillis).reversed()
+            .thenComparing(CustomerOrderRef::orderId, Comparator.reverseOrder());
+    
+    private static final char CURSOR_SEPARATOR = '_';
+    
+    // Opaque to clients: the position after which the next page starts
+    public String toCursor() {
+        return createdAtMillis + String.valueOf(CURSOR_SEPARATOR) + orderId;
+    }
+    
+    public static CustomerOrderRef fromCursor(String cursor) {
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        if (separator <= 0 || separator == cursor.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return new CustomerOrderRef(cursor.substring(separator + 1), Long.parseLong(cursor.substring(0, separator)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
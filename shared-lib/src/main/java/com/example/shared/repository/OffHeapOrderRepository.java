@@ -0,0 +1,290 @@
+package com.example.shared.repository;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Embedded backend for single-node deployments and tests: the same JSON documents and keys as
+// RedisOrderRepository, kept in an OffHeapStore inside the JVM. Nothing survives a restart, and
+// services only share orders if they run in the same JVM and use the same shared(...) store.
+// The customer index stays on heap: a skip list of refs per customer, trimmed like the Redis
+// sorted sets on each write and read of that customer, and all customers are swept once a
+// minute, so the refs of customers who stopped ordering do not stay forever.
+public class OffHeapOrderRepository implements OrderRepository {
+    
+    private static final int DEFAULT_STRIPES = 64;
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+    private static final Map<String, OffHeapOrderRepository> SHARED = new ConcurrentHashMap<>();
+    
+    private final JsonCodec jsonCodec;
+    private final OffHeapStore store;
+    private final boolean indexCustomers;
+    private final Map<String, ConcurrentSkipListSet<CustomerOrderRef>> customerIndex = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+    // Longest ttl written so far; refs older than it are trimmed
+    private volatile long indexTtlMillis;
+    
+    public OffHeapOrderRepository(JsonCodec jsonCodec, long capacityBytes) {
+        this(jsonCodec, capacityBytes, true);
+    }
+    
+    public OffHeapOrderRepository(JsonCodec jsonCodec, long capacityBytes, boolean indexCustomers) {
+        this(jsonCodec, capacityBytes, DEFAULT_STRIPES, indexCustomers);
+    }
+    
+    OffHeapOrderRepository(JsonCodec jsonCodec, long capacityBytes, int stripes, boolean indexCustomers) {
+        this.jsonCodec = jsonCodec;
+        this.store = new OffHeapStore(capacityBytes, stripes);
+        this.indexCustomers = indexCustomers;
+    }
+    
+    // One store per name for the whole JVM, so services started side by side see the same orders.
+    // The capacity and index setting only apply to the call that creates the store
+    public static OffHeapOrderRepository shared(String name, JsonCodec jsonCodec, long capacityBytes,
+                                                boolean indexCustomers) {
+        return SHARED.computeIfAbsent(name, key -> new OffHeapOrderRepository(jsonCodec, capacityBytes, indexCustomers));
+    }
+    
+    @Override
+    public Order get(String orderId) {
+        return readOrder(orderId, store.get(RedisOrderRepository.ORDER_KEY_PREFIX + orderId));
+    }
+    
+    @Override
+    public Map<String, Order> getAll(Collection<String> orderIds) {
+        Map<String, Order> orders = new LinkedHashMap<>();
+        for (String orderId : orderIds) {
+            Order order = get(orderId);
+            if (order != null) {
+                orders.put(orderId, order);
+            }
+        }
+        return orders;
+    }
+    
+    @Override
+    public void put(Order order, Duration ttl) {
+        store.put(RedisOrderRepository.ORDER_KEY_PREFIX + order.getOrderId(), writeJson(order), ttl.toMillis());
+        if (order.getItemChunks() != null) {
+            expireItemChunks(order.getOrderId(), order.getItemChunks(), ttl);
+        }
+        if (indexCustomers) {
+            indexOrder(order, ttl);
+        }
+    }
+    
+    @Override
+    public void putAll(Collection<Order> orders, Duration ttl) {
+        for (Order order : orders) {
+            put(order, ttl);
+        }
+    }
+    
+    // Atomic, unlike the Redis backend: the stripe stays locked from read to write. Item chunks
+    // live in other stripes, so their ttl is restarted afterwards
+    @Override
+    public boolean updateStatus(String orderId, OrderStatus status, Duration ttl) {
+        Integer[] itemChunks = new Integer[1];
+        boolean updated = store.update(RedisOrderRepository.ORDER_KEY_PREFIX + orderId, json -> {
+            Order order = readOrder(orderId, json);
+            order.setStatus(status);
+            itemChunks[0] = order.getItemChunks();
+            return writeJson(order);
+        }, ttl.toMillis());
+        if (updated && itemChunks[0] != null) {
+            expireItemChunks(orderId, itemChunks[0], ttl);
+        }
+        return updated;
+    }
+    
+    @Override
+    public void putMissingItems(String orderId, List<MissingItem> missingItems, Duration ttl) {
+        store.put(RedisOrderRepository.MISSING_ITEMS_KEY_PREFIX + orderId, writeJson(missingItems), ttl.toMillis());
+    }
+    
+    @Override
+    public List<MissingItem> getMissingItems(String orderId) {
+        byte[] json = store.get(RedisOrderRepository.MISSING_ITEMS_KEY_PREFIX + orderId);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return jsonCodec.readList(json, MissingItem.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Unreadable missing items for order " + orderId, e);
+        }
+    }
+    
+    @Override
+    public void putItemChunk(String orderId, int chunk, List<OrderItem> items, Duration ttl) {
+        store.put(RedisOrderRepository.itemChunkKey(orderId, chunk), writeJson(items), ttl.toMillis());
+    }
+    
+    @Override
+    public List<OrderItem> getItemChunk(String orderId, int chunk) {
+        byte[] json = store.get(RedisOrderRepository.itemChunkKey(orderId, chunk));
+        if (json == null) {
+            return null;
+        }
+        try {
+            return jsonCodec.readList(json, OrderItem.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Unreadable item chunk " + chunk + " of order " + orderId, e);
+        }
+    }
+    
+    @Override
+    public void deleteItemChunks(String orderId, int chunks) {
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            store.remove(RedisOrderRepository.itemChunkKey(orderId, chunk));
+        }
+    }
+    
+    @Override
+    public List<CustomerOrderRef> findByCustomer(String customerName, CustomerOrderRef after, int limit) {
+        if (!indexCustomers) {
+            throw new IllegalStateException("The customer index is disabled");
+        }
+        long now = System.currentTimeMillis();
+        trimCustomer(customerName, now - indexTtlMillis);
+        sweepCustomerIndex(now);
+        ConcurrentSkipListSet<CustomerOrderRef> refs = customerIndex.get(customerName);
+        List<CustomerOrderRef> page = new ArrayList<>(Math.min(limit, 64));
+        if (refs == null) {
+            return page;
+        }
+        for (CustomerOrderRef ref : after == null ? refs : refs.tailSet(after, false)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(ref);
+        }
+        return page;
+    }
+    
+    @Override
+    public OrderScanPage scan(String cursor, int count) {
+        long position;
+        try {
+            position = Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid scan cursor: " + cursor, e);
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("Invalid scan cursor: " + cursor);
+        }
+        OffHeapStore.ScanResult result = store.scan(position, RedisOrderRepository.ORDER_KEY_PREFIX, count);
+        
+        List<Order> orders = new ArrayList<>(result.keys().size());
+        for (String key : result.keys()) {
+            Order order = get(key.substring(RedisOrderRepository.ORDER_KEY_PREFIX.length()));
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return new OrderScanPage(orders, Long.toString(result.nextCursor()));
+    }
+    
+    public int size() {
+        return store.size();
+    }
+    
+    public long getLiveBytes() {
+        return store.liveBytes();
+    }
+    
+    public long getCapacityBytes() {
+        return store.capacityBytes();
+    }
+    
+    private void expireItemChunks(String orderId, int chunks, Duration ttl) {
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            store.update(RedisOrderRepository.itemChunkKey(orderId, chunk), json -> json, ttl.toMillis());
+        }
+    }
+    
+    // Mutations of one customer's refs run inside compute, so a set is never dropped from the
+    // map while another write adds to it
+    private void indexOrder(Order order, Duration ttl) {
+        if (order.getCustomerName() == null || order.getCreatedAt() == null) {
+            return;
+        }
+        CustomerOrderRef ref = new CustomerOrderRef(order.getOrderId(), order.getCreatedAt().toEpochMilli());
+        long now = System.currentTimeMillis();
+        long trimBefore = now - ttl.toMillis();
+        if (ttl.toMillis() > indexTtlMillis) {
+            indexTtlMillis = ttl.toMillis();
+        }
+        customerIndex.compute(order.getCustomerName(), (customerName, refs) -> {
+            if (refs == null) {
+                refs = new ConcurrentSkipListSet<>(CustomerOrderRef.NEWEST_FIRST);
+            }
+            refs.add(ref);
+            return trim(refs, trimBefore);
+        });
+        sweepCustomerIndex(now);
+    }
+    
+    // At most once per SWEEP_INTERVAL_MILLIS, on the caller that finds it due
+    private void sweepCustomerIndex(long now) {
+        long due = nextSweepMillis.get();
+        if (now < due || !nextSweepMillis.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS)) {
+            return;
+        }
+        long trimBefore = now - indexTtlMillis;
+        for (String customerName : customerIndex.keySet()) {
+            trimCustomer(customerName, trimBefore);
+        }
+    }
+    
+    private void trimCustomer(String customerName, long trimBefore) {
+        customerIndex.computeIfPresent(customerName, (name, refs) -> trim(refs, trimBefore));
+    }
+    
+    // Drops refs created at or before trimBefore; null, which removes the customer, if none are left
+    private static ConcurrentSkipListSet<CustomerOrderRef> trim(ConcurrentSkipListSet<CustomerOrderRef> refs,
+                                                                long trimBefore) {
+        while (!refs.isEmpty() && refs.last().createdAtMillis() <= trimBefore) {
+            refs.pollLast();
+        }
+        return refs.isEmpty() ? null : refs;
+    }
+    
+    // Customers with refs in the index
+    int indexedCustomers() {
+        return customerIndex.size();
+    }
+    
+    private Order readOrder(String orderId, byte[] json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return jsonCodec.read(json, Order.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Unreadable order " + orderId, e);
+        }
+    }
+    
+    private byte[] writeJson(Object value) {
+        try {
+            return jsonCodec.writeBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+}
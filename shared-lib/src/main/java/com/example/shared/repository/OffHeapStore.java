@@ -0,0 +1,262 @@
+package com.example.shared.repository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.UnaryOperator;
+
+// Byte values in direct memory with a time to live per entry. Keys hash to one of a fixed number
+// of stripes; each stripe owns an arena that values are appended to and an on-heap index of
+// key -> (offset, length, expiry), guarded by the stripe's monitor. Overwritten and expired
+// values leave dead bytes behind. When an append does not fit, the stripe compacts its arena by
+// sliding the live values down, dropping expired ones on the way. Values live outside the Java
+// heap, so a large store adds little GC work; only the index is on heap.
+final class OffHeapStore {
+    
+    // Scan cursors: the stripe index above the hash bits, the next unsigned hash below them
+    private static final int HASH_BITS = 33;
+    private static final long HASH_FIELD = (1L << HASH_BITS) - 1;
+    // Past every unsigned int hash: the stripe is done
+    private static final long HASH_END = 1L << 32;
+    
+    private final Stripe[] stripes;
+    
+    OffHeapStore(long capacityBytes, int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+        }
+        long stripeBytes = capacityBytes / stripeCount;
+        if (stripeBytes <= 0 || stripeBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity " + capacityBytes + " does not split into " + stripeCount
+                + " stripes of at most 2 GB");
+        }
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(ByteBuffer.allocateDirect((int) stripeBytes));
+        }
+    }
+    
+    // Null if the key is absent or has expired
+    byte[] get(String key) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Slot slot = stripe.live(key, System.currentTimeMillis());
+            return slot == null ? null : stripe.read(slot);
+        }
+    }
+    
+    void put(String key, byte[] value, long ttlMillis) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.write(key, value, System.currentTimeMillis() + ttlMillis);
+        }
+    }
+    
+    // Replaces the value of a live key with update(value), atomically. False if the key is absent
+    boolean update(String key, UnaryOperator<byte[]> update, long ttlMillis) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            long now = System.currentTimeMillis();
+            Slot slot = stripe.live(key, now);
+            if (slot == null) {
+                return false;
+            }
+            stripe.write(key, update.apply(stripe.read(slot)), now + ttlMillis);
+            return true;
+        }
+    }
+    
+    boolean remove(String key) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.remove(key) != null;
+        }
+    }
+    
+    // Keys starting with prefix, visited stripe by stripe in order of unsigned hashCode, so a
+    // cursor survives inserts and removals. Returns at least count keys (more when several share
+    // the last hash) unless the scan ends, and the cursor to continue from; 0 starts a scan and
+    // is returned once it is complete. Each call reads every key of the stripes it visits, so
+    // it costs about a stripe's worth of work per count keys, but holds no more than count keys
+    ScanResult scan(long cursor, String prefix, int count) {
+        int stripeIndex = (int) (cursor >>> HASH_BITS);
+        long fromHash = cursor & HASH_FIELD;
+        List<String> keys = new ArrayList<>(count);
+        
+        while (stripeIndex < stripes.length && keys.size() < count) {
+            Stripe stripe = stripes[stripeIndex];
+            long wanted = count - keys.size();
+            long lastHash;
+            synchronized (stripe) {
+                // The wanted-th smallest hash from fromHash on bounds this batch
+                PriorityQueue<Long> smallest = new PriorityQueue<>(Comparator.reverseOrder());
+                for (String key : stripe.index.keySet()) {
+                    long hash = Integer.toUnsignedLong(key.hashCode());
+                    if (hash >= fromHash && key.startsWith(prefix)) {
+                        smallest.add(hash);
+                        if (smallest.size() > wanted) {
+                            smallest.poll();
+                        }
+                    }
+                }
+                lastHash = smallest.size() < wanted ? HASH_END : smallest.peek();
+                for (String key : stripe.index.keySet()) {
+                    long hash = Integer.toUnsignedLong(key.hashCode());
+                    if (hash >= fromHash && hash <= lastHash && key.startsWith(prefix)) {
+                        keys.add(key);
+                    }
+                }
+            }
+            if (lastHash == HASH_END) {
+                stripeIndex++;
+                fromHash = 0;
+            } else {
+                fromHash = lastHash + 1;
+            }
+        }
+        long next = stripeIndex >= stripes.length ? 0 : ((long) stripeIndex << HASH_BITS) | fromHash;
+        return new ScanResult(keys, next);
+    }
+    
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.index.size();
+            }
+        }
+        return size;
+    }
+    
+    // Bytes of values not yet overwritten; expired values count until they are noticed
+    long liveBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.liveBytes;
+            }
+        }
+        return bytes;
+    }
+    
+    long capacityBytes() {
+        return (long) stripes.length * stripes[0].arena.capacity();
+    }
+    
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+    
+    record ScanResult(List<String> keys, long nextCursor) {
+    }
+    
+    private static final class Stripe {
+    
+        final ByteBuffer arena;
+        final Map<String, Slot> index = new HashMap<>();
+        int writeOffset;
+        long liveBytes;
+        
+        Stripe(ByteBuffer arena) {
+            this.arena = arena;
+        }
+        
+        Slot live(String key, long now) {
+            Slot slot = index.get(key);
+            if (slot != null && slot.expiresAtMillis <= now) {
+                remove(key);
+                return null;
+            }
+            return slot;
+        }
+        
+        byte[] read(Slot slot) {
+            byte[] value = new byte[slot.length];
+            arena.get(slot.offset, value);
+            return value;
+        }
+        
+        // A value that does not fit leaves the key's old value in place
+        void write(String key, byte[] value, long expiresAtMillis) {
+            if (writeOffset + value.length > arena.capacity()) {
+                compact();
+                // The key's old value is replaced, so its bytes count as free
+                Slot existing = index.get(key);
+                long free = arena.capacity() - liveBytes + (existing == null ? 0 : existing.length);
+                if (value.length > free) {
+                    throw new IllegalStateException("Off-heap store is full: " + value.length + " bytes do not fit into "
+                        + free + " free bytes of the stripe");
+                }
+                if (writeOffset + value.length > arena.capacity()) {
+                    remove(key);
+                    compact();
+                }
+            }
+            arena.put(writeOffset, value);
+            remove(key);
+            index.put(key, new Slot(writeOffset, value.length, expiresAtMillis));
+            writeOffset += value.length;
+            liveBytes += value.length;
+        }
+        
+        Slot remove(String key) {
+            Slot slot = index.remove(key);
+            if (slot != null) {
+                liveBytes -= slot.length;
+            }
+            return slot;
+        }
+        
+        // Moves live values to the start of the arena in their current order. Every value only
+        // moves down, so copying them in offset order never overwrites one not yet moved
+        void compact() {
+            long now = System.currentTimeMillis();
+            List<Slot> live = new ArrayList<>(index.size());
+            Iterator<Slot> slots = index.values().iterator();
+            while (slots.hasNext()) {
+                Slot slot = slots.next();
+                if (slot.expiresAtMillis <= now) {
+                    slots.remove();
+                    liveBytes -= slot.length;
+                } else {
+                    live.add(slot);
+                }
+            }
+            live.sort((a, b) -> Integer.compare(a.offset, b.offset));
+            
+            int target = 0;
+            byte[] buffer = new byte[0];
+            for (Slot slot : live) {
+                if (slot.offset != target) {
+                    if (buffer.length < slot.length) {
+                        buffer = new byte[Math.max(slot.length, 4096)];
+                    }
+                    arena.get(slot.offset, buffer, 0, slot.length);
+                    arena.put(target, buffer, 0, slot.length);
+                    slot.offset = target;
+                }
+                target += slot.length;
+            }
+            writeOffset = target;
+        }
+    }
+    
+    private static final class Slot {
+    
+        int offset;
+        final int length;
+        final long expiresAtMillis;
+        
+        Slot(int offset, int length, long expiresAtMillis) {
+            this.offset = offset;
+            this.length = length;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
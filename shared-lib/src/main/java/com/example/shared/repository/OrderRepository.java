@@ -0,0 +1,84 @@
+package com.example.shared.repository;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Order data the three services share: each order document, for rejected orders the items
+// that could not be supplied, and an index of each customer's orders by createdAt. Orders
+// ingested as a stream keep their items in numbered chunks beside a document without items.
+// Every write sets the entry's time to live. Failures of the backend, and documents that
+// cannot be read, surface as RuntimeExceptions.
+public interface OrderRepository {
+    
+    // Null if the order is not stored or has expired
+    Order get(String orderId);
+    
+    // Like get, but never older than the last acknowledged write, also one made by another
+    // service: where get may read a replica, this reads the primary
+    default Order getLatest(String orderId) {
+        return get(orderId);
+    }
+    
+    // The orders found, by orderId; missing and expired ones are left out
+    Map<String, Order> getAll(Collection<String> orderIds);
+    
+    void put(Order order, Duration ttl);
+    
+    // Stores a batch in one round trip where the backend allows it
+    void putAll(Collection<Order> orders, Duration ttl);
+    
+    // Sets the status of a stored order and restarts its ttl, and its item chunks' ttl. False if
+    // the order is not stored
+    boolean updateStatus(String orderId, OrderStatus status, Duration ttl);
+    
+    void putMissingItems(String orderId, List<MissingItem> missingItems, Duration ttl);
+    
+    // Null if none were stored for the order
+    List<MissingItem> getMissingItems(String orderId);
+    
+    // Chunks are written before the order document that names their number, so a reader that
+    // finds the document finds its chunks. Putting the document restarts their ttl with its own
+    void putItemChunk(String orderId, int chunk, List<OrderItem> items, Duration ttl);
+    
+    // Null if the chunk is not stored or has expired
+    List<OrderItem> getItemChunk(String orderId, int chunk);
+    
+    // Removes chunks 0 to chunks - 1, for an ingest abandoned before its document was written
+    void deleteItemChunks(String orderId, int chunks);
+    
+    // The order's items chunk by chunk: the document's own items as one chunk, or for an order
+    // with itemChunks each stored chunk, read only when the stream reaches it. A chunk that is
+    // gone fails the stream with an IllegalStateException
+    default Stream<List<OrderItem>> streamItems(Order order) {
+        if (order.getItemChunks() == null) {
+            return Stream.of(order.getItems());
+        }
+        String orderId = order.getOrderId();
+        return IntStream.range(0, order.getItemChunks()).mapToObj(chunk -> {
+            List<OrderItem> items = getItemChunk(orderId, chunk);
+            if (items == null) {
+                throw new IllegalStateException("Item chunk " + chunk + " of order " + orderId + " is not stored");
+            }
+            return items;
+        });
+    }
+    
+    // Up to limit of the customer's orders from the index put and putAll maintain, in
+    // CustomerOrderRef.NEWEST_FIRST order, starting after the given ref (null for the newest).
+    // Refs can outlive their orders by a little; callers skip orders get no longer finds
+    List<CustomerOrderRef> findByCustomer(String customerName, CustomerOrderRef after, int limit);
+    
+    // One batch of a scan over all stored orders, about count of them, starting at cursor
+    // (OrderScanPage.SCAN_START for a new scan). Like Redis SCAN: an order stored for the whole
+    // scan is returned at least once, maybe more; orders stored or expiring meanwhile may be missed
+    OrderScanPage scan(String cursor, int count);
+}
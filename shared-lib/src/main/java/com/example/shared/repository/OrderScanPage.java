@@ -0,0 +1,15 @@
+package com.example.shared.repository;
+
+import com.example.shared.dto.Order;
+
+import java.util.List;
+
+// One batch of OrderRepository.scan. The scan is complete when nextCursor is SCAN_START again
+public record OrderScanPage(List<Order> orders, String nextCursor) {
+    
+    public static final String SCAN_START = "0";
+    
+    public boolean isComplete() {
+        return SCAN_START.equals(nextCursor);
+    }
+}
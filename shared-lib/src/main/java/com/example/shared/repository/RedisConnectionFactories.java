@@ -0,0 +1,71 @@
+package com.example.shared.repository;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+// The Lettuce connection factory for a standalone server, a primary with replicas or a cluster,
+// shared by the services' RedisConfig and the load tests so both connect the same way
+public final class RedisConnectionFactories {
+    
+    private RedisConnectionFactories() {}
+    
+    public static LettuceConnectionFactory standalone(String host, int port) {
+        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+    }
+    
+    // A primary and its replicas, comma-separated host:port, with reads sent where readFrom says.
+    // Writes on it still go to the primary. Lettuce asks each node its ROLE at connect time
+    public static LettuceConnectionFactory replicated(String host, int port, String replicas, ReadFrom readFrom) {
+        RedisStaticMasterReplicaConfiguration config = new RedisStaticMasterReplicaConfiguration(host, port);
+        for (String replica : split(replicas, "replica")) {
+            int separator = replica.lastIndexOf(':');
+            config.node(replica.substring(0, separator), Integer.parseInt(replica.substring(separator + 1)));
+        }
+        return new LettuceConnectionFactory(config, LettuceClientConfiguration.builder().readFrom(readFrom).build());
+    }
+    
+    public static LettuceConnectionFactory cluster(String nodes, int maxRedirects, Duration topologyRefreshPeriod) {
+        return cluster(nodes, maxRedirects, topologyRefreshPeriod, ReadFrom.UPSTREAM);
+    }
+    
+    // nodes are comma-separated host:port seeds; the rest of the topology is discovered from them.
+    // MOVED and ASK are followed up to maxRedirects times, and any redirect or reconnect also
+    // refreshes the topology, so a failover or resharding is picked up without waiting for the
+    // periodic refresh. Reads go to the nodes readFrom selects among each slot's master and replicas
+    public static LettuceConnectionFactory cluster(String nodes, int maxRedirects, Duration topologyRefreshPeriod,
+                                                   ReadFrom readFrom) {
+        RedisClusterConfiguration config = new RedisClusterConfiguration(split(nodes, "cluster"));
+        config.setMaxRedirects(maxRedirects);
+        
+        ClusterTopologyRefreshOptions refreshOptions = ClusterTopologyRefreshOptions.builder()
+            .enablePeriodicRefresh(topologyRefreshPeriod)
+            .enableAllAdaptiveRefreshTriggers()
+            .build();
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+            .clientOptions(ClusterClientOptions.builder()
+                .topologyRefreshOptions(refreshOptions)
+                .maxRedirects(maxRedirects)
+                .build())
+            .readFrom(readFrom)
+            .build();
+        return new LettuceConnectionFactory(config, clientConfig);
+    }
+    
+    private static List<String> split(String nodes, String kind) {
+        List<String> list = Arrays.stream(nodes.split(",")).map(String::trim).filter(node -> !node.isEmpty()).toList();
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("No Redis " + kind + " nodes given");
+        }
+        return list;
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.shared.repository;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+// Orders as JSON strings under order:{orderId}, missing items under missingItems:{orderId}, and
+// the item chunks of streamed orders as JSON arrays under orderItems:{orderId}:{chunk}. The
+// customer index is a sorted set per customer, customerOrders:{customerName}, of orderIds scored
+// by createdAt millis; entries older than the ttl are trimmed on each write. putAll writes orders
+// and index in one pipeline. A pipeline takes a dedicated connection, which Lettuce opens per
+// call without a pool, so put sends its commands one by one on the shared connection instead.
+//
+// On a Redis Cluster the orderId is written as a hash tag, order:{orderId}, missingItems:{orderId}
+// and orderItems:{orderId}:{chunk}, so all keys of one order share a slot and multi-key commands
+// on them stay on one node. getAll goes through Lettuce's cluster MGET, which sends one MGET per
+// slot to the owning nodes concurrently, and pipelines are split by Lettuce per node.
+public class RedisOrderRepository implements OrderRepository {
+    
+    public static final String ORDER_KEY_PREFIX = "order:";
+    public static final String MISSING_ITEMS_KEY_PREFIX = "missingItems:";
+    public static final String CUSTOMER_ORDERS_KEY_PREFIX = "customerOrders:";
+    // Not under order: so scans of order:* only see order documents
+    public static final String ORDER_ITEMS_KEY_PREFIX = "orderItems:";
+    
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JsonCodec jsonCodec;
+    private final boolean indexCustomers;
+    private final boolean hashTags;
+    
+    public RedisOrderRepository(RedisTemplate<String, String> redisTemplate, JsonCodec jsonCodec) {
+        this(redisTemplate, jsonCodec, true);
+    }
+    
+    // Without the customer index each put is a single SET, and findByCustomer fails
+    public RedisOrderRepository(RedisTemplate<String, String> redisTemplate, JsonCodec jsonCodec, boolean indexCustomers) {
+        this(redisTemplate, jsonCodec, indexCustomers, false);
+    }
+    
+    // hashTags selects the cluster key scheme; both schemes read each other's scans, but not
+    // each other's orders, so all services of a deployment must use the same one
+    public RedisOrderRepository(RedisTemplate<String, String> redisTemplate, JsonCodec jsonCodec, boolean indexCustomers,
+                                boolean hashTags) {
+        this.redisTemplate = redisTemplate;
+        this.jsonCodec = jsonCodec;
+        this.indexCustomers = indexCustomers;
+        this.hashTags = hashTags;
+    }
+    
+    @Override
+    public Order get(String orderId) {
+        return readOrder(orderId, redisTemplate.opsForValue().get(orderKey(orderId)));
+    }
+    
+    @Override
+    public Map<String, Order> getAll(Collection<String> orderIds) {
+        List<String> ids = new ArrayList<>(orderIds);
+        Map<String, Order> orders = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return orders;
+        }
+        
+        // Spring Data Redis answers a cross-slot MGET on a cluster with one GET per key from a
+        // thread pool, so the MGET goes through the native connection, which batches per slot
+        byte[][] keys = ids.stream().map(orderId -> orderKey(orderId).getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+        List<KeyValue<byte[], byte[]>> values = redisTemplate.execute(
+            (RedisCallback<List<KeyValue<byte[], byte[]>>>) connection -> await(nativeCommands(connection).mget(keys),
+                "read " + keys.length + " orders"));
+        for (int i = 0; values != null && i < ids.size(); i++) {
+            Order order = readOrder(ids.get(i), values.get(i).hasValue() ? readValue(values.get(i).getValue()) : null);
+            if (order != null) {
+                orders.put(ids.get(i), order);
+            }
+        }
+        return orders;
+    }
+    
+    @Override
+    public void put(Order order, Duration ttl) {
+        writeOrder(order, ttl);
+        if (order.getItemChunks() != null) {
+            expireItemChunks(order.getOrderId(), order.getItemChunks(), ttl);
+        }
+        if (indexCustomers) {
+            indexOrder(redisTemplate, order, ttl, System.currentTimeMillis() - ttl.toMillis());
+        }
+    }
+    
+    @Override
+    public void putAll(Collection<Order> orders, Duration ttl) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Order order : orders) {
+            values.put(orderKey(order.getOrderId()), writeJson(order));
+        }
+        long trimBefore = System.currentTimeMillis() - ttl.toMillis();
+        
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                values.forEach((key, value) -> stringOperations.opsForValue().set(key, value, ttl));
+                for (Order order : orders) {
+                    if (order.getItemChunks() != null) {
+                        expireItemChunks(stringOperations, order.getOrderId(), order.getItemChunks(), ttl);
+                    }
+                    if (indexCustomers) {
+                        indexOrder(stringOperations, order, ttl, trimBefore);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+    
+    // Read-modify-write without a transaction, so of two concurrent updates the last one wins
+    @Override
+    public boolean updateStatus(String orderId, OrderStatus status, Duration ttl) {
+        Order order = get(orderId);
+        if (order == null) {
+            return false;
+        }
+        order.setStatus(status);
+        // The customer and createdAt did not change, so neither did the index entry
+        writeOrder(order, ttl);
+        if (order.getItemChunks() != null) {
+            expireItemChunks(orderId, order.getItemChunks(), ttl);
+        }
+        return true;
+    }
+    
+    @Override
+    public void putMissingItems(String orderId, List<MissingItem> missingItems, Duration ttl) {
+        redisTemplate.opsForValue().set(missingItemsKey(orderId), writeJson(missingItems), ttl);
+    }
+    
+    @Override
+    public List<MissingItem> getMissingItems(String orderId) {
+        String json = redisTemplate.opsForValue().get(missingItemsKey(orderId));
+        if (json == null) {
+            return null;
+        }
+        try {
+            return jsonCodec.readList(json, MissingItem.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable missing items for order " + orderId, e);
+        }
+    }
+    
+    @Override
+    public void putItemChunk(String orderId, int chunk, List<OrderItem> items, Duration ttl) {
+        redisTemplate.opsForValue().set(itemChunkKey(tag(orderId), chunk), writeJson(items), ttl);
+    }
+    
+    @Override
+    public List<OrderItem> getItemChunk(String orderId, int chunk) {
+        String json = redisTemplate.opsForValue().get(itemChunkKey(tag(orderId), chunk));
+        if (json == null) {
+            return null;
+        }
+        try {
+            return jsonCodec.readList(json, OrderItem.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable item chunk " + chunk + " of order " + orderId, e);
+        }
+    }
+    
+    @Override
+    public void deleteItemChunks(String orderId, int chunks) {
+        List<String> keys = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            keys.add(itemChunkKey(tag(orderId), chunk));
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+    
+    @Override
+    public List<CustomerOrderRef> findByCustomer(String customerName, CustomerOrderRef after, int limit) {
+        if (!indexCustomers) {
+            throw new IllegalStateException("The customer index is disabled");
+        }
+        String key = CUSTOMER_ORDERS_KEY_PREFIX + customerName;
+        double max = after == null ? Double.POSITIVE_INFINITY : after.createdAtMillis();
+        List<CustomerOrderRef> refs = new ArrayList<>(limit);
+        
+        // Orders created in the cursor's millisecond are returned again by the range and skipped
+        // here, so a page may take more than one ZREVRANGEBYSCORE
+        long offset = 0;
+        while (refs.size() < limit) {
+            Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, max, offset, limit);
+            if (tuples == null || tuples.isEmpty()) {
+                break;
+            }
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                CustomerOrderRef ref = new CustomerOrderRef(tuple.getValue(), tuple.getScore().longValue());
+                if ((after == null || CustomerOrderRef.NEWEST_FIRST.compare(ref, after) > 0) && refs.size() < limit) {
+                    refs.add(ref);
+                }
+            }
+            if (tuples.size() < limit) {
+                break;
+            }
+            offset += tuples.size();
+        }
+        return refs;
+    }
+    
+    // SCAN MATCH order:* then one MGET for the keys it returned. Spring Data Redis only scans
+    // from the start, so the cursor goes through the native Lettuce connection
+    @Override
+    public OrderScanPage scan(String cursor, int count) {
+        // Checked up front: Redis would reject a malformed cursor with a server error
+        validateCursor(cursor);
+        ScanArgs args = ScanArgs.Builder.matches(ORDER_KEY_PREFIX + "*").limit(count);
+        KeyPage page = redisTemplate.execute((RedisCallback<KeyPage>) connection -> {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = nativeCommands(connection);
+            if (commands instanceof RedisAdvancedClusterAsyncCommands<byte[], byte[]> cluster) {
+                return scanCluster(cluster, cursor, args);
+            }
+            KeyScanCursor<byte[]> keys = await(commands.scan(ScanCursor.of(cursor), args), "scan orders from cursor " + cursor);
+            return new KeyPage(keys.getKeys(), keys.isFinished() ? OrderScanPage.SCAN_START : keys.getCursor());
+        });
+        
+        List<String> orderIds = new ArrayList<>(page.keys().size());
+        for (byte[] key : page.keys()) {
+            String orderId = new String(key, StandardCharsets.UTF_8).substring(ORDER_KEY_PREFIX.length());
+            // Keys of either scheme are accepted, so a scan still finds orders written before a switch
+            orderIds.add(orderId.startsWith("{") && orderId.endsWith("}") ? orderId.substring(1, orderId.length() - 1) : orderId);
+        }
+        return new OrderScanPage(new ArrayList<>(getAll(orderIds).values()), page.nextCursor());
+    }
+    
+    // Each master has its own keyspace and SCAN cursor, so a cluster is scanned one master at a
+    // time in slot order and the cursor is {master}:{cursor on that master}. A failover or
+    // resharding during the scan may repeat or miss orders, as the master's cursor no longer applies
+    private KeyPage scanCluster(RedisAdvancedClusterAsyncCommands<byte[], byte[]> cluster, String cursor, ScanArgs args) {
+        List<RedisClusterNode> masters = cluster.getStatefulConnection().getPartitions().stream()
+            .filter(node -> node.is(RedisClusterNode.NodeFlag.UPSTREAM) && !node.getSlots().isEmpty())
+            .sorted(Comparator.comparingInt(node -> node.getSlots().get(0)))
+            .toList();
+        int master = 0;
+        String masterCursor = OrderScanPage.SCAN_START;
+        if (!OrderScanPage.SCAN_START.equals(cursor)) {
+            int separator = cursor.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Not a cluster scan cursor: " + cursor);
+            }
+            master = Integer.parseInt(cursor.substring(0, separator));
+            masterCursor = cursor.substring(separator + 1);
+        }
+        if (master >= masters.size()) {
+            throw new IllegalArgumentException("Cursor " + cursor + " names a master the cluster no longer has");
+        }
+        
+        KeyScanCursor<byte[]> keys = await(cluster.getConnection(masters.get(master).getNodeId())
+            .scan(ScanCursor.of(masterCursor), args), "scan orders from cursor " + cursor);
+        if (!keys.isFinished()) {
+            return new KeyPage(keys.getKeys(), master + ":" + keys.getCursor());
+        }
+        return new KeyPage(keys.getKeys(), master + 1 < masters.size()
+            ? (master + 1) + ":" + OrderScanPage.SCAN_START : OrderScanPage.SCAN_START);
+    }
+    
+    // A SCAN cursor is an unsigned 64-bit number; a cluster cursor is {master}:{cursor}
+    private static void validateCursor(String cursor) {
+        int separator = cursor.indexOf(':');
+        try {
+            if (separator >= 0 && Integer.parseInt(cursor.substring(0, separator)) < 0) {
+                throw new IllegalArgumentException("Invalid scan cursor: " + cursor);
+            }
+            Long.parseUnsignedLong(cursor.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid scan cursor: " + cursor, e);
+        }
+    }
+    
+    private void writeOrder(Order order, Duration ttl) {
+        redisTemplate.opsForValue().set(orderKey(order.getOrderId()), writeJson(order), ttl);
+    }
+    
+    // With hash tags Redis Cluster only hashes the part between the braces, the orderId
+    private String tag(String orderId) {
+        return hashTags ? "{" + orderId + "}" : orderId;
+    }
+    
+    private String orderKey(String orderId) {
+        return ORDER_KEY_PREFIX + tag(orderId);
+    }
+    
+    private String missingItemsKey(String orderId) {
+        return MISSING_ITEMS_KEY_PREFIX + tag(orderId);
+    }
+    
+    // One EXPIRE per chunk, pipelined: a streamed order can have thousands
+    private void expireItemChunks(String orderId, int chunks, Duration ttl) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                expireItemChunks((RedisOperations<String, String>) operations, orderId, chunks, ttl);
+                return null;
+            }
+        });
+    }
+    
+    private void expireItemChunks(RedisOperations<String, String> operations, String orderId, int chunks, Duration ttl) {
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            operations.expire(itemChunkKey(tag(orderId), chunk), ttl);
+        }
+    }
+    
+    static String itemChunkKey(String orderId, int chunk) {
+        return ORDER_ITEMS_KEY_PREFIX + orderId + ":" + chunk;
+    }
+    
+    // RedisAsyncCommands on a standalone server, RedisAdvancedClusterAsyncCommands on a cluster
+    @SuppressWarnings("unchecked")
+    private static RedisClusterAsyncCommands<byte[], byte[]> nativeCommands(RedisConnection connection) {
+        return (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+    
+    // Through the template's value serializer, so legacy JSON-encoded values are read as on a GET
+    @SuppressWarnings("unchecked")
+    private String readValue(byte[] value) {
+        return ((RedisSerializer<String>) redisTemplate.getValueSerializer()).deserialize(value);
+    }
+    
+    private static <T> T await(RedisFuture<T> future, String action) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while trying to " + action, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to " + action, e.getCause());
+        }
+    }
+    
+    private static void indexOrder(RedisOperations<String, String> operations, Order order, Duration ttl, long trimBefore) {
+        if (order.getCustomerName() == null || order.getCreatedAt() == null) {
+            return;
+        }
+        String key = CUSTOMER_ORDERS_KEY_PREFIX + order.getCustomerName();
+        operations.opsForZSet().add(key, order.getOrderId(), order.getCreatedAt().toEpochMilli());
+        operations.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, trimBefore);
+        operations.expire(key, ttl);
+    }
+    
+    private Order readOrder(String orderId, String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return jsonCodec.read(json, Order.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable order " + orderId, e);
+        }
+    }
+    
+    private String writeJson(Object value) {
+        try {
+            return jsonCodec.writeString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+    
+    private record KeyPage(List<byte[]> keys, String nextCursor) {
+    }
+}
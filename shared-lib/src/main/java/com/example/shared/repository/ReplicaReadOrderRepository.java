@@ -0,0 +1,215 @@
+package com.example.shared.repository;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Writes through the primary repository and reads through one whose connection prefers
+// replicas, so status and notification reads do not compete with writes on the primary.
+// Replicas lag the primary, which leaves two kinds of stale read:
+// - an entry not replicated yet reads as missing, so a miss on the replica is retried on the
+//   primary;
+// - an order this instance changed within readYourWritesWindow can read as its previous
+//   version, so such orders, and the index of customers it added orders for, are read from
+//   the primary.
+// Writes made by another service are not tracked here; readers that know what to expect use
+// getLatest. Chunks and missing items are written once, so the miss fallback covers them.
+public class ReplicaReadOrderRepository implements OrderRepository {
+    
+    private static final String CUSTOMER_KEY_PREFIX = "customer:";
+    
+    private final OrderRepository primary;
+    private final OrderRepository replica;
+    private final long windowNanos;
+    // Key to the nanoTime until which it is read from the primary
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+    // The same entries in write order, for eviction; the window is fixed so deadlines only grow
+    private final Queue<RecentWrite> writeOrder = new ConcurrentLinkedQueue<>();
+    private final Counter replicaReads;
+    private final Counter recentWriteReads;
+    private final Counter replicaMisses;
+    private final Counter latestReads;
+    
+    public ReplicaReadOrderRepository(OrderRepository primary, OrderRepository replica, Duration readYourWritesWindow,
+                                      MeterRegistry registry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.windowNanos = readYourWritesWindow.toNanos();
+        this.replicaReads = reads(registry, "replica");
+        this.recentWriteReads = reads(registry, "recent-write");
+        this.replicaMisses = reads(registry, "replica-miss");
+        this.latestReads = reads(registry, "latest");
+    }
+    
+    @Override
+    public Order get(String orderId) {
+        if (writtenRecently(orderId)) {
+            recentWriteReads.increment();
+            return primary.get(orderId);
+        }
+        replicaReads.increment();
+        Order order = replica.get(orderId);
+        if (order == null) {
+            replicaMisses.increment();
+            return primary.get(orderId);
+        }
+        return order;
+    }
+    
+    @Override
+    public Order getLatest(String orderId) {
+        latestReads.increment();
+        return primary.get(orderId);
+    }
+    
+    @Override
+    public Map<String, Order> getAll(Collection<String> orderIds) {
+        List<String> fromPrimary = new ArrayList<>();
+        List<String> fromReplica = new ArrayList<>();
+        for (String orderId : orderIds) {
+            (writtenRecently(orderId) ? fromPrimary : fromReplica).add(orderId);
+        }
+        recentWriteReads.increment(fromPrimary.size());
+        replicaReads.increment(fromReplica.size());
+        
+        Map<String, Order> found = new LinkedHashMap<>(replica.getAll(fromReplica));
+        for (String orderId : fromReplica) {
+            if (!found.containsKey(orderId)) {
+                fromPrimary.add(orderId);
+                replicaMisses.increment();
+            }
+        }
+        if (!fromPrimary.isEmpty()) {
+            found.putAll(primary.getAll(fromPrimary));
+        }
+        
+        // In the order asked for, like the backends
+        Map<String, Order> orders = new LinkedHashMap<>();
+        for (String orderId : orderIds) {
+            Order order = found.get(orderId);
+            if (order != null) {
+                orders.put(orderId, order);
+            }
+        }
+        return orders;
+    }
+    
+    @Override
+    public void put(Order order, Duration ttl) {
+        primary.put(order, ttl);
+        recordWrite(order);
+    }
+    
+    @Override
+    public void putAll(Collection<Order> orders, Duration ttl) {
+        primary.putAll(orders, ttl);
+        orders.forEach(this::recordWrite);
+    }
+    
+    @Override
+    public boolean updateStatus(String orderId, OrderStatus status, Duration ttl) {
+        boolean updated = primary.updateStatus(orderId, status, ttl);
+        recordWrite(orderId);
+        return updated;
+    }
+    
+    @Override
+    public void putMissingItems(String orderId, List<MissingItem> missingItems, Duration ttl) {
+        primary.putMissingItems(orderId, missingItems, ttl);
+    }
+    
+    @Override
+    public List<MissingItem> getMissingItems(String orderId) {
+        replicaReads.increment();
+        List<MissingItem> missingItems = replica.getMissingItems(orderId);
+        if (missingItems == null) {
+            replicaMisses.increment();
+            return primary.getMissingItems(orderId);
+        }
+        return missingItems;
+    }
+    
+    @Override
+    public void putItemChunk(String orderId, int chunk, List<OrderItem> items, Duration ttl) {
+        primary.putItemChunk(orderId, chunk, items, ttl);
+    }
+    
+    @Override
+    public List<OrderItem> getItemChunk(String orderId, int chunk) {
+        replicaReads.increment();
+        List<OrderItem> items = replica.getItemChunk(orderId, chunk);
+        if (items == null) {
+            replicaMisses.increment();
+            return primary.getItemChunk(orderId, chunk);
+        }
+        return items;
+    }
+    
+    @Override
+    public void deleteItemChunks(String orderId, int chunks) {
+        primary.deleteItemChunks(orderId, chunks);
+    }
+    
+    // A lagging index misses the newest orders rather than failing, so only customers this
+    // instance just added an order for go to the primary
+    @Override
+    public List<CustomerOrderRef> findByCustomer(String customerName, CustomerOrderRef after, int limit) {
+        if (writtenRecently(CUSTOMER_KEY_PREFIX + customerName)) {
+            recentWriteReads.increment();
+            return primary.findByCustomer(customerName, after, limit);
+        }
+        replicaReads.increment();
+        return replica.findByCustomer(customerName, after, limit);
+    }
+    
+    // Scans are weakly consistent anyway, so the whole scan reads the replica
+    @Override
+    public OrderScanPage scan(String cursor, int count) {
+        return replica.scan(cursor, count);
+    }
+    
+    private void recordWrite(Order order) {
+        recordWrite(order.getOrderId());
+        if (order.getCustomerName() != null) {
+            recordWrite(CUSTOMER_KEY_PREFIX + order.getCustomerName());
+        }
+    }
+    
+    private void recordWrite(String key) {
+        long now = System.nanoTime();
+        long deadline = now + windowNanos;
+        recentWrites.put(key, deadline);
+        writeOrder.add(new RecentWrite(key, deadline));
+        
+        RecentWrite oldest;
+        while ((oldest = writeOrder.peek()) != null && oldest.deadline() - now <= 0) {
+            writeOrder.poll();
+            recentWrites.remove(oldest.key(), oldest.deadline());
+        }
+    }
+    
+    private boolean writtenRecently(String key) {
+        Long deadline = recentWrites.get(key);
+        return deadline != null && deadline - System.nanoTime() > 0;
+    }
+    
+    private static Counter reads(MeterRegistry registry, String route) {
+        return Counter.builder("order.repository.reads").tag("route", route).register(registry);
+    }
+    
+    private record RecentWrite(String key, long deadline) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.shared.serde;
+
+public interface BinaryEventCodec<T> {
+    
+    byte[] encode(T event);
+    
+    T decode(byte[] data);
+}
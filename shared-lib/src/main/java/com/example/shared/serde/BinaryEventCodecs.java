@@ -0,0 +1,21 @@
+package com.example.shared.serde;
+
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+
+import java.util.Map;
+
+public final class BinaryEventCodecs {
+    
+    private static final Map<Class<?>, BinaryEventCodec<?>> CODECS = Map.of(
+        OrderEvent.class, new OrderEventCodec(),
+        InventoryCheckResultEvent.class, new InventoryCheckResultEventCodec()
+    );
+    
+    private BinaryEventCodecs() {}
+    
+    @SuppressWarnings("unchecked")
+    public static <T> BinaryEventCodec<T> forType(Class<T> type) {
+        return (BinaryEventCodec<T>) CODECS.get(type);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.shared.serde;
+
+// Binary event envelope: [magic][version][type id] followed by tagged fields.
+//
+// Compatibility rules for changing an event:
+//  - add fields under new field numbers; older readers skip them (forward compatible)
+//  - a field missing from the payload decodes as null, so newer readers accept older
+//    payloads (backward compatible)
+//  - never reuse or change the type of a field number; retire removed numbers for good
+//  - new OrderStatus codes need every reader deployed before any writer uses them
+//  - VERSION only changes for an incompatible envelope change; readers reject newer versions
+public final class BinaryEventFormat {
+    
+    // JSON payloads start with '{' or whitespace, so the magic byte is enough to tell them apart
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte VERSION = 1;
+    public static final int HEADER_LENGTH = 3;
+    
+    public static final int WIRE_VARINT = 0;
+    public static final int WIRE_LENGTH_DELIMITED = 2;
+    
+    public static final int TYPE_ORDER_EVENT = 1;
+    public static final int TYPE_INVENTORY_CHECK_RESULT_EVENT = 2;
+    
+    private BinaryEventFormat() {}
+    
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+}
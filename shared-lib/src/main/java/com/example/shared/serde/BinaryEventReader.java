@@ -0,0 +1,105 @@
+package com.example.shared.serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+// Iterates the tagged fields of a binary envelope. Callers switch on field() and call
+// skip() for anything they do not recognise
+public class BinaryEventReader {
+    
+    private final byte[] data;
+    private int position;
+    private int field;
+    private int wireType;
+    
+    public BinaryEventReader(byte[] data, int expectedTypeId) {
+        if (!BinaryEventFormat.isBinary(data) || data.length < BinaryEventFormat.HEADER_LENGTH) {
+            throw new SerializationException("Not a binary event payload");
+        }
+        int version = data[1] & 0xFF;
+        if (version > BinaryEventFormat.VERSION) {
+            throw new SerializationException("Unsupported binary event version " + version
+                + " (supported up to " + BinaryEventFormat.VERSION + ")");
+        }
+        int typeId = data[2] & 0xFF;
+        if (typeId != expectedTypeId) {
+            throw new SerializationException("Binary event type " + typeId + " does not match expected type " + expectedTypeId);
+        }
+        this.data = data;
+        this.position = BinaryEventFormat.HEADER_LENGTH;
+    }
+    
+    public boolean next() {
+        if (position >= data.length) {
+            return false;
+        }
+        long key = readVarint();
+        field = (int) (key >>> 3);
+        wireType = (int) (key & 0x7);
+        return true;
+    }
+    
+    public int field() {
+        return field;
+    }
+    
+    public String readString() {
+        expect(BinaryEventFormat.WIRE_LENGTH_DELIMITED);
+        int length = readLength();
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+    
+    public long readLong() {
+        expect(BinaryEventFormat.WIRE_VARINT);
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    public void skip() {
+        switch (wireType) {
+            case BinaryEventFormat.WIRE_VARINT -> readVarint();
+            case BinaryEventFormat.WIRE_LENGTH_DELIMITED -> {
+                int length = readLength();
+                position += length;
+            }
+            default -> throw new SerializationException("Unknown wire type " + wireType + " for field " + field);
+        }
+    }
+    
+    public static Instant toInstant(Long seconds, long nanos) {
+        return seconds == null ? null : Instant.ofEpochSecond(seconds, nanos);
+    }
+    
+    private void expect(int expectedWireType) {
+        if (wireType != expectedWireType) {
+            throw new SerializationException("Field " + field + " has wire type " + wireType + ", expected " + expectedWireType);
+        }
+    }
+    
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > data.length - position) {
+            throw new SerializationException("Truncated binary event payload");
+        }
+        return (int) length;
+    }
+    
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= data.length) {
+                throw new SerializationException("Truncated binary event payload");
+            }
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in binary event payload");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.shared.serde;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+// Writes the binary envelope and its tagged fields. Field keys follow the protobuf layout
+// (field number << 3 | wire type) so readers can skip fields they do not know
+public class BinaryEventWriter {
+    
+    private byte[] buffer;
+    private int position;
+    
+    public BinaryEventWriter(int typeId, int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 8)];
+        buffer[position++] = BinaryEventFormat.MAGIC;
+        buffer[position++] = BinaryEventFormat.VERSION;
+        buffer[position++] = (byte) typeId;
+    }
+    
+    public BinaryEventWriter writeString(int field, String value) {
+        if (value == null) {
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeKey(field, BinaryEventFormat.WIRE_LENGTH_DELIMITED);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+    
+    public BinaryEventWriter writeLong(int field, long value) {
+        writeKey(field, BinaryEventFormat.WIRE_VARINT);
+        writeVarint(zigZag(value));
+        return this;
+    }
+    
+    // Instants take two fields: epoch seconds and, when non-zero, the nano adjustment
+    public BinaryEventWriter writeInstant(int secondsField, int nanosField, Instant value) {
+        if (value == null) {
+            return this;
+        }
+        writeLong(secondsField, value.getEpochSecond());
+        if (value.getNano() != 0) {
+            writeLong(nanosField, value.getNano());
+        }
+        return this;
+    }
+    
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+    
+    private void writeKey(int field, int wireType) {
+        writeVarint(((long) field << 3) | wireType);
+    }
+    
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+    
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.shared.serde;
+
+import com.example.shared.json.JsonMappers;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+// Reads both binary envelopes and legacy JSON, so consumers can be upgraded before producers switch format
+public class EventDeserializer<T> implements Deserializer<T> {
+    
+    private final JsonDeserializer<T> jsonDeserializer;
+    private final BinaryEventCodec<T> codec;
+    
+    public EventDeserializer(Class<T> targetType) {
+        this.jsonDeserializer = new JsonDeserializer<>(targetType, JsonMappers.shared());
+        this.codec = BinaryEventCodecs.forType(targetType);
+        if (codec == null) {
+            throw new IllegalArgumentException("No binary codec for " + targetType.getName());
+        }
+    }
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+    
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+    
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (BinaryEventFormat.isBinary(data)) {
+            return codec.decode(data);
+        }
+        return headers == null ? jsonDeserializer.deserialize(topic, data) : jsonDeserializer.deserialize(topic, headers, data);
+    }
+    
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
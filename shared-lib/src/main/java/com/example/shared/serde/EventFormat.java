@@ -0,0 +1,18 @@
+package com.example.shared.serde;
+
+import java.util.Locale;
+
+public enum EventFormat {
+    JSON,
+    BINARY;
+    
+    public static EventFormat from(Object value) {
+        if (value == null) {
+            return JSON;
+        }
+        if (value instanceof EventFormat format) {
+            return format;
+        }
+        return EventFormat.valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+    }
+}
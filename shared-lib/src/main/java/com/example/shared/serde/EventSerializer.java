@@ -0,0 +1,68 @@
+package com.example.shared.serde;
+
+import com.example.shared.json.JsonMappers;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Writes shared-lib events as legacy JSON or the binary envelope, chosen per topic.
+// JSON output is produced by Spring's JsonSerializer so existing consumers keep working
+public class EventSerializer<T> implements Serializer<T> {
+    
+    public static final String DEFAULT_FORMAT = "event.serde.format.default";
+    public static final String FORMAT_PREFIX = "event.serde.format.topic.";
+    
+    private final JsonSerializer<T> jsonSerializer = new JsonSerializer<>(JsonMappers.shared());
+    private final Map<String, EventFormat> topicFormats = new HashMap<>();
+    private EventFormat defaultFormat = EventFormat.JSON;
+    
+    public static String formatConfig(String topic) {
+        return FORMAT_PREFIX + topic;
+    }
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        defaultFormat = EventFormat.from(configs.get(DEFAULT_FORMAT));
+        configs.forEach((key, value) -> {
+            if (key.startsWith(FORMAT_PREFIX)) {
+                topicFormats.put(key.substring(FORMAT_PREFIX.length()), EventFormat.from(value));
+            }
+        });
+        jsonSerializer.configure(configs, isKey);
+    }
+    
+    @Override
+    public byte[] serialize(String topic, T data) {
+        return serialize(topic, null, data);
+    }
+    
+    @Override
+    public byte[] serialize(String topic, Headers headers, T data) {
+        if (data == null) {
+            return null;
+        }
+        if (formatFor(topic) == EventFormat.JSON) {
+            return headers == null ? jsonSerializer.serialize(topic, data) : jsonSerializer.serialize(topic, headers, data);
+        }
+        
+        @SuppressWarnings("unchecked")
+        BinaryEventCodec<T> codec = (BinaryEventCodec<T>) BinaryEventCodecs.forType(data.getClass());
+        if (codec == null) {
+            throw new SerializationException("No binary codec for " + data.getClass().getName());
+        }
+        return codec.encode(data);
+    }
+    
+    EventFormat formatFor(String topic) {
+        return topicFormats.getOrDefault(topic, defaultFormat);
+    }
+    
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
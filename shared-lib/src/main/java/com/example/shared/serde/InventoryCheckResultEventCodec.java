@@ -0,0 +1,65 @@
+package com.example.shared.serde;
+
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+public class InventoryCheckResultEventCodec implements BinaryEventCodec<InventoryCheckResultEvent> {
+    
+    // Field numbers are part of the wire format, see BinaryEventFormat before changing them
+    static final int ORDER_ID = 1;
+    static final int STATUS = 2;
+    static final int TIMESTAMP_SECONDS = 3;
+    static final int TIMESTAMP_NANOS = 4;
+    
+    @Override
+    public byte[] encode(InventoryCheckResultEvent event) {
+        BinaryEventWriter writer = new BinaryEventWriter(BinaryEventFormat.TYPE_INVENTORY_CHECK_RESULT_EVENT, 40)
+            .writeString(ORDER_ID, event.getOrderId());
+        if (event.getStatus() != null) {
+            writer.writeLong(STATUS, statusCode(event.getStatus()));
+        }
+        return writer
+            .writeInstant(TIMESTAMP_SECONDS, TIMESTAMP_NANOS, event.getTimestamp())
+            .toByteArray();
+    }
+    
+    @Override
+    public InventoryCheckResultEvent decode(byte[] data) {
+        BinaryEventReader reader = new BinaryEventReader(data, BinaryEventFormat.TYPE_INVENTORY_CHECK_RESULT_EVENT);
+        InventoryCheckResultEvent event = new InventoryCheckResultEvent();
+        Long seconds = null;
+        long nanos = 0;
+        
+        while (reader.next()) {
+            switch (reader.field()) {
+                case ORDER_ID -> event.setOrderId(reader.readString());
+                case STATUS -> event.setStatus(status(reader.readLong()));
+                case TIMESTAMP_SECONDS -> seconds = reader.readLong();
+                case TIMESTAMP_NANOS -> nanos = reader.readLong();
+                default -> reader.skip();
+            }
+        }
+        
+        event.setTimestamp(BinaryEventReader.toInstant(seconds, nanos));
+        return event;
+    }
+    
+    // Stable codes instead of ordinals so reordering the enum cannot change the wire format
+    private static int statusCode(OrderStatus status) {
+        return switch (status) {
+            case PENDING -> 0;
+            case APPROVED -> 1;
+            case REJECTED -> 2;
+        };
+    }
+    
+    private static OrderStatus status(long code) {
+        return switch ((int) code) {
+            case 0 -> OrderStatus.PENDING;
+            case 1 -> OrderStatus.APPROVED;
+            case 2 -> OrderStatus.REJECTED;
+            default -> throw new SerializationException("Unknown order status code " + code);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.shared.serde;
+
+import com.example.shared.event.OrderEvent;
+
+public class OrderEventCodec implements BinaryEventCodec<OrderEvent> {
+    
+    // Field numbers are part of the wire format, see BinaryEventFormat before changing them
+    static final int ORDER_ID = 1;
+    static final int TIMESTAMP_SECONDS = 2;
+    static final int TIMESTAMP_NANOS = 3;
+    
+    @Override
+    public byte[] encode(OrderEvent event) {
+        return new BinaryEventWriter(BinaryEventFormat.TYPE_ORDER_EVENT, 40)
+            .writeString(ORDER_ID, event.getOrderId())
+            .writeInstant(TIMESTAMP_SECONDS, TIMESTAMP_NANOS, event.getTimestamp())
+            .toByteArray();
+    }
+    
+    @Override
+    public OrderEvent decode(byte[] data) {
+        BinaryEventReader reader = new BinaryEventReader(data, BinaryEventFormat.TYPE_ORDER_EVENT);
+        OrderEvent event = new OrderEvent();
+        Long seconds = null;
+        long nanos = 0;
+        
+        while (reader.next()) {
+            switch (reader.field()) {
+                case ORDER_ID -> event.setOrderId(reader.readString());
+                case TIMESTAMP_SECONDS -> seconds = reader.readLong();
+                case TIMESTAMP_NANOS -> nanos = reader.readLong();
+                default -> reader.skip();
+            }
+        }
+        
+        event.setTimestamp(BinaryEventReader.toInstant(seconds, nanos));
+        return event;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.shared.aot;
+
+import com.example.shared.dto.Order;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.serde.EventSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedRuntimeHintsTest {
+    
+    @Test
+    void testHints_CoverJsonBindingAndReflectiveSerializer() throws Exception {
+        // Arrange
+        RuntimeHints hints = new RuntimeHints();
+        
+        // Act
+        new SharedRuntimeHints().registerHints(hints, getClass().getClassLoader());
+        
+        // Assert
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Order.class.getMethod("getItemChunks")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(InventoryCheckResultEvent.class)
+            .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onConstructor(EventSerializer.class.getConstructor()).test(hints));
+    }
+    
+    @Test
+    void testHints_AreRegisteredInAotFactories() {
+        // Act & Assert
+        assertTrue(SpringFactoriesLoader.forResourceLocation("META-INF/spring/aot.factories")
+            .load(RuntimeHintsRegistrar.class).stream().anyMatch(SharedRuntimeHints.class::isInstance));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.shared.bus;
+
+import com.example.shared.event.PipelineHeaders;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+    
+    @Test
+    void testEveryGroupSeesEveryRecordInKeyOrder() throws Exception {
+        // Arrange
+        EventBus bus = new EventBus(3, 100, Duration.ofSeconds(1), 1, Duration.ZERO);
+        Map<String, List<Integer>> first = new ConcurrentHashMap<>();
+        Map<String, List<Integer>> second = new ConcurrentHashMap<>();
+        CountDownLatch delivered = new CountDownLatch(2 * 60);
+        EventBus.Subscription a = bus.<String, Integer>subscribe("events", "a", record -> {
+            first.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>())).add(record.value());
+            delivered.countDown();
+        }, (record, e) -> { });
+        EventBus.Subscription b = bus.<String, Integer>subscribe("events", "b", record -> {
+            second.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>())).add(record.value());
+            delivered.countDown();
+        }, (record, e) -> { });
+        
+        // Act
+        for (int i = 0; i < 20; i++) {
+            for (String key : List.of("ORD-1", "ORD-2", "ORD-3")) {
+                bus.publish("events", null, key, i, null);
+            }
+        }
+        
+        // Assert
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        for (String key : List.of("ORD-1", "ORD-2", "ORD-3")) {
+            List<Integer> expected = IntStream.range(0, 20).boxed().toList();
+            assertEquals(expected, first.get(key));
+            assertEquals(expected, second.get(key));
+        }
+        a.close();
+        b.close();
+    }
+    
+    @Test
+    void testPartitionsMatchKafkaAndOffsetsArePerPartition() {
+        // Arrange
+        EventBus bus = new EventBus(3, 100, Duration.ofSeconds(1), 1, Duration.ZERO);
+        int expected = Utils.toPositive(Utils.murmur2("ORD-1".getBytes(StandardCharsets.UTF_8))) % 3;
+        
+        // Act
+        RecordMetadata firstRecord = bus.publish("events", null, "ORD-1", "x", null);
+        RecordMetadata secondRecord = bus.publish("events", null, "ORD-1", "y", null);
+        
+        // Assert
+        assertEquals(expected, firstRecord.partition());
+        assertEquals(0, firstRecord.offset());
+        assertEquals(1, secondRecord.offset());
+    }
+    
+    @Test
+    void testFullQueue_PublishTimesOut() throws Exception {
+        // Arrange: one partition with room for one record and a handler that never finishes
+        EventBus bus = new EventBus(1, 1, Duration.ofMillis(50), 1, Duration.ZERO);
+        CountDownLatch release = new CountDownLatch(1);
+        EventBus.Subscription subscription = bus.<String, String>subscribe("events", "slow",
+            record -> release.await(), (record, e) -> { });
+        bus.publish("events", null, "ORD-1", "handled", null);
+        Thread.sleep(50);
+        bus.publish("events", null, "ORD-1", "queued", null);
+        
+        // Act & Assert
+        assertThrows(TimeoutException.class, () -> bus.publish("events", null, "ORD-1", "rejected", null));
+        assertEquals(1, bus.pending("events", "slow"));
+        release.countDown();
+        subscription.close();
+    }
+    
+    @Test
+    void testFailingHandler_IsRetriedThenDeadLettered() throws Exception {
+        // Arrange
+        EventBus bus = new EventBus(1, 10, Duration.ofSeconds(1), 3, Duration.ofMillis(1));
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch deadLettered = new CountDownLatch(1);
+        List<String> failures = new ArrayList<>();
+        EventBus.Subscription subscription = bus.<String, String>subscribe("events", "failing", record -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Order not found");
+        }, (record, e) -> {
+            failures.add(record.value() + ": " + e.getMessage());
+            deadLettered.countDown();
+        });
+        
+        // Act
+        bus.publish("events", null, "ORD-1", "event", null);
+        
+        // Assert
+        assertTrue(deadLettered.await(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertEquals(List.of("event: Order not found"), failures);
+        subscription.close();
+    }
+    
+    @Test
+    void testKafkaTemplate_PublishesWithHeadersCopiedPerRecord() throws Exception {
+        // Arrange
+        EventBus bus = new EventBus(3, 10, Duration.ofSeconds(1), 1, Duration.ZERO);
+        KafkaTemplate<String, String> template = BusProducer.kafkaTemplate(bus);
+        List<ConsumerRecord<String, String>> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch delivered = new CountDownLatch(1);
+        EventBus.Subscription subscription = bus.<String, String>subscribe("events", "group", record -> {
+            received.add(record);
+            delivered.countDown();
+        }, (record, e) -> { });
+        ProducerRecord<String, String> record = new ProducerRecord<>("events", "ORD-1", "event");
+        PipelineHeaders.stamp(record.headers(), PipelineHeaders.ORDER_PUBLISHED_AT, 42L);
+        
+        // Act
+        RecordMetadata metadata = template.send(record).get(1, TimeUnit.SECONDS).getRecordMetadata();
+        record.headers().remove(PipelineHeaders.ORDER_PUBLISHED_AT);
+        
+        // Assert
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(metadata.partition(), received.get(0).partition());
+        assertEquals(42L, PipelineHeaders.read(received.get(0).headers(), PipelineHeaders.ORDER_PUBLISHED_AT));
+        assertTrue(template.metrics().isEmpty());
+        subscription.close();
+    }
+}
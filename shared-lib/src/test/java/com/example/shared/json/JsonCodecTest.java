@@ -0,0 +1,133 @@
+package com.example.shared.json;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCodecTest {
+    
+    private static final Instant CREATED_AT = Instant.parse("2025-06-30T14:00:00.123456789Z");
+    
+    private final JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+    
+    @Test
+    void testOrderRoundTrip_KeepsNumericInstantsWithNanos() throws Exception {
+        // Arrange
+        Order order = new Order("ORD-12345678", "John Doe", List.of(new OrderItem("P1001", 2, "standard")),
+            CREATED_AT, OrderStatus.PENDING, CREATED_AT);
+        
+        // Act
+        String json = jsonCodec.writeString(order);
+        Order fromString = jsonCodec.read(json, Order.class);
+        Order fromBytes = jsonCodec.read(jsonCodec.writeBytes(order), Order.class);
+        
+        // Assert
+        assertTrue(json.contains("\"createdAt\":1751292000.123456789"));
+        assertEquals(CREATED_AT, fromString.getCreatedAt());
+        assertEquals(CREATED_AT, fromBytes.getRequestedAt());
+        assertEquals("P1001", fromBytes.getItems().get(0).getProductId());
+    }
+    
+    @Test
+    void testReadList_AndToleratesUnknownProperties() throws Exception {
+        // Arrange
+        String json = "[{\"productId\":\"P1001\",\"requestedQuantity\":15,\"availableQuantity\":10,"
+            + "\"reason\":\"Insufficient quantity\",\"addedLater\":true}]";
+        
+        // Act
+        List<MissingItem> missingItems = jsonCodec.readList(json, MissingItem.class);
+        
+        // Assert
+        assertEquals(1, missingItems.size());
+        assertEquals("P1001", missingItems.get(0).getProductId());
+        assertEquals(10, missingItems.get(0).getAvailableQuantity());
+    }
+    
+    @Test
+    void testRedisSerializer_WritesPlainJsonAndUnwrapsLegacyValues() {
+        // Arrange - the services' former value serializer
+        ObjectMapper legacyMapper = new ObjectMapper();
+        legacyMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,
+            ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer legacySerializer = new GenericJackson2JsonRedisSerializer(legacyMapper);
+        LegacyAwareStringRedisSerializer serializer = new LegacyAwareStringRedisSerializer(JsonMappers.create());
+        String orderJson = "{\"orderId\":\"ORD-12345678\",\"status\":\"PENDING\"}";
+        
+        // Act
+        byte[] legacyBytes = legacySerializer.serialize(orderJson);
+        byte[] plainBytes = serializer.serialize(orderJson);
+        
+        // Assert
+        assertEquals(orderJson, new String(plainBytes, StandardCharsets.UTF_8));
+        assertEquals(orderJson, serializer.deserialize(legacyBytes));
+        assertEquals(orderJson, serializer.deserialize(plainBytes));
+        assertEquals("Acme", serializer.deserialize(legacySerializer.serialize("Acme")));
+        assertNull(serializer.deserialize(null));
+    }
+    
+    @Test
+    void testRedisSerializer_WriteLegacyKeepsValuesReadableByTheFormerSerializer() {
+        // Arrange
+        GenericJackson2JsonRedisSerializer legacySerializer = new GenericJackson2JsonRedisSerializer(legacyMapper());
+        LegacyAwareStringRedisSerializer serializer = new LegacyAwareStringRedisSerializer(JsonMappers.create(), true, true);
+        String orderJson = "{\"orderId\":\"ORD-12345678\",\"status\":\"PENDING\"}";
+        
+        // Act
+        byte[] bytes = serializer.serialize(orderJson);
+        
+        // Assert
+        assertEquals(orderJson, legacySerializer.deserialize(bytes, String.class));
+        assertEquals(orderJson, serializer.deserialize(bytes));
+    }
+    
+    @Test
+    void testRedisSerializer_ValuesTheServicesWriteAreNeverTakenForLegacyOnes() throws Exception {
+        // Arrange - one of each kind of value written through the string templates
+        Order order = new Order("ORD-12345678", "\"Quoted\" Customer", List.of(new OrderItem("P1001", 2, "standard")),
+            CREATED_AT, OrderStatus.PENDING, CREATED_AT);
+        List<String> values = List.of(
+            jsonCodec.writeString(order),
+            jsonCodec.writeString(List.of(new MissingItem("P1001", 15, 10, "Insufficient quantity"))),
+            jsonCodec.writeString(order.getItems()),
+            "ORD-12345678",
+            "pending:ORD-12345678",
+            "done:" + "a".repeat(64) + ":ORD-12345678");
+        LegacyAwareStringRedisSerializer serializer = new LegacyAwareStringRedisSerializer(JsonMappers.create());
+        
+        // Act & Assert
+        for (String value : values) {
+            assertFalse(value.startsWith("\"") && value.endsWith("\""), value);
+            assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        }
+    }
+    
+    @Test
+    void testRedisSerializer_QuotedPlainValuesThatAreNotOneJsonString() {
+        // Arrange
+        LegacyAwareStringRedisSerializer serializer = new LegacyAwareStringRedisSerializer(JsonMappers.create());
+        LegacyAwareStringRedisSerializer afterCutover = new LegacyAwareStringRedisSerializer(JsonMappers.create(), false, false);
+        
+        // Act & Assert
+        assertEquals("\"Acme\" and \"Globex\"", serializer.deserialize(serializer.serialize("\"Acme\" and \"Globex\"")));
+        assertEquals("\"Acme\"", afterCutover.deserialize(afterCutover.serialize("\"Acme\"")));
+    }
+    
+    private static ObjectMapper legacyMapper() {
+        ObjectMapper legacyMapper = new ObjectMapper();
+        legacyMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,
+            ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        return legacyMapper;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.shared.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyPolicyTest {
+    
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+    
+    // 1 to 12 consumers, up above 1000 records or 5 s of backlog per consumer for 2 samples,
+    // down below 100 records and 0.5 s for 3 samples, 60 s cooldown
+    private final ConcurrencyPolicy policy = new ConcurrencyPolicy(1, 12, 1000, 100,
+        Duration.ofSeconds(5), Duration.ofMillis(500), 2, 3, Duration.ofSeconds(60));
+    
+    @Test
+    void testNext_ScalesUpOnlyAfterConsecutiveSamples() {
+        // Act
+        int first = policy.next(3, 12, 6000, 1.0, 0);
+        int second = policy.next(3, 12, 6000, 1.0, 10 * SECOND);
+        
+        // Assert
+        assertEquals(3, first);
+        assertEquals(6, second);
+    }
+    
+    @Test
+    void testNext_ScalesUpOnBacklogTimeWithSmallLag() {
+        // 300 records per consumer at 50 ms each is 15 s of backlog
+        policy.next(2, 12, 600, 50.0, 0);
+        
+        // Act
+        int next = policy.next(2, 12, 600, 50.0, 10 * SECOND);
+        
+        // Assert
+        assertEquals(4, next);
+    }
+    
+    @Test
+    void testNext_NeverExceedsPartitionCount() {
+        policy.next(3, 4, 100_000, 1.0, 0);
+        
+        // Act
+        int next = policy.next(3, 4, 100_000, 1.0, 10 * SECOND);
+        int shrunk = policy.next(6, 4, 0, 1.0, 20 * SECOND);
+        
+        // Assert
+        assertEquals(4, next);
+        assertEquals(4, shrunk);
+    }
+    
+    @Test
+    void testNext_HoldsDuringCooldownAndInDeadBand() {
+        policy.next(2, 12, 10_000, 1.0, 0);
+        assertEquals(4, policy.next(2, 12, 10_000, 1.0, 10 * SECOND));
+        
+        // Act: still lagging, but within the cooldown
+        int cooling = policy.next(4, 12, 10_000, 1.0, 20 * SECOND);
+        int coolingAgain = policy.next(4, 12, 10_000, 1.0, 30 * SECOND);
+        // Between the thresholds nothing changes, whatever the streak
+        int deadBand = 4;
+        for (int i = 0; i < 10; i++) {
+            deadBand = policy.next(4, 12, 2000, 1.0, (80 + i * 10) * SECOND);
+        }
+        
+        // Assert
+        assertEquals(4, cooling);
+        assertEquals(4, coolingAgain);
+        assertEquals(4, deadBand);
+    }
+    
+    @Test
+    void testNext_ScalesDownOneAtATimeToMinimum() {
+        // Act
+        int first = policy.next(2, 12, 0, 1.0, 0);
+        int second = policy.next(2, 12, 0, 1.0, 10 * SECOND);
+        int third = policy.next(2, 12, 0, 1.0, 20 * SECOND);
+        int atMinimum = 1;
+        for (int i = 0; i < 5; i++) {
+            atMinimum = policy.next(1, 12, 0, 1.0, (100 + i * 10) * SECOND);
+        }
+        
+        // Assert
+        assertEquals(2, first);
+        assertEquals(2, second);
+        assertEquals(1, third);
+        assertEquals(1, atMinimum);
+    }
+    
+    @Test
+    void testConstructor_RejectsOverlappingThresholds() {
+        // Assert
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyPolicy(1, 12, 100, 100,
+            Duration.ofSeconds(5), Duration.ofMillis(500), 2, 3, Duration.ofSeconds(60)));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyPolicy(4, 2, 1000, 100,
+            Duration.ofSeconds(5), Duration.ofMillis(500), 2, 3, Duration.ofSeconds(60)));
+    }
+}
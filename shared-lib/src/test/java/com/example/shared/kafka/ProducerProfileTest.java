@@ -0,0 +1,33 @@
+package com.example.shared.kafka;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProducerProfileTest {
+    
+    @Test
+    void testFrom_AcceptsPropertyAndEnumNames() {
+        // Assert
+        assertEquals(ProducerProfile.LOW_LATENCY, ProducerProfile.from("low-latency"));
+        assertEquals(ProducerProfile.HIGH_THROUGHPUT, ProducerProfile.from(" HIGH_THROUGHPUT "));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.from("fastest"));
+    }
+    
+    @Test
+    void testProducerConfig_EveryProfileIsIdempotent() {
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            // Act
+            Map<String, Object> config = profile.producerConfig();
+            
+            // Assert
+            assertEquals("all", config.get(ProducerConfig.ACKS_CONFIG));
+            assertEquals(true, config.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+            assertTrue((Integer) config.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION) <= 5);
+            assertEquals(profile.getCompressionType(), config.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.shared.repository;
+
+import com.example.shared.dto.MissingItem;
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderRepositoryTest {
+    
+    private static final Duration TTL = Duration.ofMinutes(10);
+    
+    private final JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+    
+    @Test
+    void testPutGetAndGetAll_SkipsUnknownOrders() {
+        // Arrange
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        repository.putAll(List.of(order("ORD-00000001"), order("ORD-00000002")), TTL);
+        
+        // Act
+        Order order = repository.get("ORD-00000001");
+        Map<String, Order> orders = repository.getAll(List.of("ORD-00000002", "ORD-UNKNOWN", "ORD-00000001"));
+        
+        // Assert
+        assertEquals("Jane Doe", order.getCustomerName());
+        assertEquals("P1001", order.getItems().get(0).getProductId());
+        assertNull(repository.get("ORD-UNKNOWN"));
+        assertEquals(List.of("ORD-00000002", "ORD-00000001"), List.copyOf(orders.keySet()));
+    }
+    
+    @Test
+    void testUpdateStatusAndMissingItems() {
+        // Arrange
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        repository.put(order("ORD-00000001"), TTL);
+        
+        // Act
+        boolean updated = repository.updateStatus("ORD-00000001", OrderStatus.REJECTED, TTL);
+        boolean updatedUnknown = repository.updateStatus("ORD-UNKNOWN", OrderStatus.APPROVED, TTL);
+        repository.putMissingItems("ORD-00000001",
+            List.of(new MissingItem("P1001", 15, 10, "Insufficient quantity")), TTL);
+        
+        // Assert
+        assertTrue(updated);
+        assertFalse(updatedUnknown);
+        assertEquals(OrderStatus.REJECTED, repository.get("ORD-00000001").getStatus());
+        assertEquals(10, repository.getMissingItems("ORD-00000001").get(0).getAvailableQuantity());
+        assertNull(repository.getMissingItems("ORD-UNKNOWN"));
+    }
+    
+    @Test
+    void testExpiredEntriesAreGoneAndTheirSpaceIsReused() throws Exception {
+        // Arrange: one stripe with room for about four orders
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024, 1, true);
+        repository.put(order("ORD-00000001"), Duration.ofMillis(1));
+        repository.put(order("ORD-00000002"), Duration.ofMillis(1));
+        Thread.sleep(20);
+        
+        // Act: overwriting one live order many times forces compactions
+        for (int i = 0; i < 50; i++) {
+            repository.put(order("ORD-00000003"), TTL);
+        }
+        
+        // Assert
+        assertNull(repository.get("ORD-00000001"));
+        assertFalse(repository.updateStatus("ORD-00000002", OrderStatus.APPROVED, TTL));
+        assertEquals(OrderStatus.PENDING, repository.get("ORD-00000003").getStatus());
+        assertEquals(1, repository.size());
+    }
+    
+    @Test
+    void testFullStore_RejectsTheWriteAndKeepsTheOldValue() {
+        // Arrange
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024, 1, true);
+        int stored = 0;
+        try {
+            while (true) {
+                repository.put(order(String.format("ORD-%08d", stored)), TTL);
+                stored++;
+            }
+        } catch (IllegalStateException expected) {
+            // Arena is full of live orders
+        }
+        
+        Order larger = order("ORD-00000000");
+        larger.setItems(Collections.nCopies(20, new OrderItem("P1001", 2, "standard")));
+        
+        // Act & Assert - an overwrite that fits in the space the old value frees still succeeds
+        assertTrue(stored > 0);
+        assertThrows(IllegalStateException.class, () -> repository.put(larger, TTL));
+        assertEquals(1, repository.get("ORD-00000000").getItems().size());
+        assertEquals(stored, repository.size());
+        assertTrue(repository.updateStatus("ORD-00000000", OrderStatus.APPROVED, TTL));
+        assertEquals(OrderStatus.APPROVED, repository.get("ORD-00000000").getStatus());
+    }
+    
+    @Test
+    void testFindByCustomer_CursorResumesWithinTheSameMillisecondAndOldRefsAreTrimmed() {
+        // Arrange: three orders created in the same millisecond, one older than the ttl
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        Instant now = Instant.now();
+        for (String orderId : List.of("ORD-00000002", "ORD-00000001", "ORD-00000003")) {
+            repository.put(order(orderId, now), TTL);
+        }
+        repository.put(order("ORD-00000000", now.minus(Duration.ofHours(1))), TTL);
+        
+        // Act
+        List<CustomerOrderRef> first = repository.findByCustomer("Jane Doe", null, 2);
+        List<CustomerOrderRef> second = repository.findByCustomer("Jane Doe",
+            CustomerOrderRef.fromCursor(first.get(1).toCursor()), 2);
+        
+        // Assert
+        assertEquals(List.of("ORD-00000003", "ORD-00000002"), first.stream().map(CustomerOrderRef::orderId).toList());
+        assertEquals(List.of("ORD-00000001"), second.stream().map(CustomerOrderRef::orderId).toList());
+        assertTrue(repository.findByCustomer("John Doe", null, 2).isEmpty());
+    }
+    
+    @Test
+    void testCustomerIndex_ExpiredCustomersAreDroppedOnReadAndBySweep() throws Exception {
+        // Arrange: two customers whose only orders outlive their ttl
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        Instant now = Instant.now();
+        repository.put(order("ORD-00000001", now), Duration.ofMillis(50));
+        repository.put(new Order("ORD-00000002", "John Doe", List.of(new OrderItem("P1001", 1, "standard")), now,
+            OrderStatus.PENDING, now), Duration.ofMillis(50));
+        Thread.sleep(100);
+        // The first write swept already; make the next sweep due
+        ReflectionTestUtils.setField(repository, "nextSweepMillis", new AtomicLong());
+        
+        // Act
+        List<CustomerOrderRef> refs = repository.findByCustomer("Jane Doe", null, 10);
+        
+        // Assert
+        assertTrue(refs.isEmpty());
+        assertEquals(0, repository.indexedCustomers());
+    }
+    
+    @Test
+    void testScan_ReturnsEveryOrderOnceAcrossSmallBatchesAndSkipsMissingItems() {
+        // Arrange
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        Set<String> stored = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            String orderId = String.format("ORD-%08X", i);
+            repository.put(order(orderId), TTL);
+            stored.add(orderId);
+        }
+        repository.putMissingItems("ORD-00000001",
+            List.of(new MissingItem("P1001", 15, 10, "Insufficient quantity")), TTL);
+        
+        // Act
+        List<String> scanned = new ArrayList<>();
+        int batches = 0;
+        String cursor = OrderScanPage.SCAN_START;
+        do {
+            OrderScanPage page = repository.scan(cursor, 7);
+            page.orders().forEach(order -> scanned.add(order.getOrderId()));
+            cursor = page.nextCursor();
+            batches++;
+        } while (!OrderScanPage.SCAN_START.equals(cursor));
+        
+        // Assert
+        assertEquals(300, scanned.size());
+        assertEquals(stored, new HashSet<>(scanned));
+        assertTrue(batches > 300 / 7);
+        assertThrows(IllegalArgumentException.class, () -> repository.scan("not-a-cursor", 7));
+    }
+    
+    @Test
+    void testItemChunks_StreamedInOrderWithTheirTtlRestartedByStatusUpdates() throws Exception {
+        // Arrange
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        Order order = order("ORD-00000001");
+        order.setItems(List.of());
+        order.setItemChunks(3);
+        order.setItemCount(5);
+        for (int chunk = 0; chunk < 3; chunk++) {
+            repository.putItemChunk("ORD-00000001", chunk, List.of(new OrderItem("P" + chunk, 1, "standard"),
+                new OrderItem("Q" + chunk, 2, "standard")).subList(0, chunk == 2 ? 1 : 2), Duration.ofMillis(200));
+        }
+        repository.put(order, TTL);
+        
+        // Act - the chunks would have expired by now without the update
+        repository.updateStatus("ORD-00000001", OrderStatus.APPROVED, TTL);
+        Thread.sleep(300);
+        Order stored = repository.get("ORD-00000001");
+        List<String> productIds = repository.streamItems(stored)
+            .flatMap(List::stream).map(OrderItem::getProductId).toList();
+        repository.deleteItemChunks("ORD-00000001", 3);
+        
+        // Assert
+        assertEquals(3, stored.getItemChunks());
+        assertEquals(5, stored.getItemCount());
+        assertTrue(stored.getItems().isEmpty());
+        assertEquals(List.of("P0", "Q0", "P1", "Q1", "P2"), productIds);
+        assertNull(repository.getItemChunk("ORD-00000001", 0));
+        assertThrows(IllegalStateException.class, () -> repository.streamItems(stored).toList());
+        assertEquals(1, repository.scan(OrderScanPage.SCAN_START, 10).orders().size());
+    }
+    
+    @Test
+    void testItemChunks_TtlRestartedWhenTheDocumentIsPut() throws Exception {
+        // Arrange - chunks written at the start of a slow upload
+        OffHeapOrderRepository repository = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+        Order order = order("ORD-00000001");
+        order.setItems(List.of());
+        order.setItemChunks(2);
+        order.setItemCount(2);
+        for (int chunk = 0; chunk < 2; chunk++) {
+            repository.putItemChunk("ORD-00000001", chunk, List.of(new OrderItem("P" + chunk, 1, "standard")),
+                Duration.ofMillis(200));
+        }
+        
+        // Act
+        repository.put(order, TTL);
+        Thread.sleep(300);
+        
+        // Assert
+        Order stored = repository.get("ORD-00000001");
+        assertNotNull(stored);
+        assertEquals(List.of("P0", "P1"), repository.streamItems(stored)
+            .flatMap(List::stream).map(OrderItem::getProductId).toList());
+    }
+    
+    private static Order order(String orderId) {
+        return order(orderId, Instant.parse("2025-06-30T14:00:00Z"));
+    }
+    
+    private static Order order(String orderId, Instant createdAt) {
+        return new Order(orderId, "Jane Doe", List.of(new OrderItem("P1001", 2, "standard")), createdAt,
+            OrderStatus.PENDING, createdAt);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.shared.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+    
+    private static final long TTL_MILLIS = 60_000;
+    
+    @Test
+    void testPut_OverwriteFitsOnceTheOldValueIsFreed() {
+        // Arrange: 900 of 1024 bytes live, 600 of them the value being overwritten
+        OffHeapStore store = new OffHeapStore(1024, 1);
+        store.put("a", new byte[600], TTL_MILLIS);
+        store.put("b", new byte[300], TTL_MILLIS);
+        
+        // Act
+        store.put("a", new byte[700], TTL_MILLIS);
+        
+        // Assert
+        assertEquals(700, store.get("a").length);
+        assertEquals(300, store.get("b").length);
+        assertEquals(1000, store.liveBytes());
+    }
+    
+    @Test
+    void testPut_OverwriteThatCannotFitKeepsTheOldValue() {
+        // Arrange
+        OffHeapStore store = new OffHeapStore(1024, 1);
+        store.put("a", new byte[600], TTL_MILLIS);
+        store.put("b", new byte[300], TTL_MILLIS);
+        
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> store.put("a", new byte[800], TTL_MILLIS));
+        assertEquals(600, store.get("a").length);
+        assertEquals(900, store.liveBytes());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.shared.repository;
+
+import com.example.shared.dto.Order;
+import com.example.shared.dto.OrderItem;
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.json.JsonCodec;
+import com.example.shared.json.JsonMappers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaReadOrderRepositoryTest {
+    
+    private static final Duration TTL = Duration.ofMinutes(10);
+    
+    private final JsonCodec jsonCodec = new JsonCodec(JsonMappers.create());
+    // Two separate stores, so the replica only has what a test copies to it
+    private final OffHeapOrderRepository primary = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+    private final OffHeapOrderRepository replica = new OffHeapOrderRepository(jsonCodec, 1024 * 1024);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    
+    @Test
+    void testGet_FallsBackToPrimaryWhenReplicaMisses() {
+        // Arrange
+        ReplicaReadOrderRepository repository = new ReplicaReadOrderRepository(primary, replica, Duration.ZERO, registry);
+        repository.put(order("ORD-00000001", OrderStatus.PENDING), TTL);
+        
+        // Act
+        Order order = repository.get("ORD-00000001");
+        
+        // Assert
+        assertNotNull(order);
+        assertEquals(1.0, reads("replica-miss"));
+    }
+    
+    @Test
+    void testGet_ReadsPrimaryWithinReadYourWritesWindow() {
+        // Arrange
+        ReplicaReadOrderRepository repository = new ReplicaReadOrderRepository(primary, replica, Duration.ofMinutes(1), registry);
+        replica.put(order("ORD-00000001", OrderStatus.PENDING), TTL);
+        repository.put(order("ORD-00000001", OrderStatus.PENDING), TTL);
+        repository.updateStatus("ORD-00000001", OrderStatus.APPROVED, TTL);
+        
+        // Act
+        Order order = repository.get("ORD-00000001");
+        
+        // Assert
+        assertEquals(OrderStatus.APPROVED, order.getStatus());
+        assertEquals(1.0, reads("recent-write"));
+        assertEquals(0.0, reads("replica"));
+    }
+    
+    @Test
+    void testGet_ReadsReplicaAfterWindowAndGetLatestReadsPrimary() throws InterruptedException {
+        // Arrange
+        ReplicaReadOrderRepository repository = new ReplicaReadOrderRepository(primary, replica, Duration.ofMillis(1), registry);
+        replica.put(order("ORD-00000001", OrderStatus.PENDING), TTL);
+        repository.put(order("ORD-00000001", OrderStatus.REJECTED), TTL);
+        Thread.sleep(5);
+        
+        // Act
+        Order stale = repository.get("ORD-00000001");
+        Order latest = repository.getLatest("ORD-00000001");
+        
+        // Assert
+        assertEquals(OrderStatus.PENDING, stale.getStatus());
+        assertEquals(OrderStatus.REJECTED, latest.getStatus());
+    }
+    
+    @Test
+    void testGetAll_MergesReplicaAndPrimaryInRequestOrder() {
+        // Arrange
+        ReplicaReadOrderRepository repository = new ReplicaReadOrderRepository(primary, replica, Duration.ZERO, registry);
+        primary.putAll(List.of(order("ORD-00000001", OrderStatus.PENDING), order("ORD-00000002", OrderStatus.PENDING)), TTL);
+        replica.put(order("ORD-00000002", OrderStatus.PENDING), TTL);
+        
+        // Act
+        Map<String, Order> orders = repository.getAll(List.of("ORD-00000002", "ORD-UNKNOWN", "ORD-00000001"));
+        
+        // Assert
+        assertEquals(List.of("ORD-00000002", "ORD-00000001"), List.copyOf(orders.keySet()));
+        assertEquals(2.0, reads("replica-miss"));
+    }
+    
+    private double reads(String route) {
+        return registry.get("order.repository.reads").tag("route", route).counter().count();
+    }
+    
+    private static Order order(String orderId, OrderStatus status) {
+        Instant createdAt = Instant.parse("2025-06-30T14:00:00Z");
+        return new Order(orderId, "Jane Doe", List.of(new OrderItem("P1001", 2, "standard")), createdAt, status, createdAt);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.shared.serde;
+
+import com.example.shared.dto.OrderStatus;
+import com.example.shared.event.InventoryCheckResultEvent;
+import com.example.shared.event.OrderEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventSerdeTest {
+    
+    private static final Instant TIMESTAMP = Instant.parse("2025-06-30T14:00:00.123456789Z");
+    private static final String TYPE_MAPPINGS = "orderEvent:com.example.shared.event.OrderEvent,"
+        + "inventoryCheckResultEvent:com.example.shared.event.InventoryCheckResultEvent";
+    
+    private EventSerializer<Object> serializer;
+    
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(JsonSerializer.TYPE_MAPPINGS, TYPE_MAPPINGS);
+        configs.put(EventSerializer.formatConfig("order-events"), "binary");
+        configs.put(EventSerializer.formatConfig("inventory-check-results"), "binary");
+        configs.put(EventSerializer.formatConfig("legacy-events"), "json");
+        
+        serializer = new EventSerializer<>();
+        serializer.configure(configs, false);
+    }
+    
+    @Test
+    void testBinaryRoundTrip_BothEventTypes() {
+        // Arrange
+        EventDeserializer<OrderEvent> orderDeserializer = deserializer(OrderEvent.class);
+        EventDeserializer<InventoryCheckResultEvent> resultDeserializer = deserializer(InventoryCheckResultEvent.class);
+        
+        // Act
+        byte[] orderBytes = serializer.serialize("order-events", new RecordHeaders(), new OrderEvent("ORD-12345678", TIMESTAMP));
+        byte[] resultBytes = serializer.serialize("inventory-check-results", new RecordHeaders(),
+            new InventoryCheckResultEvent("ORD-12345678", OrderStatus.REJECTED, TIMESTAMP));
+        
+        OrderEvent order = orderDeserializer.deserialize("order-events", new RecordHeaders(), orderBytes);
+        InventoryCheckResultEvent result = resultDeserializer.deserialize("inventory-check-results", new RecordHeaders(), resultBytes);
+        
+        // Assert
+        assertTrue(BinaryEventFormat.isBinary(orderBytes));
+        assertEquals("ORD-12345678", order.getOrderId());
+        assertEquals(TIMESTAMP, order.getTimestamp());
+        assertEquals("ORD-12345678", result.getOrderId());
+        assertEquals(OrderStatus.REJECTED, result.getStatus());
+        assertEquals(TIMESTAMP, result.getTimestamp());
+    }
+    
+    @Test
+    void testDeserializer_ReadsLegacyJsonWithTypeHeaders() {
+        // Arrange
+        RecordHeaders headers = new RecordHeaders();
+        byte[] json = serializer.serialize("legacy-events", headers, new OrderEvent("ORD-LEGACY01", TIMESTAMP));
+        assertEquals('{', (char) json[0]);
+        assertNotNull(headers.lastHeader("__TypeId__"));
+        
+        // Act
+        OrderEvent event = deserializer(OrderEvent.class).deserialize("legacy-events", headers, json);
+        
+        // Assert
+        assertEquals("ORD-LEGACY01", event.getOrderId());
+        assertEquals(TIMESTAMP, event.getTimestamp());
+    }
+    
+    @Test
+    void testDecode_SkipsUnknownFieldsFromNewerWriters() {
+        // Arrange - a newer writer added a string field 9 and a varint field 10
+        byte[] payload = new BinaryEventWriter(BinaryEventFormat.TYPE_INVENTORY_CHECK_RESULT_EVENT, 16)
+            .writeString(9, "added-later")
+            .writeString(InventoryCheckResultEventCodec.ORDER_ID, "ORD-FORWARD1")
+            .writeLong(10, 42)
+            .writeLong(InventoryCheckResultEventCodec.STATUS, 1)
+            .toByteArray();
+        
+        // Act
+        InventoryCheckResultEvent event = new InventoryCheckResultEventCodec().decode(payload);
+        
+        // Assert
+        assertEquals("ORD-FORWARD1", event.getOrderId());
+        assertEquals(OrderStatus.APPROVED, event.getStatus());
+        assertNull(event.getTimestamp());
+    }
+    
+    @Test
+    void testDecode_RejectsNewerEnvelopeVersionAndWrongType() {
+        // Arrange
+        byte[] payload = new OrderEventCodec().encode(new OrderEvent("ORD-12345678", TIMESTAMP));
+        byte[] newerVersion = payload.clone();
+        newerVersion[1] = BinaryEventFormat.VERSION + 1;
+        
+        // Act & Assert
+        assertThrows(SerializationException.class, () -> new OrderEventCodec().decode(newerVersion));
+        assertThrows(SerializationException.class, () -> new InventoryCheckResultEventCodec().decode(payload));
+    }
+    
+    private <T> EventDeserializer<T> deserializer(Class<T> type) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configs.put(JsonDeserializer.TYPE_MAPPINGS, TYPE_MAPPINGS);
+        
+        EventDeserializer<T> deserializer = new EventDeserializer<>(type);
+        deserializer.configure(configs, false);
+        return deserializer;
+    }
+}
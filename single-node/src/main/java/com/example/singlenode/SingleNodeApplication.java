@@ -0,0 +1,58 @@
+package com.example.singlenode;
+
+import com.example.inventoryservice.InventoryServiceApplication;
+import com.example.notificationservice.NotificationServiceApplication;
+import com.example.orderservice.OrderServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Runs the three services in one JVM with the embedded profile: events travel over the
+// in-memory event bus and orders live in the embedded repository, so only Redis (for
+// idempotency keys and digest overflow) is needed outside the process. Each service keeps
+// its own application context, port and configuration; arguments are passed to all three.
+public class SingleNodeApplication {
+    
+    public static void main(String[] args) throws IOException {
+        List<ConfigurableApplicationContext> services = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // Upstream first, so nothing is published to a service that has already stopped
+            for (int i = services.size() - 1; i >= 0; i--) {
+                services.get(i).close();
+            }
+        }, "single-node-shutdown"));
+        
+        // Downstream services first so their subscriptions exist before orders arrive
+        services.add(start(NotificationServiceApplication.class, args));
+        services.add(start(InventoryServiceApplication.class, args));
+        services.add(start(OrderServiceApplication.class, args));
+    }
+    
+    private static ConfigurableApplicationContext start(Class<?> application, String[] args) throws IOException {
+        return new SpringApplicationBuilder(application)
+            .profiles("embedded")
+            .properties("spring.config.location=" + ownConfig(application),
+                // The log pattern is set up once per JVM, so it would show the first service's name on every line
+                "logging.include-application-name=false")
+            .registerShutdownHook(false)
+            .run(args);
+    }
+    
+    // Every service jar ships an application.yml at the classpath root; use the one packaged
+    // next to the application class
+    private static String ownConfig(Class<?> application) throws IOException {
+        String codeSource = application.getProtectionDomain().getCodeSource().getLocation().toString();
+        String archive = codeSource.replaceFirst("^jar:", "").replaceFirst("!/$", "");
+        for (URL config : Collections.list(application.getClassLoader().getResources("application.yml"))) {
+            if (config.toString().contains(archive)) {
+                return config.toString();
+            }
+        }
+        throw new IllegalStateException("No application.yml found in " + codeSource);
+    }
+}